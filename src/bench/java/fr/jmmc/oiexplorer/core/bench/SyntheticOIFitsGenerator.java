@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.bench;
+
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIArray;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OITarget;
+import fr.jmmc.oitools.model.OIVis2;
+import fr.jmmc.oitools.model.OIWavelength;
+import fr.jmmc.oitools.processing.Selector;
+import fr.jmmc.oitools.processing.SelectorResult;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic OIFits collections (1 array, 1 instrument, 1 target and 1 OI_VIS2 table per file)
+ * used by benchmarks: the same parameters and seed always give the same data.
+ *
+ * @author bourgesl
+ */
+public final class SyntheticOIFitsGenerator {
+
+    /** instrument name */
+    public static final String INS_NAME = "SYNTH_INS";
+    /** array name */
+    public static final String ARR_NAME = "SYNTH_ARRAY";
+    /** target name */
+    public static final String TARGET_NAME = "SYNTH_TARGET";
+    /** first MJD */
+    private static final double MJD_START = 59000.0;
+    /** wavelength range (m) */
+    private static final double WAVE_MIN = 1.5e-6;
+    private static final double WAVE_MAX = 2.4e-6;
+
+    /* members */
+    /** number of rows per OI_VIS2 table */
+    private final int nRows;
+    /** number of wavelengths */
+    private final int nWaves;
+    /** number of baselines (rows are distributed on baselines) */
+    private final int nBaselines;
+    /** ratio of flagged data [0; 1] */
+    private final double flagRatio;
+    /** random seed */
+    private final long seed;
+
+    /**
+     * Public constructor
+     * @param nRows number of rows per OI_VIS2 table
+     * @param nWaves number of wavelengths
+     * @param nBaselines number of baselines
+     * @param flagRatio ratio of flagged data [0; 1]
+     * @param seed random seed
+     */
+    public SyntheticOIFitsGenerator(final int nRows, final int nWaves, final int nBaselines,
+                                    final double flagRatio, final long seed) {
+        if (nRows < 1 || nWaves < 1 || nBaselines < 1) {
+            throw new IllegalArgumentException("Invalid dimensions: rows = " + nRows + " waves = " + nWaves
+                    + " baselines = " + nBaselines);
+        }
+        this.nRows = nRows;
+        this.nWaves = nWaves;
+        this.nBaselines = nBaselines;
+        this.flagRatio = Math.max(0.0, Math.min(1.0, flagRatio));
+        this.seed = seed;
+    }
+
+    /**
+     * Return the total number of data points (rows x wavelengths) per file
+     * @return number of data points per file
+     */
+    public long getDataPointCount() {
+        return ((long) nRows) * nWaves;
+    }
+
+    /**
+     * Create a new analyzed collection of the given number of synthetic files
+     * @param nFiles number of files
+     * @return analyzed OIFits collection
+     */
+    public OIFitsCollection createCollection(final int nFiles) {
+        final OIFitsCollection collection = new OIFitsCollection();
+
+        for (int i = 0; i < nFiles; i++) {
+            collection.addOIFitsFile(createFile(i));
+        }
+        collection.analyzeCollection();
+        return collection;
+    }
+
+    /**
+     * Return the selector result of all OIData tables in the given collection
+     * @param collection analyzed OIFits collection
+     * @return selector result
+     */
+    public static SelectorResult selectAll(final OIFitsCollection collection) {
+        final SelectorResult result = collection.findOIData(new Selector(), null);
+        if (result != null) {
+            result.setUsedStaNamesMap(collection.getUsedStaNamesMap());
+        }
+        return result;
+    }
+
+    /**
+     * Create the synthetic file at the given index (seed + index)
+     * @param index file index
+     * @return OIFits file (not analyzed)
+     */
+    public OIFitsFile createFile(final int index) {
+        final Random random = new Random(seed + index);
+
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1, "synthetic-" + index + ".fits");
+
+        // stations: smallest n such as n (n - 1) / 2 >= nBaselines
+        int nStations = 2;
+        while (nStations * (nStations - 1) / 2 < nBaselines) {
+            nStations++;
+        }
+
+        final OIArray oiArray = new OIArray(oiFitsFile, nStations);
+        oiArray.setArrName(ARR_NAME);
+        oiArray.setFrame("GEOCENTRIC");
+
+        final String[] telNames = oiArray.getTelName();
+        final String[] staNames = oiArray.getStaName();
+        final short[] staIndexes = oiArray.getStaIndex();
+        final float[] diameters = oiArray.getDiameter();
+        final double[][] staXYZ = oiArray.getStaXYZ();
+
+        for (int i = 0; i < nStations; i++) {
+            telNames[i] = "T" + (i + 1);
+            staNames[i] = "S" + (i + 1);
+            staIndexes[i] = (short) (i + 1);
+            diameters[i] = 1.8f;
+            staXYZ[i][0] = 100.0 * random.nextDouble();
+            staXYZ[i][1] = 100.0 * random.nextDouble();
+            staXYZ[i][2] = 0.0;
+        }
+        oiFitsFile.addOiTable(oiArray);
+
+        final OIWavelength oiWavelength = new OIWavelength(oiFitsFile, nWaves);
+        oiWavelength.setInsName(INS_NAME);
+
+        final float[] effWaves = oiWavelength.getEffWave();
+        final float[] effBands = oiWavelength.getEffBand();
+        final double waveStep = (nWaves > 1) ? (WAVE_MAX - WAVE_MIN) / (nWaves - 1) : 0.0;
+
+        for (int l = 0; l < nWaves; l++) {
+            effWaves[l] = (float) (WAVE_MIN + l * waveStep);
+            effBands[l] = (float) Math.max(waveStep, 1e-9);
+        }
+        oiFitsFile.addOiTable(oiWavelength);
+
+        final OITarget oiTarget = new OITarget(oiFitsFile, 1);
+        oiTarget.getTargetId()[0] = 1;
+        oiTarget.getTarget()[0] = TARGET_NAME;
+        oiTarget.getRaEp0()[0] = 83.8;
+        oiTarget.getDecEp0()[0] = -5.4;
+        oiTarget.getEquinox()[0] = 2000f;
+        oiFitsFile.addOiTable(oiTarget);
+
+        final OIVis2 vis2 = new OIVis2(oiFitsFile, INS_NAME, nRows);
+        vis2.setArrName(ARR_NAME);
+        vis2.setDateObs("2020-05-31");
+
+        final short[] targetIds = vis2.getTargetId();
+        final double[] times = vis2.getTime();
+        final double[] mjds = vis2.getMJD();
+        final double[] intTimes = vis2.getIntTime();
+        final double[] uCoords = vis2.getUCoord();
+        final double[] vCoords = vis2.getVCoord();
+        final short[][] staIndexPairs = vis2.getStaIndex();
+        final double[][] vis2Data = vis2.getVis2Data();
+        final double[][] vis2Err = vis2.getVis2Err();
+        final boolean[][] flags = vis2.getFlag();
+
+        // baseline station pairs:
+        final short[][] pairs = new short[nBaselines][2];
+        for (int i = 0, b = 0; i < nStations && b < nBaselines; i++) {
+            for (int j = i + 1; j < nStations && b < nBaselines; j++, b++) {
+                pairs[b][0] = staIndexes[i];
+                pairs[b][1] = staIndexes[j];
+            }
+        }
+
+        final int nObs = (nRows + nBaselines - 1) / nBaselines;
+
+        for (int r = 0; r < nRows; r++) {
+            final int b = r % nBaselines;
+            final int obs = r / nBaselines;
+
+            // earth rotation: the baseline turns over the night:
+            final double length = 10.0 + 120.0 * (b + 1) / nBaselines;
+            final double angle = (Math.PI * b) / nBaselines + (Math.PI / 2.0) * obs / nObs;
+
+            targetIds[r] = 1;
+            mjds[r] = MJD_START + index + 0.5 * obs / nObs;
+            times[r] = (mjds[r] - Math.floor(mjds[r])) * 86400.0;
+            intTimes[r] = 60.0;
+            uCoords[r] = length * Math.cos(angle);
+            vCoords[r] = length * Math.sin(angle);
+            staIndexPairs[r][0] = pairs[b][0];
+            staIndexPairs[r][1] = pairs[b][1];
+
+            for (int l = 0; l < nWaves; l++) {
+                // uniform disk like visibility decreasing with spatial frequency:
+                final double sf = length / effWaves[l];
+                final double v = Math.exp(-sf * 1e-8);
+
+                vis2Data[r][l] = v * v + 0.01 * random.nextGaussian();
+                vis2Err[r][l] = 0.01 + 0.01 * random.nextDouble();
+                flags[r][l] = (random.nextDouble() < flagRatio);
+            }
+        }
+        oiFitsFile.addOiTable(vis2);
+
+        return oiFitsFile;
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.function;
+
+import fr.jmmc.oiexplorer.core.bench.SyntheticOIFitsGenerator;
+import fr.jmmc.oitools.OIFitsConstants;
+import fr.jmmc.oitools.model.OIData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the expression column evaluation (VIS2DATA / VIS2ERR) on a synthetic OI_VIS2 table:
+ * compiled kernel vs hand-written loop vs oitools evaluation (updateExpressionColumn).
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExpressionKernelBenchmark {
+
+    /** expression column name */
+    private static final String COLUMN_NAME = "[SNR]";
+    /** expression */
+    private static final String EXPRESSION = OIFitsConstants.COLUMN_VIS2DATA + " / " + OIFitsConstants.COLUMN_VIS2ERR;
+
+    /** number of rows (10^7 cells with 500 wavelengths and 20000 rows) */
+    @Param({"2000", "20000"})
+    public int rows;
+    /** number of wavelengths */
+    @Param({"500"})
+    public int waves;
+
+    /* members */
+    /** OI_VIS2 table */
+    OIData oiData = null;
+    /** compiled kernel */
+    ExpressionKernel kernel = null;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SyntheticOIFitsGenerator generator = new SyntheticOIFitsGenerator(rows, waves, 6, 0.0, 1L);
+
+        oiData = generator.createFile(0).getOiVis2()[0];
+        kernel = ExpressionCompiler.compile(EXPRESSION);
+
+        // check the kernel against the hand-written loop:
+        final double[][] expected = handWritten();
+        final double[][] actual = kernel();
+        for (int i = 0; i < rows; i++) {
+            for (int l = 0; l < waves; l++) {
+                if (Double.compare(expected[i][l], actual[i][l]) != 0) {
+                    throw new IllegalStateException("Kernel mismatch at (" + i + ", " + l + ")");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public double[][] kernel() {
+        return kernel.evaluate(oiData);
+    }
+
+    @Benchmark
+    public double[][] handWritten() {
+        final double[][] vis2Data = oiData.getColumnAsDoubles(OIFitsConstants.COLUMN_VIS2DATA);
+        final double[][] vis2Err = oiData.getColumnAsDoubles(OIFitsConstants.COLUMN_VIS2ERR);
+
+        final int nRows = oiData.getNbRows();
+        final int nWaves = oiData.getNWave();
+        final double[][] output = new double[nRows][];
+
+        for (int i = 0; i < nRows; i++) {
+            final double[] data = vis2Data[i];
+            final double[] err = vis2Err[i];
+            final double[] row = new double[nWaves];
+            for (int l = 0; l < nWaves; l++) {
+                row[l] = data[l] / err[l];
+            }
+            output[i] = row;
+        }
+        return output;
+    }
+
+    @Benchmark
+    public double[][] oitools() {
+        oiData.updateExpressionColumn(COLUMN_NAME, EXPRESSION);
+        return oiData.getColumnAsDoubles(COLUMN_NAME);
+    }
+}
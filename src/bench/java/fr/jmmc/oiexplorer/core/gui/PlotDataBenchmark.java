@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmal.image.ColorModels;
+import fr.jmmc.oiexplorer.core.bench.SyntheticOIFitsGenerator;
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.FastIntervalXYDataset;
+import fr.jmmc.oiexplorer.core.model.plot.Axis;
+import fr.jmmc.oiexplorer.core.model.plot.ColorMapping;
+import fr.jmmc.oiexplorer.core.model.plot.PlotDefinition;
+import fr.jmmc.oitools.OIFitsConstants;
+import fr.jmmc.oitools.processing.SelectorResult;
+import java.awt.image.IndexColorModel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the plot dataset building (PlotChartPanel pipeline without cache nor spatial index)
+ * per color mapping and symmetry (UV coverage) on synthetic OIFits collections.
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PlotDataBenchmark {
+
+    /** number of rows per table */
+    @Param({"1000", "10000"})
+    public int rows;
+    /** number of wavelengths */
+    @Param({"50"})
+    public int waves;
+    /** number of baselines */
+    @Param({"6"})
+    public int baselines;
+    /** ratio of flagged data */
+    @Param({"0.1"})
+    public double flagRatio;
+    /** number of files */
+    @Param({"4"})
+    public int files;
+    /** color mapping */
+    @Param({"WAVELENGTH_RANGE", "STATION_INDEX", "CONFIGURATION"})
+    public ColorMapping colorMapping;
+    /** true to plot the UV coverage (symmetry) */
+    @Param({"false", "true"})
+    public boolean symmetry;
+
+    /* members */
+    /** selector result (all tables) */
+    SelectorResult selectorResult = null;
+    /** plot definition */
+    PlotDefinition plotDef = null;
+    /** color model */
+    IndexColorModel colorModel = null;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SyntheticOIFitsGenerator generator = new SyntheticOIFitsGenerator(rows, waves, baselines, flagRatio, 1L);
+
+        selectorResult = SyntheticOIFitsGenerator.selectAll(generator.createCollection(files));
+        plotDef = createPlotDefinition(colorMapping, symmetry);
+        colorModel = ColorModels.getColorModel(ColorModels.COLOR_MODEL_RAINBOW_ALPHA);
+    }
+
+    @Benchmark
+    public FastIntervalXYDataset<?, ?>[] buildDatasets() {
+        return PlotChartPanel.computePlotDatasets(selectorResult, plotDef, colorModel);
+    }
+
+    /**
+     * Create a plot definition (VIS2DATA vs spatial frequency or VCOORD vs UCOORD if symmetry)
+     * @param colorMapping color mapping
+     * @param symmetry true to plot the UV coverage (symmetry)
+     * @return plot definition
+     */
+    static PlotDefinition createPlotDefinition(final ColorMapping colorMapping, final boolean symmetry) {
+        final PlotDefinition plotDef = new PlotDefinition();
+        plotDef.setColorMapping(colorMapping);
+        plotDef.setSkipFlaggedData(false);
+        plotDef.setDrawLine(false);
+
+        final Axis xAxis = new Axis();
+        final Axis yAxis = new Axis();
+
+        if (symmetry) {
+            xAxis.setName(OIFitsConstants.COLUMN_UCOORD);
+            yAxis.setName(OIFitsConstants.COLUMN_VCOORD);
+        } else {
+            xAxis.setName(OIFitsConstants.COLUMN_SPATIAL_FREQ);
+            yAxis.setName(OIFitsConstants.COLUMN_VIS2DATA);
+        }
+        plotDef.setXAxis(xAxis);
+        plotDef.getYAxes().add(yAxis);
+
+        return plotDef;
+    }
+}
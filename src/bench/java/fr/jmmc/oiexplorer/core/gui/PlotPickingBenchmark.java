@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmal.image.ColorModels;
+import fr.jmmc.oiexplorer.core.bench.SyntheticOIFitsGenerator;
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.FastIntervalXYDataset;
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.XYPointIndex;
+import fr.jmmc.oiexplorer.core.model.plot.ColorMapping;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the data point picking (nearest point and rectangle selection) using the spatial index (XYPointIndex)
+ * or the linear scan on synthetic OIFits collections.
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PlotPickingBenchmark {
+
+    /** number of anchors (cycled) */
+    private static final int N_ANCHORS = 1024;
+
+    /** number of rows per table */
+    @Param({"1000", "10000"})
+    public int rows;
+    /** number of wavelengths */
+    @Param({"50"})
+    public int waves;
+    /** true to plot the UV coverage (symmetry) */
+    @Param({"false", "true"})
+    public boolean symmetry;
+
+    /* members */
+    /** dataset */
+    FastIntervalXYDataset<?, ?> dataset = null;
+    /** spatial index */
+    XYPointIndex index = null;
+    /** anchors (x, y) */
+    double[] anchors = null;
+    /** pixels per data on domain axis */
+    double xRatio;
+    /** pixels per data on range axis */
+    double yRatio;
+    /** selection rectangle (10% of the data area) */
+    Rectangle2D rect = null;
+    /** current anchor */
+    int pos = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SyntheticOIFitsGenerator generator = new SyntheticOIFitsGenerator(rows, waves, 6, 0.1, 1L);
+
+        dataset = PlotChartPanel.computePlotDatasets(
+                SyntheticOIFitsGenerator.selectAll(generator.createCollection(1)),
+                PlotDataBenchmark.createPlotDefinition(ColorMapping.WAVELENGTH_RANGE, symmetry),
+                ColorModels.getColorModel(ColorModels.COLOR_MODEL_RAINBOW_ALPHA))[0];
+
+        index = XYPointIndex.build(dataset);
+
+        // data bounds:
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        for (int s = 0, seriesCount = dataset.getSeriesCount(); s < seriesCount; s++) {
+            for (int i = 0, itemCount = dataset.getItemCount(s); i < itemCount; i++) {
+                final double x = dataset.getXValue(s, i);
+                final double y = dataset.getYValue(s, i);
+                if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        // 1000 x 1000 pixels data area:
+        xRatio = 1000.0 / (maxX - minX);
+        yRatio = 1000.0 / (maxY - minY);
+
+        rect = new Rectangle2D.Double(minX + 0.45 * (maxX - minX), minY + 0.45 * (maxY - minY),
+                0.1 * (maxX - minX), 0.1 * (maxY - minY));
+
+        final Random random = new Random(1L);
+        anchors = new double[2 * N_ANCHORS];
+        for (int i = 0; i < N_ANCHORS; i++) {
+            anchors[2 * i] = minX + random.nextDouble() * (maxX - minX);
+            anchors[2 * i + 1] = minY + random.nextDouble() * (maxY - minY);
+        }
+    }
+
+    @Benchmark
+    public int findNearestIndex() {
+        final int i = nextAnchor();
+        return index.findNearest(anchors[i], anchors[i + 1], xRatio, yRatio);
+    }
+
+    @Benchmark
+    public int findNearestLinear() {
+        final int i = nextAnchor();
+        final double anchorX = anchors[i];
+        final double anchorY = anchors[i + 1];
+
+        // same as PlotChartPanel.findDataPointer without index:
+        double minDistance = Double.POSITIVE_INFINITY;
+        int matchSerie = -1;
+        int matchItem = -1;
+
+        for (int s = 0, seriesCount = dataset.getSeriesCount(); s < seriesCount; s++) {
+            for (int j = 0, itemCount = dataset.getItemCount(s); j < itemCount; j++) {
+                final double dx = xRatio * (anchorX - dataset.getXValue(s, j));
+                final double dy = yRatio * (anchorY - dataset.getYValue(s, j));
+                final double distance = dx * dx + dy * dy;
+
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    matchSerie = s;
+                    matchItem = j;
+                }
+            }
+        }
+        return (matchSerie != -1) ? matchSerie ^ matchItem : -1;
+    }
+
+    @Benchmark
+    public int[] findInRectangleIndex() {
+        return index.findInRectangle(rect);
+    }
+
+    @Benchmark
+    public int buildIndex() {
+        return XYPointIndex.build(dataset).size();
+    }
+
+    /**
+     * Return the position of the next anchor (cycled)
+     * @return position of the next anchor in anchors
+     */
+    private int nextAnchor() {
+        final int i = pos;
+        pos = (pos + 1) % N_ANCHORS;
+        return 2 * i;
+    }
+}
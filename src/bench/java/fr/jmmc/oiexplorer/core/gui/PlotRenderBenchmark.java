@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmal.image.ColorModels;
+import fr.jmmc.oiexplorer.core.bench.SyntheticOIFitsGenerator;
+import fr.jmmc.oiexplorer.core.gui.chart.FastXYErrorRenderer;
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.FastIntervalXYDataset;
+import fr.jmmc.oiexplorer.core.model.plot.ColorMapping;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.XYPlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the headless chart rendering (FastXYErrorRenderer) into a BufferedImage on synthetic OIFits collections.
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PlotRenderBenchmark {
+
+    /** number of rows per table */
+    @Param({"1000", "10000"})
+    public int rows;
+    /** number of wavelengths */
+    @Param({"50"})
+    public int waves;
+    /** ratio of flagged data */
+    @Param({"0.1"})
+    public double flagRatio;
+    /** true to enable antialiasing */
+    @Param({"false", "true"})
+    public boolean antialiasing;
+    /** image width */
+    @Param({"1200"})
+    public int width;
+    /** image height */
+    @Param({"800"})
+    public int height;
+
+    /* members */
+    /** chart to render */
+    JFreeChart chart = null;
+    /** image */
+    BufferedImage image = null;
+    /** image graphics */
+    Graphics2D g2d = null;
+    /** image area */
+    Rectangle2D area = null;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SyntheticOIFitsGenerator generator = new SyntheticOIFitsGenerator(rows, waves, 6, flagRatio, 1L);
+
+        final FastIntervalXYDataset<?, ?>[] datasets = PlotChartPanel.computePlotDatasets(
+                SyntheticOIFitsGenerator.selectAll(generator.createCollection(1)),
+                PlotDataBenchmark.createPlotDefinition(ColorMapping.WAVELENGTH_RANGE, false),
+                ColorModels.getColorModel(ColorModels.COLOR_MODEL_RAINBOW_ALPHA));
+
+        final FastXYErrorRenderer renderer = new FastXYErrorRenderer();
+        renderer.setDrawXError(true);
+        renderer.setDrawYError(true);
+
+        final NumberAxis xAxis = new NumberAxis("x");
+        xAxis.setAutoRangeIncludesZero(false);
+        final NumberAxis yAxis = new NumberAxis("y");
+        yAxis.setAutoRangeIncludesZero(false);
+
+        final XYPlot plot = new XYPlot(datasets[0], xAxis, yAxis, renderer);
+
+        chart = new JFreeChart(null, JFreeChart.DEFAULT_TITLE_FONT, plot, false);
+        chart.setAntiAlias(antialiasing);
+
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                (antialiasing) ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        area = new Rectangle2D.Double(0.0, 0.0, width, height);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        chart.draw(g2d, area);
+        return image;
+    }
+}
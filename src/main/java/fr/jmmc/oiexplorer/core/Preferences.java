@@ -8,6 +8,7 @@ import fr.jmmc.jmal.image.ColorScale;
 import fr.jmmc.jmal.image.ImageUtils;
 import fr.jmmc.jmal.image.ImageUtils.ImageInterpolation;
 import fr.jmmc.jmcs.data.preference.PreferencesException;
+import fr.jmmc.oiexplorer.core.gui.PlotDataCache;
 import fr.jmmc.oiexplorer.core.gui.chart.ColorPalette;
 import fr.jmmc.oiexplorer.core.model.OIFitsCollectionManager;
 import fr.jmmc.oitools.model.Target;
@@ -39,6 +40,14 @@ public abstract class Preferences extends fr.jmmc.jmcs.data.preference.Preferenc
     public final static String CHART_PALETTE = "chart.palette";
     /** Preference : target matcher distance (as) */
     public final static String TARGET_MATCHER_SEPARATION = "target.matcher.sep";
+    /** Preference : memory budget (Mb) of the plot data cache */
+    public final static String CHART_CACHE_SIZE = "chart.cache.size";
+    /** Preference : number of OIFits files loaded in parallel */
+    public final static String LOAD_PARALLELISM = "oifits.load.parallelism";
+    /** Preference : directory of the OIFits snapshot cache (empty means disabled) */
+    public final static String LOAD_CACHE_DIR = "oifits.load.cache.dir";
+    /** Preference : compute expression columns lazily (only tables used by subsets) */
+    public final static String EXPR_LAZY = "expression.lazy";
 
     /**
      * Creates a new Preferences object.
@@ -76,6 +85,16 @@ public abstract class Preferences extends fr.jmmc.jmcs.data.preference.Preferenc
         setDefaultPreference(CHART_PALETTE, DEFAULT_COLOR_PALETTE);
 
         setDefaultPreference(TARGET_MATCHER_SEPARATION, Double.valueOf(1.0));
+
+        // Plot data cache:
+        setDefaultPreference(CHART_CACHE_SIZE, Integer.valueOf((int) (PlotDataCache.DEFAULT_MAX_BYTES / (1024L * 1024L))));
+
+        // OIFits loading:
+        setDefaultPreference(LOAD_PARALLELISM, Integer.valueOf(OIFitsCollectionManager.DEFAULT_LOAD_PARALLELISM));
+        setDefaultPreference(LOAD_CACHE_DIR, "");
+
+        // Expression columns:
+        setDefaultPreference(EXPR_LAZY, Boolean.FALSE);
     }
 
     /**
@@ -116,6 +135,12 @@ public abstract class Preferences extends fr.jmmc.jmcs.data.preference.Preferenc
 
             ImageUtils.setImageInterpolation(getImageInterpolation());
 
+            PlotDataCache.getInstance().setMaxBytes(getPreferenceAsInt(CHART_CACHE_SIZE) * 1024L * 1024L);
+
+            OIFitsCollectionManager.getInstance().setLoadParallelism(getPreferenceAsInt(LOAD_PARALLELISM));
+            OIFitsCollectionManager.getInstance().setSnapshotCacheDirectory(getPreference(LOAD_CACHE_DIR));
+            OIFitsCollectionManager.getInstance().setLazyExprColumns(getPreferenceAsBoolean(EXPR_LAZY));
+
             if (Target.MATCHER_LIKE.setSeparationInArcsec(getPreferenceAsDouble(Preferences.TARGET_MATCHER_SEPARATION))) {
                 OIFitsCollectionManager.getInstance().fireOIFitsCollectionChanged();
             }
@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.function;
+
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.BinaryNode;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.BinaryOp;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.ColumnNode;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.ConstNode;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.Node;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.UnaryNode;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel.UnaryOp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class compiles arithmetic expressions over OIData columns (expression column syntax) into ExpressionKernel
+ * instances: operators + - * / % ^, parenthesis, constants (pi, euler), column names (VIS2DATA or [name])
+ * and functions (abs, sqrt, exp, ln, log, sin, cos, tan, asin, acos, atan, sinh, cosh, tanh, deg, rad, round,
+ * ceil, floor, sign, pow, atan2, min, max). Constant sub-expressions are folded at compile time.
+ * Other constructs (comparisons, conditions) are not supported (IllegalArgumentException).
+ *
+ * @author bourgesl
+ */
+public final class ExpressionCompiler {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ExpressionCompiler.class.getName());
+    /** unary functions keyed by name */
+    private static final Map<String, UnaryOp> UNARY_FUNCTIONS = new HashMap<String, UnaryOp>(32);
+    /** binary functions keyed by name */
+    private static final Map<String, BinaryOp> BINARY_FUNCTIONS = new HashMap<String, BinaryOp>(8);
+    /** constants keyed by name */
+    private static final Map<String, Double> CONSTANTS = new HashMap<String, Double>(4);
+
+    static {
+        for (UnaryOp op : UnaryOp.values()) {
+            if (op != UnaryOp.NEG) {
+                UNARY_FUNCTIONS.put(op.name().toLowerCase(Locale.ENGLISH), op);
+            }
+        }
+        BINARY_FUNCTIONS.put("pow", BinaryOp.POW);
+        BINARY_FUNCTIONS.put("atan2", BinaryOp.ATAN2);
+        BINARY_FUNCTIONS.put("min", BinaryOp.MIN);
+        BINARY_FUNCTIONS.put("max", BinaryOp.MAX);
+
+        CONSTANTS.put("pi", Double.valueOf(Math.PI));
+        CONSTANTS.put("euler", Double.valueOf(Math.E));
+    }
+
+    /* members */
+    /** expression */
+    private final String expression;
+    /** current position */
+    private int pos = 0;
+    /** number of row buffers */
+    private int nBuffers = 0;
+    /** referenced column names */
+    private final List<String> columnNames = new ArrayList<String>(4);
+
+    /**
+     * Compile the given expression
+     * @param expression expression
+     * @return compiled kernel
+     * @throws IllegalArgumentException if the expression is invalid or not supported
+     */
+    public static ExpressionKernel compile(final String expression) throws IllegalArgumentException {
+        if (expression == null) {
+            throw new IllegalArgumentException("Undefined expression");
+        }
+        final long start = System.nanoTime();
+
+        final ExpressionCompiler compiler = new ExpressionCompiler(expression);
+        final Node root = compiler.parseExpression();
+        compiler.skipSpaces();
+
+        if (compiler.pos != expression.length()) {
+            throw compiler.error("Unexpected character '" + expression.charAt(compiler.pos) + "'");
+        }
+        final ExpressionKernel kernel = new ExpressionKernel(expression, root, compiler.columnNames, compiler.nBuffers);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("compile: {} - duration = {} ms.", kernel, 1e-6d * (System.nanoTime() - start));
+        }
+        return kernel;
+    }
+
+    /**
+     * Private constructor
+     * @param expression expression
+     */
+    private ExpressionCompiler(final String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * expression := term (('+' | '-') term)*
+     * @return node
+     */
+    private Node parseExpression() {
+        Node node = parseTerm();
+        for (;;) {
+            if (accept('+')) {
+                node = binary(BinaryOp.ADD, node, parseTerm());
+            } else if (accept('-')) {
+                node = binary(BinaryOp.SUB, node, parseTerm());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * term := unary (('*' | '/' | '%') unary)*
+     * @return node
+     */
+    private Node parseTerm() {
+        Node node = parseUnary();
+        for (;;) {
+            if (accept('*')) {
+                node = binary(BinaryOp.MUL, node, parseUnary());
+            } else if (accept('/')) {
+                node = binary(BinaryOp.DIV, node, parseUnary());
+            } else if (accept('%')) {
+                node = binary(BinaryOp.MOD, node, parseUnary());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * unary := ('-' | '+') unary | power
+     * @return node
+     */
+    private Node parseUnary() {
+        if (accept('-')) {
+            return unary(UnaryOp.NEG, parseUnary());
+        }
+        if (accept('+')) {
+            return parseUnary();
+        }
+        return parsePower();
+    }
+
+    /**
+     * power := primary ('^' unary)?   (right associative)
+     * @return node
+     */
+    private Node parsePower() {
+        final Node node = parsePrimary();
+        if (accept('^')) {
+            return binary(BinaryOp.POW, node, parseUnary());
+        }
+        return node;
+    }
+
+    /**
+     * primary := number | '(' expression ')' | '[' name ']' | identifier | function '(' args ')'
+     * @return node
+     */
+    private Node parsePrimary() {
+        skipSpaces();
+        if (pos >= expression.length()) {
+            throw error("Unexpected end of expression");
+        }
+        final char ch = expression.charAt(pos);
+
+        if (ch == '(') {
+            pos++;
+            final Node node = parseExpression();
+            expect(')');
+            return node;
+        }
+        if (ch == '[') {
+            // expression column name (brackets included):
+            final int end = expression.indexOf(']', pos);
+            if (end == -1) {
+                throw error("Missing ']'");
+            }
+            final String name = expression.substring(pos, end + 1);
+            pos = end + 1;
+            return column(name);
+        }
+        if (Character.isDigit(ch) || ch == '.') {
+            return parseNumber();
+        }
+        if (Character.isLetter(ch) || ch == '_') {
+            final int begin = pos;
+            while (pos < expression.length()
+                    && (Character.isLetterOrDigit(expression.charAt(pos)) || expression.charAt(pos) == '_')) {
+                pos++;
+            }
+            final String name = expression.substring(begin, pos);
+
+            if (accept('(')) {
+                return parseFunction(name);
+            }
+            final Double constant = CONSTANTS.get(name);
+            if (constant != null) {
+                return constant(constant.doubleValue());
+            }
+            return column(name);
+        }
+        throw error("Unexpected character '" + ch + "'");
+    }
+
+    /**
+     * Parse the arguments of the given function (after '(')
+     * @param name function name
+     * @return node
+     */
+    private Node parseFunction(final String name) {
+        final String key = name.toLowerCase(Locale.ENGLISH);
+
+        final UnaryOp unaryOp = UNARY_FUNCTIONS.get(key);
+        if (unaryOp != null) {
+            final Node arg = parseExpression();
+            expect(')');
+            return unary(unaryOp, arg);
+        }
+        final BinaryOp binaryOp = BINARY_FUNCTIONS.get(key);
+        if (binaryOp != null) {
+            final Node left = parseExpression();
+            expect(',');
+            final Node right = parseExpression();
+            expect(')');
+            return binary(binaryOp, left, right);
+        }
+        throw error("Unsupported function '" + name + "'");
+    }
+
+    /**
+     * Parse a number (decimal with optional exponent)
+     * @return constant node
+     */
+    private Node parseNumber() {
+        final int begin = pos;
+        while (pos < expression.length() && (Character.isDigit(expression.charAt(pos)) || expression.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < expression.length() && (expression.charAt(pos) == 'e' || expression.charAt(pos) == 'E')) {
+            int p = pos + 1;
+            if (p < expression.length() && (expression.charAt(p) == '+' || expression.charAt(p) == '-')) {
+                p++;
+            }
+            if (p < expression.length() && Character.isDigit(expression.charAt(p))) {
+                pos = p;
+                while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                    pos++;
+                }
+            }
+        }
+        final String value = expression.substring(begin, pos);
+        try {
+            return constant(Double.parseDouble(value));
+        } catch (NumberFormatException nfe) {
+            throw error("Invalid number '" + value + "'");
+        }
+    }
+
+    /**
+     * Create a constant node
+     * @param value constant value
+     * @return node
+     */
+    private Node constant(final double value) {
+        return new ConstNode(nBuffers++, value);
+    }
+
+    /**
+     * Create a column node (1 column index per distinct name)
+     * @param name column name
+     * @return node
+     */
+    private Node column(final String name) {
+        int column = columnNames.indexOf(name);
+        if (column == -1) {
+            column = columnNames.size();
+            columnNames.add(name);
+        }
+        return new ColumnNode(nBuffers++, column, name);
+    }
+
+    /**
+     * Create an unary node (folded if constant)
+     * @param op operator
+     * @param arg operand
+     * @return node
+     */
+    private Node unary(final UnaryOp op, final Node arg) {
+        if (arg instanceof ConstNode) {
+            return new ConstNode(arg.slot, op.apply(((ConstNode) arg).value));
+        }
+        return new UnaryNode(nBuffers++, op, arg);
+    }
+
+    /**
+     * Create a binary node (folded if constant)
+     * @param op operator
+     * @param left left operand
+     * @param right right operand
+     * @return node
+     */
+    private Node binary(final BinaryOp op, final Node left, final Node right) {
+        if (left instanceof ConstNode && right instanceof ConstNode) {
+            return new ConstNode(left.slot, op.apply(((ConstNode) left).value, ((ConstNode) right).value));
+        }
+        return new BinaryNode(nBuffers++, op, left, right);
+    }
+
+    /**
+     * Skip whitespace characters
+     */
+    private void skipSpaces() {
+        while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Consume the given character if present (after whitespaces)
+     * @param ch character
+     * @return true if consumed
+     */
+    private boolean accept(final char ch) {
+        skipSpaces();
+        if (pos < expression.length() && expression.charAt(pos) == ch) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume the given character or fail
+     * @param ch character
+     */
+    private void expect(final char ch) {
+        if (!accept(ch)) {
+            throw error("Missing '" + ch + "'");
+        }
+    }
+
+    /**
+     * Return a new exception at the current position
+     * @param message error message
+     * @return exception
+     */
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " in expression: '" + expression + "'");
+    }
+}
@@ -0,0 +1,486 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.function;
+
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIData;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is a compiled expression (see ExpressionCompiler) evaluated over OIData columns
+ * as primitive loops over rows x wavelengths: every operator processes a whole row (all wavelengths)
+ * in a tight loop (auto-vectorized by the JIT compiler) using preallocated row buffers.
+ * 1D columns are broadcast over wavelengths.
+ * This class is immutable and thread-safe (evaluation state is local).
+ *
+ * @author bourgesl
+ */
+public final class ExpressionKernel {
+
+    /* members */
+    /** expression */
+    private final String expression;
+    /** root node */
+    private final Node root;
+    /** referenced column names (node column index) */
+    private final List<String> columnNames;
+    /** number of row buffers */
+    private final int nBuffers;
+
+    /**
+     * Protected constructor
+     * @param expression expression
+     * @param root root node
+     * @param columnNames referenced column names
+     * @param nBuffers number of row buffers
+     */
+    ExpressionKernel(final String expression, final Node root, final List<String> columnNames, final int nBuffers) {
+        this.expression = expression;
+        this.root = root;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.nBuffers = nBuffers;
+    }
+
+    /**
+     * Return the expression
+     * @return expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Return the referenced column names
+     * @return referenced column names
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Evaluate this expression on the given OIData table
+     * @param oiData OIData table
+     * @return values [rows][wavelengths]
+     * @throws IllegalArgumentException if a column is missing
+     */
+    public double[][] evaluate(final OIData oiData) throws IllegalArgumentException {
+        final int nCols = columnNames.size();
+        final double[][][] data2D = new double[nCols][][];
+        final double[][] data1D = new double[nCols][];
+
+        for (int c = 0; c < nCols; c++) {
+            final String name = columnNames.get(c);
+            final ColumnMeta meta = oiData.getColumnMeta(name);
+            if (meta == null) {
+                throw new IllegalArgumentException("Unknown column '" + name + "' in table " + oiData);
+            }
+            if (meta.isArray()) {
+                data2D[c] = oiData.getColumnAsDoubles(name);
+            } else {
+                data1D[c] = oiData.getColumnAsDouble(name);
+            }
+        }
+        return evaluate(oiData.getNbRows(), oiData.getNWave(), data1D, data2D);
+    }
+
+    /**
+     * Evaluate this expression on the given columns
+     * @param nRows number of rows
+     * @param nWaves number of wavelengths
+     * @param data1D 1D column values [column][rows] (null item if 2D column)
+     * @param data2D 2D column values [column][rows][wavelengths] (null item if 1D column)
+     * @return values [rows][wavelengths]
+     */
+    public double[][] evaluate(final int nRows, final int nWaves, final double[][] data1D, final double[][][] data2D) {
+        final Context ctx = new Context(nWaves, nBuffers, data1D, data2D);
+
+        final double[][] output = new double[nRows][];
+
+        // operators write their result directly into the output row (no copy):
+        final boolean direct = (root instanceof UnaryNode) || (root instanceof BinaryNode);
+
+        for (int i = 0; i < nRows; i++) {
+            final double[] row = new double[nWaves];
+            if (direct) {
+                ctx.buffers[root.slot] = row;
+                root.eval(i, ctx);
+            } else {
+                System.arraycopy(root.eval(i, ctx), 0, row, 0, nWaves);
+            }
+            output[i] = row;
+        }
+        return output;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionKernel[" + expression + "]: " + root;
+    }
+
+    /**
+     * Evaluation context (column values and row buffers)
+     */
+    static final class Context {
+
+        /** number of wavelengths */
+        final int nWaves;
+        /** 1D column values */
+        final double[][] data1D;
+        /** 2D column values */
+        final double[][][] data2D;
+        /** row buffers (1 per node needing a buffer) */
+        final double[][] buffers;
+
+        /**
+         * Protected constructor
+         * @param nWaves number of wavelengths
+         * @param nBuffers number of row buffers
+         * @param data1D 1D column values
+         * @param data2D 2D column values
+         */
+        Context(final int nWaves, final int nBuffers, final double[][] data1D, final double[][][] data2D) {
+            this.nWaves = nWaves;
+            this.data1D = data1D;
+            this.data2D = data2D;
+            this.buffers = new double[nBuffers][nWaves];
+        }
+    }
+
+    /**
+     * Expression node evaluated row by row
+     */
+    abstract static class Node {
+
+        /** row buffer index */
+        final int slot;
+
+        /**
+         * Protected constructor
+         * @param slot row buffer index
+         */
+        Node(final int slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * Evaluate this node on the given row
+         * @param row row index
+         * @param ctx evaluation context
+         * @return row values (read only: buffer or column row)
+         */
+        abstract double[] eval(int row, Context ctx);
+    }
+
+    /**
+     * Constant value
+     */
+    static final class ConstNode extends Node {
+
+        /** constant value */
+        final double value;
+
+        /**
+         * Protected constructor
+         * @param slot row buffer index
+         * @param value constant value
+         */
+        ConstNode(final int slot, final double value) {
+            super(slot);
+            this.value = value;
+        }
+
+        @Override
+        double[] eval(final int row, final Context ctx) {
+            final double[] out = ctx.buffers[slot];
+            if (row == 0) {
+                Arrays.fill(out, value);
+            }
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return Double.toString(value);
+        }
+    }
+
+    /**
+     * Column value (1D broadcast over wavelengths or 2D)
+     */
+    static final class ColumnNode extends Node {
+
+        /** column index */
+        final int column;
+        /** column name */
+        final String name;
+
+        /**
+         * Protected constructor
+         * @param slot row buffer index (1D columns)
+         * @param column column index
+         * @param name column name
+         */
+        ColumnNode(final int slot, final int column, final String name) {
+            super(slot);
+            this.column = column;
+            this.name = name;
+        }
+
+        @Override
+        double[] eval(final int row, final Context ctx) {
+            final double[][] values2D = ctx.data2D[column];
+            if (values2D != null) {
+                return values2D[row];
+            }
+            final double[] out = ctx.buffers[slot];
+            Arrays.fill(out, ctx.data1D[column][row]);
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Unary operator or function
+     */
+    static final class UnaryNode extends Node {
+
+        /** operator */
+        final UnaryOp op;
+        /** operand */
+        final Node arg;
+
+        /**
+         * Protected constructor
+         * @param slot row buffer index
+         * @param op operator
+         * @param arg operand
+         */
+        UnaryNode(final int slot, final UnaryOp op, final Node arg) {
+            super(slot);
+            this.op = op;
+            this.arg = arg;
+        }
+
+        @Override
+        double[] eval(final int row, final Context ctx) {
+            final double[] a = arg.eval(row, ctx);
+            final double[] out = ctx.buffers[slot];
+            final int n = ctx.nWaves;
+
+            // 1 loop per operator (no dispatch inside loops):
+            switch (op) {
+                case NEG:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = -a[l];
+                    }
+                    break;
+                case ABS:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = Math.abs(a[l]);
+                    }
+                    break;
+                case SQRT:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = Math.sqrt(a[l]);
+                    }
+                    break;
+                default:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = op.apply(a[l]);
+                    }
+            }
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return op.name().toLowerCase() + "(" + arg + ")";
+        }
+    }
+
+    /**
+     * Binary operator or function
+     */
+    static final class BinaryNode extends Node {
+
+        /** operator */
+        final BinaryOp op;
+        /** left operand */
+        final Node left;
+        /** right operand */
+        final Node right;
+
+        /**
+         * Protected constructor
+         * @param slot row buffer index
+         * @param op operator
+         * @param left left operand
+         * @param right right operand
+         */
+        BinaryNode(final int slot, final BinaryOp op, final Node left, final Node right) {
+            super(slot);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double[] eval(final int row, final Context ctx) {
+            final double[] a = left.eval(row, ctx);
+            final double[] b = right.eval(row, ctx);
+            final double[] out = ctx.buffers[slot];
+            final int n = ctx.nWaves;
+
+            // 1 loop per operator (no dispatch inside loops):
+            switch (op) {
+                case ADD:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = a[l] + b[l];
+                    }
+                    break;
+                case SUB:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = a[l] - b[l];
+                    }
+                    break;
+                case MUL:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = a[l] * b[l];
+                    }
+                    break;
+                case DIV:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = a[l] / b[l];
+                    }
+                    break;
+                case MIN:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = Math.min(a[l], b[l]);
+                    }
+                    break;
+                case MAX:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = Math.max(a[l], b[l]);
+                    }
+                    break;
+                default:
+                    for (int l = 0; l < n; l++) {
+                        out[l] = op.apply(a[l], b[l]);
+                    }
+            }
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return op.name().toLowerCase() + "(" + left + ", " + right + ")";
+        }
+    }
+
+    /**
+     * Unary operators and functions
+     */
+    enum UnaryOp {
+        NEG, ABS, SQRT, EXP, LN, LOG, SIN, COS, TAN, ASIN, ACOS, ATAN, SINH, COSH, TANH,
+        DEG, RAD, ROUND, CEIL, FLOOR, SIGN;
+
+        /**
+         * Apply this operator
+         * @param a operand
+         * @return result
+         */
+        double apply(final double a) {
+            switch (this) {
+                case NEG:
+                    return -a;
+                case ABS:
+                    return Math.abs(a);
+                case SQRT:
+                    return Math.sqrt(a);
+                case EXP:
+                    return Math.exp(a);
+                case LN:
+                    return Math.log(a);
+                case LOG:
+                    return Math.log10(a);
+                case SIN:
+                    return Math.sin(a);
+                case COS:
+                    return Math.cos(a);
+                case TAN:
+                    return Math.tan(a);
+                case ASIN:
+                    return Math.asin(a);
+                case ACOS:
+                    return Math.acos(a);
+                case ATAN:
+                    return Math.atan(a);
+                case SINH:
+                    return Math.sinh(a);
+                case COSH:
+                    return Math.cosh(a);
+                case TANH:
+                    return Math.tanh(a);
+                case DEG:
+                    return Math.toDegrees(a);
+                case RAD:
+                    return Math.toRadians(a);
+                case ROUND:
+                    return Math.round(a);
+                case CEIL:
+                    return Math.ceil(a);
+                case FLOOR:
+                    return Math.floor(a);
+                case SIGN:
+                    return Math.signum(a);
+                default:
+                    throw new IllegalStateException("Unsupported operator: " + this);
+            }
+        }
+    }
+
+    /**
+     * Binary operators and functions
+     */
+    enum BinaryOp {
+        ADD, SUB, MUL, DIV, MOD, POW, ATAN2, MIN, MAX;
+
+        /**
+         * Apply this operator
+         * @param a left operand
+         * @param b right operand
+         * @return result
+         */
+        double apply(final double a, final double b) {
+            switch (this) {
+                case ADD:
+                    return a + b;
+                case SUB:
+                    return a - b;
+                case MUL:
+                    return a * b;
+                case DIV:
+                    return a / b;
+                case MOD:
+                    return a % b;
+                case POW:
+                    return Math.pow(a, b);
+                case ATAN2:
+                    return Math.atan2(a, b);
+                case MIN:
+                    return Math.min(a, b);
+                case MAX:
+                    return Math.max(a, b);
+                default:
+                    throw new IllegalStateException("Unsupported operator: " + this);
+            }
+        }
+    }
+}
@@ -29,6 +29,8 @@ public final class AxisInfo {
     Range dataErrRange = null;
     /** flag indicating that the dataset has data with error on this axis */
     boolean hasDataError = false;
+    /** flag indicating that all data (and lower errors) are strictly positive ie the log scale does not discard data */
+    boolean positive = true;
     /** view bounds (with margin) */
     Range viewBounds = null;
     /** view range */
@@ -46,6 +48,7 @@ public final class AxisInfo {
         this.dataRange = src.dataRange;
         this.dataErrRange = src.dataErrRange;
         this.hasDataError = src.hasDataError;
+        this.positive = src.positive;
         this.viewBounds = null;
         this.viewRange = null;
         this.plotRange = null;
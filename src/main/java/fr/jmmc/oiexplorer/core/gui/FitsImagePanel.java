@@ -49,9 +49,14 @@ import java.awt.image.BufferedImage;
 import java.awt.image.IndexColorModel;
 import java.text.DecimalFormat;
 import java.text.ParseException;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.JPanel;
@@ -95,6 +100,17 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
     private static final String PREFIX_IMAGE_TASK = "convertFitsImage-";
     /** global thread counter */
     private final static AtomicInteger panelCounter = new AtomicInteger(1);
+    /** memory budget of the rendered image cache = 128 Mb */
+    private static final long SLICE_CACHE_MAX_BYTES = 128L * 1024L * 1024L;
+    /** prefetch thread pool (low priority daemon threads, idle threads are released) shared by all panels */
+    private static final ThreadPoolExecutor PREFETCH_EXECUTOR;
+
+    static {
+        final int nThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        PREFETCH_EXECUTOR = new ThreadPoolExecutor(nThreads, nThreads, 10L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), PrefetchThreadFactory.INSTANCE);
+        PREFETCH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
     /* members */
     /** show the image identifier */
     private final boolean showId;
@@ -131,6 +147,11 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
     private FitsUnit lastAxisUnit = null;
     /** chart data */
     private ImageChartData chartData = null;
+    /** rendered image cache (cube slices) */
+    private final SliceRenderCache<SliceKey, ImageChartData> sliceCache
+            = new SliceRenderCache<SliceKey, ImageChartData>(SLICE_CACHE_MAX_BYTES);
+    /** prefetch generation (outdated prefetch jobs are skipped) */
+    private final AtomicInteger prefetchGeneration = new AtomicInteger(0);
     /* swing */
     /** chart panel */
     private SquareChartPanel chartPanel;
@@ -933,6 +954,10 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
         // Cancel any running task:
         TaskSwingWorkerExecutor.cancelTask(this.task);
 
+        // skip pending prefetch jobs and free cached images:
+        this.prefetchGeneration.incrementAndGet();
+        this.sliceCache.clear();
+
         // unregister this instance as a Preference Observer :
         this.myPreferences.deleteObserver(this);
     }
@@ -1008,6 +1033,60 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
         return this.fitsImage;
     }
 
+    /**
+     * Return true if the current fits image is not displayed yet (image computation in progress)
+     * @return true if the current fits image is not displayed yet
+     */
+    public boolean isImagePending() {
+        return (this.chartData != null) && (this.chartData.getFitsImage() != this.fitsImage);
+    }
+
+    /**
+     * Render the given fits images (cube slices) in background using the current LUT and color scale
+     * and keep them in the rendered image cache so they are displayed immediately later.
+     * Prefetch jobs of previous calls not yet started are skipped.
+     * Prefetch jobs run on low priority threads (not the common fork/join pool used by the displayed image)
+     * and never modify the given fits images.
+     * This code is executed by the Swing Event Dispatcher thread (EDT)
+     * @param images fits images to prefetch (priority order)
+     */
+    public void prefetchFitsImages(final List<FitsImage> images) {
+        final int generation = this.prefetchGeneration.incrementAndGet();
+
+        final IndexColorModel colorModel = ColorModels.getColorModel((String) this.jComboBoxLUT.getSelectedItem());
+        final ColorScale colorScale = (ColorScale) this.jComboBoxColorScale.getSelectedItem();
+        final ImageInterpolation interpolation = ImageUtils.getImageInterpolation();
+
+        for (final FitsImage image : images) {
+            if (image == null || image == this.fitsImage || image.getImageCount() == 0) {
+                continue;
+            }
+            final SliceKey key = new SliceKey(image, colorModel, colorScale, interpolation);
+
+            // skip images already cached or being prefetched:
+            if (this.sliceCache.reserve(key)) {
+                PREFETCH_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (generation == prefetchGeneration.get()) {
+                                final ImageChartData imageData = ConvertFitsImageSwingWorker.computeImageData(image,
+                                        minDataRange, colorModel, colorScale, null, true);
+                                if (imageData != null) {
+                                    sliceCache.put(key, imageData);
+                                }
+                            }
+                        } catch (RuntimeException re) {
+                            logger.debug("prefetch failure: {}", image, re);
+                        } finally {
+                            sliceCache.release(key);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
     private void setFitsImageDialogRef(final FitsImage fitsImageDialogRef) {
         this.fitsImageDialogRef = fitsImageDialogRef;
     }
@@ -1410,9 +1489,25 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
             final IndexColorModel colorModel = ColorModels.getColorModel((String) this.jComboBoxLUT.getSelectedItem());
             final ColorScale colorScale = (ColorScale) this.jComboBoxColorScale.getSelectedItem();
 
+            final SliceKey key = new SliceKey(this.fitsImage, colorModel, colorScale, ImageUtils.getImageInterpolation());
+
+            final ImageChartData cachedData = this.sliceCache.get(key);
+            if (cachedData != null) {
+                logger.debug("plot: use cached image");
+
+                // Cancel any running task (outdated image):
+                TaskSwingWorkerExecutor.cancelTask(this.task);
+
+                updatePlot(cachedData);
+                return;
+            }
+
+            // reuse the color indexes if only the color model changed:
+            final ImageIndexRaster indexRaster = (getChartData() != null) ? getChartData().getIndexRaster() : null;
+
             // Create image convert task worker :
             // Cancel other tasks and execute this new task :
-            new ConvertFitsImageSwingWorker(this, this.fitsImage, this.minDataRange, colorModel, colorScale).executeTask();
+            new ConvertFitsImageSwingWorker(this, this.fitsImage, this.minDataRange, colorModel, colorScale, indexRaster, key).executeTask();
         }
     }
 
@@ -1432,6 +1527,10 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
         private final IndexColorModel colorModel;
         /** color scaling method */
         private final ColorScale colorScale;
+        /** optional color indexes of the previous image */
+        private final ImageIndexRaster prevIndexRaster;
+        /** rendered image cache key */
+        private final SliceKey key;
 
         /**
          * Hidden constructor
@@ -1441,9 +1540,12 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
          * @param minDataRange optional minimal range for data
          * @param colorModel color model to use
          * @param colorScale color scaling method
+         * @param prevIndexRaster optional color indexes of the previous image
+         * @param key rendered image cache key
          */
         private ConvertFitsImageSwingWorker(final FitsImagePanel fitsPanel, final FitsImage fitsImage, final float[] minDataRange,
-                                            final IndexColorModel colorModel, final ColorScale colorScale) {
+                                            final IndexColorModel colorModel, final ColorScale colorScale,
+                                            final ImageIndexRaster prevIndexRaster, final SliceKey key) {
             // get current observation version :
             super(fitsPanel.task);
             this.fitsPanel = fitsPanel;
@@ -1451,6 +1553,8 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
             this.minDataRange = minDataRange;
             this.colorModel = colorModel;
             this.colorScale = colorScale;
+            this.prevIndexRaster = prevIndexRaster;
+            this.key = key;
         }
 
         /**
@@ -1460,20 +1564,37 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
          */
         @Override
         public ImageChartData computeInBackground() {
+            return computeImageData(this.fitsImage, this.minDataRange, this.colorModel, this.colorScale, this.prevIndexRaster, false);
+        }
+
+        /**
+         * Compute the image data of the given fits image (used by the worker and prefetch jobs)
+         * This code is executed by a Worker thread (Not Swing EDT)
+         * @param fitsImage fits image
+         * @param minDataRange optional minimal range for data
+         * @param colorModel color model to use
+         * @param colorScale color scaling method
+         * @param prevIndexRaster optional color indexes of the previous image
+         * @param prefetch true for prefetch jobs: computed in the current thread only and the fits image is not modified
+         * @return computed image data or null if interrupted
+         */
+        static ImageChartData computeImageData(final FitsImage fitsImage, final float[] minDataRange,
+                                               final IndexColorModel colorModel, final ColorScale colorScale,
+                                               final ImageIndexRaster prevIndexRaster, final boolean prefetch) {
 
             // Start the computations :
             final long start = System.nanoTime();
 
-            float min = (float) this.fitsImage.getDataMin();
-            float max = (float) this.fitsImage.getDataMax();
+            float min = (float) fitsImage.getDataMin();
+            float max = (float) fitsImage.getDataMax();
 
-            if (this.minDataRange != null) {
+            if (minDataRange != null) {
                 // check minimum data range:
-                if (min > this.minDataRange[0]) {
-                    min = this.minDataRange[0];
+                if (min > minDataRange[0]) {
+                    min = minDataRange[0];
                 }
-                if (max < this.minDataRange[1]) {
-                    max = this.minDataRange[1];
+                if (max < minDataRange[1]) {
+                    max = minDataRange[1];
                 }
             }
 
@@ -1483,9 +1604,9 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
 
                 if ((min <= 0f) || (max <= 0f) || (min == max) || Float.isInfinite(min) || Float.isInfinite(max)) {
                     // update min/max without zero:
-                    FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
-                    min = (float) this.fitsImage.getDataMin();
-                    max = (float) this.fitsImage.getDataMax();
+                    final float[] range = getDataRangeExcludingZero(fitsImage, prefetch);
+                    min = range[0];
+                    max = range[1];
                 }
 
                 if (min <= 0f || max <= 0f) {
@@ -1509,9 +1630,9 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
                 usedColorScale = ColorScale.LINEAR;
 
                 // update min/max without zero:
-                FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
-                min = (float) this.fitsImage.getDataMin();
-                max = (float) this.fitsImage.getDataMax();
+                final float[] range = getDataRangeExcludingZero(fitsImage, prefetch);
+                min = range[0];
+                max = range[1];
 
                 if (min >= max) {
                     max = min + 1f;
@@ -1522,10 +1643,31 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
 
             logger.debug("computeInBackground: image range [{} - {}]", min, max);
 
-            // throws InterruptedJobException if the current thread is interrupted (cancelled):
-            final BufferedImage image = ImageUtils.createImage(this.fitsImage.getNbCols(), this.fitsImage.getNbRows(),
-                    this.fitsImage.getData(), min, max,
-                    this.colorModel, usedColorScale);
+            // Flip the image horizontally to have RA orientation = East is towards the left:
+            final boolean flipX = fitsImage.isIncColPositive();
+            // Flip the image vertically to have DEC orientation = North is towards the top:
+            final boolean flipY = !fitsImage.isIncRowPositive();
+
+            // color indexes (already flipped) shared by images having another color model:
+            ImageIndexRaster indexRaster = prevIndexRaster;
+
+            if (indexRaster != null
+                    && indexRaster.isCompatible(fitsImage, min, max, usedColorScale, colorModel, flipX, flipY)) {
+                logger.debug("computeInBackground: reuse color indexes");
+            } else {
+                indexRaster = ImageIndexRaster.create(fitsImage, min, max, usedColorScale, colorModel, flipX, flipY, !prefetch);
+            }
+
+            final BufferedImage image;
+            if (indexRaster != null) {
+                // only swap the color model (no copy):
+                image = indexRaster.createImage(colorModel);
+            } else {
+                // throws InterruptedJobException if the current thread is interrupted (cancelled):
+                image = ImageUtils.createImage(fitsImage.getNbCols(), fitsImage.getNbRows(),
+                        fitsImage.getData(), min, max,
+                        colorModel, usedColorScale);
+            }
 
             // fast interrupt :
             if (Thread.currentThread().isInterrupted()) {
@@ -1534,21 +1676,12 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
 
             AffineTransform at = null;
 
-            int sx = 1, sy = 1;
-            if (fitsImage.isIncColPositive() || !fitsImage.isIncRowPositive()) {
-                int tx = 0, ty = 0;
-                if (fitsImage.isIncColPositive()) {
-                    // Flip the image horizontally to have RA orientation = East is towards the left:
-                    sx = -1;
-                    tx = -image.getWidth();
-                }
-                if (!fitsImage.isIncRowPositive()) {
-                    // Flip the image vertically to have DEC orientation = North is towards the top:
-                    sy = -1;
-                    ty = -image.getHeight();
-                }
+            final int sx = (flipX) ? -1 : 1;
+            final int sy = (flipY) ? -1 : 1;
+
+            if ((indexRaster == null) && (flipX || flipY)) {
                 at = AffineTransform.getScaleInstance(sx, sy);
-                at.translate(tx, ty);
+                at.translate((flipX) ? -image.getWidth() : 0, (flipY) ? -image.getHeight() : 0);
             }
 
             if (fitsImage.isRotAngleDefined()) {
@@ -1587,11 +1720,19 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
                 final int w = (int) Math.ceil(outbbox.getWidth());
                 final int h = (int) Math.ceil(outbbox.getHeight());
 
-                displayedImage = ImageUtils.transformImage(image, this.colorModel, at, w, h);
+                displayedImage = ImageUtils.transformImage(image, colorModel, at, w, h);
             } else {
                 displayedImage = image;
             }
 
+            // build the pyramid (large images only): color indexes are shared by all color models
+            final ImageTilePyramid pyramid = (displayedImage == image && indexRaster != null)
+                    ? indexRaster.getPyramid(colorModel) : ImageTilePyramid.create(displayedImage);
+            if (pyramid != null) {
+                // compute levels here (not on the Swing EDT), once for all color models:
+                pyramid.computeLevels();
+            }
+
             logger.info("compute[ImageChartData]: duration = {} ms.", 1e-6d * (System.nanoTime() - start));
 
             // Adjust viewed area:
@@ -1617,7 +1758,22 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
                 }
             }
 
-            return new ImageChartData(fitsImage, colorModel, usedColorScale, usedInterpolation, min, max, displayedImage, imgRectRef);
+            return new ImageChartData(fitsImage, colorModel, usedColorScale, usedInterpolation, min, max, displayedImage, pyramid,
+                    indexRaster, imgRectRef);
+        }
+
+        /**
+         * Return the data range of the given fits image excluding zero
+         * @param fitsImage fits image
+         * @param prefetch true to leave the fits image unchanged (prefetch jobs); false to update its data range
+         * @return [min, max]
+         */
+        private static float[] getDataRangeExcludingZero(final FitsImage fitsImage, final boolean prefetch) {
+            if (prefetch) {
+                return FitsImageUtils.getDataRangeExcludingZero(fitsImage);
+            }
+            FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
+            return new float[]{(float) fitsImage.getDataMin(), (float) fitsImage.getDataMax()};
         }
 
         /**
@@ -1627,6 +1783,8 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
          */
         @Override
         public void refreshUI(final ImageChartData imageData) {
+            this.fitsPanel.sliceCache.put(this.key, imageData);
+
             // Refresh the GUI using coherent data :
             this.fitsPanel.updatePlot(imageData);
         }
@@ -1932,7 +2090,7 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
             y = imageHeight - y - h;
 
             // crop a small sub image:
-            final Image subImage = image.getSubimage(x, y, w, h);
+            final Image subImage = getDisplayImage(imageData, x, y, w, h);
 
             // update the background image :
             updatePlotImage(subImage);
@@ -1940,12 +2098,40 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
             imgRect.setRect(imgRectRef);
 
             // update the background image :
-            updatePlotImage(image);
+            updatePlotImage(getDisplayImage(imageData, 0, 0, imageWidth, imageHeight));
         }
 
         return doCrop;
     }
 
+    /**
+     * Return the image to display for the given area of the reference image:
+     * the visible area of the pyramid level matching the screen scale or the reference image (sub image)
+     * @param imageData computed image data
+     * @param x area x (reference image pixels)
+     * @param y area y (reference image pixels)
+     * @param w area width (reference image pixels)
+     * @param h area height (reference image pixels)
+     * @return image to display
+     */
+    private Image getDisplayImage(final ImageChartData imageData, final int x, final int y, final int w, final int h) {
+        final BufferedImage image = imageData.getImage();
+        final ImageTilePyramid pyramid = imageData.getPyramid();
+
+        if (pyramid != null) {
+            final Rectangle2D dataArea = this.chartPanel.getScreenDataArea();
+            final int level = pyramid.getLevel(w, h, (int) Math.ceil(dataArea.getWidth()), (int) Math.ceil(dataArea.getHeight()));
+
+            if (level != 0) {
+                return pyramid.render(level, x, y, w, h);
+            }
+        }
+        if (x == 0 && y == 0 && w == image.getWidth() && h == image.getHeight()) {
+            return image;
+        }
+        return image.getSubimage(x, y, w, h);
+    }
+
     /**
      * Update the background image of the chart with the given image and its legend
      * @param imageData computed image data or null
@@ -1991,7 +2177,8 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
 
             this.chart.addSubtitle(mapLegend);
 
-            updatePlotImage(imageData.getImage());
+            final BufferedImage image = imageData.getImage();
+            updatePlotImage(getDisplayImage(imageData, 0, 0, image.getWidth(), image.getHeight()));
 
         } else {
             updatePlotImage(null);
@@ -2010,9 +2197,12 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
                 // Recycle previous image:
                 if (bckgImg instanceof BufferedImage) {
                     final BufferedImage bi = (BufferedImage) bckgImg;
-                    // avoid sub images (child raster):
+                    // avoid sub images (child raster), images of another type, shared color indexes and cached images:
                     if (bi.getRaster().getParent() == null
-                            && this.chartData != null && this.chartData.getImage() != null) {
+                            && this.chartData != null && this.chartData.getImage() != null
+                            && bi.getType() == this.chartData.getImage().getType()
+                            && !ImageIndexRaster.isIndexImage(bi)
+                            && !this.sliceCache.containsImage(bi)) {
                         // check if this is the reference image:
                         if (bckgImg != this.chartData.getImage()) {
                             // recycle previous images:
@@ -2143,7 +2333,7 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
     /**
      * This class contains image data (fits image, image, colorModel ...) for consistency
      */
-    private static final class ImageChartData {
+    private static final class ImageChartData implements SliceRenderCache.Entry {
 
         /** fits image */
         private final FitsImage fitsImage;
@@ -2151,6 +2341,10 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
         private final IndexColorModel colorModel;
         /** java2D image */
         private final BufferedImage image;
+        /** optional tile pyramid of the java2D image */
+        private final ImageTilePyramid pyramid;
+        /** optional color indexes of the java2D image */
+        private final ImageIndexRaster indexRaster;
         /** color scaling method */
         private final ColorScale colorScale;
         /** image interpolation */
@@ -2171,12 +2365,15 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
          * @param min minimum value used by color conversion
          * @param max maximum value used by color conversion
          * @param image java2D image
+         * @param pyramid optional tile pyramid of the java2D image
+         * @param indexRaster optional color indexes of the java2D image
          * @param imgRectRef image physical area
          */
         ImageChartData(final FitsImage fitsImage, final IndexColorModel colorModel, final ColorScale colorScale,
                        final ImageInterpolation interpolation,
                        final float min, final float max,
-                       final BufferedImage image, final Rectangle2D.Double imgRectRef) {
+                       final BufferedImage image, final ImageTilePyramid pyramid, final ImageIndexRaster indexRaster,
+                       final Rectangle2D.Double imgRectRef) {
             this.fitsImage = fitsImage;
             this.colorModel = colorModel;
             this.colorScale = colorScale;
@@ -2184,6 +2381,8 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
             this.min = min;
             this.max = max;
             this.image = image;
+            this.pyramid = pyramid;
+            this.indexRaster = indexRaster;
             this.imgRectRef = imgRectRef;
         }
 
@@ -2228,10 +2427,47 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
          * Return the java2D image
          * @return java2D image
          */
-        BufferedImage getImage() {
+        @Override
+        public BufferedImage getImage() {
             return image;
         }
 
+        /**
+         * Return the optional tile pyramid of the java2D image
+         * @return tile pyramid or null if the image is small
+         */
+        ImageTilePyramid getPyramid() {
+            return pyramid;
+        }
+
+        /**
+         * Return the optional color indexes of the java2D image
+         * @return color indexes or null if not supported by the color model
+         */
+        ImageIndexRaster getIndexRaster() {
+            return indexRaster;
+        }
+
+        /**
+         * Return the approximated memory used by the images (bytes)
+         * @return approximated memory used by the images (bytes)
+         */
+        @Override
+        public long getByteSize() {
+            long size = 0L;
+            if (indexRaster != null) {
+                size += indexRaster.getByteSize();
+            }
+            if (indexRaster == null || !ImageIndexRaster.isIndexImage(image)) {
+                // int pixels:
+                size += 4L * image.getWidth() * image.getHeight();
+            }
+            if (pyramid != null) {
+                size += pyramid.getByteSize();
+            }
+            return size;
+        }
+
         /**
          * Return the minimum value used by color conversion
          * @return minimum value used by color conversion
@@ -2257,6 +2493,91 @@ public class FitsImagePanel extends javax.swing.JPanel implements Disposable, Ch
         }
     }
 
+    /**
+     * Key of the rendered image cache: fits image (identity, data, area and rotation) and rendering options
+     */
+    private static final class SliceKey {
+
+        /** fits image (identity) */
+        private final FitsImage fitsImage;
+        /** fits image data (identity) */
+        private final float[][] data;
+        /** fits image area */
+        private final Rectangle2D.Double area;
+        /** fits image rotation angle */
+        private final double rotAngle;
+        /** image color model (identity) */
+        private final IndexColorModel colorModel;
+        /** color scaling method */
+        private final ColorScale colorScale;
+        /** image interpolation */
+        private final ImageInterpolation interpolation;
+
+        /**
+         * Protected constructor
+         * @param fitsImage fits image
+         * @param colorModel image color model
+         * @param colorScale color scaling method
+         * @param interpolation image interpolation
+         */
+        SliceKey(final FitsImage fitsImage, final IndexColorModel colorModel, final ColorScale colorScale,
+                 final ImageInterpolation interpolation) {
+            this.fitsImage = fitsImage;
+            this.data = fitsImage.getData();
+            this.area = new Rectangle2D.Double();
+            this.area.setRect(fitsImage.getArea());
+            this.rotAngle = (fitsImage.isRotAngleDefined()) ? fitsImage.getRotAngle() : 0.0;
+            this.colorModel = colorModel;
+            this.colorScale = colorScale;
+            this.interpolation = interpolation;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SliceKey)) {
+                return false;
+            }
+            final SliceKey other = (SliceKey) obj;
+            return (fitsImage == other.fitsImage) && (data == other.data)
+                    && area.equals(other.area) && (Double.compare(rotAngle, other.rotAngle) == 0)
+                    && (colorModel == other.colorModel) && (colorScale == other.colorScale)
+                    && (interpolation == other.interpolation);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(fitsImage);
+            hash = 31 * hash + System.identityHashCode(data);
+            hash = 31 * hash + area.hashCode();
+            hash = 31 * hash + System.identityHashCode(colorModel);
+            hash = 31 * hash + ((colorScale != null) ? colorScale.hashCode() : 0);
+            return hash;
+        }
+    }
+
+    /**
+     * Daemon thread factory for the prefetch thread pool (low priority)
+     */
+    private static final class PrefetchThreadFactory implements ThreadFactory {
+
+        /** singleton */
+        static final PrefetchThreadFactory INSTANCE = new PrefetchThreadFactory();
+
+        /** thread counter */
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "FitsImagePrefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+
     private static double parseDouble(final String text) {
         if (!StringUtils.isEmpty(text)) {
             try {
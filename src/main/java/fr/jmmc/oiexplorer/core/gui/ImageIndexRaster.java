@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmal.image.ColorScale;
+import fr.jmmc.jmal.image.ImageUtils;
+import fr.jmmc.oitools.image.FitsImage;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Hashtable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class keeps the color indexes (8 or 16 bits) of a fits image for a given data range and color scale,
+ * already flipped to the displayed orientation (East at left, North at top).
+ * Changing the color model (LUT) only wraps the same raster (and its pyramid) with another IndexColorModel (no copy),
+ * so the image conversion is only needed when the data, the data range or the color scale change.
+ * The raster is written through the WritableRaster API only (its data buffer is never stolen)
+ * so images using it can still be accelerated (managed images).
+ * This class is thread-safe (the raster is never modified once computed, the pyramid is created once).
+ *
+ * @author bourgesl
+ */
+final class ImageIndexRaster {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ImageIndexRaster.class.getName());
+    /** image property set on images sharing an index raster (must not be recycled) */
+    private static final String PROPERTY_INDEX_RASTER = "oiexplorer.indexRaster";
+    /** minimum number of rows per parallel task */
+    private static final int PARALLEL_ROWS = 64;
+
+    /* members */
+    /** fits image data (identity) */
+    private final float[][] data;
+    /** number of columns */
+    private final int nbCols;
+    /** number of rows */
+    private final int nbRows;
+    /** true to flip the image horizontally */
+    private final boolean flipX;
+    /** true to flip the image vertically */
+    private final boolean flipY;
+    /** minimum value used by color conversion */
+    private final float min;
+    /** maximum value used by color conversion */
+    private final float max;
+    /** color scaling method */
+    private final ColorScale colorScale;
+    /** color model map size */
+    private final int mapSize;
+    /** color indexes */
+    private final WritableRaster raster;
+    /** optional pyramid of the color indexes (lazy, large images only) */
+    private ImageTilePyramid pyramid = null;
+    /** true if the pyramid was created */
+    private boolean pyramidDone = false;
+
+    /**
+     * Compute the color indexes of the given fits image
+     * @param fitsImage fits image
+     * @param min minimum value used by color conversion
+     * @param max maximum value used by color conversion
+     * @param colorScale color scaling method
+     * @param colorModel color model
+     * @param flipX true to flip the image horizontally
+     * @param flipY true to flip the image vertically
+     * @param parallel true to use the common fork/join pool (large images)
+     * @return index raster or null if the color model is not supported (less than 8 bits)
+     */
+    static ImageIndexRaster create(final FitsImage fitsImage, final float min, final float max, final ColorScale colorScale,
+                                   final IndexColorModel colorModel, final boolean flipX, final boolean flipY,
+                                   final boolean parallel) {
+        final int nbCols = fitsImage.getNbCols();
+        final int nbRows = fitsImage.getNbRows();
+        final int mapSize = colorModel.getMapSize();
+
+        final WritableRaster raster = Raster.createInterleavedRaster((mapSize <= 256) ? DataBuffer.TYPE_BYTE : DataBuffer.TYPE_USHORT,
+                nbCols, nbRows, 1, null);
+
+        if (!colorModel.isCompatibleRaster(raster)) {
+            return null;
+        }
+        final long start = System.nanoTime();
+
+        final ImageIndexRaster indexRaster = new ImageIndexRaster(fitsImage.getData(), nbCols, nbRows, flipX, flipY,
+                min, max, colorScale, mapSize, raster);
+
+        if (parallel && (nbRows > 2 * PARALLEL_ROWS) && (ForkJoinPool.getCommonPoolParallelism() > 1)) {
+            ForkJoinPool.commonPool().invoke(indexRaster.new QuantizeTask(0, nbRows));
+        } else {
+            indexRaster.quantize(0, nbRows);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("create: Image[{} x {}] - duration = {} ms.", nbCols, nbRows, 1e-6d * (System.nanoTime() - start));
+        }
+        return indexRaster;
+    }
+
+    /**
+     * Return true if the given image shares an index raster (must not be recycled)
+     * @param image image to test
+     * @return true if the given image shares an index raster
+     */
+    static boolean isIndexImage(final BufferedImage image) {
+        return image.getProperty(PROPERTY_INDEX_RASTER) != Image.UndefinedProperty;
+    }
+
+    /**
+     * Private constructor
+     * @param data fits image data
+     * @param nbCols number of columns
+     * @param nbRows number of rows
+     * @param flipX true to flip the image horizontally
+     * @param flipY true to flip the image vertically
+     * @param min minimum value used by color conversion
+     * @param max maximum value used by color conversion
+     * @param colorScale color scaling method
+     * @param mapSize color model map size
+     * @param raster color indexes
+     */
+    private ImageIndexRaster(final float[][] data, final int nbCols, final int nbRows, final boolean flipX, final boolean flipY,
+                             final float min, final float max, final ColorScale colorScale, final int mapSize,
+                             final WritableRaster raster) {
+        this.data = data;
+        this.nbCols = nbCols;
+        this.nbRows = nbRows;
+        this.flipX = flipX;
+        this.flipY = flipY;
+        this.min = min;
+        this.max = max;
+        this.colorScale = colorScale;
+        this.mapSize = mapSize;
+        this.raster = raster;
+    }
+
+    /**
+     * Return true if this index raster can be used for the given parameters
+     * @param fitsImage fits image
+     * @param min minimum value used by color conversion
+     * @param max maximum value used by color conversion
+     * @param colorScale color scaling method
+     * @param colorModel color model
+     * @param flipX true to flip the image horizontally
+     * @param flipY true to flip the image vertically
+     * @return true if this index raster can be used
+     */
+    boolean isCompatible(final FitsImage fitsImage, final float min, final float max, final ColorScale colorScale,
+                         final IndexColorModel colorModel, final boolean flipX, final boolean flipY) {
+        return (this.data == fitsImage.getData())
+                && (this.nbCols == fitsImage.getNbCols()) && (this.nbRows == fitsImage.getNbRows())
+                && (this.flipX == flipX) && (this.flipY == flipY)
+                && (Float.compare(this.min, min) == 0) && (Float.compare(this.max, max) == 0)
+                && (this.colorScale == colorScale)
+                && (this.mapSize == colorModel.getMapSize()) && colorModel.isCompatibleRaster(raster);
+    }
+
+    /**
+     * Return the memory used by the color indexes (bytes)
+     * @return memory used by the color indexes (bytes)
+     */
+    long getByteSize() {
+        final DataBuffer buffer = raster.getDataBuffer();
+        return ((long) buffer.getSize()) * (DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+    }
+
+    /**
+     * Create a new image using the given color model on this index raster (no copy)
+     * @param colorModel color model
+     * @return new image
+     */
+    BufferedImage createImage(final IndexColorModel colorModel) {
+        final Hashtable<String, Object> properties = new Hashtable<String, Object>(2);
+        properties.put(PROPERTY_INDEX_RASTER, Boolean.TRUE);
+
+        return new BufferedImage(colorModel, raster, false, properties);
+    }
+
+    /**
+     * Return the pyramid of the color indexes using the given color model (created once, shared by all color models)
+     * @param colorModel color model
+     * @return pyramid or null if the image is too small
+     */
+    ImageTilePyramid getPyramid(final IndexColorModel colorModel) {
+        final ImageTilePyramid indexPyramid;
+        synchronized (this) {
+            if (!pyramidDone) {
+                pyramid = ImageTilePyramid.create(raster, colorModel);
+                pyramidDone = true;
+            }
+            indexPyramid = pyramid;
+        }
+        return (indexPyramid != null) ? indexPyramid.withColorModel(colorModel) : null;
+    }
+
+    /**
+     * Compute the color indexes of the given data rows
+     * @param rowStart first row (inclusive)
+     * @param rowEnd last row (exclusive)
+     */
+    private void quantize(final int rowStart, final int rowEnd) {
+        final boolean useLog = (colorScale == ColorScale.LOGARITHMIC);
+        final float[] scaledMinMax = ImageUtils.scaleMinMax(min, max, colorScale);
+        final float scaledMin = scaledMinMax[0];
+        final float scalingFactor = ImageUtils.computeScalingFactor(scaledMinMax[0], scaledMinMax[1], mapSize);
+        final int iMaxColor = mapSize - 1;
+
+        final int[] colors = new int[nbCols];
+
+        for (int j = rowStart; j < rowEnd; j++) {
+            final float[] row = data[j];
+
+            for (int i = 0; i < nbCols; i++) {
+                colors[(flipX) ? (nbCols - 1 - i) : i]
+                        = ImageUtils.getColor(iMaxColor, ImageUtils.getScaledValue(useLog, scaledMin, scalingFactor, row[i]));
+            }
+            // fits origin is at the bottom left corner (inverted Y axis) unless flipped:
+            raster.setSamples(0, (flipY) ? j : (nbRows - 1 - j), nbCols, 1, 0, colors);
+        }
+    }
+
+    /**
+     * Parallel task computing the color indexes of a row range
+     */
+    private final class QuantizeTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /** first row (inclusive) */
+        private final int rowStart;
+        /** last row (exclusive) */
+        private final int rowEnd;
+
+        /**
+         * Protected constructor
+         * @param rowStart first row (inclusive)
+         * @param rowEnd last row (exclusive)
+         */
+        QuantizeTask(final int rowStart, final int rowEnd) {
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if ((rowEnd - rowStart) <= PARALLEL_ROWS) {
+                quantize(rowStart, rowEnd);
+            } else {
+                final int mid = (rowStart + rowEnd) >>> 1;
+                invokeAll(new QuantizeTask(rowStart, mid), new QuantizeTask(mid, rowEnd));
+            }
+        }
+    }
+}
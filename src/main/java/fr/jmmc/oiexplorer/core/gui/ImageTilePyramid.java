@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a multi-resolution pyramid built from the raster of a (large) java2D image:
+ * level 0 is the reference raster and every next level is downsampled by 2 (2x2 box filter on samples);
+ * levels are computed by worker threads (computeLevels) and only the viewed area is copied at the level
+ * matching the screen scale (drawing cost depends on the viewport size, not on the image size).
+ * Rendering never computes levels: it uses the nearest finer level available.
+ * Levels only contain samples (color indexes for IndexColorModel images) so a pyramid of color indexes
+ * is shared by images using another color model (LUT switch) without any computation.
+ * This class is thread-safe (created by a worker thread, levels computed once by worker threads, read by the Swing EDT).
+ *
+ * @author bourgesl
+ */
+final class ImageTilePyramid {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ImageTilePyramid.class.getName());
+    /** smallest level size (pixels) */
+    static final int TILE_SIZE = 256;
+
+    /* members */
+    /** color model used to render the levels */
+    private final ColorModel colorModel;
+    /** levels shared by pyramids using another color model */
+    private final Levels levels;
+
+    /**
+     * Create the pyramid of the given image
+     * @param image reference image
+     * @return pyramid or null if the image is too small (no downsampled level)
+     */
+    static ImageTilePyramid create(final BufferedImage image) {
+        return create(image.getRaster(), image.getColorModel());
+    }
+
+    /**
+     * Create the pyramid of the given raster
+     * @param raster reference raster (not modified)
+     * @param colorModel color model used to render the levels
+     * @return pyramid or null if the raster is too small (no downsampled level)
+     */
+    static ImageTilePyramid create(final Raster raster, final ColorModel colorModel) {
+        if (Math.max(raster.getWidth(), raster.getHeight()) <= 2 * TILE_SIZE) {
+            return null;
+        }
+        return new ImageTilePyramid(colorModel, new Levels(raster));
+    }
+
+    /**
+     * Private constructor
+     * @param colorModel color model used to render the levels
+     * @param levels levels
+     */
+    private ImageTilePyramid(final ColorModel colorModel, final Levels levels) {
+        this.colorModel = colorModel;
+        this.levels = levels;
+    }
+
+    /**
+     * Return a pyramid sharing the levels of this pyramid rendered with the given color model (no copy)
+     * @param colorModel color model compatible with the levels
+     * @return pyramid using the given color model
+     */
+    ImageTilePyramid withColorModel(final ColorModel colorModel) {
+        if (colorModel == this.colorModel) {
+            return this;
+        }
+        return new ImageTilePyramid(colorModel, levels);
+    }
+
+    /**
+     * Return the memory used by all downsampled levels once computed (bytes): level 0 is the reference raster
+     * (constant upper bound; levels shared by several pyramids are counted once per pyramid)
+     * @return memory used by the downsampled levels (bytes)
+     */
+    long getByteSize() {
+        return levels.byteSize;
+    }
+
+    /**
+     * Compute all downsampled levels not computed yet (worker thread, not Swing EDT)
+     */
+    void computeLevels() {
+        levels.computeAll();
+    }
+
+    /**
+     * Return the coarsest level still giving at least one image pixel per screen pixel for the given area
+     * @param w area width (reference image pixels)
+     * @param h area height (reference image pixels)
+     * @param screenWidth screen width (pixels)
+     * @param screenHeight screen height (pixels)
+     * @return level (0 = reference image)
+     */
+    int getLevel(final int w, final int h, final int screenWidth, final int screenHeight) {
+        if (screenWidth <= 0 || screenHeight <= 0) {
+            // unknown screen area (not displayed yet):
+            return 0;
+        }
+        int k = 0;
+        while ((k + 1) < levels.nLevels && (w >> (k + 1)) >= screenWidth && (h >> (k + 1)) >= screenHeight) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Render the given area at the given level (or the nearest finer level computed): only the visible samples are copied
+     * @param level level
+     * @param x area x (reference image pixels)
+     * @param y area y (reference image pixels)
+     * @param w area width (reference image pixels)
+     * @param h area height (reference image pixels)
+     * @return new image covering the given area (rounded to the level pixels)
+     */
+    BufferedImage render(final int level, final int x, final int y, final int w, final int h) {
+        // never compute the level here (Swing EDT):
+        final int k = levels.getAvailableLevel(level);
+        final Raster raster = levels.getRaster(k);
+
+        final int x0 = x >> k;
+        final int y0 = y >> k;
+        final int x1 = Math.min(raster.getWidth(), (x + w + (1 << k) - 1) >> k);
+        final int y1 = Math.min(raster.getHeight(), (y + h + (1 << k) - 1) >> k);
+
+        final WritableRaster area = raster.createCompatibleWritableRaster(Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+        // copy the visible area only:
+        area.setRect(-x0, -y0, raster);
+
+        final BufferedImage output = new BufferedImage(colorModel, area, colorModel.isAlphaPremultiplied(), null);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("render: level {} (expected {}) Image[{} x {}]", k, level, output.getWidth(), output.getHeight());
+        }
+        return output;
+    }
+
+    /**
+     * Pyramid levels computed by worker threads (shared by pyramids using another color model)
+     */
+    private static final class Levels {
+
+        /** number of levels */
+        final int nLevels;
+        /** memory used by all downsampled levels (bytes) */
+        final long byteSize;
+        /** levels (0 = reference raster, null if not computed yet) guarded by this */
+        private final Raster[] rasters;
+        /** lock held while computing levels (readers are not blocked) */
+        private final Object computeLock = new Object();
+
+        /**
+         * Protected constructor
+         * @param raster reference raster
+         */
+        Levels(final Raster raster) {
+            final DataBuffer buffer = raster.getDataBuffer();
+            final double bytesPerPixel = (((double) buffer.getSize()) * buffer.getNumBanks()
+                    * (DataBuffer.getDataTypeSize(buffer.getDataType()) / 8)) / (((double) raster.getWidth()) * raster.getHeight());
+
+            int n = 1;
+            long size = 0L;
+            for (int w = raster.getWidth(), h = raster.getHeight(); Math.max(w, h) > TILE_SIZE; n++) {
+                w = (w + 1) / 2;
+                h = (h + 1) / 2;
+                size += (long) Math.ceil(bytesPerPixel * w * h);
+            }
+            this.nLevels = n;
+            this.byteSize = size;
+            this.rasters = new Raster[n];
+            this.rasters[0] = raster;
+        }
+
+        /**
+         * Compute all levels not computed yet (every level from the previous level)
+         */
+        void computeAll() {
+            synchronized (computeLock) {
+                for (int k = 1; k < nLevels; k++) {
+                    if (getRaster(k) == null) {
+                        final long start = System.nanoTime();
+
+                        final Raster level = downsample(getRaster(k - 1));
+                        setRaster(k, level);
+
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("level {}: Raster[{} x {}] - duration = {} ms.", k, level.getWidth(), level.getHeight(),
+                                    1e-6d * (System.nanoTime() - start));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Return the nearest finer level computed (level 0 is always available)
+         * @param k expected level
+         * @return level computed
+         */
+        synchronized int getAvailableLevel(final int k) {
+            int level = k;
+            while (level > 0 && rasters[level] == null) {
+                level--;
+            }
+            return level;
+        }
+
+        /**
+         * Return the given level
+         * @param k level
+         * @return level raster or null if not computed yet
+         */
+        synchronized Raster getRaster(final int k) {
+            return rasters[k];
+        }
+
+        /**
+         * Define the given level
+         * @param k level
+         * @param level level raster
+         */
+        private synchronized void setRaster(final int k, final Raster level) {
+            rasters[k] = level;
+        }
+    }
+
+    /**
+     * Compute the next level (downsampled by 2) of the given level:
+     * every sample is the rounded mean of 2x2 samples (edge samples are repeated)
+     * @param level level to downsample
+     * @return new level
+     */
+    private static Raster downsample(final Raster level) {
+        final int srcWidth = level.getWidth();
+        final int srcHeight = level.getHeight();
+        final int minX = level.getMinX();
+        final int minY = level.getMinY();
+        final int nBands = level.getNumBands();
+
+        final int width = (srcWidth + 1) / 2;
+        final int height = (srcHeight + 1) / 2;
+
+        final WritableRaster next = level.createCompatibleWritableRaster(width, height);
+
+        final int[] row0 = new int[srcWidth * nBands];
+        final int[] row1 = new int[srcWidth * nBands];
+        final int[] out = new int[width * nBands];
+
+        for (int j = 0; j < height; j++) {
+            level.getPixels(minX, minY + 2 * j, srcWidth, 1, row0);
+            level.getPixels(minX, minY + Math.min(2 * j + 1, srcHeight - 1), srcWidth, 1, row1);
+
+            for (int i = 0, o = 0; i < width; i++) {
+                final int p0 = 2 * i * nBands;
+                final int p1 = Math.min(2 * i + 1, srcWidth - 1) * nBands;
+
+                for (int b = 0; b < nBands; b++) {
+                    out[o++] = (row0[p0 + b] + row0[p1 + b] + row1[p0 + b] + row1[p1 + b] + 2) >> 2;
+                }
+            }
+            next.setPixels(0, j, width, 1, out);
+        }
+        return next;
+    }
+}
@@ -19,6 +19,8 @@ public class OIExplorerTaskRegistry extends TaskRegistry {
     /* OIExplorer tasks */
     /** load OIFits files */
     public final static Task TASK_LOAD_OIFITS;
+    /** compute expression columns */
+    public final static Task TASK_EXPR_COLUMN;
 
     /**
      * Static initializer to define tasks and their child tasks
@@ -29,9 +31,11 @@ public class OIExplorerTaskRegistry extends TaskRegistry {
 
         // create tasks :
         TASK_LOAD_OIFITS = new Task("LoadOIFits");
+        TASK_EXPR_COLUMN = new Task("ExprColumn");
 
         // register tasks :
         _instance.addTask(TASK_LOAD_OIFITS);
+        _instance.addTask(TASK_EXPR_COLUMN);
     }
 
     /**
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmcs.util.ObjectUtils;
+import fr.jmmc.oiexplorer.core.model.plot.Axis;
+import fr.jmmc.oiexplorer.core.model.plot.PlotDefinition;
+
+/**
+ * This enumeration gives the impact of a plot definition change on the plot (ordered by increasing cost):
+ * - NONE: nothing to update
+ * - AXIS: only axes have to be updated (range mode, range, include zero ...)
+ * - STYLE: only renderer settings have to be updated (color mapping, draw lines without wavelengths)
+ * - DATA: data must be extracted again (axis names, converters, flagged data, draw lines along wavelengths ...)
+ *
+ * @author bourgesl
+ */
+enum PlotChangeImpact {
+
+    /** no change */
+    NONE,
+    /** axis change only */
+    AXIS,
+    /** style change (renderer attributes) */
+    STYLE,
+    /** data change */
+    DATA;
+
+    /**
+     * Return the highest impact among this and the other impact
+     * @param other other impact
+     * @return highest impact
+     */
+    PlotChangeImpact max(final PlotChangeImpact other) {
+        return (other.ordinal() > ordinal()) ? other : this;
+    }
+
+    /**
+     * Return the impact of changes between the given plot definitions
+     * @param prev previous plot definition
+     * @param plotDef new plot definition
+     * @param xPositive true if all x values are strictly positive (log scale does not discard data)
+     * @param yPositives true if all y values are strictly positive per y axis (log scale does not discard data)
+     * @param useWaveLengths true if the plot uses wavelengths (line cut-offs depend on draw lines)
+     * @return change impact
+     */
+    static PlotChangeImpact getImpact(final PlotDefinition prev, final PlotDefinition plotDef,
+                                      final boolean xPositive, final boolean[] yPositives, final boolean useWaveLengths) {
+        if (prev.isSkipFlaggedData() != plotDef.isSkipFlaggedData()) {
+            return DATA;
+        }
+        final int nYaxes = plotDef.getYAxes().size();
+
+        if (prev.getYAxes().size() != nYaxes) {
+            return DATA;
+        }
+
+        PlotChangeImpact impact = getImpact(prev.getXAxis(), plotDef.getXAxis(), xPositive);
+
+        for (int i = 0; i < nYaxes && impact != DATA; i++) {
+            impact = impact.max(getImpact(prev.getYAxes().get(i), plotDef.getYAxes().get(i), yPositives[i]));
+        }
+
+        if (impact != DATA) {
+            if (prev.isDrawLine() != plotDef.isDrawLine()) {
+                // line cut-offs are only extracted when drawing lines along wavelengths:
+                impact = impact.max((useWaveLengths) ? DATA : STYLE);
+            } else if (prev.getColorMapping() != plotDef.getColorMapping()) {
+                impact = impact.max(STYLE);
+            }
+        }
+        return impact;
+    }
+
+    /**
+     * Return the impact of changes between the given axes
+     * @param prev previous axis
+     * @param axis new axis
+     * @param positive true if all values are strictly positive (log scale does not discard data)
+     * @return change impact
+     */
+    static PlotChangeImpact getImpact(final Axis prev, final Axis axis, final boolean positive) {
+        if (prev == null || axis == null) {
+            return (prev == axis) ? NONE : DATA;
+        }
+        if (!ObjectUtils.areEquals(prev.getName(), axis.getName())
+                || !ObjectUtils.areEquals(prev.getConverter(), axis.getConverter())) {
+            return DATA;
+        }
+
+        PlotChangeImpact impact = NONE;
+
+        if (prev.isLogScale() != axis.isLogScale()) {
+            // log scale discards negative values (and clamps lower errors) during data extraction:
+            if (!positive) {
+                return DATA;
+            }
+            impact = AXIS;
+        }
+        if ((prev.isIncludeZero() != axis.isIncludeZero())
+                || (prev.isIncludeDataRangeOrDefault() != axis.isIncludeDataRangeOrDefault())
+                || (prev.getRangeModeOrDefault() != axis.getRangeModeOrDefault())
+                || !ObjectUtils.areEquals(prev.getRange(), axis.getRange())) {
+            impact = AXIS;
+        }
+        return impact;
+    }
+}
@@ -6,6 +6,9 @@ package fr.jmmc.oiexplorer.core.gui;
 import fr.jmmc.jmal.image.ColorModels;
 import fr.jmmc.jmal.image.ColorScale;
 import fr.jmmc.jmal.image.ImageUtils;
+import fr.jmmc.jmcs.gui.task.Task;
+import fr.jmmc.jmcs.gui.task.TaskSwingWorker;
+import fr.jmmc.jmcs.gui.task.TaskSwingWorkerExecutor;
 import fr.jmmc.jmcs.gui.util.EDTDelayedEventHandler;
 import fr.jmmc.jmcs.gui.util.SwingUtils;
 import fr.jmmc.jmcs.util.NumberUtils;
@@ -27,12 +30,15 @@ import fr.jmmc.oiexplorer.core.gui.chart.EnhancedCombinedDomainXYPlot;
 import fr.jmmc.oiexplorer.core.gui.chart.FastXYErrorRenderer;
 import fr.jmmc.oiexplorer.core.gui.chart.SelectionOverlay;
 import fr.jmmc.oiexplorer.core.gui.chart.dataset.FastIntervalXYDataset;
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.XYCellIndex;
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.XYPointIndex;
 import fr.jmmc.oiexplorer.core.gui.chart.dataset.OITableSerieKey;
 import fr.jmmc.oiexplorer.core.gui.chart.dataset.SharedSeriesAttributes;
 import fr.jmmc.oiexplorer.core.gui.selection.XYPlotPoint;
 import fr.jmmc.oiexplorer.core.gui.selection.DataPointInfo;
 import fr.jmmc.oiexplorer.core.gui.selection.DataPointer;
 import fr.jmmc.oiexplorer.core.gui.selection.OIDataPointer;
+import fr.jmmc.oiexplorer.core.model.IdentifiableVersion;
 import fr.jmmc.oiexplorer.core.model.OIFitsCollectionManager;
 import fr.jmmc.oiexplorer.core.model.OIFitsCollectionManagerEvent;
 import fr.jmmc.oiexplorer.core.model.OIFitsCollectionManagerEventListener;
@@ -59,7 +65,6 @@ import fr.jmmc.oitools.processing.SelectorResult;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
-import java.awt.Paint;
 import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
@@ -78,6 +83,12 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jfree.chart.ChartColor;
 import org.jfree.chart.ChartMouseEvent;
 import org.jfree.chart.ChartPanel;
@@ -123,6 +134,16 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
     private static final boolean PLOT_RDR_TIME = true;
     /** Enable Error bars */
     private static final boolean PLOT_ERR = true;
+    /** Enable parallel processing of OIData tables (fork/join) */
+    private static final boolean PLOT_PARALLEL = true;
+    /** Enable the (shared) cache of table series */
+    private static final boolean PLOT_CACHE = true;
+    /** undefined collection version (disables the cache of table series) */
+    private static final int NO_DATA_VERSION = -1;
+    /** Store dataset values as float (half memory but only 7 significant digits ie not suited to MJD values) */
+    private static final boolean PLOT_FLOAT_DATA = false;
+    /** Enable the spatial index of datasets (nearest point and selection queries) */
+    private static final boolean PLOT_INDEX = true;
     /** use plot (true) or overlay (false) crosshair support (faster is overlay) */
     private static final boolean USE_PLOT_CROSSHAIR = false;
     /** enable mouse selection handling (DEV) TODO: enable selection ASAP (TODO sub plot support) */
@@ -139,10 +160,24 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
     /** double formatter for other values */
     private final static NumberFormat df2 = new DecimalFormat("0.00");
     public final static double LAMBDA_EPSILON = 1e-10; // 0.1 nm
+    /** plot task prefix 'updatePlot-' */
+    private static final String PREFIX_PLOT_TASK = "updatePlot-";
+    /** global plot panel counter */
+    private final static AtomicInteger panelCounter = new AtomicInteger(1);
 
     /* shared point shapes */
     private static final Shape shapePointValid;
     private static final Shape shapePointInvalid;
+    /** item shape code: default shape */
+    private static final byte SHAPE_CODE_DEFAULT = 0;
+    /** item shape code: valid point */
+    private static final byte SHAPE_CODE_VALID = 1;
+    /** item shape code: invalid point (flagged or invalid error) */
+    private static final byte SHAPE_CODE_INVALID = 2;
+    /** item shape table (indexed by shape codes) */
+    private static final Shape[] ITEM_SHAPES;
+    /** maximum item paint code (unsigned byte = color index in the wavelength palette) */
+    private static final int MAX_PAINT_CODE = 255;
 
     static {
         // initialize point shapes:
@@ -187,6 +222,8 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                 return super.getBounds2D();
             }
         };
+
+        ITEM_SHAPES = new Shape[]{null, shapePointValid, shapePointInvalid};
     }
 
     private static int scale(final int v) {
@@ -195,9 +232,15 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
 
     /** OIFitsCollectionManager singleton */
     private final static OIFitsCollectionManager ocm = OIFitsCollectionManager.getInstance();
-    /* members */
     /** ConverterFactory singleton */
-    private final ConverterFactory cf = ConverterFactory.getInstance();
+    private final static ConverterFactory cf = ConverterFactory.getInstance();
+    /* members */
+    /** plot data task */
+    private final Task task;
+    /** last plot definition (copy) given to the plot data task or applied */
+    private PlotDefinition lastPlotDef = null;
+    /** displayed chart data (datasets) */
+    private PlotChartData chartData = null;
     /** plot identifier */
     private String plotId = null;
     /** plot object reference (read only) */
@@ -238,6 +281,8 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
      * Constructor
      */
     public PlotChartPanel() {
+        this.task = new Task(PREFIX_PLOT_TASK + panelCounter.getAndIncrement());
+
         ocm.getPlotChangedEventNotifier().register(this);
         ocm.getSelectionChangedEventNotifier().register(this);
 
@@ -255,6 +300,9 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             logger.debug("dispose: {}", ObjectUtils.getObjectInfo(this));
         }
         ocm.unbind(this);
+
+        // Cancel any running task:
+        TaskSwingWorkerExecutor.cancelTask(this.task);
     }
 
     /**
@@ -995,55 +1043,30 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             final int mRow = selPtr.getRow();
             final int mCol = selPtr.getCol();
 
+            // (series, item) pairs:
+            final int[] matches = new int[4];
+
             for (int i = 0, len = this.xyPlotList.size(); i < len; i++) {
                 final XYPlot xyPlot = this.xyPlotList.get(i);
 
                 final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset = getDataset(xyPlot);
-                if (dataset != null) {
-                    int nMatchs = 0;
-                    XYPlotPoint pt1 = null;
-                    XYPlotPoint pt2 = null;
-
-                    for (int serie = 0, seriesCount = dataset.getSeriesCount(), item, itemCount, row, col; serie < seriesCount; serie++) {
-                        final OITableSerieKey serieKey = (OITableSerieKey) dataset.getSeriesKey(serie);
-
-                        // check oidata pointer (OIData) and column index (wavelength ?)
-                        if (serieKey.getDataPointer().equals(selPtr)) {
-                            itemCount = dataset.getItemCount(serie);
-
-                            for (item = 0; item < itemCount; item++) {
-                                row = dataset.getDataRow(serie, item);
-
-                                if (row == mRow) {
-                                    col = dataset.getDataCol(serie, item);
+                final Integer plotIndex = this.plotMapping.get(xyPlot);
 
-                                    if (col == mCol) {
-                                        // matching
-                                        logger.debug("matching point: serie={} item={}", serie, item);
+                if (dataset != null && plotIndex != null) {
+                    final PlotInfo info = getPlotInfos().get(plotIndex.intValue());
 
-                                        if (++nMatchs > 2) {
-                                            logger.info("Too much matching items for ptr: {}", selPtr);
-                                            break;
-                                        }
+                    final int nMatchs = getCellIndex(info, dataset, selPtr).find(mRow, mCol, matches);
 
-                                        final XYPlotPoint pt = createDataPoint(
-                                                getPlotInfos().get(this.plotMapping.get(xyPlot).intValue()),
-                                                dataset, serie, item);
+                    logger.debug("matching points: {}", nMatchs);
 
-                                        if (pt1 == null) {
-                                            pt1 = pt;
-                                        } else if (pt2 == null) {
-                                            pt2 = pt;
-                                        }
-                                    }
-                                }
-                            }
-                        }
+                    if (nMatchs > 2) {
+                        logger.info("Too much matching items for ptr: {}", selPtr);
                     }
 
-                    logger.debug("matching points: {}", nMatchs);
-
                     if (nMatchs != 0) {
+                        final XYPlotPoint pt1 = createDataPoint(info, dataset, matches[0], matches[1]);
+                        final XYPlotPoint pt2 = (nMatchs > 1) ? createDataPoint(info, dataset, matches[2], matches[3]) : null;
+
                         dataPoints.put(xyPlot, new XYPlotPoint[]{pt1, pt2});
                     }
                 }
@@ -1056,6 +1079,44 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         return (dataPoints != null && !dataPoints.isEmpty()) ? dataPoints : null;
     }
 
+    /**
+     * Return the reverse index (row, col) to (series, item) of the given OIData table in the given dataset (lazily built)
+     * @param info plot information (index cache)
+     * @param dataset plot dataset
+     * @param ptr data pointer (OIData table)
+     * @return reverse index
+     */
+    private static XYCellIndex getCellIndex(final PlotInfo info, final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset,
+                                            final OIDataPointer ptr) {
+        // use OIData equality (not row / col):
+        final OIDataPointer key = new OIDataPointer(ptr.getOiData());
+
+        XYCellIndex cellIndex = info.cellIndexes.get(key);
+        if (cellIndex == null) {
+            final long startTime = System.nanoTime();
+
+            // series of the OIData table:
+            final int seriesCount = dataset.getSeriesCount();
+            final int[] series = new int[seriesCount];
+            int nSeries = 0;
+
+            for (int serie = 0; serie < seriesCount; serie++) {
+                final OITableSerieKey serieKey = (OITableSerieKey) dataset.getSeriesKey(serie);
+
+                if (serieKey.getDataPointer().equals(key)) {
+                    series[nSeries++] = serie;
+                }
+            }
+            cellIndex = new XYCellIndex(dataset, series, nSeries);
+            info.cellIndexes.put(key, cellIndex);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("getCellIndex: {} items - duration = {} ms.", cellIndex.size(), 1e-6d * (System.nanoTime() - startTime));
+            }
+        }
+        return cellIndex;
+    }
+
     /**
      * Find data point closest in FIRST dataset to the given coordinates X / Y
      * @param info plot information
@@ -1078,29 +1139,40 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             // TODO: move such code elsewhere : ChartUtils or XYDataSetUtils ?
             final long startTime = System.nanoTime();
 
-            double minDistance = Double.POSITIVE_INFINITY;
-            double x, y, dx, dy, distance;
+            final XYPointIndex index = dataset.getIndex();
+
+            if (index != null) {
+                // use the spatial index:
+                final int ordinal = index.findNearest(anchorX, anchorY, xRatio, yRatio);
 
-            // NOTE: not optimized
-            // standard case - plain XYDataset
-            for (int serie = 0, seriesCount = dataset.getSeriesCount(), item, itemCount; serie < seriesCount; serie++) {
-                itemCount = dataset.getItemCount(serie);
+                if (ordinal != -1) {
+                    matchSerie = index.getSeries(ordinal);
+                    matchItem = index.getItem(ordinal);
+                }
+            } else {
+                double minDistance = Double.POSITIVE_INFINITY;
+                double x, y, dx, dy, distance;
 
-                for (item = 0; item < itemCount; item++) {
-                    x = dataset.getXValue(serie, item);
-                    y = dataset.getYValue(serie, item);
+                // standard case - plain XYDataset (index not yet available)
+                for (int serie = 0, seriesCount = dataset.getSeriesCount(), item, itemCount; serie < seriesCount; serie++) {
+                    itemCount = dataset.getItemCount(serie);
 
-                    if (!Double.isNaN(x) && !Double.isNaN(y)) {
-                        // converted in pixels:
-                        dx = (x - anchorX) * xRatio;
-                        dy = (y - anchorY) * yRatio;
+                    for (item = 0; item < itemCount; item++) {
+                        x = dataset.getXValue(serie, item);
+                        y = dataset.getYValue(serie, item);
 
-                        distance = dx * dx + dy * dy;
+                        if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                            // converted in pixels:
+                            dx = (x - anchorX) * xRatio;
+                            dy = (y - anchorY) * yRatio;
 
-                        if (distance < minDistance) {
-                            minDistance = distance;
-                            matchSerie = serie;
-                            matchItem = item;
+                            distance = dx * dx + dy * dy;
+
+                            if (distance < minDistance) {
+                                minDistance = distance;
+                                matchSerie = serie;
+                                matchItem = item;
+                            }
                         }
                     }
                 }
@@ -1185,23 +1257,35 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
              */
             double x, y;
 
-            // NOTE: not optimized
-            // standard case - plain XYDataset
-            for (int serie = 0, seriesCount = dataset.getSeriesCount(), item, itemCount; serie < seriesCount; serie++) {
-                itemCount = dataset.getItemCount(serie);
-                for (item = 0; item < itemCount; item++) {
-                    x = dataset.getXValue(serie, item);
-                    y = dataset.getYValue(serie, item);
-
-                    if (!Double.isNaN(x) && !Double.isNaN(y)) {
-
-                        if (shape.contains(x, y)) {
-                            // TODO: keep data selection (pointer to real data)
-                            /*
-                             matchSerie = serie;
-                             matchItem = item;
-                             */
-                            points.add(new Point2D.Double(x, y));
+            final XYPointIndex index = (dataset instanceof FastIntervalXYDataset)
+                    ? ((FastIntervalXYDataset<?, ?>) dataset).getIndex() : null;
+
+            if (index != null) {
+                // use the spatial index:
+                for (int ordinal : index.findInShape(shape)) {
+                    final int serie = index.getSeries(ordinal);
+                    final int item = index.getItem(ordinal);
+
+                    points.add(new Point2D.Double(dataset.getXValue(serie, item), dataset.getYValue(serie, item)));
+                }
+            } else {
+                // standard case - plain XYDataset (index not yet available)
+                for (int serie = 0, seriesCount = dataset.getSeriesCount(), item, itemCount; serie < seriesCount; serie++) {
+                    itemCount = dataset.getItemCount(serie);
+                    for (item = 0; item < itemCount; item++) {
+                        x = dataset.getXValue(serie, item);
+                        y = dataset.getYValue(serie, item);
+
+                        if (!Double.isNaN(x) && !Double.isNaN(y)) {
+
+                            if (shape.contains(x, y)) {
+                                // TODO: keep data selection (pointer to real data)
+                                /*
+                                 matchSerie = serie;
+                                 matchItem = item;
+                                 */
+                                points.add(new Point2D.Double(x, y));
+                            }
                         }
                     }
                 }
@@ -1220,6 +1304,8 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
      */
     public void plot() {
         logger.debug("plot");
+        // force computing plot data:
+        this.chartData = null;
         this.updatePlot();
     }
 
@@ -1227,6 +1313,8 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
      * Reset plot
      */
     private void resetPlot() {
+        this.chartData = null;
+
         // clear plot informations
         getPlotInfos().clear();
 
@@ -1285,14 +1373,88 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
      * This code is executed by the Swing Event Dispatcher thread (EDT)
      */
     private void updatePlot() {
+        final SelectorResult selectorResult = getSelectorResult();
+        final PlotDefinition plotDef = getPlotDefinition();
+
         // check subset:
-        if (getSelectorResult() == null || getPlotDefinition() == null) {
+        if (selectorResult == null || plotDef == null) {
+            // Cancel any running task:
+            TaskSwingWorkerExecutor.cancelTask(this.task);
+
             resetPlot();
             return;
         }
 
+        // use a copy of the plot definition:
+        final PlotDefinition plotDefCopy = (PlotDefinition) plotDef.clone();
+
+        // reuse the displayed datasets if they correspond to the last plot definition (no pending task) and subset:
+        final PlotChartData prevChartData = this.chartData;
+
+        if ((prevChartData != null) && (prevChartData.plotDef == this.lastPlotDef)
+                && (prevChartData.selectorResult == selectorResult)) {
+
+            final PlotChangeImpact impact = getChangeImpact(prevChartData, plotDefCopy);
+
+            logger.debug("updatePlot: change impact = {}", impact);
+
+            switch (impact) {
+                case NONE:
+                    return;
+                case AXIS:
+                    this.lastPlotDef = plotDefCopy;
+                    updateAxes(new PlotChartData(prevChartData, plotDefCopy));
+                    return;
+                case STYLE:
+                    this.lastPlotDef = plotDefCopy;
+                    updatePlot(new PlotChartData(prevChartData, plotDefCopy));
+                    return;
+                default:
+            }
+        }
+        this.lastPlotDef = plotDefCopy;
+
+        // Create plot data task worker:
+        // Cancel other tasks and execute this new task :
+        new PlotDataSwingWorker(this, selectorResult, getSubsetVersion(), ocm.getCollectionVersion(), plotDefCopy, this.colorModel).executeTask();
+    }
+
+    /**
+     * Return the impact of changes between the plot definition of the given chart data and the given plot definition
+     * @param chartData displayed chart data
+     * @param plotDef new plot definition
+     * @return change impact
+     */
+    private static PlotChangeImpact getChangeImpact(final PlotChartData chartData, final PlotDefinition plotDef) {
+        final int nYaxes = chartData.xyPlotDatas.length;
+
+        boolean xPositive = true;
+        final boolean[] yPositives = new boolean[nYaxes];
+        boolean useWaveLengths = false;
+
+        for (int i = 0; i < nYaxes; i++) {
+            final XYPlotData xyPlotData = chartData.xyPlotDatas[i];
+
+            yPositives[i] = (xyPlotData == null) || xyPlotData.info.yAxisInfo.positive;
+
+            if (xyPlotData != null) {
+                xPositive &= xyPlotData.info.xAxisInfo.positive;
+                useWaveLengths |= xyPlotData.info.useWaveLengths;
+            }
+        }
+        return PlotChangeImpact.getImpact(chartData.plotDef, plotDef, xPositive, yPositives, useWaveLengths);
+    }
+
+    /**
+     * Refresh the plot using the computed chart data.
+     * This code is executed by the Swing Event Dispatcher thread (EDT)
+     * @param chartData computed chart data
+     */
+    private void updatePlot(final PlotChartData chartData) {
         final long start = System.nanoTime();
 
+        this.chartData = chartData;
+
         // clear plot informations
         getPlotInfos().clear();
 
@@ -1310,10 +1472,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             removeAllSubPlots();
 
             // computed data are valid :
-            // TODO: externalize dataset creation using SwingWorker to be able to
-            // - cancel long data processing task
-            // - do not block EDT !
-            updateChart();
+            updateChart(chartData);
 
             final boolean hasData = isHasData();
 
@@ -1468,19 +1627,13 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
     }
 
     /**
-     * Update the datasets
+     * Update the chart (plots, datasets, renderers and axes) using the given chart data
+     * @param chartData computed chart data
      */
-    private void updateChart() {
+    private void updateChart(final PlotChartData chartData) {
         logger.debug("updateChart: plot {}", this.plotId);
 
-        final SelectorResult selectorResult = getSelectorResult(); // not null
-
-        // selected OIData tables matching filters
-        final List<OIData> oiDataList = selectorResult.getSortedOIDatas();
-
-        final Map<String, StaNamesDir> usedStaNamesMap = selectorResult.getUsedStaNamesMap();
-
-        final PlotDefinition plotDef = getPlotDefinition();
+        final PlotDefinition plotDef = chartData.plotDef;
         final Axis xAxis = plotDef.getXAxis();
 
         // Get Global SharedSeriesAttributes:
@@ -1496,21 +1649,12 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         logger.debug("updateChart: plot {} oixpAttrs: {} IN", this.plotId, oixpAttrs);
 
         // Get distinct station indexes from OIFits subset (not filtered):
-        final List<String> distinctStaIndexNames = OIDataListHelper.getDistinctStaNames(oiDataList, usedStaNamesMap);
+        final List<String> distinctStaIndexNames = chartData.distinctStaIndexNames;
 
         // Get distinct station configuration from OIFits subset (not filtered):
-        final List<String> distinctStaConfNames = OIDataListHelper.getDistinctStaConfs(oiDataList);
+        final List<String> distinctStaConfNames = chartData.distinctStaConfNames;
 
-        final Range waveLengthRange = convert(OIDataListHelper.getWaveLengthRange(oiDataList));
-
-        logger.debug("distinctStaIndexNames: {}", distinctStaIndexNames);
-        logger.debug("distinctStaConfNames: {}", distinctStaConfNames);
-        logger.debug("waveLengthRange: {}", waveLengthRange);
-
-        Range viewBounds, viewRange;
-
-        // Global converter (symmetry)
-        Converter xConverter = null, yConverter = null;
+        final Range waveLengthRange = chartData.waveLengthRange;
 
         final int nYaxes = plotDef.getYAxes().size();
 
@@ -1528,51 +1672,21 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         final boolean drawLines = plotDef.isDrawLine();
         final boolean useStepLine = (OIFitsConstants.COLUMN_EFF_WAVE.equalsIgnoreCase(xAxis.getName()));
 
+        final ColorMapping colorMapping = (plotDef.getColorMapping() != null) ? plotDef.getColorMapping() : ColorMapping.WAVELENGTH_RANGE;
+
         int nShowPlot = 0;
 
         // Loop on Y axes:
         for (int i = 0; i < nYaxes; i++) {
             final Axis yAxis = plotDef.getYAxes().get(i);
             final XYPlot xyPlot = this.xyPlotList.get(i);
+            final XYPlotData xyPlotData = chartData.xyPlotDatas[i];
 
             boolean showPlot = false;
-            final PlotInfo info;
-
-            if (oiDataList.isEmpty()) {
-                info = null;
-            } else {
-                final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset = new FastIntervalXYDataset<OITableSerieKey, OITableSerieKey>();
-
-                info = new PlotInfo();
-                info.distinctStaIndexNames = distinctStaIndexNames;
-                info.distinctStaConfNames = distinctStaConfNames;
-                info.waveLengthRange = waveLengthRange;
-
-                int tableIndex = 0;
-
-                // Use symmetry for coordinates:
-                final boolean useSymmetryX = useSymmetry(xAxis);
-                final boolean useSymmetryY = useSymmetry(yAxis);
-
-                if (useSymmetryX && useSymmetryY) {
-                    xConverter = (useSymmetryX) ? ConverterFactory.CONVERTER_REFLECT : null;
-                    yConverter = (useSymmetryY) ? ConverterFactory.CONVERTER_REFLECT : null;
-
-                    for (OIData oiData : oiDataList) {
-                        // process data and add data series into given dataset:
-                        updatePlot(xyPlot, info, oiData, tableIndex, usedStaNamesMap, plotDef, i, dataset, xConverter, yConverter, drawLines);
-
-                        tableIndex++;
-                    }
-                    xConverter = yConverter = null;
-                }
-
-                for (OIData oiData : oiDataList) {
-                    // process data and add data series into given dataset:
-                    updatePlot(xyPlot, info, oiData, tableIndex, usedStaNamesMap, plotDef, i, dataset, xConverter, yConverter, drawLines);
+            final PlotInfo info = (xyPlotData != null) ? xyPlotData.info : null;
 
-                    tableIndex++;
-                }
+            if (info != null) {
+                final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset = xyPlotData.dataset;
 
                 if (info.hasPlotData) {
                     if (logger.isDebugEnabled()) {
@@ -1582,62 +1696,15 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
 
                     showPlot = true;
 
-                    boolean yUseLog = false;
-                    ColumnMeta yMeta = null;
-                    String yUnit = null;
-
-                    // update Y axis information:
-                    if (info.yAxisInfo.columnMeta != null) {
-                        yUseLog = info.yAxisInfo.useLog;
-                        yMeta = info.yAxisInfo.columnMeta;
-                        yUnit = info.yAxisInfo.unit;
-                    }
-
-                    // adjust bounds & view range:
-                    adjustAxisRanges(yAxis, info.yAxisInfo);
-
-                    viewBounds = info.yAxisInfo.viewBounds;
-                    viewRange = info.yAxisInfo.viewRange;
-
-                    // Update Y axis:
-                    if (yUseLog) {
-                        if (!(xyPlot.getRangeAxis() instanceof BoundedLogAxis)) {
-                            xyPlot.setRangeAxis(new BoundedLogAxis(""));
-                        }
-                        final BoundedLogAxis axis = (BoundedLogAxis) xyPlot.getRangeAxis();
-                        axis.setBounds(viewBounds);
-                        axis.setInitial(viewRange);
-                        axis.setRange(viewRange);
-                    } else {
-                        if (!(xyPlot.getRangeAxis() instanceof BoundedNumberAxis)) {
-                            xyPlot.setRangeAxis(ChartUtils.createAxis(""));
-                        }
-                        final BoundedNumberAxis axis = (BoundedNumberAxis) xyPlot.getRangeAxis();
-                        axis.setBounds(viewBounds);
-                        axis.setInitial(viewRange);
-                        axis.setRange(viewRange);
-                    }
-
-                    // update Y axis Label:
-                    String label = (yUseLog) ? "log " : "";
-                    if (yMeta != null) {
-                        label += yMeta.getName();
-                        if (yUnit != null) {
-                            label += " (" + yUnit + ")";
-                        } else if (yMeta.getUnits() != Units.NO_UNIT) {
-                            label += " (" + yMeta.getUnits().getStandardRepresentation() + ")";
-                        }
-                        xyPlot.getRangeAxis().setLabel(label);
-                    }
-
-                    // adjust arrows:
-                    ChartUtils.defineAxisArrows(xyPlot.getRangeAxis());
-                    // tick color:
-                    xyPlot.getRangeAxis().setTickMarkPaint(Color.BLACK);
+                    // update Y axis (bounds, view range and label):
+                    updateRangeAxis(xyPlot, yAxis, info);
 
                     // update plot's renderer before dataset (avoid notify events):
                     final FastXYErrorRenderer renderer = (FastXYErrorRenderer) xyPlot.getRenderer();
 
+                    // define series attributes (paint, shapes):
+                    updateSeriesAttributes(renderer, xyPlotData.series, colorMapping, oixpAttrs);
+
                     // enable/disable X error rendering (performance):
                     renderer.setDrawXError(PLOT_ERR && info.xAxisInfo.hasDataError);
 
@@ -1679,69 +1746,18 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             return;
         }
 
-        logger.debug("updateChart: plot {} usedStaNamesMap: {} OUT", this.plotId, usedStaNamesMap);
+        logger.debug("updateChart: plot {} oixpAttrs: {} OUT", this.plotId, oixpAttrs);
 
         boolean useWaveLengths = false;
-        AxisInfo xCombinedAxisInfo = null;
-        boolean xUseLog = false;
-        ColumnMeta xMeta = null;
-        String xUnit = null;
 
         for (PlotInfo info : getPlotInfos()) {
-            if (xCombinedAxisInfo == null) {
-                // create combined X axis information once:
-                xCombinedAxisInfo = new AxisInfo(info.xAxisInfo);
-                xMeta = xCombinedAxisInfo.columnMeta;
-                xUseLog = xCombinedAxisInfo.useLog;
-                xUnit = xCombinedAxisInfo.unit;
-            } else {
-                // combine data ranges:
-                xCombinedAxisInfo.combineRanges(info.xAxisInfo);
-            }
             useWaveLengths |= info.useWaveLengths;
         }
 
-        // adjust combined bounds & view range:
-        adjustAxisRanges(xAxis, xCombinedAxisInfo);
-
-        viewBounds = xCombinedAxisInfo.viewBounds;
-        viewRange = xCombinedAxisInfo.viewRange;
-
-        // Update X axis:
-        if (xUseLog) {
-            if (!(this.combinedXYPlot.getDomainAxis() instanceof BoundedLogAxis)) {
-                this.combinedXYPlot.setDomainAxis(new BoundedLogAxis(""));
-            }
-            final BoundedLogAxis axis = (BoundedLogAxis) this.combinedXYPlot.getDomainAxis();
-            axis.setBounds(viewBounds);
-            axis.setInitial(viewRange);
-            axis.setRange(viewRange);
-        } else {
-            if (!(this.combinedXYPlot.getDomainAxis() instanceof BoundedNumberAxis)) {
-                this.combinedXYPlot.setDomainAxis(ChartUtils.createAxis(""));
-            }
-            final BoundedNumberAxis axis = (BoundedNumberAxis) this.combinedXYPlot.getDomainAxis();
-            axis.setBounds(viewBounds);
-            axis.setInitial(viewRange);
-            axis.setRange(viewRange);
-        }
-
-        // update Y axis Label:
-        String label = (xUseLog) ? "log " : "";
-        if (xMeta != null) {
-            label += xMeta.getName();
-            if (xUnit != null) {
-                label += " (" + xUnit + ")";
-            } else if (xMeta.getUnits() != Units.NO_UNIT) {
-                label += " (" + xMeta.getUnits().getStandardRepresentation() + ")";
-            }
-            this.combinedXYPlot.getDomainAxis().setLabel(label);
-        }
+        // update X axis (bounds, view range and label):
+        updateDomainAxis(xAxis);
 
-        // adjust arrows:
-        ChartUtils.defineAxisArrows(this.combinedXYPlot.getDomainAxis());
-        // tick color:
-        this.combinedXYPlot.getDomainAxis().setTickMarkPaint(Color.BLACK);
+        String label;
 
         // Define legend:
         LegendItemCollection legendCollection = new LegendItemCollection();
@@ -1867,67 +1883,244 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         this.combinedXYPlot.setFixedLegendItems(legendCollection);
     }
 
-    private static void adjustAxisRanges(final Axis axis, final AxisInfo axisInfo) {
+    /**
+     * Update the axes only (bounds, view range and label) of the displayed plots using the given chart data.
+     * This code is executed by the Swing Event Dispatcher thread (EDT)
+     * @param chartData chart data (same datasets as the displayed plots)
+     */
+    private void updateAxes(final PlotChartData chartData) {
+        final long start = System.nanoTime();
 
-        final boolean modeAuto = (axis.getRangeModeOrDefault() == AxisRangeMode.AUTO);
-        final boolean modeRange = (axis.getRangeModeOrDefault() == AxisRangeMode.RANGE);
+        this.chartData = chartData;
 
-        final boolean includeDataRange = axis.isIncludeDataRangeOrDefault();
+        final PlotDefinition plotDef = chartData.plotDef;
 
-        // bounds = data+err range:
-        double bmin = axisInfo.dataErrRange.getLowerBound();
-        double bmax = axisInfo.dataErrRange.getUpperBound();
+        // disable chart & plot notifications:
+        this.chart.setNotify(false);
+        for (int i = 0, len = this.xyPlotList.size(); i < len; i++) {
+            final XYPlot xyPlot = this.xyPlotList.get(i);
+            xyPlot.setNotify(false);
+        }
 
-        // view = data range:
-        double vmin = axisInfo.dataRange.getLowerBound();
-        double vmax = axisInfo.dataRange.getUpperBound();
+        try {
+            final List<PlotInfo> infos = getPlotInfos();
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("axis dataErrRange: {} - {}", bmin, bmax);
-            logger.debug("axis dataRange:    {} - {}", vmin, vmax);
-        }
+            for (int i = 0, len = infos.size(); i < len; i++) {
+                final PlotInfo info = infos.get(i);
+                final XYPlot xyPlot = this.plotIndexMapping.get(NumberUtils.valueOf(i));
 
-        if (axisInfo.useLog) {
-            // bounds:
-            double minTen = Math.floor(Math.log10(bmin));
-            double maxTen = Math.ceil(Math.log10(bmax));
+                if (xyPlot != null) {
+                    updateRangeAxis(xyPlot, plotDef.getYAxes().get(info.yAxisIndex), info);
+                }
+            }
 
-            if (maxTen == minTen) {
-                minTen -= 1;
+            if (!infos.isEmpty()) {
+                updateDomainAxis(plotDef.getXAxis());
+            }
+        } finally {
+            // restore chart & plot notifications:
+            for (int i = 0, len = this.xyPlotList.size(); i < len; i++) {
+                final XYPlot xyPlot = this.xyPlotList.get(i);
+                xyPlot.setNotify(true);
             }
+            this.chart.setNotify(true);
+        }
 
-            bmin = (0.999 * Math.pow(10.0, minTen)); // lower power of ten
-            bmax = (1.001 * Math.pow(10.0, maxTen)); // upper power of ten
+        logger.info("updateAxes: duration = {} ms.", 1e-6d * (System.nanoTime() - start));
+    }
 
-            // view range:
-            minTen = Math.floor(Math.log10(vmin) * 2.0);
-            maxTen = Math.ceil(Math.log10(vmax) * 2.0);
+    /**
+     * Update the Y axis (bounds, view range and label) of the given plot
+     * @param xyPlot xy plot to update
+     * @param yAxis y axis definition
+     * @param info plot information
+     */
+    private static void updateRangeAxis(final XYPlot xyPlot, final Axis yAxis, final PlotInfo info) {
+        boolean yUseLog = false;
+        ColumnMeta yMeta = null;
+        String yUnit = null;
 
-            if (maxTen == minTen) {
-                minTen -= 1;
-            }
+        // update Y axis information:
+        if (info.yAxisInfo.columnMeta != null) {
+            yUseLog = info.yAxisInfo.useLog;
+            yMeta = info.yAxisInfo.columnMeta;
+            yUnit = info.yAxisInfo.unit;
+        }
 
-            vmin = (0.999 * Math.pow(10.0, 0.5 * minTen)); // lower power of ten
-            vmax = (1.001 * Math.pow(10.0, 0.5 * maxTen)); // upper power of ten
+        // adjust bounds & view range:
+        adjustAxisRanges(yAxis, info.yAxisInfo);
+
+        final Range viewBounds = info.yAxisInfo.viewBounds;
+        final Range viewRange = info.yAxisInfo.viewRange;
 
+        // Update Y axis:
+        if (yUseLog) {
+            if (!(xyPlot.getRangeAxis() instanceof BoundedLogAxis)) {
+                xyPlot.setRangeAxis(new BoundedLogAxis(""));
+            }
+            final BoundedLogAxis axis = (BoundedLogAxis) xyPlot.getRangeAxis();
+            axis.setBounds(viewBounds);
+            axis.setInitial(viewRange);
+            axis.setRange(viewRange);
         } else {
-            boolean fix_bmin = false;
-            boolean fix_bmax = false;
+            if (!(xyPlot.getRangeAxis() instanceof BoundedNumberAxis)) {
+                xyPlot.setRangeAxis(ChartUtils.createAxis(""));
+            }
+            final BoundedNumberAxis axis = (BoundedNumberAxis) xyPlot.getRangeAxis();
+            axis.setBounds(viewBounds);
+            axis.setInitial(viewRange);
+            axis.setRange(viewRange);
+        }
 
-            boolean fix_vmin = false;
-            boolean fix_vmax = false;
+        // update Y axis Label:
+        String label = (yUseLog) ? "log " : "";
+        if (yMeta != null) {
+            label += yMeta.getName();
+            if (yUnit != null) {
+                label += " (" + yUnit + ")";
+            } else if (yMeta.getUnits() != Units.NO_UNIT) {
+                label += " (" + yMeta.getUnits().getStandardRepresentation() + ")";
+            }
+            xyPlot.getRangeAxis().setLabel(label);
+        }
 
-            final ColumnMeta colMeta = axisInfo.columnMeta;
+        // adjust arrows:
+        ChartUtils.defineAxisArrows(xyPlot.getRangeAxis());
+        // tick color:
+        xyPlot.getRangeAxis().setTickMarkPaint(Color.BLACK);
+    }
 
-            // use column meta's default range:
-            if (includeDataRange && (colMeta != null) && (colMeta.getDataRange() != null)) {
-                final DataRange dataRange = colMeta.getDataRange();
+    /**
+     * Update the combined X axis (bounds, view range and label) using the plot informations
+     * @param xAxis x axis definition
+     */
+    private void updateDomainAxis(final Axis xAxis) {
+        AxisInfo xCombinedAxisInfo = null;
+        boolean xUseLog = false;
+        ColumnMeta xMeta = null;
+        String xUnit = null;
 
-                if (!Double.isNaN(dataRange.getMin())) {
-                    final double v = dataRange.getMin();
-                    if (v < bmin) {
-                        fix_bmin = true;
-                        bmin = v;
+        for (PlotInfo info : getPlotInfos()) {
+            if (xCombinedAxisInfo == null) {
+                // create combined X axis information once:
+                xCombinedAxisInfo = new AxisInfo(info.xAxisInfo);
+                xMeta = xCombinedAxisInfo.columnMeta;
+                xUseLog = xCombinedAxisInfo.useLog;
+                xUnit = xCombinedAxisInfo.unit;
+            } else {
+                // combine data ranges:
+                xCombinedAxisInfo.combineRanges(info.xAxisInfo);
+            }
+        }
+
+        if (xCombinedAxisInfo == null) {
+            return;
+        }
+
+        // adjust combined bounds & view range:
+        adjustAxisRanges(xAxis, xCombinedAxisInfo);
+
+        final Range viewBounds = xCombinedAxisInfo.viewBounds;
+        final Range viewRange = xCombinedAxisInfo.viewRange;
+
+        // Update X axis:
+        if (xUseLog) {
+            if (!(this.combinedXYPlot.getDomainAxis() instanceof BoundedLogAxis)) {
+                this.combinedXYPlot.setDomainAxis(new BoundedLogAxis(""));
+            }
+            final BoundedLogAxis axis = (BoundedLogAxis) this.combinedXYPlot.getDomainAxis();
+            axis.setBounds(viewBounds);
+            axis.setInitial(viewRange);
+            axis.setRange(viewRange);
+        } else {
+            if (!(this.combinedXYPlot.getDomainAxis() instanceof BoundedNumberAxis)) {
+                this.combinedXYPlot.setDomainAxis(ChartUtils.createAxis(""));
+            }
+            final BoundedNumberAxis axis = (BoundedNumberAxis) this.combinedXYPlot.getDomainAxis();
+            axis.setBounds(viewBounds);
+            axis.setInitial(viewRange);
+            axis.setRange(viewRange);
+        }
+
+        // update X axis Label:
+        String label = (xUseLog) ? "log " : "";
+        if (xMeta != null) {
+            label += xMeta.getName();
+            if (xUnit != null) {
+                label += " (" + xUnit + ")";
+            } else if (xMeta.getUnits() != Units.NO_UNIT) {
+                label += " (" + xMeta.getUnits().getStandardRepresentation() + ")";
+            }
+            this.combinedXYPlot.getDomainAxis().setLabel(label);
+        }
+
+        // adjust arrows:
+        ChartUtils.defineAxisArrows(this.combinedXYPlot.getDomainAxis());
+        // tick color:
+        this.combinedXYPlot.getDomainAxis().setTickMarkPaint(Color.BLACK);
+    }
+
+    private static void adjustAxisRanges(final Axis axis, final AxisInfo axisInfo) {
+
+        final boolean modeAuto = (axis.getRangeModeOrDefault() == AxisRangeMode.AUTO);
+        final boolean modeRange = (axis.getRangeModeOrDefault() == AxisRangeMode.RANGE);
+
+        final boolean includeDataRange = axis.isIncludeDataRangeOrDefault();
+
+        // bounds = data+err range:
+        double bmin = axisInfo.dataErrRange.getLowerBound();
+        double bmax = axisInfo.dataErrRange.getUpperBound();
+
+        // view = data range:
+        double vmin = axisInfo.dataRange.getLowerBound();
+        double vmax = axisInfo.dataRange.getUpperBound();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("axis dataErrRange: {} - {}", bmin, bmax);
+            logger.debug("axis dataRange:    {} - {}", vmin, vmax);
+        }
+
+        if (axisInfo.useLog) {
+            // bounds:
+            double minTen = Math.floor(Math.log10(bmin));
+            double maxTen = Math.ceil(Math.log10(bmax));
+
+            if (maxTen == minTen) {
+                minTen -= 1;
+            }
+
+            bmin = (0.999 * Math.pow(10.0, minTen)); // lower power of ten
+            bmax = (1.001 * Math.pow(10.0, maxTen)); // upper power of ten
+
+            // view range:
+            minTen = Math.floor(Math.log10(vmin) * 2.0);
+            maxTen = Math.ceil(Math.log10(vmax) * 2.0);
+
+            if (maxTen == minTen) {
+                minTen -= 1;
+            }
+
+            vmin = (0.999 * Math.pow(10.0, 0.5 * minTen)); // lower power of ten
+            vmax = (1.001 * Math.pow(10.0, 0.5 * maxTen)); // upper power of ten
+
+        } else {
+            boolean fix_bmin = false;
+            boolean fix_bmax = false;
+
+            boolean fix_vmin = false;
+            boolean fix_vmax = false;
+
+            final ColumnMeta colMeta = axisInfo.columnMeta;
+
+            // use column meta's default range:
+            if (includeDataRange && (colMeta != null) && (colMeta.getDataRange() != null)) {
+                final DataRange dataRange = colMeta.getDataRange();
+
+                if (!Double.isNaN(dataRange.getMin())) {
+                    final double v = dataRange.getMin();
+                    if (v < bmin) {
+                        fix_bmin = true;
+                        bmin = v;
                     }
                     if (!modeAuto || (v < vmin)) {
                         fix_vmin = true;
@@ -2044,6 +2237,60 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         axisInfo.viewRange = viewRange;
     }
 
+    /**
+     * Define the renderer attributes (paint, shapes) of the given series (in dataset order)
+     * @param renderer renderer to update
+     * @param series series in dataset order
+     * @param colorMapping color mapping
+     * @param oixpAttrs shared series attributes to collect labels
+     */
+    private static void updateSeriesAttributes(final FastXYErrorRenderer renderer,
+                                               final List<PlotTableData.Serie> series,
+                                               final ColorMapping colorMapping,
+                                               final SharedSeriesAttributes oixpAttrs) {
+
+        renderer.ensureCapacity(series.size());
+
+        // item paints (wavelength colors) are only used by the wavelength color mapping:
+        final boolean useItemPaints = (colorMapping == ColorMapping.WAVELENGTH_RANGE);
+
+        // shape table to resolve item shape codes:
+        renderer.setItemShapeTable(ITEM_SHAPES);
+
+        for (int serieIdx = 0, len = series.size(); serieIdx < len; serieIdx++) {
+            final PlotTableData.Serie serie = series.get(serieIdx);
+
+            // Use special fields into dataset to encode color mapping (color value as double ?)
+            // use colormapping enum:
+            switch (colorMapping) {
+                case WAVELENGTH_RANGE:
+                // wavelength is default:
+                case OBSERVATION_DATE:
+                // not implemented still
+                default:
+                    // use item paints instead
+                    renderer.setSeriesPaint(serieIdx, null, false);
+                    break;
+                case CONFIGURATION:
+                    oixpAttrs.addLabel(serie.staConfName);
+                    break;
+                case STATION_INDEX:
+                    oixpAttrs.addLabel(serie.staIndexName);
+                    break;
+            }
+
+            // define shape per item in serie:
+            renderer.setItemShapeCodes(serieIdx, serie.itemShapeCodes);
+
+            // define paint per item in serie:
+            if (useItemPaints) {
+                renderer.setItemPaintCodes(serieIdx, serie.itemPaintCodes, serie.itemPalette);
+            } else {
+                renderer.setItemPaintCodes(serieIdx, null, null);
+            }
+        }
+    }
+
     private static void resetXYPlot(final XYPlot plot) {
         // reset plot dataset anyway (so free memory):
         plot.setDataset(null);
@@ -2058,27 +2305,28 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
     }
 
     /**
-     * Update the plot (dataset, axis ranges ...) using the given OIData table
+     * Compute the series (1 per baseline) and statistics using the given OIData table
+     * This code is executed by a Worker thread (Not Swing EDT)
      * TODO use column names and virtual columns (spatial ...)
-     * @param plot XYPlot to update (dataset, renderer, axes)
      * @param oiData OIData table to use as data source
-     * @param tableIndex table index to ensure serie uniqueness among collection
+     * @param selectorResult selector result providing optional masks
      * @param usedStaNamesMap (shared) used StaNames map
      * @param plotDef plot definition to use
      * @param yAxisIndex yAxis index to use in plot definition
-     * @param dataset FastIntervalXYDataset to fill
      * @param initialXConverter converter to use first on x axis
      * @param initialYConverter converter to use first on Y axis
-     * @param info plot information to update
      * @param drawLines flag indicating to build series for line representation (along wavelength axis)
+     * @param waveLengthRange largest wave length range (not filtered)
+     * @param colorModel color model for the wavelength range
+     * @return table data (maybe without series) or null if the table is not supported
      */
-    private void updatePlot(final XYPlot plot, final PlotInfo info,
-                            final OIData oiData, final int tableIndex,
-                            final Map<String, StaNamesDir> usedStaNamesMap,
-                            final PlotDefinition plotDef, final int yAxisIndex,
-                            final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset,
-                            final Converter initialXConverter, final Converter initialYConverter,
-                            final boolean drawLines) {
+    private static PlotTableData computeTableData(final OIData oiData,
+                                                  final SelectorResult selectorResult,
+                                                  final Map<String, StaNamesDir> usedStaNamesMap,
+                                                  final PlotDefinition plotDef, final int yAxisIndex,
+                                                  final Converter initialXConverter, final Converter initialYConverter,
+                                                  final boolean drawLines, final Range waveLengthRange,
+                                                  final IndexColorModel colorModel) {
 
         final boolean isLogDebug = logger.isDebugEnabled();
 
@@ -2091,7 +2339,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
 
         if (nRows <= 0 || nWaves <= 0) {
             // bad dimensions
-            return;
+            return null;
         }
 
         // Get yAxis data:
@@ -2104,7 +2352,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             if (isLogDebug) {
                 logger.debug("unsupported yAxis : {} on {}", yAxis.getName(), oiData);
             }
-            return;
+            return null;
         }
         if (isLogDebug) {
             logger.debug("yMeta:{}", yMeta);
@@ -2131,7 +2379,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                 if (isLogDebug) {
                     logger.debug("unsupported yAxis : {} on {}", yAxis.getName(), oiData);
                 }
-                return;
+                return null;
             }
             yData2DErr = oiData.getColumnAsDoubles(yMeta.getErrorColumnName());
         } else {
@@ -2140,7 +2388,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                 if (isLogDebug) {
                     logger.debug("unsupported yAxis : {} on {}", yAxis.getName(), oiData);
                 }
-                return;
+                return null;
             }
             yData1DErr = oiData.getColumnAsDouble(yMeta.getErrorColumnName());
             yData2D = null;
@@ -2159,7 +2407,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             if (isLogDebug) {
                 logger.debug("unsupported xAxis : {} on {}", xAxis.getName(), oiData);
             }
-            return;
+            return null;
         }
         if (isLogDebug) {
             logger.debug("yMeta:{}", yMeta);
@@ -2186,7 +2434,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                 if (isLogDebug) {
                     logger.debug("unsupported xAxis : {} on {}", xAxis.getName(), oiData);
                 }
-                return;
+                return null;
             }
             xData2DErr = oiData.getColumnAsDoubles(xMeta.getErrorColumnName());
         } else {
@@ -2195,7 +2443,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                 if (isLogDebug) {
                     logger.debug("unsupported xAxis : {} on {}", xAxis.getName(), oiData);
                 }
-                return;
+                return null;
             }
             xData1DErr = oiData.getColumnAsDouble(xMeta.getErrorColumnName());
             xData2D = null;
@@ -2206,8 +2454,6 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
 
         final boolean skipFlaggedData = plotDef.isSkipFlaggedData();
 
-        final ColorMapping colorMapping = (plotDef.getColorMapping() != null) ? plotDef.getColorMapping() : ColorMapping.WAVELENGTH_RANGE;
-
         // standard columns:
         final short[][] staIndexes = oiData.getStaIndex();
         final short[][] staConfs = oiData.getStaConf();
@@ -2241,8 +2487,6 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         final IndexMask maskOIData2D;
         IndexMask maskOIData2DRow = null;
         {
-            final SelectorResult selectorResult = getSelectorResult();
-
             if (selectorResult == null) {
                 maskWavelength = null;
                 maskOIData1D = null;
@@ -2262,76 +2506,68 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         final int idxNone = (maskOIData2D != null) ? maskOIData2D.getIndexNone() : -1;
         final int idxFull = (maskOIData2D != null) ? maskOIData2D.getIndexFull() : -1;
 
-        // Get Global SharedSeriesAttributes:
-        final SharedSeriesAttributes oixpAttrs = SharedSeriesAttributes.INSTANCE_OIXP;
-
-        // Color mapping:
-        // Station configurations:
-        // Use staConf (configuration) on each data row ?
-        if (isLogDebug) {
-            logger.debug("useStaConfColors: {}", (colorMapping == ColorMapping.CONFIGURATION));
-            logger.debug("useStaIndexColors: {}", (colorMapping == ColorMapping.STATION_INDEX));
-            logger.debug("useWaveLengthColors: {}", (colorMapping == ColorMapping.WAVELENGTH_RANGE));
-        }
-
         // try to fill dataset:
         // avoid loop on wavelength if no 2D data:
         final boolean useWaveLengths = (isXData2D || isYData2D) && (nWaves > 1);
         final int nWaveChannels = (useWaveLengths) ? nWaves : 1;
+        // line cut-offs are only useful if lines may be drawn along the wavelength axis (2D data):
+        final boolean useCutOffs = drawLines && (isXData2D || isYData2D);
 
         // TODO: use an XYZ dataset to have a color axis (z) and then use linear or custom z conversion to colors.
-        final Color[] mappingWaveLengthColors;
+        // Note: wavelength colors are always computed (item paints) as the color mapping is only a rendering setting
+        // paint code per wavelength channel = color index (unsigned byte) in the palette shared by all series of the table
+        // (any number of channels):
+        final byte[] waveLengthPaintCodes = new byte[nWaveChannels];
+        final Color[] itemPalette;
+
+        final double wlRange = (waveLengthRange != null) ? waveLengthRange.getLength() : 0.0;
 
-        if (colorMapping == ColorMapping.WAVELENGTH_RANGE) {
-            mappingWaveLengthColors = new Color[nWaveChannels];
+        if (!useWaveLengths || (wlRange <= LAMBDA_EPSILON) || (nWaves <= 1)) {
+            // single channel or Undefined range: use black (code 0):
+            itemPalette = new Color[]{Color.BLACK};
+        } else {
+            final double lower = (waveLengthRange != null) ? waveLengthRange.getLowerBound() : 0.0;
+            final int iMaxColor = colorModel.getMapSize() - 1;
+            final int iMaxCode = Math.min(iMaxColor, MAX_PAINT_CODE);
 
-            final Range waveLengthRange = info.waveLengthRange;
-            final double wlRange = (waveLengthRange != null) ? waveLengthRange.getLength() : 0.0;
+            itemPalette = new Color[iMaxCode + 1];
 
-            if (!useWaveLengths || (wlRange <= LAMBDA_EPSILON) || (nWaves <= 1)) {
-                // single channel or Undefined range: use black:
-                Arrays.fill(mappingWaveLengthColors, Color.BLACK);
-            } else {
-                final double lower = (waveLengthRange != null) ? waveLengthRange.getLowerBound() : 0.0;
-                final int iMaxColor = colorModel.getMapSize() - 1;
+            final float[] effWaves = oiData.getOiWavelength().getEffWave();
+            float value;
 
-                final float[] effWaves = oiData.getOiWavelength().getEffWave();
-                float value;
+            final float alpha = 0.8f;
+            final int alphaMask = Math.round(255 * alpha) << 24;
 
-                final float alpha = 0.8f;
-                final int alphaMask = Math.round(255 * alpha) << 24;
+            for (int i = 0, code; i < nWaves; i++) {
+                // invert palette to have (VIOLET - BLUE - GREEN - RED) ie color spectrum:
+                code = ImageUtils.getColor(iMaxCode, (float) (iMaxCode * (1.0 - ((effWaves[i] - lower) / wlRange))));
+                waveLengthPaintCodes[i] = (byte) code;
 
-                for (int i = 0; i < nWaves; i++) {
-                    // invert palette to have (VIOLET - BLUE - GREEN - RED) ie color spectrum:
-                    value = (float) (iMaxColor * (1.0 - ((effWaves[i] - lower) / wlRange)));
+                if (itemPalette[code] == null) {
+                    value = (iMaxCode == iMaxColor) ? code : (float) ((((double) code) * iMaxColor) / iMaxCode);
 
-                    mappingWaveLengthColors[i] = new Color(ImageUtils.getRGB(colorModel, iMaxColor, value, alphaMask), true);
+                    itemPalette[code] = new Color(ImageUtils.getRGB(colorModel, iMaxColor, value, alphaMask), true);
                 }
             }
-        } else {
-            mappingWaveLengthColors = null;
         }
 
-        // TODO: adjust renderer settings per Serie (color, shape ...) per series and item at higher level using dataset fields
-        final FastXYErrorRenderer renderer = (FastXYErrorRenderer) plot.getRenderer();
-
         if (isLogDebug) {
             logger.debug("nbSeries to create : {}", nStaIndexes);
         }
 
-        // Prepare data models to contain 1 serie per baseline:
-        final int maxSeriesCount = dataset.getSeriesCount() + nStaIndexes;
-        dataset.ensureCapacity(maxSeriesCount);
-        renderer.ensureCapacity(maxSeriesCount);
+        // Prepare table data to contain 1 serie per baseline:
+        final PlotTableData tableData = new PlotTableData(oiData, nStaIndexes);
 
-        // flag indicating that this table has data to plot:
-        boolean hasPlotData = false;
         // flag indicating that the dataset contains flagged data:
         boolean hasDataFlag = false;
         // flag indicating that the dataset has data with error on x axis:
         boolean hasDataErrorX = false;
         // flag indicating that the dataset has data with error on y axis:
         boolean hasDataErrorY = false;
+        // flags indicating that all x (or y) values and their lower errors are strictly positive
+        // ie the log scale does not discard any data:
+        boolean xPositive = true;
+        boolean yPositive = true;
 
         // x and y data ranges:
         double minX = Double.POSITIVE_INFINITY;
@@ -2343,24 +2579,24 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         double minYe = Double.POSITIVE_INFINITY;
         double maxYe = Double.NEGATIVE_INFINITY;
 
-        int[] iRows, iCols;
-        double[] xValues, xLowers, xUppers, yValues, yLowers, yUppers;
-        Shape[] itemShapes;
-        Paint[] itemPaints;
-
-        boolean recycleArray = false;
-        final int[][] arrayIntPool = new int[2][];
-        final double[][] arrayDblPool = new double[6][];
-        Shape[] shapePool = null;
-        Paint[] paintPool = null;
         // mul 2 for cut-off points (NaN)
         // add 1 for cut-off points (rows)
         final int poolCapacity = nRows * 2 * (nWaveChannels + 1);
 
-        double x, xErr, y, yErr;
+        // use the buffer of the current thread (reused for every baseline and table):
+        final SerieBuffer buffer = SerieBuffer.get(poolCapacity);
+        final int[] iRows = buffer.iRows;
+        final int[] iCols = buffer.iCols;
+        final double[] xValues = buffer.xValues;
+        final double[] xLowers = buffer.xLowers;
+        final double[] xUppers = buffer.xUppers;
+        final double[] yValues = buffer.yValues;
+        final double[] yLowers = buffer.yLowers;
+        final double[] yUppers = buffer.yUppers;
+        final byte[] itemShapeCodes = buffer.itemShapeCodes;
+        final byte[] itemPaintCodes = buffer.itemPaintCodes;
 
-        int serieIdx;
-        OITableSerieKey serieKey;
+        double x, xErr, y, yErr;
 
         short[] currentStaIndex;
         StaNamesDir currentSortedStaNamesDir;
@@ -2378,8 +2614,6 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         // fast access to NaN value:
         final double NaN = Double.NaN;
 
-        final OIDataPointer ptr = new OIDataPointer(oiData);
-
         // TODO: unroll loops (wave / baseline) ... and avoid repeated checks on rows (targetId, baseline ...)
         // Iterate on baselines (k):
         for (int k = 0, idx, nCut, prevL; k < nStaIndexes; k++) {
@@ -2406,31 +2640,6 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             }
 
             // 1 serie per baseline and per spectral channel:
-            if (recycleArray) {
-                recycleArray = false;
-                iRows = arrayIntPool[0];
-                iCols = arrayIntPool[1];
-                xValues = arrayDblPool[0];
-                xLowers = arrayDblPool[1];
-                xUppers = arrayDblPool[2];
-                yValues = arrayDblPool[3];
-                yLowers = arrayDblPool[4];
-                yUppers = arrayDblPool[5];
-                itemShapes = shapePool;
-                itemPaints = paintPool;
-            } else {
-                iRows = new int[poolCapacity];
-                iCols = new int[poolCapacity];
-                xValues = new double[poolCapacity];
-                xLowers = new double[poolCapacity];
-                xUppers = new double[poolCapacity];
-                yValues = new double[poolCapacity];
-                yLowers = new double[poolCapacity];
-                yUppers = new double[poolCapacity];
-                itemShapes = new Shape[poolCapacity];
-                itemPaints = new Paint[poolCapacity];
-            }
-
             idx = 0;
             nCut = 0;
 
@@ -2515,9 +2724,13 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                         y = -y;
                     }
 
-                    if (yUseLog && (y <= 0.0)) {
-                        // keep only strictly positive data:
-                        y = NaN;
+                    if (y <= 0.0) {
+                        yPositive = false;
+
+                        if (yUseLog) {
+                            // keep only strictly positive data:
+                            y = NaN;
+                        }
                     }
 
                     if (NumberUtils.isFinite(y)) {
@@ -2540,19 +2753,21 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                             x = -x;
                         }
 
-                        if (xUseLog && (x <= 0.0)) {
-                            // keep only strictly positive data:
-                            x = NaN;
+                        if (x <= 0.0) {
+                            xPositive = false;
+
+                            if (xUseLog) {
+                                // keep only strictly positive data:
+                                x = NaN;
+                            }
                         }
 
                         if (NumberUtils.isFinite(x)) {
                             // insert cut-off for data lines of non contiguous items (NaN)
-                            if (drawLines) {
-                                if ((prevL != -1) && (l - prevL > 1)) {
-                                    // add cut-off point
-                                    yValues[idx++] = NaN;
-                                    nCut++;
-                                }
+                            if (useCutOffs && (prevL != -1) && (l - prevL > 1)) {
+                                // add cut-off point
+                                buffer.setCutOff(idx++);
+                                nCut++;
                             }
 
                             // convert x value:
@@ -2598,9 +2813,13 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                                 yUppers[idx] = y + yErr;
 
                                 // useLog: check if (y - err) <= 0:
-                                if (yUseLog && (yLowers[idx] <= 0.0)) {
-                                    yLowers[idx] = Double.MIN_VALUE;
-                                    useYErrInBounds = false;
+                                if (yLowers[idx] <= 0.0) {
+                                    yPositive = false;
+
+                                    if (yUseLog) {
+                                        yLowers[idx] = Double.MIN_VALUE;
+                                        useYErrInBounds = false;
+                                    }
                                 }
                             }
 
@@ -2652,9 +2871,13 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                                 xUppers[idx] = x + xErr;
 
                                 // useLog: check if (x - err) <= 0:
-                                if (xUseLog && (xLowers[idx] <= 0.0)) {
-                                    xLowers[idx] = Double.MIN_VALUE;
-                                    useXErrInBounds = false;
+                                if (xLowers[idx] <= 0.0) {
+                                    xPositive = false;
+
+                                    if (xUseLog) {
+                                        xLowers[idx] = Double.MIN_VALUE;
+                                        useXErrInBounds = false;
+                                    }
                                 }
                             }
 
@@ -2679,12 +2902,11 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
                             // ~ new custom axis (color, size, shape)
                             // Define item shape:
                             // invalid shape if flagged or invalid error value
-                            itemShapes[idx] = getPointShape(isYErrValid && isXErrValid && !isFlag);
+                            itemShapeCodes[idx] = (isYErrValid && isXErrValid && !isFlag) ? SHAPE_CODE_VALID : SHAPE_CODE_INVALID;
 
                             // TODO: adjust renderer settings per Serie (color, shape ...) per series and item at higher level using dataset fields
-                            if (mappingWaveLengthColors != null) {
-                                itemPaints[idx] = mappingWaveLengthColors[l];
-                            }
+                            // paint code = color index of the wavelength in the palette:
+                            itemPaintCodes[idx] = waveLengthPaintCodes[l];
 
                             // Define row / col indices:
                             iRows[idx] = i;
@@ -2700,96 +2922,44 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
 
                 } // iterate on wave channels
 
-                if (drawLines && (prevL >= 0)) {
+                if (useCutOffs && (prevL >= 0)) {
                     // add cut-off point to end line:
-                    yValues[idx++] = NaN;
+                    buffer.setCutOff(idx++);
                     nCut++;
                 }
 
             } // loop on data rows
 
             if (idx != nCut) {
-                hasPlotData = true;
                 nData += (idx - nCut);
 
-                // crop data arrays:
-                if (idx < poolCapacity) {
-                    recycleArray = true;
-                    arrayIntPool[0] = iRows;
-                    arrayIntPool[1] = iCols;
-                    arrayDblPool[0] = xValues;
-                    arrayDblPool[1] = xLowers;
-                    arrayDblPool[2] = xUppers;
-                    arrayDblPool[3] = yValues;
-                    arrayDblPool[4] = yLowers;
-                    arrayDblPool[5] = yUppers;
-                    shapePool = itemShapes;
-                    paintPool = itemPaints;
-
-                    iRows = extract(iRows, idx);
-                    iCols = extract(iCols, idx);
-                    xValues = extract(xValues, idx);
-                    xLowers = extract(xLowers, idx);
-                    xUppers = extract(xUppers, idx);
-                    yValues = extract(yValues, idx);
-                    yLowers = extract(yLowers, idx);
-                    yUppers = extract(yUppers, idx);
-                    itemShapes = extract(itemShapes, idx);
-                    itemPaints = extract(itemPaints, idx);
-                }
-
                 if (refStaNamesDir != null) {
                     staIndexName = refStaNamesDir.getStaNames();
                 } else {
                     staIndexName = oiData.getStaNames(currentStaIndex); // cached
                 }
                 staConfName = oiData.getStaNames(currentStaConf); // cached
-                serieKey = new OITableSerieKey(tableIndex, ptr, k, staIndexName, staConfName); // baselines (k)
 
-                // Avoid any key conflict:
-                dataset.addSeries(serieKey,
-                        new int[][]{iRows, iCols},
-                        new double[][]{xValues, xLowers, xUppers, yValues, yLowers, yUppers}
-                );
-
-                serieIdx = dataset.indexOf(serieKey);
-
-                // Use special fields into dataset to encode color mapping (color value as double ?)
-                // use colormapping enum:
-                switch (colorMapping) {
-                    case WAVELENGTH_RANGE:
-                    // wavelength is default:
-                    case OBSERVATION_DATE:
-                    // not implemented still
-                    default:
-                        // use item paints instead
-                        renderer.setSeriesPaint(serieIdx, null, false);
-                        break;
-                    case CONFIGURATION:
-                        oixpAttrs.addLabel(staConfName);
-                        break;
-                    case STATION_INDEX:
-                        oixpAttrs.addLabel(staIndexName);
-                        break;
-                }
-
-                // define shape per item in serie:
-                renderer.setItemShapes(serieIdx, itemShapes);
-
-                // define paint per item in serie:
-                renderer.setItemPaints(serieIdx, itemPaints); // TODO: check is null
-
-                // Add staIndex into the unique used station indexes anyway:
-                info.usedStaIndexNames.add(staIndexName);
-
-                // Add staConf into the unique used station configurations anyway:
-                info.usedStaConfNames.add(staConfName);
+                // copy cropped data arrays (buffer is reused):
+                // define shape and paint per item in serie:
+                tableData.series.add(new PlotTableData.Serie(k, staIndexName, staConfName, // baselines (k)
+                        new int[][]{extract(iRows, idx), extract(iCols, idx)},
+                        new double[][]{
+                            extract(xValues, idx), extract(xLowers, idx), extract(xUppers, idx),
+                            extract(yValues, idx), extract(yLowers, idx), extract(yUppers, idx)
+                        },
+                        extract(itemShapeCodes, idx), extract(itemPaintCodes, idx), itemPalette
+                ));
             }
 
         } // iterate on baselines
 
-        if (!hasPlotData) {
-            return;
+        // keep log scale compatibility anyway (data may be discarded by the log scale):
+        tableData.xPositive = xPositive;
+        tableData.yPositive = yPositive;
+
+        if (!tableData.hasPlotData()) {
+            return tableData;
         }
 
         if (isLogDebug) {
@@ -2807,59 +2977,148 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
             }
         }
 
+        // update table information:
+        tableData.useWaveLengths = useWaveLengths;
+        tableData.nDataPoints = nData;
+        tableData.hasDataFlag = hasDataFlag;
+
+        tableData.xMeta = xMeta;
+        tableData.xUnit = (doScaleX) ? xConverter.getUnit() : null;
+        tableData.xUseLog = xUseLog;
+        tableData.hasDataErrorX = hasDataErrorX;
+        tableData.minX = minX;
+        tableData.maxX = maxX;
+        tableData.minXe = minXe;
+        tableData.maxXe = maxXe;
+
+        tableData.yMeta = yMeta;
+        tableData.yUnit = (doScaleY) ? yConverter.getUnit() : null;
+        tableData.yUseLog = yUseLog;
+        tableData.hasDataErrorY = hasDataErrorY;
+        tableData.minY = minY;
+        tableData.maxY = maxY;
+        tableData.minYe = minYe;
+        tableData.maxYe = maxYe;
+
+        tableData.nSkipFlag = nSkipFlag;
+        tableData.nSkipRow = nSkipRow;
+        tableData.nSkipWavelength = nSkipWavelength;
+        tableData.nSkipCell = nSkipCell;
+
+        return tableData;
+    }
+
+    /**
+     * Merge the given table data into the given xy plot data (dataset, series and plot information)
+     * @param xyPlotData xy plot data to update
+     * @param yAxisIndex yAxis index in plot definition
+     * @param tableData table data to merge
+     * @param tableIndex table index to ensure serie uniqueness among collection
+     */
+    private static void mergeTableData(final XYPlotData xyPlotData, final int yAxisIndex,
+                                       final PlotTableData tableData, final int tableIndex) {
+
+        final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset = xyPlotData.dataset;
+        final PlotInfo info = xyPlotData.info;
+
+        // combine log scale compatibility (even if the table has no data to plot):
+        info.xAxisInfo.positive &= tableData.xPositive; // logical AND
+        info.yAxisInfo.positive &= tableData.yPositive; // logical AND
+
+        if (!tableData.hasPlotData()) {
+            return;
+        }
+
+        final OIData oiData = tableData.oiData;
+        final OIDataPointer ptr = new OIDataPointer(oiData);
+
+        // Prepare data models to contain 1 serie per baseline:
+        dataset.ensureCapacity(dataset.getSeriesCount() + tableData.series.size());
+
+        int nItems = dataset.getItemTotal();
+        for (PlotTableData.Serie serie : tableData.series) {
+            nItems += serie.getItemCount();
+        }
+        dataset.ensureItemCapacity(nItems);
+
+        for (PlotTableData.Serie serie : tableData.series) {
+            // Avoid any key conflict:
+            dataset.addSeries(new OITableSerieKey(tableIndex, ptr, serie.staIdxIndex, serie.staIndexName, serie.staConfName),
+                    serie.dataInt, serie.dataDbl);
+
+            // keep serie (attributes) in dataset order:
+            xyPlotData.series.add(serie);
+
+            // Add staIndex into the unique used station indexes anyway:
+            info.usedStaIndexNames.add(serie.staIndexName);
+
+            // Add staConf into the unique used station configurations anyway:
+            info.usedStaConfNames.add(serie.staConfName);
+        }
+
         // update plot information (should be consistent between calls):
         info.hasPlotData |= true; // logical OR
-        info.useWaveLengths |= useWaveLengths; // logical OR
-        info.nDataPoints += nData;
-        info.hasDataFlag |= hasDataFlag; // logical OR
+        info.useWaveLengths |= tableData.useWaveLengths; // logical OR
+        info.nDataPoints += tableData.nDataPoints;
+        info.hasDataFlag |= tableData.hasDataFlag; // logical OR
+        info.nSkipFlag += tableData.nSkipFlag;
+        info.nSkipRow += tableData.nSkipRow;
+        info.nSkipWavelength += tableData.nSkipWavelength;
+        info.nSkipCell += tableData.nSkipCell;
         info.yAxisIndex = yAxisIndex;
         // add given table:
         info.oidataList.add(oiData);
 
+        double min, max, minE, maxE;
+
         AxisInfo axisInfo = info.xAxisInfo;
-        axisInfo.columnMeta = xMeta;
-        axisInfo.unit = (doScaleX) ? xConverter.getUnit() : null;
-        axisInfo.useLog = xUseLog;
+        axisInfo.columnMeta = tableData.xMeta;
+        axisInfo.unit = tableData.xUnit;
+        axisInfo.useLog = tableData.xUseLog;
+        min = tableData.minX;
+        max = tableData.maxX;
         if (axisInfo.dataRange != null) {
             // combine X range:
-            minX = Math.min(minX, axisInfo.dataRange.getLowerBound());
-            maxX = Math.max(maxX, axisInfo.dataRange.getUpperBound());
+            min = Math.min(min, axisInfo.dataRange.getLowerBound());
+            max = Math.max(max, axisInfo.dataRange.getUpperBound());
         }
-        axisInfo.dataRange = new Range(minX, maxX);
+        axisInfo.dataRange = new Range(min, max);
         // Ensure Xe range is at least X range:
-        minXe = Math.min(minXe, minX);
-        maxXe = Math.max(maxXe, maxX);
+        minE = Math.min(tableData.minXe, min);
+        maxE = Math.max(tableData.maxXe, max);
         if (axisInfo.dataErrRange != null) {
             // combine Xe ranges:
-            minXe = Math.min(minXe, axisInfo.dataErrRange.getLowerBound());
-            maxXe = Math.max(maxXe, axisInfo.dataErrRange.getUpperBound());
+            minE = Math.min(minE, axisInfo.dataErrRange.getLowerBound());
+            maxE = Math.max(maxE, axisInfo.dataErrRange.getUpperBound());
         }
-        axisInfo.dataErrRange = new Range(minXe, maxXe);
-        axisInfo.hasDataError |= hasDataErrorX; // logical OR
+        axisInfo.dataErrRange = new Range(minE, maxE);
+        axisInfo.hasDataError |= tableData.hasDataErrorX; // logical OR
 
         axisInfo = info.yAxisInfo;
-        axisInfo.columnMeta = yMeta;
-        axisInfo.unit = (doScaleY) ? yConverter.getUnit() : null;
-        axisInfo.useLog = yUseLog;
+        axisInfo.columnMeta = tableData.yMeta;
+        axisInfo.unit = tableData.yUnit;
+        axisInfo.useLog = tableData.yUseLog;
+        min = tableData.minY;
+        max = tableData.maxY;
         if (axisInfo.dataRange != null) {
             // combine Y range:
-            minY = Math.min(minY, axisInfo.dataRange.getLowerBound());
-            maxY = Math.max(maxY, axisInfo.dataRange.getUpperBound());
+            min = Math.min(min, axisInfo.dataRange.getLowerBound());
+            max = Math.max(max, axisInfo.dataRange.getUpperBound());
         }
-        axisInfo.dataRange = new Range(minY, maxY);
+        axisInfo.dataRange = new Range(min, max);
         // Ensure Ye range is at least Y range:
-        minYe = Math.min(minYe, minY);
-        maxYe = Math.max(maxYe, maxY);
+        minE = Math.min(tableData.minYe, min);
+        maxE = Math.max(tableData.maxYe, max);
         if (axisInfo.dataErrRange != null) {
-            // combine Xe ranges:
-            minYe = Math.min(minYe, axisInfo.dataErrRange.getLowerBound());
-            maxYe = Math.max(maxYe, axisInfo.dataErrRange.getUpperBound());
+            // combine Ye ranges:
+            minE = Math.min(minE, axisInfo.dataErrRange.getLowerBound());
+            maxE = Math.max(maxE, axisInfo.dataErrRange.getUpperBound());
         }
-        axisInfo.dataErrRange = new Range(minYe, maxYe);
-        axisInfo.hasDataError |= hasDataErrorY; // logical OR
+        axisInfo.dataErrRange = new Range(minE, maxE);
+        axisInfo.hasDataError |= tableData.hasDataErrorY; // logical OR
     }
 
-    private int[] extract(final int[] input, final int len) {
+    private static int[] extract(final int[] input, final int len) {
         final int[] output = new int[len];
         // manual array copy is faster on recent machine (64bits / hotspot server compiler)
         for (int i = 0; i < len; i++) {
@@ -2868,7 +3127,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         return output;
     }
 
-    private double[] extract(final double[] input, final int len) {
+    private static double[] extract(final double[] input, final int len) {
         final double[] output = new double[len];
         // manual array copy is faster on recent machine (64bits / hotspot server compiler)
         for (int i = 0; i < len; i++) {
@@ -2877,17 +3136,8 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         return output;
     }
 
-    private Shape[] extract(final Shape[] input, final int len) {
-        final Shape[] output = new Shape[len];
-        // manual array copy is faster on recent machine (64bits / hotspot server compiler)
-        for (int i = 0; i < len; i++) {
-            output[i] = input[i];
-        }
-        return output;
-    }
-
-    private Paint[] extract(final Paint[] input, final int len) {
-        final Paint[] output = new Paint[len];
+    private static byte[] extract(final byte[] input, final int len) {
+        final byte[] output = new byte[len];
         // manual array copy is faster on recent machine (64bits / hotspot server compiler)
         for (int i = 0; i < len; i++) {
             output[i] = input[i];
@@ -3064,15 +3314,6 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         }
     }
 
-    /**
-     * Return the shape used to represent points on the plot
-     * @param valid flag indicating if the the point is valid
-     * @return shape
-     */
-    private static Shape getPointShape(final boolean valid) {
-        return (valid) ? shapePointValid : shapePointInvalid;
-    }
-
     /* Plot information */
     /**
      * TODO: make PlotInfo public !!
@@ -3130,6 +3371,16 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
         return getPlot().getPlotDefinition();
     }
 
+    /**
+     * @return the version of the SubsetDefinition of the Plot, or null if undefined.
+     */
+    private IdentifiableVersion getSubsetVersion() {
+        if (getPlot() == null || getPlot().getSubsetDefinition() == null) {
+            return null;
+        }
+        return getPlot().getSubsetDefinition().getIdentifiableVersion();
+    }
+
     /**
      * @return the SelectorResult of the SubsetDefinition of the Plot, or null if one of them is null.
      */
@@ -3195,7 +3446,7 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
      * @param axis x axis
      * @return true (use symmetry) if given axis 'is' spatial frequencies
      */
-    private boolean useSymmetry(final Axis axis) {
+    private static boolean useSymmetry(final Axis axis) {
         if (true) {
             return COLUMNS_SYMETRY.contains(axis.getName());
         }
@@ -3220,4 +3471,587 @@ public final class PlotChartPanel extends javax.swing.JPanel implements ChartPro
     private static Range convert(final fr.jmmc.oitools.model.range.Range r) {
         return new Range(r.getMin(), r.getMax());
     }
+
+    /**
+     * Compute the plot datasets in the current thread without cache nor spatial index (benchmarks)
+     * @param selectorResult selector result (subset)
+     * @param plotDef plot definition
+     * @param colorModel color model for the wavelength range
+     * @return datasets per Y axis (null if no data)
+     */
+    static FastIntervalXYDataset<?, ?>[] computePlotDatasets(final SelectorResult selectorResult, final PlotDefinition plotDef,
+                                                             final IndexColorModel colorModel) {
+        final PlotChartData chartData = PlotDataSwingWorker.computeChartData(null, selectorResult, null, NO_DATA_VERSION, plotDef, colorModel);
+
+        final FastIntervalXYDataset<?, ?>[] datasets = new FastIntervalXYDataset<?, ?>[chartData.xyPlotDatas.length];
+        for (int i = 0; i < datasets.length; i++) {
+            final XYPlotData xyPlotData = chartData.xyPlotDatas[i];
+            datasets[i] = (xyPlotData != null && xyPlotData.info.hasPlotData) ? xyPlotData.dataset : null;
+        }
+        return datasets;
+    }
+
+    /**
+     * TaskSwingWorker child class to compute the plot datasets in background
+     */
+    private final static class PlotDataSwingWorker extends TaskSwingWorker<PlotChartData> {
+
+        /* members */
+        /** chart panel used for refreshUI callback */
+        private final PlotChartPanel chartPanel;
+        /** selector result (subset) */
+        private final SelectorResult selectorResult;
+        /** subset version (cache) */
+        private final IdentifiableVersion subsetVersion;
+        /** collection version (cache) */
+        private final int dataVersion;
+        /** plot definition (copy) */
+        private final PlotDefinition plotDef;
+        /** color model for the wavelength range */
+        private final IndexColorModel colorModel;
+
+        /**
+         * Hidden constructor
+         *
+         * @param chartPanel chart panel
+         * @param selectorResult selector result (subset)
+         * @param subsetVersion subset version (cache)
+         * @param dataVersion collection version (cache)
+         * @param plotDef plot definition (copy)
+         * @param colorModel color model for the wavelength range
+         */
+        private PlotDataSwingWorker(final PlotChartPanel chartPanel, final SelectorResult selectorResult,
+                                    final IdentifiableVersion subsetVersion, final int dataVersion,
+                                    final PlotDefinition plotDef, final IndexColorModel colorModel) {
+            super(chartPanel.task);
+            this.chartPanel = chartPanel;
+            this.selectorResult = selectorResult;
+            this.subsetVersion = subsetVersion;
+            this.dataVersion = dataVersion;
+            this.plotDef = plotDef;
+            this.colorModel = colorModel;
+        }
+
+        /**
+         * Compute the plot datasets in background
+         * This code is executed by a Worker thread (Not Swing EDT)
+         * @return computed chart data or null if interrupted
+         */
+        @Override
+        public PlotChartData computeInBackground() {
+            return computeChartData(this, selectorResult, subsetVersion, dataVersion, plotDef, colorModel);
+        }
+
+        /**
+         * Compute the plot datasets (1 per Y axis)
+         * @param worker optional worker to report progress (null to disable)
+         * @param selectorResult selector result (subset)
+         * @param subsetVersion subset version (cache) or null to disable cache
+         * @param dataVersion collection version (cache) or NO_DATA_VERSION to disable cache
+         * @param plotDef plot definition (copy)
+         * @param colorModel color model for the wavelength range
+         * @return computed chart data or null if interrupted
+         */
+        static PlotChartData computeChartData(final PlotDataSwingWorker worker, final SelectorResult selectorResult,
+                                              final IdentifiableVersion subsetVersion, final int dataVersion,
+                                              final PlotDefinition plotDef, final IndexColorModel colorModel) {
+
+            // Start the computations :
+            final long start = System.nanoTime();
+
+            // selected OIData tables matching filters
+            final List<OIData> oiDataList = selectorResult.getSortedOIDatas();
+
+            final Map<String, StaNamesDir> usedStaNamesMap = selectorResult.getUsedStaNamesMap();
+
+            final int nYaxes = plotDef.getYAxes().size();
+
+            final PlotChartData chartData = new PlotChartData(plotDef, selectorResult, nYaxes,
+                    // Get distinct station indexes from OIFits subset (not filtered):
+                    OIDataListHelper.getDistinctStaNames(oiDataList, usedStaNamesMap),
+                    // Get distinct station configuration from OIFits subset (not filtered):
+                    OIDataListHelper.getDistinctStaConfs(oiDataList),
+                    convert(OIDataListHelper.getWaveLengthRange(oiDataList))
+            );
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("distinctStaIndexNames: {}", chartData.distinctStaIndexNames);
+                logger.debug("distinctStaConfNames: {}", chartData.distinctStaConfNames);
+                logger.debug("waveLengthRange: {}", chartData.waveLengthRange);
+            }
+
+            if (!oiDataList.isEmpty()) {
+                final int nTables = oiDataList.size();
+                // stop flag shared with jobs (fork/join cancel does not interrupt running tasks):
+                final AtomicBoolean stopJobs = new AtomicBoolean(false);
+                // 1 job per OIData table (processing all Y axes) so a table is only used by a single thread:
+                final List<PlotTableJob> jobs = new ArrayList<PlotTableJob>(nTables);
+                for (OIData oiData : oiDataList) {
+                    jobs.add(new PlotTableJob(oiData, selectorResult, subsetVersion, dataVersion, usedStaNamesMap, plotDef,
+                            plotDef.isDrawLine(), chartData.waveLengthRange, colorModel, stopJobs));
+                }
+
+                // table results [table][yAxis][pass]:
+                final PlotTableData[][][] tableResults = new PlotTableData[nTables][][];
+
+                final boolean useParallel = PLOT_PARALLEL && (nTables > 1) && (ForkJoinPool.getCommonPoolParallelism() > 1);
+
+                if (useParallel) {
+                    // fork:
+                    final List<ForkJoinTask<PlotTableData[][]>> tasks = new ArrayList<ForkJoinTask<PlotTableData[][]>>(nTables);
+                    for (PlotTableJob job : jobs) {
+                        tasks.add(ForkJoinPool.commonPool().submit(job));
+                    }
+                    // join (in table order):
+                    try {
+                        for (int t = 0; t < nTables; t++) {
+                            tableResults[t] = tasks.get(t).get();
+
+                            if (worker != null) {
+                                worker.setProgress(Math.round((100f * (t + 1)) / nTables));
+                            }
+                        }
+                    } catch (InterruptedException ie) {
+                        logger.debug("computeInBackground: interrupted");
+                        // restore interrupted flag:
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } catch (ExecutionException ee) {
+                        if (ee.getCause() instanceof RuntimeException) {
+                            throw (RuntimeException) ee.getCause();
+                        }
+                        throw new IllegalStateException("Plot computation failure", ee.getCause());
+                    } finally {
+                        // wait for running jobs (tables are not used anymore once this task is done):
+                        stopTasks(tasks, stopJobs);
+                    }
+                } else {
+                    for (int t = 0; t < nTables; t++) {
+                        // fast interrupt :
+                        if (Thread.currentThread().isInterrupted()) {
+                            return null;
+                        }
+                        tableResults[t] = jobs.get(t).call();
+
+                        if (worker != null) {
+                            worker.setProgress(Math.round((100f * (t + 1)) / nTables));
+                        }
+                    }
+                }
+
+                // fast interrupt :
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+
+                // merge table results in the sequential order (Y axes, symmetry pass, tables)
+                // to get the same series indexes (and colors):
+                for (int i = 0; i < nYaxes; i++) {
+                    final XYPlotData xyPlotData = new XYPlotData(chartData);
+
+                    // presize the dataset columns once (all tables):
+                    int nSeries = 0;
+                    int nItems = 0;
+                    for (int t = 0; t < nTables; t++) {
+                        for (PlotTableData tableData : tableResults[t][i]) {
+                            if (tableData != null) {
+                                nSeries += tableData.series.size();
+                                for (PlotTableData.Serie serie : tableData.series) {
+                                    nItems += serie.getItemCount();
+                                }
+                            }
+                        }
+                    }
+                    xyPlotData.dataset.ensureCapacity(nSeries);
+                    xyPlotData.dataset.ensureItemCapacity(nItems);
+
+                    int tableIndex = 0;
+
+                    for (int pass = 0; pass < 2; pass++) {
+                        for (int t = 0; t < nTables; t++) {
+                            final PlotTableData[] passResults = tableResults[t][i];
+
+                            if (passResults.length > pass) {
+                                final PlotTableData tableData = passResults[pass];
+
+                                if (tableData != null) {
+                                    mergeTableData(xyPlotData, i, tableData, tableIndex);
+                                }
+                                tableIndex++;
+                            }
+                        }
+                    }
+                    chartData.xyPlotDatas[i] = xyPlotData;
+
+                    if (logger.isDebugEnabled()) {
+                        final PlotInfo info = xyPlotData.info;
+                        logger.debug("xyPlotPlot[{}]: nSkipFlag = {} - nSkipRow = {} - nSkipWavelength = {} - nSkipCell = {}",
+                                i, info.nSkipFlag, info.nSkipRow, info.nSkipWavelength, info.nSkipCell);
+                    }
+                }
+            }
+
+            logger.info("compute[PlotChartData]: duration = {} ms.", 1e-6d * (System.nanoTime() - start));
+
+            PlotDataCache.getInstance().logStats();
+
+            return chartData;
+        }
+
+        /**
+         * Stop the given fork/join tasks and wait for their completion
+         * (fork/join cancel does not wait for running tasks)
+         * @param tasks fork/join tasks to stop
+         * @param stopJobs stop flag shared with running jobs
+         */
+        private static void stopTasks(final List<ForkJoinTask<PlotTableData[][]>> tasks, final AtomicBoolean stopJobs) {
+            // pending and running jobs stop before their next table data:
+            stopJobs.set(true);
+            for (ForkJoinTask<PlotTableData[][]> task : tasks) {
+                task.quietlyJoin();
+            }
+        }
+
+        /**
+         * Refresh the plot using the computed chart data.
+         * This code is executed by the Swing Event Dispatcher thread (EDT)
+         * @param chartData computed chart data
+         */
+        @Override
+        public void refreshUI(final PlotChartData chartData) {
+            // Refresh the GUI using coherent data :
+            this.chartPanel.updatePlot(chartData);
+
+            if (PLOT_INDEX) {
+                // build spatial indexes after the plot is shown:
+                buildIndexes(chartData);
+            }
+        }
+
+        /**
+         * Build the spatial index of every dataset in background (fork/join common pool)
+         * as it is only used by mouse interactions (nearest point, selection)
+         * @param chartData computed chart data
+         */
+        private static void buildIndexes(final PlotChartData chartData) {
+            ForkJoinPool.commonPool().execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (XYPlotData xyPlotData : chartData.xyPlotDatas) {
+                        if (xyPlotData != null && xyPlotData.info.hasPlotData) {
+                            final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset = xyPlotData.dataset;
+                            dataset.setIndex(XYPointIndex.build(dataset));
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Handle the execution exception that occured in the compute operation @see #computeInBackground()
+         * This implementation resets the plot and opens a message dialog or the feedback report depending on the cause.
+         *
+         * @param ee execution exception
+         */
+        @Override
+        public void handleException(final ExecutionException ee) {
+            this.chartPanel.resetPlot();
+            super.handleException(ee);
+        }
+    }
+
+    /**
+     * Job computing the series of one OIData table for all Y axes (and symmetry passes)
+     */
+    private static final class PlotTableJob implements Callable<PlotTableData[][]> {
+
+        /* members */
+        /** OIData table to use as data source */
+        private final OIData oiData;
+        /** selector result (subset) */
+        private final SelectorResult selectorResult;
+        /** subset version (cache) or null to disable cache */
+        private final IdentifiableVersion subsetVersion;
+        /** collection version (cache) or NO_DATA_VERSION to disable cache */
+        private final int dataVersion;
+        /** (shared) used StaNames map */
+        private final Map<String, StaNamesDir> usedStaNamesMap;
+        /** plot definition (copy) */
+        private final PlotDefinition plotDef;
+        /** flag indicating to build series for line representation */
+        private final boolean drawLines;
+        /** largest wave length range (not filtered) */
+        private final Range waveLengthRange;
+        /** color model for the wavelength range */
+        private final IndexColorModel colorModel;
+        /** stop flag shared with other jobs */
+        private final AtomicBoolean stopJobs;
+
+        /**
+         * Protected constructor
+         * @param oiData OIData table to use as data source
+         * @param selectorResult selector result (subset)
+         * @param subsetVersion subset version (cache) or null to disable cache
+         * @param dataVersion collection version (cache) or NO_DATA_VERSION to disable cache
+         * @param usedStaNamesMap (shared) used StaNames map
+         * @param plotDef plot definition (copy)
+         * @param drawLines flag indicating to build series for line representation
+         * @param waveLengthRange largest wave length range (not filtered)
+         * @param colorModel color model for the wavelength range
+         * @param stopJobs stop flag shared with other jobs
+         */
+        PlotTableJob(final OIData oiData, final SelectorResult selectorResult,
+                     final IdentifiableVersion subsetVersion, final int dataVersion,
+                     final Map<String, StaNamesDir> usedStaNamesMap, final PlotDefinition plotDef,
+                     final boolean drawLines, final Range waveLengthRange, final IndexColorModel colorModel,
+                     final AtomicBoolean stopJobs) {
+            this.oiData = oiData;
+            this.selectorResult = selectorResult;
+            this.subsetVersion = subsetVersion;
+            this.dataVersion = dataVersion;
+            this.usedStaNamesMap = usedStaNamesMap;
+            this.plotDef = plotDef;
+            this.drawLines = drawLines;
+            this.waveLengthRange = waveLengthRange;
+            this.colorModel = colorModel;
+            this.stopJobs = stopJobs;
+        }
+
+        /**
+         * Compute the table data for all Y axes
+         * @return table data [yAxis][pass] (null item if no data) or null if cancelled
+         */
+        @Override
+        public PlotTableData[][] call() {
+            final boolean useSymmetryX = useSymmetry(plotDef.getXAxis());
+            final int nYaxes = plotDef.getYAxes().size();
+
+            final PlotTableData[][] results = new PlotTableData[nYaxes][];
+
+            for (int i = 0; i < nYaxes; i++) {
+                // fast cancel (checked before every table data):
+                if (isStopped()) {
+                    return null;
+                }
+                // Global converter (symmetry): first pass uses reflection if both axes use symmetry:
+                if (useSymmetryX && useSymmetry(plotDef.getYAxes().get(i))) {
+                    final PlotTableData reflected = getTableData(i, true);
+                    if (isStopped()) {
+                        return null;
+                    }
+                    results[i] = new PlotTableData[]{
+                        reflected,
+                        getTableData(i, false)
+                    };
+                } else {
+                    results[i] = new PlotTableData[]{
+                        getTableData(i, false)
+                    };
+                }
+            }
+            return results;
+        }
+
+        /**
+         * Return true if jobs are cancelled or the current thread is interrupted
+         * @return true if this job must stop
+         */
+        private boolean isStopped() {
+            return stopJobs.get() || Thread.currentThread().isInterrupted();
+        }
+
+        /**
+         * Return the table data for the given Y axis using the cache (if enabled) or compute it
+         * @param yAxisIndex yAxis index in plot definition
+         * @param reflect true to reflect values (symmetry)
+         * @return table data or null if the table is not supported
+         */
+        private PlotTableData getTableData(final int yAxisIndex, final boolean reflect) {
+            final PlotDataCache cache = (PLOT_CACHE && (subsetVersion != null) && (dataVersion != NO_DATA_VERSION))
+                    ? PlotDataCache.getInstance() : null;
+            final PlotDataCache.Key key = (cache != null)
+                    ? new PlotDataCache.Key(oiData, subsetVersion, dataVersion, plotDef, yAxisIndex, reflect, drawLines, waveLengthRange) : null;
+
+            PlotTableData tableData = (cache != null) ? cache.get(key) : null;
+
+            if (tableData == null) {
+                final Converter initialConverter = (reflect) ? ConverterFactory.CONVERTER_REFLECT : null;
+
+                tableData = computeTableData(oiData, selectorResult, usedStaNamesMap, plotDef, yAxisIndex,
+                        initialConverter, initialConverter, drawLines, waveLengthRange, colorModel);
+
+                if ((cache != null) && (tableData != null)) {
+                    cache.put(key, tableData);
+                }
+            }
+            return tableData;
+        }
+    }
+
+    /**
+     * Thread-local working buffer used to extract the series (1 per baseline) of OIData tables
+     * (reused by all jobs of the same thread; only buffers up to MAX_LOCAL_CAPACITY items are kept)
+     */
+    private static final class SerieBuffer {
+
+        /** maximum capacity of the buffer kept per thread (256K items ~ 18 Mb) */
+        private final static int MAX_LOCAL_CAPACITY = 256 * 1024;
+        /** buffer per thread */
+        private final static ThreadLocal<SerieBuffer> localBuffer = new ThreadLocal<SerieBuffer>();
+
+        /* members */
+        /** buffer capacity */
+        final int capacity;
+        /** row / col indices */
+        final int[] iRows, iCols;
+        /** x and y values */
+        final double[] xValues, xLowers, xUppers, yValues, yLowers, yUppers;
+        /** item shape codes */
+        final byte[] itemShapeCodes;
+        /** item paint codes */
+        final byte[] itemPaintCodes;
+
+        /**
+         * Return the buffer of the current thread having at least the given capacity
+         * @param capacity minimum capacity
+         * @return buffer
+         */
+        static SerieBuffer get(final int capacity) {
+            SerieBuffer buffer = localBuffer.get();
+            if (buffer == null || buffer.capacity < capacity) {
+                buffer = new SerieBuffer(capacity);
+                // avoid keeping too large buffers per thread:
+                if (capacity <= MAX_LOCAL_CAPACITY) {
+                    localBuffer.set(buffer);
+                }
+            }
+            return buffer;
+        }
+
+        /**
+         * Private constructor
+         * @param capacity buffer capacity
+         */
+        private SerieBuffer(final int capacity) {
+            this.capacity = capacity;
+            this.iRows = new int[capacity];
+            this.iCols = new int[capacity];
+            this.xValues = new double[capacity];
+            this.xLowers = new double[capacity];
+            this.xUppers = new double[capacity];
+            this.yValues = new double[capacity];
+            this.yLowers = new double[capacity];
+            this.yUppers = new double[capacity];
+            this.itemShapeCodes = new byte[capacity];
+            this.itemPaintCodes = new byte[capacity];
+        }
+
+        /**
+         * Define a cut-off point (NaN) at the given index
+         * @param idx item index
+         */
+        void setCutOff(final int idx) {
+            iRows[idx] = -1;
+            iCols[idx] = -1;
+            xValues[idx] = Double.NaN;
+            xLowers[idx] = Double.NaN;
+            xUppers[idx] = Double.NaN;
+            yValues[idx] = Double.NaN;
+            yLowers[idx] = Double.NaN;
+            yUppers[idx] = Double.NaN;
+            itemShapeCodes[idx] = SHAPE_CODE_DEFAULT;
+            // not drawn (NaN):
+            itemPaintCodes[idx] = 0;
+        }
+    }
+
+    /**
+     * This class contains the plot data (datasets, series attributes and plot informations) for consistency
+     */
+    private static final class PlotChartData {
+
+        /** plot definition (copy) */
+        final PlotDefinition plotDef;
+        /** selector result (subset) */
+        final SelectorResult selectorResult;
+        /** all distinct station indexes from OIData tables (not filtered) */
+        final List<String> distinctStaIndexNames;
+        /** all distinct station configuration from OIData tables (not filtered) */
+        final List<String> distinctStaConfNames;
+        /** largest wave length range (not filtered) */
+        final Range waveLengthRange;
+        /** xy plot data per Y axis (null if no data) */
+        final XYPlotData[] xyPlotDatas;
+
+        /**
+         * Protected constructor
+         * @param plotDef plot definition (copy)
+         * @param selectorResult selector result (subset)
+         * @param nYaxes number of Y axes
+         * @param distinctStaIndexNames all distinct station indexes from OIData tables (not filtered)
+         * @param distinctStaConfNames all distinct station configuration from OIData tables (not filtered)
+         * @param waveLengthRange largest wave length range (not filtered)
+         */
+        PlotChartData(final PlotDefinition plotDef, final SelectorResult selectorResult, final int nYaxes,
+                      final List<String> distinctStaIndexNames, final List<String> distinctStaConfNames,
+                      final Range waveLengthRange) {
+            this.plotDef = plotDef;
+            this.selectorResult = selectorResult;
+            this.distinctStaIndexNames = distinctStaIndexNames;
+            this.distinctStaConfNames = distinctStaConfNames;
+            this.waveLengthRange = waveLengthRange;
+            this.xyPlotDatas = new XYPlotData[nYaxes];
+        }
+
+        /**
+         * Protected constructor reusing the data of the given chart data (style or axis changes only)
+         * and updating the log scale flags of the plot informations
+         * @param src chart data to reuse
+         * @param plotDef new plot definition (copy)
+         */
+        PlotChartData(final PlotChartData src, final PlotDefinition plotDef) {
+            this.plotDef = plotDef;
+            this.selectorResult = src.selectorResult;
+            this.distinctStaIndexNames = src.distinctStaIndexNames;
+            this.distinctStaConfNames = src.distinctStaConfNames;
+            this.waveLengthRange = src.waveLengthRange;
+            this.xyPlotDatas = src.xyPlotDatas;
+
+            // log scale changes are only possible on strictly positive data (same datasets):
+            for (int i = 0; i < xyPlotDatas.length; i++) {
+                final XYPlotData xyPlotData = xyPlotDatas[i];
+                if (xyPlotData != null) {
+                    xyPlotData.info.xAxisInfo.useLog = plotDef.getXAxis().isLogScale();
+                    xyPlotData.info.yAxisInfo.useLog = plotDef.getYAxes().get(i).isLogScale();
+                }
+            }
+        }
+    }
+
+    /**
+     * This class contains the data of one xy plot (dataset, series in dataset order and plot information)
+     */
+    private static final class XYPlotData {
+
+        /** plot information */
+        final PlotInfo info;
+        /** dataset */
+        final FastIntervalXYDataset<OITableSerieKey, OITableSerieKey> dataset;
+        /** series (attributes) in dataset order */
+        final List<PlotTableData.Serie> series;
+
+        /**
+         * Protected constructor
+         * @param chartData chart data to get shared information
+         */
+        XYPlotData(final PlotChartData chartData) {
+            this.dataset = new FastIntervalXYDataset<OITableSerieKey, OITableSerieKey>(PLOT_FLOAT_DATA);
+            this.series = new ArrayList<PlotTableData.Serie>();
+
+            this.info = new PlotInfo();
+            this.info.distinctStaIndexNames = chartData.distinctStaIndexNames;
+            this.info.distinctStaConfNames = chartData.distinctStaConfNames;
+            this.info.waveLengthRange = chartData.waveLengthRange;
+        }
+    }
 }
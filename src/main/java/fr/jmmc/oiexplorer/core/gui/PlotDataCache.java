@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmcs.util.ObjectUtils;
+import fr.jmmc.oiexplorer.core.model.IdentifiableVersion;
+import fr.jmmc.oiexplorer.core.model.plot.Axis;
+import fr.jmmc.oiexplorer.core.model.plot.PlotDefinition;
+import fr.jmmc.oitools.model.OIData;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jfree.data.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a LRU cache of the series extracted from OIData tables (PlotTableData) shared by all plots.
+ * Its capacity is a memory budget (bytes) based on the size of the series arrays.
+ * This class is thread-safe (used by plot data tasks and worker threads).
+ *
+ * @author bourgesl
+ */
+public final class PlotDataCache {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(PlotDataCache.class.getName());
+    /** default memory budget = 128 Mb */
+    public static final long DEFAULT_MAX_BYTES = 128L * 1024L * 1024L;
+    /** singleton */
+    private static final PlotDataCache INSTANCE = new PlotDataCache();
+
+    /* members */
+    /** cached table data (access order ie LRU) */
+    private final LinkedHashMap<Key, PlotTableData> cache = new LinkedHashMap<Key, PlotTableData>(64, 0.75f, true);
+    /** memory budget (bytes) */
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    /** memory used by cached entries (bytes) */
+    private long usedBytes = 0L;
+    /** number of cache hits */
+    private long hits = 0L;
+    /** number of cache misses */
+    private long misses = 0L;
+
+    /**
+     * Return the singleton
+     * @return singleton
+     */
+    public static PlotDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor
+     */
+    private PlotDataCache() {
+        super();
+    }
+
+    /**
+     * Return the cached table data corresponding to the given key
+     * @param key cache key
+     * @return cached table data or null if missing
+     */
+    synchronized PlotTableData get(final Key key) {
+        final PlotTableData tableData = cache.get(key);
+        if (tableData != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return tableData;
+    }
+
+    /**
+     * Put the given table data in the cache and evict least recently used entries if the memory budget is exceeded
+     * @param key cache key
+     * @param tableData table data to cache
+     */
+    synchronized void put(final Key key, final PlotTableData tableData) {
+        final long size = tableData.getByteSize();
+        if (size > maxBytes) {
+            // too large:
+            return;
+        }
+        final PlotTableData prev = cache.put(key, tableData);
+        if (prev != null) {
+            // equal keys have the same size:
+            usedBytes -= prev.getByteSize();
+        }
+        usedBytes += size;
+
+        evict();
+    }
+
+    /**
+     * Evict least recently used entries while the memory budget is exceeded
+     */
+    private void evict() {
+        for (final Iterator<Map.Entry<Key, PlotTableData>> it = cache.entrySet().iterator(); (usedBytes > maxBytes) && it.hasNext();) {
+            final Map.Entry<Key, PlotTableData> e = it.next();
+            usedBytes -= e.getValue().getByteSize();
+            it.remove();
+        }
+    }
+
+    /**
+     * Clear the cache (keep statistics)
+     */
+    public synchronized void clear() {
+        cache.clear();
+        usedBytes = 0L;
+    }
+
+    /**
+     * Return the memory budget (bytes)
+     * @return memory budget (bytes)
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Define the memory budget (bytes) and evict entries if needed
+     * @param maxBytes memory budget (bytes)
+     */
+    public synchronized void setMaxBytes(final long maxBytes) {
+        this.maxBytes = Math.max(0L, maxBytes);
+        evict();
+    }
+
+    /**
+     * Return the memory used by cached entries (bytes)
+     * @return memory used by cached entries (bytes)
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Return the number of cache hits
+     * @return number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Return the number of cache misses
+     * @return number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Log the cache statistics
+     */
+    synchronized void logStats() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("PlotDataCache: {} entries - used = {} / {} bytes - hits = {} - misses = {}",
+                    cache.size(), usedBytes, maxBytes, hits, misses);
+        }
+    }
+
+    /**
+     * Cache key = OIData table (identity), subset version, collection version and
+     * every plot definition setting used to extract its series.
+     */
+    static final class Key {
+
+        /* members */
+        /** OIData table (identity) */
+        private final OIData oiData;
+        /** subset version (filters) */
+        private final IdentifiableVersion subsetVersion;
+        /** collection version (data and expression columns) */
+        private final int dataVersion;
+        /** x axis name */
+        private final String xName;
+        /** x axis converter */
+        private final String xConverter;
+        /** x axis log scale */
+        private final boolean xLog;
+        /** y axis name */
+        private final String yName;
+        /** y axis converter */
+        private final String yConverter;
+        /** y axis log scale */
+        private final boolean yLog;
+        /** skip flagged data */
+        private final boolean skipFlaggedData;
+        /** reflected values (symmetry) */
+        private final boolean reflect;
+        /** line representation (cut-offs) */
+        private final boolean drawLines;
+        /** largest wave length range (item colors) */
+        private final Range waveLengthRange;
+        /** cached hash code */
+        private final int hash;
+
+        /**
+         * Protected constructor
+         * @param oiData OIData table
+         * @param subsetVersion subset version
+         * @param dataVersion collection version
+         * @param plotDef plot definition
+         * @param yAxisIndex yAxis index in plot definition
+         * @param reflect reflected values (symmetry)
+         * @param drawLines line representation (cut-offs)
+         * @param waveLengthRange largest wave length range
+         */
+        Key(final OIData oiData, final IdentifiableVersion subsetVersion, final int dataVersion, final PlotDefinition plotDef,
+            final int yAxisIndex, final boolean reflect, final boolean drawLines, final Range waveLengthRange) {
+            final Axis xAxis = plotDef.getXAxis();
+            final Axis yAxis = plotDef.getYAxes().get(yAxisIndex);
+
+            this.oiData = oiData;
+            this.subsetVersion = subsetVersion;
+            this.dataVersion = dataVersion;
+            this.xName = xAxis.getName();
+            this.xConverter = xAxis.getConverter();
+            this.xLog = xAxis.isLogScale();
+            this.yName = yAxis.getName();
+            this.yConverter = yAxis.getConverter();
+            this.yLog = yAxis.isLogScale();
+            this.skipFlaggedData = plotDef.isSkipFlaggedData();
+            this.reflect = reflect;
+            this.drawLines = drawLines;
+            this.waveLengthRange = waveLengthRange;
+
+            int h = 7;
+            h = 97 * h + System.identityHashCode(oiData);
+            h = 97 * h + subsetVersion.hashCode();
+            h = 97 * h + dataVersion;
+            h = 97 * h + ((xName != null) ? xName.hashCode() : 0);
+            h = 97 * h + ((xConverter != null) ? xConverter.hashCode() : 0);
+            h = 97 * h + ((yName != null) ? yName.hashCode() : 0);
+            h = 97 * h + ((yConverter != null) ? yConverter.hashCode() : 0);
+            h = 97 * h + ((xLog) ? 1 : 0) + ((yLog) ? 2 : 0) + ((skipFlaggedData) ? 4 : 0) + ((reflect) ? 8 : 0) + ((drawLines) ? 16 : 0);
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return (this.hash == other.hash)
+                    && (this.oiData == other.oiData)
+                    && (this.dataVersion == other.dataVersion)
+                    && (this.xLog == other.xLog)
+                    && (this.yLog == other.yLog)
+                    && (this.skipFlaggedData == other.skipFlaggedData)
+                    && (this.reflect == other.reflect)
+                    && (this.drawLines == other.drawLines)
+                    && this.subsetVersion.equals(other.subsetVersion)
+                    && ObjectUtils.areEquals(this.xName, other.xName)
+                    && ObjectUtils.areEquals(this.xConverter, other.xConverter)
+                    && ObjectUtils.areEquals(this.yName, other.yName)
+                    && ObjectUtils.areEquals(this.yConverter, other.yConverter)
+                    && ObjectUtils.areEquals(this.waveLengthRange, other.waveLengthRange);
+        }
+    }
+}
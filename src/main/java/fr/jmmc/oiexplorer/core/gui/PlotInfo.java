@@ -3,10 +3,14 @@
  ******************************************************************************/
 package fr.jmmc.oiexplorer.core.gui;
 
+import fr.jmmc.oiexplorer.core.gui.chart.dataset.XYCellIndex;
+import fr.jmmc.oiexplorer.core.gui.selection.OIDataPointer;
 import fr.jmmc.oitools.model.OIData;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.jfree.data.Range;
 
@@ -25,6 +29,14 @@ public final class PlotInfo {
     int nDisplayedPoints = 0;
     /** flag indicating that the dataset contains flagged data */
     boolean hasDataFlag = false;
+    /** number of skipped flagged data points */
+    int nSkipFlag = 0;
+    /** number of skipped rows (masks) */
+    int nSkipRow = 0;
+    /** number of skipped wavelengths (mask) */
+    int nSkipWavelength = 0;
+    /** number of skipped cells (mask 2D) */
+    int nSkipCell = 0;
     /** y axis index in plot definition */
     int yAxisIndex = -1;
     /** list of OIData tables used */
@@ -43,6 +55,8 @@ public final class PlotInfo {
     final AxisInfo xAxisInfo;
     /** y axis information */
     final AxisInfo yAxisInfo;
+    /** reverse indexes (row, col) to (series, item) per OIData table (lazily built, EDT only) */
+    final Map<OIDataPointer, XYCellIndex> cellIndexes;
 
     PlotInfo() {
         oidataList = new ArrayList<OIData>();
@@ -50,6 +64,7 @@ public final class PlotInfo {
         usedStaConfNames = new LinkedHashSet<String>();
         xAxisInfo = new AxisInfo();
         yAxisInfo = new AxisInfo();
+        cellIndexes = new HashMap<OIDataPointer, XYCellIndex>(8);
     }
 
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIData;
+import java.awt.Paint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Series and statistics extracted from a single OIData table for one Y axis.
+ * Instances are built by a worker thread and then only read (merged into the dataset and applied on the EDT)
+ *
+ * @author bourgesl
+ */
+final class PlotTableData {
+
+    /** OIData table used as data source */
+    final OIData oiData;
+    /** series (1 per baseline) */
+    final List<Serie> series;
+    /** flag indicating that the table has several wavelengths */
+    boolean useWaveLengths = false;
+    /** number of data points */
+    int nDataPoints = 0;
+    /** flag indicating that the table contains flagged data */
+    boolean hasDataFlag = false;
+    /* x axis */
+    /** x colum meta data */
+    ColumnMeta xMeta = null;
+    /** x converter unit */
+    String xUnit = null;
+    /** is x log axis */
+    boolean xUseLog = false;
+    /** flag indicating that the table has data with error on x axis */
+    boolean hasDataErrorX = false;
+    /** x data range */
+    double minX = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    /** x data + error range */
+    double minXe = Double.POSITIVE_INFINITY;
+    double maxXe = Double.NEGATIVE_INFINITY;
+    /* y axis */
+    /** y colum meta data */
+    ColumnMeta yMeta = null;
+    /** y converter unit */
+    String yUnit = null;
+    /** is y log axis */
+    boolean yUseLog = false;
+    /** flag indicating that the table has data with error on y axis */
+    boolean hasDataErrorY = false;
+    /** y data range */
+    double minY = Double.POSITIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    /** y data + error range */
+    double minYe = Double.POSITIVE_INFINITY;
+    double maxYe = Double.NEGATIVE_INFINITY;
+    /* log scale */
+    /** flag indicating that all x values (and lower errors) are strictly positive */
+    boolean xPositive = true;
+    /** flag indicating that all y values (and lower errors) are strictly positive */
+    boolean yPositive = true;
+    /* skip counters */
+    int nSkipFlag = 0;
+    int nSkipRow = 0;
+    int nSkipWavelength = 0;
+    int nSkipCell = 0;
+
+    /**
+     * Protected constructor
+     * @param oiData OIData table used as data source
+     * @param nSeries expected number of series
+     */
+    PlotTableData(final OIData oiData, final int nSeries) {
+        this.oiData = oiData;
+        this.series = new ArrayList<Serie>(nSeries);
+    }
+
+    /**
+     * Return true if this table has data to plot
+     * @return true if this table has data to plot
+     */
+    boolean hasPlotData() {
+        return !series.isEmpty();
+    }
+
+    /**
+     * Return the approximate memory footprint (bytes) of the series arrays
+     * @return approximate memory footprint (bytes)
+     */
+    long getByteSize() {
+        long size = 0L;
+        for (int i = 0, len = series.size(); i < len; i++) {
+            size += series.get(i).getByteSize();
+        }
+        return size;
+    }
+
+    /**
+     * Data serie for one baseline (staIndex) with its item shape and paint codes
+     */
+    static final class Serie {
+
+        /** StaIndex index in the OIData table */
+        final int staIdxIndex;
+        /** station index name */
+        final String staIndexName;
+        /** station configuration name */
+        final String staConfName;
+        /** row / col indices */
+        final int[][] dataInt;
+        /** x, x lower, x upper, y, y lower, y upper values */
+        final double[][] dataDbl;
+        /** shape code per item (see PlotChartPanel.ITEM_SHAPES) */
+        final byte[] itemShapeCodes;
+        /** paint code per item (unsigned color index in the palette) */
+        final byte[] itemPaintCodes;
+        /** palette (wavelength colors shared by all series of the table) */
+        final Paint[] itemPalette;
+
+        /**
+         * Protected constructor
+         * @param staIdxIndex StaIndex index in the OIData table
+         * @param staIndexName station index name
+         * @param staConfName station configuration name
+         * @param dataInt row / col indices
+         * @param dataDbl x, x lower, x upper, y, y lower, y upper values
+         * @param itemShapeCodes shape code per item
+         * @param itemPaintCodes paint code per item
+         * @param itemPalette palette used to resolve paint codes
+         */
+        Serie(final int staIdxIndex, final String staIndexName, final String staConfName,
+              final int[][] dataInt, final double[][] dataDbl,
+              final byte[] itemShapeCodes, final byte[] itemPaintCodes, final Paint[] itemPalette) {
+            this.staIdxIndex = staIdxIndex;
+            this.staIndexName = staIndexName;
+            this.staConfName = staConfName;
+            this.dataInt = dataInt;
+            this.dataDbl = dataDbl;
+            this.itemShapeCodes = itemShapeCodes;
+            this.itemPaintCodes = itemPaintCodes;
+            this.itemPalette = itemPalette;
+        }
+
+        /**
+         * Return the number of items in this serie
+         * @return number of items
+         */
+        int getItemCount() {
+            return dataInt[0].length;
+        }
+
+        /**
+         * Return the approximate memory footprint (bytes) of the serie arrays
+         * (array header = 16 bytes, reference = 4 bytes ie compressed oops, palette shared and ignored)
+         * @return approximate memory footprint (bytes)
+         */
+        long getByteSize() {
+            long size = 0L;
+            for (int[] array : dataInt) {
+                size += 16L + 4L * array.length;
+            }
+            for (double[] array : dataDbl) {
+                size += 16L + 8L * array.length;
+            }
+            size += 16L + itemShapeCodes.length;
+            size += 16L + itemPaintCodes.length;
+            return size;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * LRU cache of the rendered images (cube slices) whose capacity is a memory budget (bytes).
+ * Keys being prefetched are reserved so the same image is not rendered twice.
+ * This class is thread-safe (used by the Swing EDT and prefetch jobs)
+ *
+ * @param <K> key type
+ * @param <V> rendered image data type
+ *
+ * @author bourgesl
+ */
+final class SliceRenderCache<K, V extends SliceRenderCache.Entry> {
+
+    /* members */
+    /** cached image data (access order ie LRU) */
+    private final LinkedHashMap<K, V> cache = new LinkedHashMap<K, V>(16, 0.75f, true);
+    /** keys being prefetched */
+    private final Set<K> pending = new HashSet<K>(8);
+    /** memory budget (bytes) */
+    private final long maxBytes;
+    /** memory used by cached entries (bytes) */
+    private long usedBytes = 0L;
+
+    /**
+     * Protected constructor
+     * @param maxBytes memory budget (bytes)
+     */
+    SliceRenderCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Return the cached image data corresponding to the given key
+     * @param key cache key
+     * @return cached image data or null if missing
+     */
+    synchronized V get(final K key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Put the given image data in the cache and evict least recently used entries if the memory budget is exceeded
+     * @param key cache key
+     * @param imageData image data to cache
+     */
+    synchronized void put(final K key, final V imageData) {
+        final long size = imageData.getByteSize();
+        if (size > maxBytes) {
+            // too large:
+            return;
+        }
+        final V prev = cache.put(key, imageData);
+        if (prev != null) {
+            usedBytes -= prev.getByteSize();
+        }
+        usedBytes += size;
+
+        for (final Iterator<V> it = cache.values().iterator(); (usedBytes > maxBytes) && it.hasNext();) {
+            usedBytes -= it.next().getByteSize();
+            it.remove();
+        }
+    }
+
+    /**
+     * Reserve the given key for a prefetch job
+     * @param key cache key
+     * @return true if the image is neither cached nor being prefetched
+     */
+    synchronized boolean reserve(final K key) {
+        return !cache.containsKey(key) && pending.add(key);
+    }
+
+    /**
+     * Release the given key (prefetch job done)
+     * @param key cache key
+     */
+    synchronized void release(final K key) {
+        pending.remove(key);
+    }
+
+    /**
+     * Return true if the given image belongs to a cached image data (must not be recycled)
+     * @param image image to test
+     * @return true if the given image is cached
+     */
+    synchronized boolean containsImage(final BufferedImage image) {
+        for (V imageData : cache.values()) {
+            if (imageData.getImage() == image) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the memory used by cached entries (bytes)
+     * @return memory used by cached entries (bytes)
+     */
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Clear the cache
+     */
+    synchronized void clear() {
+        cache.clear();
+        usedBytes = 0L;
+    }
+
+    /**
+     * Rendered image data stored in the cache
+     */
+    interface Entry {
+
+        /**
+         * Return the java2D image
+         * @return java2D image
+         */
+        BufferedImage getImage();
+
+        /**
+         * Return the approximated memory used by the images (bytes)
+         * @return approximated memory used by the images (bytes)
+         */
+        long getByteSize();
+    }
+}
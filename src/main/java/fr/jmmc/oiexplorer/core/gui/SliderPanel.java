@@ -4,7 +4,9 @@
 package fr.jmmc.oiexplorer.core.gui;
 
 import fr.jmmc.oitools.image.FitsImage;
+import java.util.ArrayList;
 import java.util.List;
+import javax.swing.Timer;
 
 /**
  *
@@ -12,9 +14,28 @@ import java.util.List;
  */
 public final class SliderPanel extends javax.swing.JPanel {
 
+    /** number of slices prefetched in the direction of travel */
+    private static final int PREFETCH_AHEAD = 4;
+    /** number of slices prefetched in the opposite direction */
+    private static final int PREFETCH_BEHIND = 1;
+    /** default play frame rate (frames per second) */
+    public static final double DEFAULT_FRAME_RATE = 10.0;
+
     List<FitsImage> fitsImages;
     FitsImagePanel fitsImagePanel;
     SliderEditor sliderEditor;
+    /** last slider value (direction of travel) */
+    private int lastValue = 1;
+    /** direction of travel (+1 or -1) */
+    private int direction = 1;
+    /** play frame rate (frames per second) */
+    private double frameRate = DEFAULT_FRAME_RATE;
+    /** play timer (null if stopped) */
+    private Timer playTimer = null;
+    /** play start time (ns) */
+    private long playStart = 0L;
+    /** slider value at play start */
+    private int playStartValue = 1;
     
     public SliderPanel() {
         initComponents();
@@ -40,6 +61,7 @@ public final class SliderPanel extends javax.swing.JPanel {
 
         jFitsImageCubeSlider = new javax.swing.JSlider();
         jSliderButton = new javax.swing.JButton();
+        jPlayToggleButton = new javax.swing.JToggleButton();
 
         setLayout(new java.awt.GridBagLayout());
 
@@ -60,19 +82,163 @@ public final class SliderPanel extends javax.swing.JPanel {
             }
         });
         add(jSliderButton, new java.awt.GridBagConstraints());
+
+        jPlayToggleButton.setText("Play");
+        jPlayToggleButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jPlayToggleButtonActionPerformed(evt);
+            }
+        });
+        add(jPlayToggleButton, new java.awt.GridBagConstraints());
     }// </editor-fold>//GEN-END:initComponents
 
     private void jFitsImageCubeSliderStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jFitsImageCubeSliderStateChanged
         if (this.fitsImagePanel != null && this.fitsImages != null && this.fitsImages.size() > 1) {
-            this.fitsImagePanel.setFitsImage(this.fitsImages.get(this.jFitsImageCubeSlider.getValue() - 1));
+            final int value = this.jFitsImageCubeSlider.getValue();
+            if (value != this.lastValue) {
+                this.direction = (value > this.lastValue) ? 1 : -1;
+                this.lastValue = value;
+            }
+            this.fitsImagePanel.setFitsImage(this.fitsImages.get(value - 1));
+
+            // render the next slices in background:
+            prefetch(value);
         }
     }//GEN-LAST:event_jFitsImageCubeSliderStateChanged
 
+    private void jPlayToggleButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jPlayToggleButtonActionPerformed
+        if (this.jPlayToggleButton.isSelected()) {
+            startPlay();
+        } else {
+            stopPlay();
+        }
+    }//GEN-LAST:event_jPlayToggleButtonActionPerformed
+
+    /**
+     * Prefetch the slices around the given slider value: first in the direction of travel, then behind
+     * @param value slider value
+     */
+    private void prefetch(final int value) {
+        final int min = this.jFitsImageCubeSlider.getMinimum();
+        final int max = this.jFitsImageCubeSlider.getMaximum();
+
+        final List<FitsImage> images = new ArrayList<FitsImage>(PREFETCH_AHEAD + PREFETCH_BEHIND);
+        for (int i = 1; i <= PREFETCH_AHEAD; i++) {
+            addSlice(images, value + i * this.direction, min, max);
+        }
+        for (int i = 1; i <= PREFETCH_BEHIND; i++) {
+            addSlice(images, value - i * this.direction, min, max);
+        }
+        this.fitsImagePanel.prefetchFitsImages(images);
+    }
+
+    /**
+     * Add the slice corresponding to the given slider value (wrapped in [min; max] like the play mode)
+     * @param images list to fill
+     * @param value slider value
+     * @param min slider minimum
+     * @param max slider maximum
+     */
+    private void addSlice(final List<FitsImage> images, final int value, final int min, final int max) {
+        final int n = max - min + 1;
+        final int index = min + Math.floorMod(value - min, n) - 1;
+        if (index >= 0 && index < this.fitsImages.size()) {
+            images.add(this.fitsImages.get(index));
+        }
+    }
+
+    /**
+     * Return the play frame rate
+     * @return play frame rate (frames per second)
+     */
+    public double getFrameRate() {
+        return frameRate;
+    }
+
+    /**
+     * Define the play frame rate (restart the play mode if running)
+     * @param frameRate play frame rate (frames per second)
+     */
+    public void setFrameRate(final double frameRate) {
+        if (frameRate > 0.0) {
+            this.frameRate = frameRate;
+            if (this.playTimer != null) {
+                startPlay();
+            }
+        }
+    }
+
+    /**
+     * Start playing the slices at the play frame rate
+     */
+    public void startPlay() {
+        stopPlay();
+
+        this.playStart = System.nanoTime();
+        this.playStartValue = this.jFitsImageCubeSlider.getValue();
+        this.direction = 1;
+
+        this.playTimer = new Timer(Math.max(1, (int) Math.round(1000.0 / this.frameRate)), new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(final java.awt.event.ActionEvent ae) {
+                playNextFrame();
+            }
+        });
+        this.playTimer.setCoalesce(true);
+        this.playTimer.start();
+        this.jPlayToggleButton.setSelected(true);
+    }
+
+    /**
+     * Stop the play mode when this panel is removed (the play timer would keep it alive)
+     */
+    @Override
+    public void removeNotify() {
+        stopPlay();
+        super.removeNotify();
+    }
+
+    /**
+     * Stop playing the slices
+     */
+    public void stopPlay() {
+        if (this.playTimer != null) {
+            this.playTimer.stop();
+            this.playTimer = null;
+        }
+        this.jPlayToggleButton.setSelected(false);
+    }
+
+    /**
+     * Display the frame corresponding to the elapsed time: frames not rendered in time are dropped (not queued)
+     */
+    private void playNextFrame() {
+        final int min = this.jFitsImageCubeSlider.getMinimum();
+        final int max = this.jFitsImageCubeSlider.getMaximum();
+        final int n = max - min + 1;
+
+        if (n <= 1 || this.fitsImagePanel == null) {
+            return;
+        }
+        // drop this frame if the previous one is not displayed yet:
+        if (this.fitsImagePanel.isImagePending()) {
+            return;
+        }
+        // the frame follows the wall clock (late frames are skipped):
+        final long frame = (long) (1e-9d * (System.nanoTime() - this.playStart) * this.frameRate);
+        final int value = min + (int) ((this.playStartValue - min + frame) % n);
+
+        if (value != this.jFitsImageCubeSlider.getValue()) {
+            this.jFitsImageCubeSlider.setValue(value);
+        }
+    }
+
     private void jSliderButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jSliderButtonActionPerformed
         this.sliderEditor.setVisible(true);
     }//GEN-LAST:event_jSliderButtonActionPerformed
     
     public void setFitsImages(List<FitsImage> fitsImages) {
+        stopPlay();
         this.fitsImages = fitsImages;
         this.jFitsImageCubeSlider.setMinimum(this.fitsImages.get(0).getImageIndex());
         this.jFitsImageCubeSlider.setMaximum(this.fitsImages.get(this.fitsImages.size() - 1).getImageIndex());
@@ -86,6 +252,7 @@ public final class SliderPanel extends javax.swing.JPanel {
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JSlider jFitsImageCubeSlider;
+    private javax.swing.JToggleButton jPlayToggleButton;
     private javax.swing.JButton jSliderButton;
     // End of variables declaration//GEN-END:variables
 }
\ No newline at end of file
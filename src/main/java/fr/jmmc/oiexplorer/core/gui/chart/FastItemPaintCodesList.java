@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart;
+
+import java.util.Arrays;
+
+/**
+ * A table of item paint codes (byte[] as unsigned indices) resolved by the renderer through the palette of each series.
+ *
+ * @author bourgesl
+ */
+public final class FastItemPaintCodesList extends FastAbstractObjectList {
+
+    /** default serial UID for Serializable interface */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * Creates a new list.
+     */
+    public FastItemPaintCodesList() {
+        super();
+    }
+
+    /**
+     * Returns the paint codes from the list.
+     *
+     * @param index the index (zero-based).
+     *
+     * @return The paint codes.
+     */
+    public byte[] getItemPaintCodes(final int index) {
+        return (byte[]) get(index);
+    }
+
+    /**
+     * Sets the paint codes for an item in the list.  The list is expanded
+     * if necessary.
+     *
+     * @param index  the index (zero-based).
+     * @param itemPaintCodes  the paint codes.
+     */
+    public void setItemPaintCodes(final int index, final byte[] itemPaintCodes) {
+        set(index, itemPaintCodes);
+    }
+
+    /**
+     * Returns an independent copy of the list.
+     *
+     * @return A clone.
+     *
+     * @throws CloneNotSupportedException if an item in the list does not
+     *         support cloning.
+     */
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        return super.clone();
+    }
+
+    /**
+     * Tests the list for equality with another object (typically also a list).
+     *
+     * @param obj  the other object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FastItemPaintCodesList)) {
+            return false;
+        }
+        FastItemPaintCodesList that = (FastItemPaintCodesList) obj;
+        int listSize = size();
+        for (int i = 0; i < listSize; i++) {
+            if (!Arrays.equals((byte[]) get(i), (byte[]) that.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code value for the object.
+     *
+     * @return the hashcode
+     */
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
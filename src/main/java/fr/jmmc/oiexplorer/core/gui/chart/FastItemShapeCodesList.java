@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart;
+
+import java.util.Arrays;
+
+/**
+ * A table of item shape codes (byte[]) resolved by the renderer through its shape table.
+ *
+ * @author bourgesl
+ */
+public final class FastItemShapeCodesList extends FastAbstractObjectList {
+
+    /** default serial UID for Serializable interface */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * Creates a new list.
+     */
+    public FastItemShapeCodesList() {
+        super();
+    }
+
+    /**
+     * Returns the shape codes from the list.
+     *
+     * @param index the index (zero-based).
+     *
+     * @return The shape codes.
+     */
+    public byte[] getItemShapeCodes(final int index) {
+        return (byte[]) get(index);
+    }
+
+    /**
+     * Sets the shape codes for an item in the list.  The list is expanded
+     * if necessary.
+     *
+     * @param index  the index (zero-based).
+     * @param itemShapeCodes  the shape codes.
+     */
+    public void setItemShapeCodes(final int index, final byte[] itemShapeCodes) {
+        set(index, itemShapeCodes);
+    }
+
+    /**
+     * Returns an independent copy of the list.
+     *
+     * @return A clone.
+     *
+     * @throws CloneNotSupportedException if an item in the list does not
+     *         support cloning.
+     */
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        return super.clone();
+    }
+
+    /**
+     * Tests the list for equality with another object (typically also a list).
+     *
+     * @param obj  the other object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FastItemShapeCodesList)) {
+            return false;
+        }
+        FastItemShapeCodesList that = (FastItemShapeCodesList) obj;
+        int listSize = size();
+        for (int i = 0; i < listSize; i++) {
+            if (!Arrays.equals((byte[]) get(i), (byte[]) that.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code value for the object.
+     *
+     * @return the hashcode
+     */
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
@@ -58,6 +58,9 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
     private static final boolean useShapeIntersection = false;
     /** flag to show entity area (i.e. stroked line area) */
     private static final boolean debugEntityArea = false;
+    /** flag to merge line points within the same pixel column (level of detail): runs of segments having the same paint
+     * (lines) or every point (path drawn with a single paint) */
+    private static final boolean useLevelOfDetail = true;
     /**
      * A flag that controls whether or not lines are visible for ALL series.
      */
@@ -95,6 +98,14 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
     private final FastPaintList paintList;
     /** item paints list */
     private final FastItemPaintsList itemPaintsList;
+    /** item shape codes list (indices in the item shape table) */
+    private final FastItemShapeCodesList itemShapeCodesList;
+    /** item shape table (code 0 = default shape) */
+    private Shape[] itemShapeTable = null;
+    /** item paint codes list (indices in the series palette) */
+    private final FastItemPaintCodesList itemPaintCodesList;
+    /** palette per series */
+    private final FastItemPaintsList itemPalettesList;
     /** number of visible items */
     private transient int renderedItemCount = 0;
     /** flag indicating to use a step line instead of straight line */
@@ -133,6 +144,9 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         paintList = new FastPaintList();
         itemShapesList = new FastItemShapesList();
         itemPaintsList = new FastItemPaintsList();
+        itemShapeCodesList = new FastItemShapeCodesList();
+        itemPaintCodesList = new FastItemPaintCodesList();
+        itemPalettesList = new FastItemPaintsList();
     }
 
     /**
@@ -146,6 +160,9 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         paintList.ensureCapacity(minCapacity);
         itemShapesList.ensureCapacity(minCapacity);
         itemPaintsList.ensureCapacity(minCapacity);
+        itemShapeCodesList.ensureCapacity(minCapacity);
+        itemPaintCodesList.ensureCapacity(minCapacity);
+        itemPalettesList.ensureCapacity(minCapacity);
     }
 
     /**
@@ -469,6 +486,7 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
                 this.seriesPath.reset();
             }
             this.lastPointGood = false;
+            this.lodPending = false;
             super.startSeriesPass(dataset, series, firstItem, lastItem, pass, passCount);
         }
         /** cached Translate Graphics2D AffineTransform */
@@ -477,6 +495,38 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         transient RectangleEdge xAxisLocation;
         /** cached yAxis location */
         transient RectangleEdge yAxisLocation;
+        /* level of detail: pending pixel column (along the domain axis) */
+        /** flag indicating that a pixel column is pending */
+        boolean lodPending = false;
+        /** pixel column index */
+        int lodColumn;
+        /** first item in the pixel column */
+        int lodFirstItem;
+        /** item having the min range value in the pixel column */
+        int lodMinItem;
+        /** item having the max range value in the pixel column */
+        int lodMaxItem;
+        /** last item in the pixel column */
+        int lodLastItem;
+        /** min point (java2D domain / range coordinates) */
+        double lodMinX, lodMinY;
+        /** max point (java2D domain / range coordinates) */
+        double lodMaxX, lodMaxY;
+        /** last point (java2D domain / range coordinates) */
+        double lodLastX, lodLastY;
+        /* level of detail (lines): pending run of segments having the same paint in a pixel column */
+        /** first point (java2D domain / range coordinates) */
+        double lodFirstX, lodFirstY;
+        /** number of points in the run */
+        int lodPoints;
+        /** index of the min point in the run */
+        int lodMinPoint;
+        /** index of the max point in the run */
+        int lodMaxPoint;
+        /** flag indicating that a segment of the run intersects the data area */
+        boolean lodVisible;
+        /** path used to draw the pending run */
+        Path2D.Double lodPath = null;
     }
 
     /**
@@ -552,6 +602,10 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
 
         // do nothing if item is not visible
         if (!getItemVisible(series, item)) {
+            if (isLinePass(pass) && (item == state.getLastItemIndex())) {
+                // draw the pending run (level of detail):
+                drawPendingRun((FastXYLineAndShapeRenderer.State) state, g2, plot.getOrientation(), series);
+            }
             return;
         }
 
@@ -573,6 +627,10 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
                             item, domainAxis, rangeAxis, dataArea, entities);
                 }
             }
+            if (item == state.getLastItemIndex()) {
+                // draw the pending run (level of detail):
+                drawPendingRun((FastXYLineAndShapeRenderer.State) state, g2, plot.getOrientation(), series);
+            }
         } // second pass adds shapes where the items are ..
         else if (isItemPass(pass)) {
 
@@ -643,16 +701,21 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
             return;
         }
 
+        final PlotOrientation orientation = plot.getOrientation();
+
         // get the data point...
         final double x1 = dataset.getXValue(series, item);
         final double y1 = dataset.getYValue(series, item);
         if (Double.isNaN(y1) || Double.isNaN(x1)) {
+            // line is broken:
+            drawPendingRun(state, g2, orientation, series);
             return;
         }
 
         final double x0 = dataset.getXValue(series, item - 1);
         final double y0 = dataset.getYValue(series, item - 1);
         if (Double.isNaN(y0) || Double.isNaN(x0)) {
+            drawPendingRun(state, g2, orientation, series);
             return;
         }
 
@@ -668,11 +731,10 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         // only draw if we have good values
         if (Double.isNaN(transX0) || Double.isNaN(transY0)
                 || Double.isNaN(transX1) || Double.isNaN(transY1)) {
+            drawPendingRun(state, g2, orientation, series);
             return;
         }
 
-        final PlotOrientation orientation = plot.getOrientation();
-
         // use simple line to count visible items:
         if (orientation == PlotOrientation.HORIZONTAL) {
             state.workingLine.setLine(transY0, transX0, transY1, transX1);
@@ -680,6 +742,48 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
             state.workingLine.setLine(transX0, transY0, transX1, transY1);
         }
 
+        // level of detail (no entities): consecutive segments within the same pixel column (along the domain axis)
+        // having the same paint and stroke are merged into a single polyline (first, min, max and last points)
+        // drawn once the run is complete (plain or step lines):
+        if (useLevelOfDetail && (entities == null)) {
+            final double col = Math.floor(transX1);
+
+            if ((Math.floor(transX0) == col) && hasSameLineStyle(series, item - 1, item)) {
+                final boolean visible = state.workingLine.intersects(dataArea);
+                if (visible) {
+                    // Item is rendered:
+                    this.renderedItemCount++;
+                }
+                if (!state.lodPending || (state.lodColumn != col) || (state.lodLastItem != item - 1)
+                        || !hasSameLineStyle(series, state.lodLastItem, item)) {
+                    drawPendingRun(state, g2, orientation, series);
+
+                    state.lodPending = true;
+                    state.lodColumn = (int) col;
+                    state.lodVisible = false;
+                    state.lodPoints = 0;
+                    addRunPoint(state, transX0, transY0);
+                }
+                state.lodVisible |= visible;
+
+                if (isUseStepLine()) {
+                    // calculate the step point
+                    final double transXs = transX0 + 0.5 * (transX1 - transX0);
+
+                    addRunPoint(state, transXs, transY0);
+                    if (transY0 != transY1) {
+                        addRunPoint(state, transXs, transY1);
+                    }
+                }
+                addRunPoint(state, transX1, transY1);
+                state.lodLastItem = item;
+                // the last run is drawn by drawItem()
+                return;
+            }
+            // segment spanning several pixel columns or changing paint:
+            drawPendingRun(state, g2, orientation, series);
+        }
+
         // clipping checks:
         if (state.workingLine.intersects(dataArea)) {
             // Item is rendered:
@@ -745,6 +849,120 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         }
     }
 
+    /**
+     * Return true if the given items have the same paint and stroke (line segments can be merged)
+     *
+     * @param series  the series index (zero-based).
+     * @param item0  the first item index (zero-based).
+     * @param item1  the second item index (zero-based).
+     * @return true if the given items have the same paint and stroke
+     */
+    private boolean hasSameLineStyle(final int series, final int item0, final int item1) {
+        return getItemPaint(series, item0).equals(getItemPaint(series, item1))
+                && getItemStroke(series, item0).equals(getItemStroke(series, item1));
+    }
+
+    /**
+     * Add the given point to the pending run (level of detail): only its first, min, max and last points are kept
+     *
+     * @param state  the renderer state.
+     * @param transX  the x coordinate (java2D) along the domain axis.
+     * @param transY  the y coordinate (java2D) along the range axis.
+     */
+    private static void addRunPoint(final FastXYLineAndShapeRenderer.State state,
+                                    final double transX, final double transY) {
+        final int n = state.lodPoints++;
+        if (n == 0) {
+            state.lodFirstX = state.lodMinX = state.lodMaxX = transX;
+            state.lodFirstY = state.lodMinY = state.lodMaxY = transY;
+            state.lodMinPoint = state.lodMaxPoint = 0;
+        } else {
+            if (transY < state.lodMinY) {
+                state.lodMinPoint = n;
+                state.lodMinX = transX;
+                state.lodMinY = transY;
+            }
+            if (transY > state.lodMaxY) {
+                state.lodMaxPoint = n;
+                state.lodMaxX = transX;
+                state.lodMaxY = transY;
+            }
+        }
+        state.lodLastX = transX;
+        state.lodLastY = transY;
+    }
+
+    /**
+     * Draw the pending run (level of detail) as a polyline joining its first, min, max (in point order) and last points
+     * using the stroke and paint of its items
+     *
+     * @param state  the renderer state.
+     * @param g2  the graphics device.
+     * @param orientation  the plot orientation.
+     * @param series  the series index (zero-based).
+     */
+    private void drawPendingRun(final FastXYLineAndShapeRenderer.State state, final Graphics2D g2,
+                                final PlotOrientation orientation, final int series) {
+        if (state.lodPending) {
+            state.lodPending = false;
+
+            if (state.lodVisible) {
+                final boolean horizontal = (orientation == PlotOrientation.HORIZONTAL);
+                final int last = state.lodPoints - 1;
+
+                Path2D.Double path = state.lodPath;
+                if (path == null) {
+                    path = new Path2D.Double();
+                    state.lodPath = path;
+                } else {
+                    path.reset();
+                }
+                moveTo(path, horizontal, state.lodFirstX, state.lodFirstY);
+
+                if (state.lodMinPoint < state.lodMaxPoint) {
+                    lineTo(path, horizontal, state.lodMinPoint, last, state.lodMinX, state.lodMinY);
+                    lineTo(path, horizontal, state.lodMaxPoint, last, state.lodMaxX, state.lodMaxY);
+                } else {
+                    lineTo(path, horizontal, state.lodMaxPoint, last, state.lodMaxX, state.lodMaxY);
+                    lineTo(path, horizontal, state.lodMinPoint, last, state.lodMinX, state.lodMinY);
+                }
+                path.lineTo((horizontal) ? state.lodLastY : state.lodLastX, (horizontal) ? state.lodLastX : state.lodLastY);
+
+                g2.setStroke(getItemStroke(series, state.lodLastItem));
+                g2.setPaint(getItemPaint(series, state.lodLastItem));
+                g2.draw(path);
+            }
+        }
+    }
+
+    /**
+     * Move to the given point
+     * @param path  the path.
+     * @param horizontal  true if the plot orientation is horizontal.
+     * @param transX  the x coordinate (java2D) along the domain axis.
+     * @param transY  the y coordinate (java2D) along the range axis.
+     */
+    private static void moveTo(final Path2D.Double path, final boolean horizontal,
+                               final double transX, final double transY) {
+        path.moveTo((horizontal) ? transY : transX, (horizontal) ? transX : transY);
+    }
+
+    /**
+     * Line to the given point of the pending run if it is neither its first or last point
+     * @param path  the path.
+     * @param horizontal  true if the plot orientation is horizontal.
+     * @param point  the point index in the run.
+     * @param last  the index of the last point in the run.
+     * @param transX  the x coordinate (java2D) along the domain axis.
+     * @param transY  the y coordinate (java2D) along the range axis.
+     */
+    private static void lineTo(final Path2D.Double path, final boolean horizontal,
+                               final int point, final int last, final double transX, final double transY) {
+        if ((point != 0) && (point != last)) {
+            path.lineTo((horizontal) ? transY : transX, (horizontal) ? transX : transY);
+        }
+    }
+
     /**
      * A utility method that draws a line but only if none of the coordinates
      * are NaN values.
@@ -819,30 +1037,116 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
 
         FastXYLineAndShapeRenderer.State s = (FastXYLineAndShapeRenderer.State) state;
 
+        final boolean horizontal = (plot.getOrientation() == PlotOrientation.HORIZONTAL);
+
         // update path to reflect latest point
         if (!Double.isNaN(transX1) && !Double.isNaN(transY1)) {
-            double x = transX1;
-            double y = transY1;
-            if (plot.getOrientation() == PlotOrientation.HORIZONTAL) {
-                x = transY1;
-                y = transX1;
-            }
-            if (s.lastPointGood) {
-                s.seriesPath.lineTo(x, y);
+            if (useLevelOfDetail) {
+                // level of detail: only keep the first, min, max and last points per pixel column (M4):
+                final double col = Math.floor(transX1);
+
+                if (s.lastPointGood && s.lodPending && (s.lodColumn == col)) {
+                    if (transY1 < s.lodMinY) {
+                        s.lodMinItem = item;
+                        s.lodMinX = transX1;
+                        s.lodMinY = transY1;
+                    }
+                    if (transY1 > s.lodMaxY) {
+                        s.lodMaxItem = item;
+                        s.lodMaxX = transX1;
+                        s.lodMaxY = transY1;
+                    }
+                    s.lodLastItem = item;
+                    s.lodLastX = transX1;
+                    s.lodLastY = transY1;
+                } else {
+                    appendPendingColumn(s, horizontal);
+                    appendPoint(s, horizontal, transX1, transY1);
+
+                    s.lodPending = true;
+                    s.lodColumn = (int) col;
+                    s.lodFirstItem = s.lodMinItem = s.lodMaxItem = s.lodLastItem = item;
+                    s.lodMinX = s.lodMaxX = s.lodLastX = transX1;
+                    s.lodMinY = s.lodMaxY = s.lodLastY = transY1;
+                }
             } else {
-                s.seriesPath.moveTo(x, y);
+                appendPoint(s, horizontal, transX1, transY1);
             }
             s.lastPointGood = true;
         } else {
+            appendPendingColumn(s, horizontal);
             s.lastPointGood = false;
         }
         // if this is the last item, draw the path ...
         if (item == s.getLastItemIndex()) {
+            appendPendingColumn(s, horizontal);
+
             // draw path
             drawFirstPassShape(g2, pass, series, item, s.seriesPath);
         }
     }
 
+    /**
+     * Append the given point to the series path (line to or move to if the last point is not good)
+     * @param s  the renderer state.
+     * @param horizontal  true if the plot orientation is horizontal.
+     * @param transX  the x coordinate (java2D) along the domain axis.
+     * @param transY  the y coordinate (java2D) along the range axis.
+     */
+    private static void appendPoint(final FastXYLineAndShapeRenderer.State s, final boolean horizontal,
+                                    final double transX, final double transY) {
+        final double x = (horizontal) ? transY : transX;
+        final double y = (horizontal) ? transX : transY;
+
+        if (s.lastPointGood) {
+            s.seriesPath.lineTo(x, y);
+        } else {
+            s.seriesPath.moveTo(x, y);
+        }
+    }
+
+    /**
+     * Append the min, max (in item order) and last points of the pending pixel column (level of detail)
+     * to the series path (its first point was already appended)
+     * @param s  the renderer state.
+     * @param horizontal  true if the plot orientation is horizontal.
+     */
+    private static void appendPendingColumn(final FastXYLineAndShapeRenderer.State s, final boolean horizontal) {
+        if (s.lodPending) {
+            s.lodPending = false;
+
+            final int first = s.lodFirstItem;
+            final int last = s.lodLastItem;
+
+            if (first != last) {
+                // min and max points between first and last points:
+                if (s.lodMinItem < s.lodMaxItem) {
+                    appendColumnPoint(s, horizontal, s.lodMinItem, s.lodMinX, s.lodMinY);
+                    appendColumnPoint(s, horizontal, s.lodMaxItem, s.lodMaxX, s.lodMaxY);
+                } else {
+                    appendColumnPoint(s, horizontal, s.lodMaxItem, s.lodMaxX, s.lodMaxY);
+                    appendColumnPoint(s, horizontal, s.lodMinItem, s.lodMinX, s.lodMinY);
+                }
+                s.seriesPath.lineTo((horizontal) ? s.lodLastY : s.lodLastX, (horizontal) ? s.lodLastX : s.lodLastY);
+            }
+        }
+    }
+
+    /**
+     * Append the given point of the pending pixel column if it is neither its first or last point
+     * @param s  the renderer state.
+     * @param horizontal  true if the plot orientation is horizontal.
+     * @param item  the item index of the point.
+     * @param transX  the x coordinate (java2D) along the domain axis.
+     * @param transY  the y coordinate (java2D) along the range axis.
+     */
+    private static void appendColumnPoint(final FastXYLineAndShapeRenderer.State s, final boolean horizontal,
+                                          final int item, final double transX, final double transY) {
+        if ((item != s.lodFirstItem) && (item != s.lodLastItem)) {
+            s.seriesPath.lineTo((horizontal) ? transY : transX, (horizontal) ? transX : transY);
+        }
+    }
+
     /**
      * Draws the item shapes and adds chart entities (second pass). This method
      * draws the shapes which mark the item positions. If <code>entities</code>
@@ -1187,6 +1491,22 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
      */
     @Override
     public final Shape getItemShape(final int series, final int item) {
+        // use shape code per [serie, item]
+        final byte[] itemShapeCodes = this.itemShapeCodesList.getItemShapeCodes(series);
+        if (itemShapeCodes != null) {
+            if (item < itemShapeCodes.length) {
+                final int code = itemShapeCodes[item];
+                final Shape[] shapeTable = this.itemShapeTable;
+                if (code > 0 && shapeTable != null && code < shapeTable.length) {
+                    final Shape shape = shapeTable[code];
+                    if (shape != null) {
+                        return shape;
+                    }
+                }
+            }
+            // fallback: use base shape for the complete serie:
+            return getDefaultShape();
+        }
         // use shape per [serie, item]
         final Shape[] itemShapes = this.itemShapesList.getItemShapes(series);
         if (itemShapes != null) {
@@ -1206,6 +1526,7 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
      */
     public final void clearItemShapes() {
         this.itemShapesList.clear();
+        this.itemShapeCodesList.clear();
     }
 
     /**
@@ -1217,6 +1538,24 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         this.itemShapesList.setItemShapes(series, itemShapes);
     }
 
+    /**
+     * Define the item shape table used to resolve item shape codes (code 0 = default shape)
+     * @param itemShapeTable item shape table (<code>null</code> permitted).
+     */
+    public final void setItemShapeTable(final Shape[] itemShapeTable) {
+        this.itemShapeTable = itemShapeTable;
+    }
+
+    /**
+     * Define the item shape codes (indices in the item shape table) for this renderer.
+     * Shape codes have precedence over item shapes
+     * @param series  the series index (zero-based).
+     * @param itemShapeCodes  the item shape codes as array (<code>null</code> permitted).
+     */
+    public final void setItemShapeCodes(final int series, final byte[] itemShapeCodes) {
+        this.itemShapeCodesList.setItemShapeCodes(series, itemShapeCodes);
+    }
+
     /**
      * Returns the paint used to fill an item drawn by the renderer.
      *
@@ -1289,6 +1628,23 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
      */
     @Override
     public final Paint getItemPaint(final int series, final int item) {
+        // use paint code per [serie, item]
+        final byte[] itemPaintCodes = this.itemPaintCodesList.getItemPaintCodes(series);
+        if (itemPaintCodes != null) {
+            if (item < itemPaintCodes.length) {
+                // unsigned code:
+                final int code = itemPaintCodes[item] & 0xFF;
+                final Paint[] palette = this.itemPalettesList.getItemPaints(series);
+                if (palette != null && code < palette.length) {
+                    final Paint paint = palette[code];
+                    if (paint != null) {
+                        return paint;
+                    }
+                }
+            }
+            // fallback: use paint for the complete serie:
+            return lookupSeriesPaint(series);
+        }
         // use paint per [serie, item]
         final Paint[] itemShapes = this.itemPaintsList.getItemPaints(series);
         if (itemShapes != null) {
@@ -1308,6 +1664,8 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
      */
     public final void clearItemPaints() {
         this.itemPaintsList.clear();
+        this.itemPaintCodesList.clear();
+        this.itemPalettesList.clear();
     }
 
     /**
@@ -1319,6 +1677,18 @@ public class FastXYLineAndShapeRenderer extends AbstractXYItemRenderer
         this.itemPaintsList.setItemPaints(series, itemPaints);
     }
 
+    /**
+     * Define the item paint codes (unsigned indices in the given palette) for this renderer.
+     * Paint codes have precedence over item paints; undefined palette entries use the series paint
+     * @param series  the series index (zero-based).
+     * @param itemPaintCodes  the item paint codes as array (<code>null</code> permitted).
+     * @param palette  the palette used to resolve paint codes (<code>null</code> permitted).
+     */
+    public final void setItemPaintCodes(final int series, final byte[] itemPaintCodes, final Paint[] palette) {
+        this.itemPaintCodesList.setItemPaintCodes(series, itemPaintCodes);
+        this.itemPalettesList.setItemPaints(series, palette);
+    }
+
     /**
      * Return the number of visible items
      * @return number of visible items
@@ -4,7 +4,6 @@
 package fr.jmmc.oiexplorer.core.gui.chart.dataset;
 
 import fr.jmmc.jmcs.util.NumberUtils;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import org.jfree.data.general.DatasetChangeEvent;
@@ -13,6 +12,12 @@ import org.jfree.chart.util.PublicCloneable;
 
 /**
  * An efficient implementation of jFreeChart's DefaultIntervalXYDataset
+ * 
+ * Data are stored in contiguous primitive columns (struct of arrays):
+ * x, xLow, xHigh, y, yLow, yHigh (double or float precision) and row, col (int).
+ * Each series is a range [offset, offset + count[ in these columns and series keys are stored in a plain array.
+ * Items left unused by replaced series are reclaimed (columns compacted) once they exceed the live items.
+ * 
  * @author bourgesl
  * @param <K> key type
  * @param <V> comparable type
@@ -23,48 +28,162 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
     private static final long serialVersionUID = 1;
     /** initial capacity for internal collections */
     private final static int INITIAL_CAPACITY = 256;
+    /** initial capacity for item columns */
+    private final static int INITIAL_ITEM_CAPACITY = 4096;
+    /** column indices */
+    private final static int X = 0;
+    private final static int X_LOW = 1;
+    private final static int X_HIGH = 2;
+    private final static int Y = 3;
+    private final static int Y_LOW = 4;
+    private final static int Y_HIGH = 5;
+    /** number of value columns */
+    private final static int N_COLS = 6;
     /* members */
+    /** true to store values as float (half memory) */
+    private final boolean useFloat;
     /** number of series */
     private int seriesCount = 0;
-    /** Storage for the series keys */
+    /** Storage for the series keys (index lookup) */
     private final HashMap<K, Integer> seriesKeys;
-    /** Storage for the indexes of series keys */
-    private final HashMap<Integer, K> keysIndexes;
-    /**
-     * Storage for the series's double values in the dataset.  We use a list because the
-     * order of the series is significant.  This list must be kept in sync
-     * with the seriesKeys list.
-     */
-    private final ArrayList<int[][]> seriesIntDataList;
+    /** Storage for the keys per series index */
+    private Object[] keys;
+    /** series offset in columns */
+    private int[] offsets;
+    /** series item count */
+    private int[] counts;
+    /** number of used items in columns */
+    private int size = 0;
+    /** number of unused items in columns (replaced series) */
+    private int deadItems = 0;
+    /** value columns (double precision) */
+    private double[][] dblColumns = null;
+    /** value columns (float precision) */
+    private float[][] fltColumns = null;
+    /** row indices column */
+    private int[] rows;
+    /** column indices column */
+    private int[] cols;
+    /** optional spatial index (built in background) */
+    private transient volatile XYPointIndex index = null;
+
     /**
-     * Storage for the series's double values in the dataset.  We use a list because the
-     * order of the series is significant.  This list must be kept in sync
-     * with the seriesKeys list.
+     * Creates a new <code>FastIntervalXYDataset</code> instance, initially
+     * containing no data (double precision).
      */
-    private final ArrayList<double[][]> seriesDblDataList;
+    public FastIntervalXYDataset() {
+        this(false);
+    }
 
     /**
      * Creates a new <code>FastIntervalXYDataset</code> instance, initially
      * containing no data.
+     * 
+     * @param useFloat true to store values as float (half memory but only 7 significant digits)
      */
-    public FastIntervalXYDataset() {
+    public FastIntervalXYDataset(final boolean useFloat) {
+        this.useFloat = useFloat;
         this.seriesKeys = new HashMap<K, Integer>(INITIAL_CAPACITY);
-        this.keysIndexes = new HashMap<Integer, K>(INITIAL_CAPACITY);
-        this.seriesIntDataList = new ArrayList<int[][]>(INITIAL_CAPACITY);
-        this.seriesDblDataList = new ArrayList<double[][]>(INITIAL_CAPACITY);
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.offsets = new int[INITIAL_CAPACITY];
+        this.counts = new int[INITIAL_CAPACITY];
+        allocateColumns(INITIAL_ITEM_CAPACITY);
+    }
+
+    /**
+     * Return true if values are stored as float
+     * @return true if values are stored as float
+     */
+    public boolean isUseFloat() {
+        return useFloat;
     }
 
     /**
      * Increases the capacity of the list of series, if
      * necessary, to ensure that it can hold at least the number of elements
-     * specified by the minimum capacity argument.
+     * specified by the minimum capacity argument (grows by 50% at least).
      *
      * @param   minCapacity   the desired minimum capacity
      */
     public void ensureCapacity(final int minCapacity) {
         // no way to ensure capacity in map (see HashMap.resize package visible)
-        this.seriesIntDataList.ensureCapacity(minCapacity);
-        this.seriesDblDataList.ensureCapacity(minCapacity);
+        if (minCapacity > this.keys.length) {
+            final int capacity = Math.max(minCapacity, this.keys.length + (this.keys.length >> 1));
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity);
+            this.counts = Arrays.copyOf(this.counts, capacity);
+        }
+    }
+
+    /**
+     * Return the number of items stored in columns (all series including unused items of replaced series)
+     * @return number of items stored in columns
+     */
+    public int getItemTotal() {
+        return size;
+    }
+
+    /**
+     * Increases the capacity of the item columns, if necessary, to ensure that
+     * they can hold at least the number of items specified by the minimum capacity argument
+     * (grows by 50% at least so successive calls with increasing sizes copy items in amortized linear time).
+     *
+     * @param   minCapacity   the desired minimum capacity (total number of items)
+     */
+    public void ensureItemCapacity(final int minCapacity) {
+        if (minCapacity > this.rows.length) {
+            allocateColumns(Math.max(minCapacity, this.rows.length + (this.rows.length >> 1)));
+        }
+    }
+
+    /**
+     * (Re)allocate columns with the given capacity and copy used items
+     * @param capacity new capacity
+     */
+    private void allocateColumns(final int capacity) {
+        if (useFloat) {
+            final float[][] columns = new float[N_COLS][];
+            for (int c = 0; c < N_COLS; c++) {
+                columns[c] = (this.fltColumns != null) ? Arrays.copyOf(this.fltColumns[c], capacity) : new float[capacity];
+            }
+            this.fltColumns = columns;
+        } else {
+            final double[][] columns = new double[N_COLS][];
+            for (int c = 0; c < N_COLS; c++) {
+                columns[c] = (this.dblColumns != null) ? Arrays.copyOf(this.dblColumns[c], capacity) : new double[capacity];
+            }
+            this.dblColumns = columns;
+        }
+        this.rows = (this.rows != null) ? Arrays.copyOf(this.rows, capacity) : new int[capacity];
+        this.cols = (this.cols != null) ? Arrays.copyOf(this.cols, capacity) : new int[capacity];
+    }
+
+    /**
+     * Return the value at the given column and item index
+     * @param column column index
+     * @param series series index
+     * @param item item index
+     * @return value
+     */
+    private double getValue(final int column, final int series, final int item) {
+        final int idx = this.offsets[series] + item;
+        return (useFloat) ? this.fltColumns[column][idx] : this.dblColumns[column][idx];
+    }
+
+    /**
+     * Return the spatial index (nearest point, shape queries) if available
+     * @return spatial index or null if not built
+     */
+    public XYPointIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Define the spatial index corresponding to the current data
+     * @param index spatial index
+     */
+    public void setIndex(final XYPointIndex index) {
+        this.index = index;
     }
 
     /**
@@ -96,9 +215,10 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      *     specified range.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public Comparable<V> getSeriesKey(final int series) {
         checkIndex(series);
-        return this.keysIndexes.get(NumberUtils.valueOf(series));
+        return (Comparable<V>) this.keys[series];
     }
 
     /**
@@ -115,8 +235,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
     @Override
     public int getItemCount(final int series) {
         checkIndex(series);
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[0].length;
+        return this.counts[series];
     }
 
     /**
@@ -150,8 +269,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public double getXValue(final int series, final int item) {
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[0][item];
+        return getValue(X, series, item);
     }
 
     /**
@@ -170,8 +288,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public double getStartXValue(final int series, final int item) {
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[1][item];
+        return getValue(X_LOW, series, item);
     }
 
     /**
@@ -190,8 +307,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public double getEndXValue(final int series, final int item) {
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[2][item];
+        return getValue(X_HIGH, series, item);
     }
 
     /**
@@ -210,8 +326,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public double getYValue(final int series, final int item) {
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[3][item];
+        return getValue(Y, series, item);
     }
 
     /**
@@ -230,8 +345,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public double getStartYValue(final int series, final int item) {
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[4][item];
+        return getValue(Y_LOW, series, item);
     }
 
     /**
@@ -250,8 +364,7 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public double getEndYValue(final int series, final int item) {
-        final double[][] seriesData = this.seriesDblDataList.get(series);
-        return seriesData[5][item];
+        return getValue(Y_HIGH, series, item);
     }
 
     /**
@@ -375,19 +488,19 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
     }
 
     public int getDataRow(final int series, final int item) {
-        final int[][] seriesData = this.seriesIntDataList.get(series);
-        return seriesData[0][item];
+        return this.rows[this.offsets[series] + item];
     }
 
     public int getDataCol(final int series, final int item) {
-        final int[][] seriesData = this.seriesIntDataList.get(series);
-        return seriesData[1][item];
+        return this.cols[this.offsets[series] + item];
     }
 
     /**
      * Adds a series or if a series with the same key already exists replaces
      * the data for that series, then sends a {@link DatasetChangeEvent} to
      * all registered listeners.
+     * 
+     * Note: given arrays are copied into the dataset columns
      *
      * @param seriesKey  the series key (<code>null</code> not permitted).
      * @param dataInt  the integer data (must be an array with length 2, containing two
@@ -424,27 +537,123 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
             throw new IllegalArgumentException("The 'dataInt' and 'dataDbl' arrays must have equal length.");
         }
 
-        final int seriesIndex = indexOf(seriesKey);
+        int seriesIndex = indexOf(seriesKey);
         if (seriesIndex == -1) {
             // add a new series:
-            this.seriesIntDataList.add(dataInt);
-            this.seriesDblDataList.add(dataDbl);
+            seriesIndex = this.seriesCount;
+            ensureCapacity(seriesIndex + 1);
 
-            // cache serie index into maps:
-            final Integer seriesIdx = NumberUtils.valueOf(this.seriesCount);
-            this.seriesKeys.put(seriesKey, seriesIdx);
-            this.keysIndexes.put(seriesIdx, seriesKey);
+            this.keys[seriesIndex] = seriesKey;
+            // cache serie index into map:
+            this.seriesKeys.put(seriesKey, NumberUtils.valueOf(seriesIndex));
 
             // update series count:
             this.seriesCount++;
+
+            this.offsets[seriesIndex] = append(dataInt, dataDbl, length);
+        } else if (length <= this.counts[seriesIndex]) {
+            // replace an existing series in place:
+            copy(dataInt, dataDbl, length, this.offsets[seriesIndex]);
+            this.deadItems += this.counts[seriesIndex] - length;
         } else {
-            // replace an existing series:
-            this.seriesIntDataList.set(seriesIndex, dataInt);
-            this.seriesDblDataList.set(seriesIndex, dataDbl);
+            // replace an existing series (previous items are left unused):
+            this.offsets[seriesIndex] = append(dataInt, dataDbl, length);
+            this.deadItems += this.counts[seriesIndex];
+        }
+        this.counts[seriesIndex] = length;
+
+        if (this.deadItems > (this.size >> 1)) {
+            compact();
         }
+
+        // invalidate index:
+        this.index = null;
+
         notifyListeners(new DatasetChangeEvent(this, this));
     }
 
+    /**
+     * Append the given data at the end of the columns
+     * @param dataInt row and column indices
+     * @param dataDbl x, xLow, xUp, y, yLow, yUp values
+     * @param length number of items
+     * @return offset of the appended items
+     */
+    private int append(final int[][] dataInt, final double[][] dataDbl, final int length) {
+        final int offset = this.size;
+        final int newSize = offset + length;
+
+        if (newSize > this.rows.length) {
+            // grow columns:
+            allocateColumns(Math.max(newSize, this.rows.length + (this.rows.length >> 1)));
+        }
+        copy(dataInt, dataDbl, length, offset);
+
+        this.size = newSize;
+        return offset;
+    }
+
+    /**
+     * Move all series items to the start of the columns (in offset order) to reclaim unused items
+     */
+    private void compact() {
+        // sort series by offset (offset, series index) so items are only moved backwards:
+        final long[] order = new long[this.seriesCount];
+        for (int i = 0; i < this.seriesCount; i++) {
+            order[i] = (((long) this.offsets[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int offset = 0;
+        for (long o : order) {
+            final int series = (int) o;
+            final int length = this.counts[series];
+            final int src = this.offsets[series];
+
+            if (src != offset) {
+                System.arraycopy(this.rows, src, this.rows, offset, length);
+                System.arraycopy(this.cols, src, this.cols, offset, length);
+
+                for (int c = 0; c < N_COLS; c++) {
+                    if (useFloat) {
+                        System.arraycopy(this.fltColumns[c], src, this.fltColumns[c], offset, length);
+                    } else {
+                        System.arraycopy(this.dblColumns[c], src, this.dblColumns[c], offset, length);
+                    }
+                }
+                this.offsets[series] = offset;
+            }
+            offset += length;
+        }
+        this.size = offset;
+        this.deadItems = 0;
+    }
+
+    /**
+     * Copy the given data into the columns at the given offset
+     * @param dataInt row and column indices
+     * @param dataDbl x, xLow, xUp, y, yLow, yUp values
+     * @param length number of items
+     * @param offset offset in columns
+     */
+    private void copy(final int[][] dataInt, final double[][] dataDbl, final int length, final int offset) {
+        System.arraycopy(dataInt[0], 0, this.rows, offset, length);
+        System.arraycopy(dataInt[1], 0, this.cols, offset, length);
+
+        for (int c = 0; c < N_COLS; c++) {
+            final double[] src = dataDbl[c];
+
+            if (useFloat) {
+                final float[] dest = this.fltColumns[c];
+                for (int i = 0; i < length; i++) {
+                    dest[offset + i] = (float) src[i];
+                }
+            } else {
+                System.arraycopy(src, 0, this.dblColumns[c], offset, length);
+            }
+        }
+    }
+
     /**
      * Tests this <code>FastIntervalXYDataset</code> instance for equality
      * with an arbitrary object.  This method returns <code>true</code> if and
@@ -469,43 +678,31 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
         if (!(obj instanceof FastIntervalXYDataset)) {
             return false;
         }
-        final FastIntervalXYDataset that = (FastIntervalXYDataset) obj;
+        final FastIntervalXYDataset<?, ?> that = (FastIntervalXYDataset<?, ?>) obj;
+        if (this.seriesCount != that.seriesCount) {
+            return false;
+        }
         if (!this.seriesKeys.equals(that.seriesKeys)) {
             return false;
         }
-        // TODO: compare int[][]
         for (int i = 0, len = this.seriesCount; i < len; i++) {
-            double[][] d1 = this.seriesDblDataList.get(i);
-            double[][] d2 = (double[][]) that.seriesDblDataList.get(i);
-            double[] d1x = d1[0];
-            double[] d2x = d2[0];
-            if (!Arrays.equals(d1x, d2x)) {
+            if (!this.keys[i].equals(that.keys[i])) {
                 return false;
             }
-            double[] d1xs = d1[1];
-            double[] d2xs = d2[1];
-            if (!Arrays.equals(d1xs, d2xs)) {
+            final int count = this.counts[i];
+            if (count != that.counts[i]) {
                 return false;
             }
-            double[] d1xe = d1[2];
-            double[] d2xe = d2[2];
-            if (!Arrays.equals(d1xe, d2xe)) {
-                return false;
-            }
-            double[] d1y = d1[3];
-            double[] d2y = d2[3];
-            if (!Arrays.equals(d1y, d2y)) {
-                return false;
-            }
-            double[] d1ys = d1[4];
-            double[] d2ys = d2[4];
-            if (!Arrays.equals(d1ys, d2ys)) {
-                return false;
-            }
-            double[] d1ye = d1[5];
-            double[] d2ye = d2[5];
-            if (!Arrays.equals(d1ye, d2ye)) {
-                return false;
+            for (int j = 0; j < count; j++) {
+                if ((getDataRow(i, j) != that.getDataRow(i, j))
+                        || (getDataCol(i, j) != that.getDataCol(i, j))) {
+                    return false;
+                }
+                for (int c = 0; c < N_COLS; c++) {
+                    if (Double.doubleToLongBits(getValue(c, i, j)) != Double.doubleToLongBits(that.getValue(c, i, j))) {
+                        return false;
+                    }
+                }
             }
         }
         return true;
@@ -518,10 +715,13 @@ public final class FastIntervalXYDataset<K extends Comparable<V>, V> extends Abs
      */
     @Override
     public int hashCode() {
+        // only live items (see equals):
         int result;
         result = this.seriesKeys.hashCode();
-        result = 13 * result + this.seriesIntDataList.hashCode();
-        result = 29 * result + this.seriesDblDataList.hashCode();
+        result = 13 * result + this.seriesCount;
+        for (int i = 0; i < this.seriesCount; i++) {
+            result = 29 * result + this.counts[i];
+        }
         return result;
     }
 
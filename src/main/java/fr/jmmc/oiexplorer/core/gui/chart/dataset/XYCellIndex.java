@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart.dataset;
+
+import java.util.Arrays;
+
+/**
+ * Reverse index (open addressing hash table with linear probing) of the data cells (row, col)
+ * of the given series of a FastIntervalXYDataset to their dataset indices (series, item).
+ * Several items may share the same cell (symmetric values): they are returned in (series, item) order.
+ * Items without data cell (row &lt; 0 like line cut-offs) are not indexed (they would all share the same key).
+ * This index is immutable once built but must be rebuilt when the dataset changes.
+ *
+ * @author bourgesl
+ */
+public final class XYCellIndex {
+
+    /** empty slot marker */
+    private final static int EMPTY = -1;
+
+    /* members */
+    /** number of indexed items */
+    private final int size;
+    /** hash mask (capacity - 1) */
+    private final int mask;
+    /** cell keys (row, col) per slot */
+    private final long[] keys;
+    /** series index per slot (EMPTY if unused) */
+    private final int[] slotSeries;
+    /** item index per slot */
+    private final int[] slotItems;
+
+    /**
+     * Build the index of the given series
+     * @param dataset dataset to index
+     * @param series series indices (increasing order)
+     * @param nSeries number of series indices to use
+     */
+    public XYCellIndex(final FastIntervalXYDataset<?, ?> dataset, final int[] series, final int nSeries) {
+        int n = 0;
+        for (int i = 0, serie, item, itemCount; i < nSeries; i++) {
+            serie = series[i];
+            itemCount = dataset.getItemCount(serie);
+
+            for (item = 0; item < itemCount; item++) {
+                if (dataset.getDataRow(serie, item) >= 0) {
+                    n++;
+                }
+            }
+        }
+        this.size = n;
+
+        // load factor <= 0.5:
+        int capacity = 16;
+        while (capacity < 2 * n) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.keys = new long[capacity];
+        this.slotSeries = new int[capacity];
+        this.slotItems = new int[capacity];
+
+        Arrays.fill(slotSeries, EMPTY);
+
+        for (int i = 0, serie, item, itemCount; i < nSeries; i++) {
+            serie = series[i];
+            itemCount = dataset.getItemCount(serie);
+
+            for (item = 0; item < itemCount; item++) {
+                final int row = dataset.getDataRow(serie, item);
+                if (row < 0) {
+                    // skip cut-off items:
+                    continue;
+                }
+                final long key = key(row, dataset.getDataCol(serie, item));
+
+                // next free slot along the probe sequence (keeps insertion order for equal keys):
+                int slot = hash(key) & mask;
+                while (slotSeries[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                slotSeries[slot] = serie;
+                slotItems[slot] = item;
+            }
+        }
+    }
+
+    /**
+     * Return the number of indexed items
+     * @return number of indexed items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the items matching the given data cell
+     * @param row row index in the data table
+     * @param col column index in the data table
+     * @param matches (series, item) pairs filled up to its capacity
+     * @return number of matching items (may be larger than matches.length / 2)
+     */
+    public int find(final int row, final int col, final int[] matches) {
+        if (row < 0) {
+            return 0;
+        }
+        final long key = key(row, col);
+
+        int nMatchs = 0;
+        for (int slot = hash(key) & mask; slotSeries[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final int pos = nMatchs << 1;
+                if (pos + 1 < matches.length) {
+                    matches[pos] = slotSeries[slot];
+                    matches[pos + 1] = slotItems[slot];
+                }
+                nMatchs++;
+            }
+        }
+        return nMatchs;
+    }
+
+    /**
+     * Return the key of the given data cell
+     * @param row row index
+     * @param col column index
+     * @return packed (row, col) key
+     */
+    private static long key(final int row, final int col) {
+        return (((long) row) << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Return the hash of the given key (murmur3 finalizer)
+     * @param key packed (row, col) key
+     * @return hash
+     */
+    private static int hash(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
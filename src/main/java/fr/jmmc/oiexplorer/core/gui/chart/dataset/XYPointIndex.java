@@ -0,0 +1,510 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart.dataset;
+
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.jfree.data.xy.XYDataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spatial index (implicit 2D k-d tree in data space) of the (x, y) points of a XYDataset
+ * to answer nearest-point queries (using per-axis pixel ratios) and rectangle / shape queries
+ * without scanning all series and items.
+ *
+ * Points are identified by their ordinal ie the position of the item when iterating on series then items;
+ * use getSeries(ordinal) and getItem(ordinal) to get back the dataset indices.
+ * This index is immutable once built (thread-safe) but must be rebuilt when the dataset changes.
+ *
+ * @author bourgesl
+ */
+public final class XYPointIndex {
+
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(XYPointIndex.class.getName());
+    /** maximum number of points in leaves (linear scan) */
+    private final static int LEAF_SIZE = 8;
+    /** minimum number of points in a sub tree to build it in parallel (fork/join) */
+    private final static int PARALLEL_THRESHOLD = 64 * 1024;
+
+    /* members */
+    /** first ordinal per series (cumulative item counts) */
+    private final int[] seriesStart;
+    /** number of indexed points (NaN values are skipped) */
+    private final int size;
+    /** x values (tree order) */
+    private final double[] xs;
+    /** y values (tree order) */
+    private final double[] ys;
+    /** point ordinals (tree order) */
+    private final int[] ordinals;
+
+    /**
+     * Build the index of the given dataset
+     * @param dataset dataset to index
+     * @return new index
+     */
+    public static XYPointIndex build(final XYDataset dataset) {
+        final long start = System.nanoTime();
+
+        final XYPointIndex index = new XYPointIndex(dataset);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("build[XYPointIndex]: {} points - duration = {} ms.", index.size, 1e-6d * (System.nanoTime() - start));
+        }
+        return index;
+    }
+
+    /**
+     * Private constructor
+     * @param dataset dataset to index
+     */
+    private XYPointIndex(final XYDataset dataset) {
+        final int seriesCount = dataset.getSeriesCount();
+
+        this.seriesStart = new int[seriesCount + 1];
+
+        int total = 0;
+        for (int serie = 0; serie < seriesCount; serie++) {
+            this.seriesStart[serie] = total;
+            total += dataset.getItemCount(serie);
+        }
+        this.seriesStart[seriesCount] = total;
+
+        this.xs = new double[total];
+        this.ys = new double[total];
+        this.ordinals = new int[total];
+
+        int n = 0;
+        double x, y;
+
+        for (int serie = 0, ordinal = 0, item, itemCount; serie < seriesCount; serie++) {
+            itemCount = dataset.getItemCount(serie);
+
+            for (item = 0; item < itemCount; item++, ordinal++) {
+                x = dataset.getXValue(serie, item);
+                y = dataset.getYValue(serie, item);
+
+                if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                    this.xs[n] = x;
+                    this.ys[n] = y;
+                    this.ordinals[n] = ordinal;
+                    n++;
+                }
+            }
+        }
+        this.size = n;
+
+        if (n > PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new BuildTreeTask(0, n, 0));
+        } else {
+            buildTree(0, n, 0);
+        }
+    }
+
+    /**
+     * Return the number of indexed points
+     * @return number of indexed points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the series index of the given point ordinal
+     * @param ordinal point ordinal
+     * @return series index
+     */
+    public int getSeries(final int ordinal) {
+        int idx = Arrays.binarySearch(seriesStart, ordinal);
+        if (idx < 0) {
+            // insertion point - 1:
+            idx = -idx - 2;
+        } else {
+            // skip empty series:
+            while (seriesStart[idx + 1] == ordinal) {
+                idx++;
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * Return the item index (in its series) of the given point ordinal
+     * @param ordinal point ordinal
+     * @return item index
+     */
+    public int getItem(final int ordinal) {
+        return ordinal - seriesStart[getSeries(ordinal)];
+    }
+
+    /**
+     * Find the nearest point to the given anchor according to its screen distance
+     * @param anchorX domain axis coordinate
+     * @param anchorY range axis coordinate
+     * @param xRatio pixels per data on domain axis
+     * @param yRatio pixels per data on range axis
+     * @return point ordinal or -1 if no point
+     */
+    public int findNearest(final double anchorX, final double anchorY, final double xRatio, final double yRatio) {
+        final int[] result = findNearest(anchorX, anchorY, xRatio, yRatio, 1);
+        return (result.length != 0) ? result[0] : -1;
+    }
+
+    /**
+     * Find the k nearest points to the given anchor according to their screen distance
+     * @param anchorX domain axis coordinate
+     * @param anchorY range axis coordinate
+     * @param xRatio pixels per data on domain axis
+     * @param yRatio pixels per data on range axis
+     * @param k number of points to find
+     * @return point ordinals sorted by increasing distance (ordinal order for equal distances)
+     */
+    public int[] findNearest(final double anchorX, final double anchorY, final double xRatio, final double yRatio, final int k) {
+        final NearestQuery query = new NearestQuery(anchorX, anchorY, xRatio, yRatio, Math.min(k, size));
+        if (query.k != 0) {
+            searchNearest(query, 0, size, 0);
+        }
+        return Arrays.copyOf(query.ordinals, query.count);
+    }
+
+    /**
+     * Find the points inside the given rectangle (data coordinates, bounds included)
+     * @param rect rectangle to use
+     * @return point ordinals (unordered)
+     */
+    public int[] findInRectangle(final Rectangle2D rect) {
+        return findInShape(rect, null);
+    }
+
+    /**
+     * Find the points inside the given shape (data coordinates)
+     * @param shape shape to use
+     * @return point ordinals (unordered)
+     */
+    public int[] findInShape(final Shape shape) {
+        return findInShape(shape.getBounds2D(), shape);
+    }
+
+    /**
+     * Find the points inside the given bounds and shape
+     * @param bounds rectangle (bounds included)
+     * @param shape optional shape to test points inside bounds
+     * @return point ordinals (unordered)
+     */
+    private int[] findInShape(final Rectangle2D bounds, final Shape shape) {
+        final RangeQuery query = new RangeQuery(bounds, shape);
+        if (size != 0) {
+            searchRange(query, 0, size, 0);
+        }
+        return Arrays.copyOf(query.ordinals, query.count);
+    }
+
+    /**
+     * Build the implicit k-d tree: the median point of [lo, hi[ splits the range on x (even depth) or y (odd depth)
+     * @param lo lower index (inclusive)
+     * @param hi upper index (exclusive)
+     * @param depth tree depth
+     */
+    private void buildTree(final int lo, final int hi, final int depth) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, ((depth & 1) == 0) ? xs : ys);
+
+        buildTree(lo, mid, depth + 1);
+        buildTree(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Fork/join task building sub trees in parallel (sub trees use disjoint ranges)
+     */
+    private final class BuildTreeTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1;
+        /* members */
+        /** lower index (inclusive) */
+        private final int lo;
+        /** upper index (exclusive) */
+        private final int hi;
+        /** tree depth */
+        private final int depth;
+
+        BuildTreeTask(final int lo, final int hi, final int depth) {
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                buildTree(lo, hi, depth);
+                return;
+            }
+            final int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, ((depth & 1) == 0) ? xs : ys);
+
+            invokeAll(new BuildTreeTask(lo, mid, depth + 1), new BuildTreeTask(mid + 1, hi, depth + 1));
+        }
+    }
+
+    /**
+     * Partially sort points (quick select) so that the k-th point has values[k] and
+     * points in [lo, k[ (resp. ]k, hi]) have lower (resp. higher) or equal values
+     * @param lo lower index (inclusive)
+     * @param hi upper index (inclusive)
+     * @param k index to select
+     * @param values values to compare (xs or ys)
+     */
+    private void select(int lo, int hi, final int k, final double[] values) {
+        while (hi > lo) {
+            // median of three pivot:
+            final int m = (lo + hi) >>> 1;
+            if (values[m] < values[lo]) {
+                swap(lo, m);
+            }
+            if (values[hi] < values[lo]) {
+                swap(lo, hi);
+            }
+            if (values[hi] < values[m]) {
+                swap(m, hi);
+            }
+            final double pivot = values[m];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Swap points at the given indices
+     * @param i first index
+     * @param j second index
+     */
+    private void swap(final int i, final int j) {
+        final double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        final double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        final int o = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = o;
+    }
+
+    /**
+     * Search the nearest points in the tree node [lo, hi[
+     * @param query nearest query
+     * @param lo lower index (inclusive)
+     * @param hi upper index (exclusive)
+     * @param depth tree depth
+     */
+    private void searchNearest(final NearestQuery query, final int lo, final int hi, final int depth) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                query.add(xs[i], ys[i], ordinals[i]);
+            }
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+
+        query.add(xs[mid], ys[mid], ordinals[mid]);
+
+        // distance (pixels) to the split line:
+        final double delta = ((depth & 1) == 0)
+                ? (query.anchorX - xs[mid]) * query.xRatio
+                : (query.anchorY - ys[mid]) * query.yRatio;
+
+        if (delta < 0.0) {
+            searchNearest(query, lo, mid, depth + 1);
+            if (query.accept(delta * delta)) {
+                searchNearest(query, mid + 1, hi, depth + 1);
+            }
+        } else {
+            searchNearest(query, mid + 1, hi, depth + 1);
+            if (query.accept(delta * delta)) {
+                searchNearest(query, lo, mid, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Search the points inside the query bounds in the tree node [lo, hi[
+     * @param query range query
+     * @param lo lower index (inclusive)
+     * @param hi upper index (exclusive)
+     * @param depth tree depth
+     */
+    private void searchRange(final RangeQuery query, final int lo, final int hi, final int depth) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                query.add(xs[i], ys[i], ordinals[i]);
+            }
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+
+        query.add(xs[mid], ys[mid], ordinals[mid]);
+
+        final double split;
+        final double min, max;
+        if ((depth & 1) == 0) {
+            split = xs[mid];
+            min = query.minX;
+            max = query.maxX;
+        } else {
+            split = ys[mid];
+            min = query.minY;
+            max = query.maxY;
+        }
+        if (min <= split) {
+            searchRange(query, lo, mid, depth + 1);
+        }
+        if (max >= split) {
+            searchRange(query, mid + 1, hi, depth + 1);
+        }
+    }
+
+    /**
+     * k nearest points query state (sorted by increasing distance)
+     */
+    private static final class NearestQuery {
+
+        /* members */
+        /** anchor x */
+        final double anchorX;
+        /** anchor y */
+        final double anchorY;
+        /** pixels per data on domain axis */
+        final double xRatio;
+        /** pixels per data on range axis */
+        final double yRatio;
+        /** number of points to find */
+        final int k;
+        /** number of found points */
+        int count = 0;
+        /** found point squared distances */
+        final double[] distances;
+        /** found point ordinals */
+        final int[] ordinals;
+
+        NearestQuery(final double anchorX, final double anchorY, final double xRatio, final double yRatio, final int k) {
+            this.anchorX = anchorX;
+            this.anchorY = anchorY;
+            this.xRatio = xRatio;
+            this.yRatio = yRatio;
+            this.k = k;
+            this.distances = new double[k];
+            this.ordinals = new int[k];
+        }
+
+        /**
+         * Return true if a point at the given squared distance may be closer than the found points
+         * @param distance squared distance (pixels)
+         * @return true if a closer point may exist
+         */
+        boolean accept(final double distance) {
+            return (count < k) || (distance <= distances[k - 1]);
+        }
+
+        /**
+         * Add the given point if it is closer than the found points
+         * @param x x value
+         * @param y y value
+         * @param ordinal point ordinal
+         */
+        void add(final double x, final double y, final int ordinal) {
+            // converted in pixels:
+            final double dx = (x - anchorX) * xRatio;
+            final double dy = (y - anchorY) * yRatio;
+            final double distance = dx * dx + dy * dy;
+
+            if (count == k) {
+                final double worst = distances[k - 1];
+                if ((distance > worst) || (distance == worst && ordinal > ordinals[k - 1])) {
+                    return;
+                }
+            } else {
+                count++;
+            }
+            // insertion sort (distance then ordinal):
+            int j = count - 1;
+            while (j > 0 && ((distances[j - 1] > distance) || (distances[j - 1] == distance && ordinals[j - 1] > ordinal))) {
+                distances[j] = distances[j - 1];
+                ordinals[j] = ordinals[j - 1];
+                j--;
+            }
+            distances[j] = distance;
+            ordinals[j] = ordinal;
+        }
+    }
+
+    /**
+     * Rectangle / shape query state
+     */
+    private static final class RangeQuery {
+
+        /* members */
+        /** bounds */
+        final double minX, maxX, minY, maxY;
+        /** optional shape */
+        final Shape shape;
+        /** number of found points */
+        int count = 0;
+        /** found point ordinals */
+        int[] ordinals = new int[64];
+
+        RangeQuery(final Rectangle2D bounds, final Shape shape) {
+            this.minX = bounds.getMinX();
+            this.maxX = bounds.getMaxX();
+            this.minY = bounds.getMinY();
+            this.maxY = bounds.getMaxY();
+            this.shape = shape;
+        }
+
+        /**
+         * Add the given point if it is inside bounds (and shape)
+         * @param x x value
+         * @param y y value
+         * @param ordinal point ordinal
+         */
+        void add(final double x, final double y, final int ordinal) {
+            if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY)
+                    && ((shape == null) || shape.contains(x, y))) {
+                if (count == ordinals.length) {
+                    ordinals = Arrays.copyOf(ordinals, count << 1);
+                }
+                ordinals[count++] = ordinal;
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.model.OIData;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class computes (or removes) expression columns on a list of tables (used by the ExprColumn task):
+ * contiguous entries of the same table form a group processed sequentially (given order) while holding the table lock,
+ * so groups may be processed in parallel. If cancelled or failed, the processed tables are restored
+ * (previous expression or column removed) and the registry is updated accordingly.
+ *
+ * @author bourgesl
+ */
+class ExprColumnBatch {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ExprColumnBatch.class.getName());
+
+    /* members */
+    /** expression column registry */
+    private final ExprColumnRegistry registry;
+    /** tables to process */
+    private final List<OIData> oiDatas;
+    /** column name per table */
+    private final List<String> columnNames;
+    /** expression to compute per table (null to remove the column) */
+    private final List<String> tableExprs;
+    /** start index of each table group (contiguous entries of the same table) and end index (last) */
+    private final int[] groupStarts;
+    /** flags indicating the processed entries */
+    private final boolean[] processed;
+    /** previous expression per processed entry (null if undefined) */
+    private final String[] prevExprs;
+    /** stop flag shared with fork/join jobs */
+    private final AtomicBoolean stopJobs = new AtomicBoolean(false);
+
+    /**
+     * Protected constructor
+     * @param registry expression column registry
+     * @param oiDatas tables to process (entries of the same table must be contiguous)
+     * @param columnNames column name per table
+     * @param tableExprs expression to compute per table (null to remove the column)
+     */
+    ExprColumnBatch(final ExprColumnRegistry registry, final List<OIData> oiDatas,
+                    final List<String> columnNames, final List<String> tableExprs) {
+        this.registry = registry;
+        this.oiDatas = oiDatas;
+        this.columnNames = columnNames;
+        this.tableExprs = tableExprs;
+        this.processed = new boolean[oiDatas.size()];
+        this.prevExprs = new String[oiDatas.size()];
+
+        final int nEntries = oiDatas.size();
+        final int[] starts = new int[nEntries + 1];
+        int nGroups = 0;
+        for (int i = 0; i < nEntries; i++) {
+            if ((i == 0) || (oiDatas.get(i) != oiDatas.get(i - 1))) {
+                starts[nGroups++] = i;
+            }
+        }
+        starts[nGroups] = nEntries;
+        this.groupStarts = Arrays.copyOf(starts, nGroups + 1);
+    }
+
+    /**
+     * Return the number of entries (columns)
+     * @return number of entries
+     */
+    int size() {
+        return oiDatas.size();
+    }
+
+    /**
+     * Return the number of table groups
+     * @return number of table groups
+     */
+    int getGroupCount() {
+        return groupStarts.length - 1;
+    }
+
+    /**
+     * Stop processing pending columns (cancelled or failed)
+     */
+    void stop() {
+        stopJobs.set(true);
+    }
+
+    /**
+     * Compute or remove the expression columns of the table group at the given index
+     * sequentially (given order) while holding the table lock
+     * @param group table group index
+     */
+    void processGroup(final int group) {
+        final OIData oiData = oiDatas.get(groupStarts[group]);
+        logger.debug("oiData: {}", oiData);
+
+        synchronized (oiData) {
+            for (int i = groupStarts[group], end = groupStarts[group + 1]; i < end; i++) {
+                // skip pending columns once cancelled or failed:
+                if (stopJobs.get()) {
+                    return;
+                }
+                process(oiData, i);
+            }
+        }
+    }
+
+    /**
+     * Compute or remove the expression column at the given index (table locked by the caller)
+     * @param oiData table
+     * @param index entry index
+     */
+    private void process(final OIData oiData, final int index) {
+        final String columnName = columnNames.get(index);
+        final String tableExpr = tableExprs.get(index);
+
+        prevExprs[index] = registry.getAppliedExpression(oiData, columnName);
+        try {
+            compute(oiData, columnName, tableExpr);
+        } catch (RuntimeException re) {
+            if (tableExpr != null) {
+                // do not compute it again on first access:
+                registry.setFailedExpression(oiData, columnName, tableExpr);
+            }
+            throw re;
+        }
+        registry.setAppliedExpression(oiData, columnName, tableExpr);
+
+        // written before completion (happens-before join):
+        processed[index] = true;
+    }
+
+    /**
+     * Restore the processed tables (previous expression or column removed) in the given order
+     * (a restored column may use another expression column). Jobs must be done (joined) before.
+     */
+    void rollback() {
+        logger.debug("rollback: {} columns", oiDatas.size());
+
+        for (int i = 0, len = oiDatas.size(); i < len; i++) {
+            if (processed[i]) {
+                final OIData oiData = oiDatas.get(i);
+                final String columnName = columnNames.get(i);
+                final String prevExpr = prevExprs[i];
+
+                synchronized (oiData) {
+                    compute(oiData, columnName, prevExpr);
+                    registry.setAppliedExpression(oiData, columnName, prevExpr);
+                }
+                processed[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Compute or remove the expression column on the given table (table locked by the caller)
+     * @param oiData table
+     * @param columnName column name
+     * @param expression expression or null to remove the column
+     */
+    void compute(final OIData oiData, final String columnName, final String expression) {
+        if (expression == null) {
+            oiData.removeExpressionColumn(columnName);
+        } else {
+            ExprColumnRegistry.updateExpressionColumn(oiData, columnName, expression);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oiexplorer.core.function.ExpressionCompiler;
+import fr.jmmc.oiexplorer.core.function.ExpressionKernel;
+import fr.jmmc.oitools.meta.ArrayColumnMeta;
+import fr.jmmc.oitools.meta.Types;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIT3;
+import fr.jmmc.oitools.model.OIVis;
+import fr.jmmc.oitools.model.OIVis2;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the expression columns: it keeps the registered expressions (column name, expression)
+ * and the expressions really computed on every table so tables can be brought up to date lazily
+ * (on first access, by the ExprColumn task) and invalidated when an expression changes.
+ * Expressions that failed on a table are recorded so they are not computed again on that table
+ * until the expression changes or is registered again.
+ * Tables are weakly referenced (removed files are forgotten).
+ * This class is thread-safe (used by the ExprColumn task and the Swing EDT): tables are only modified
+ * by the ExprColumn task while holding their own lock.
+ *
+ * @author bourgesl
+ */
+final class ExprColumnRegistry {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ExprColumnRegistry.class.getName());
+
+    /* members */
+    /** registered expression columns keyed by column name (registration order) */
+    private final Map<String, ExprColumn> columns = new LinkedHashMap<String, ExprColumn>(8);
+    /** computed expressions (column name, expression) per table */
+    private final Map<OIData, Map<String, String>> applied = new WeakHashMap<OIData, Map<String, String>>(64);
+    /** failed expressions (column name, expression) per table */
+    private final Map<OIData, Map<String, String>> failed = new WeakHashMap<OIData, Map<String, String>>(16);
+
+    /**
+     * Package-private constructor
+     */
+    ExprColumnRegistry() {
+        super();
+    }
+
+    /**
+     * Return true if no expression column is registered
+     * @return true if no expression column is registered
+     */
+    synchronized boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * Register (or update) the given expression column (its failures are forgotten)
+     * @param name column name
+     * @param expression expression
+     * @param working flags indicating the supported table types (OI_VIS, OI_VIS2, OI_T3)
+     */
+    synchronized void register(final String name, final String expression, final boolean[] working) {
+        columns.put(name, new ExprColumn(expression, working));
+        clearFailures(name);
+    }
+
+    /**
+     * Unregister the given expression column (its failures are forgotten)
+     * @param name column name
+     */
+    synchronized void unregister(final String name) {
+        columns.remove(name);
+        clearFailures(name);
+    }
+
+    /**
+     * Forget the failures of the given column on all tables
+     * @param name column name
+     */
+    private void clearFailures(final String name) {
+        for (Map<String, String> exprs : failed.values()) {
+            exprs.remove(name);
+        }
+    }
+
+    /**
+     * Clear the registry (expressions and tables)
+     */
+    synchronized void clear() {
+        columns.clear();
+        applied.clear();
+        failed.clear();
+    }
+
+    /**
+     * Return true if the given table type is supported by the given working flags
+     * @param working flags indicating the supported table types (OI_VIS, OI_VIS2, OI_T3)
+     * @param oiData table
+     * @return true if the given table type is supported
+     */
+    static boolean accept(final boolean[] working, final OIData oiData) {
+        return (working[0] && oiData instanceof OIVis)
+                || (working[1] && oiData instanceof OIVis2)
+                || (working[2] && oiData instanceof OIT3);
+    }
+
+    /**
+     * Compute (or update) the expression column on the given table: the expression is evaluated
+     * by the compiled kernel (primitive loops over rows x wavelengths) if supported by the ExpressionCompiler
+     * else by oitools (OIData.updateExpressionColumn)
+     * @param oiData table (locked by the caller)
+     * @param name column name
+     * @param expression expression
+     */
+    static void updateExpressionColumn(final OIData oiData, final String name, final String expression) {
+        double[][] values = null;
+        try {
+            final ExpressionKernel kernel = ExpressionCompiler.compile(expression);
+            values = kernel.evaluate(oiData);
+        } catch (IllegalArgumentException iae) {
+            // unsupported syntax or unknown column: use oitools
+            logger.debug("updateExpressionColumn: kernel not supported [{}]: {}", expression, iae.getMessage());
+        }
+        if (values == null) {
+            oiData.updateExpressionColumn(name, expression);
+        } else {
+            oiData.removeExpressionColumn(name);
+            oiData.addDerivedColumnMeta(new ArrayColumnMeta(name, "calculated column from expression",
+                    Types.TYPE_DBL, oiData.getNWave(), false));
+            oiData.setColumnDerivedValue(name, values);
+        }
+    }
+
+    /**
+     * Return the expression computed on the given table
+     * @param oiData table
+     * @param name column name
+     * @return computed expression or null if the column is not present
+     */
+    synchronized String getAppliedExpression(final OIData oiData, final String name) {
+        final Map<String, String> exprs = applied.get(oiData);
+        return (exprs != null) ? exprs.get(name) : null;
+    }
+
+    /**
+     * Return true if the given column is present on the given table
+     * @param oiData table
+     * @param name column name
+     * @return true if the given column is present on the given table
+     */
+    boolean isApplied(final OIData oiData, final String name) {
+        return getAppliedExpression(oiData, name) != null;
+    }
+
+    /**
+     * Record the expression computed on the given table
+     * @param oiData table
+     * @param name column name
+     * @param expression computed expression or null if the column was removed
+     */
+    synchronized void setAppliedExpression(final OIData oiData, final String name, final String expression) {
+        put(applied, oiData, name, expression);
+        put(failed, oiData, name, null);
+    }
+
+    /**
+     * Record the expression that failed on the given table: it is not collected again on that table
+     * until the registered expression changes
+     * @param oiData table
+     * @param name column name
+     * @param expression failed expression
+     */
+    synchronized void setFailedExpression(final OIData oiData, final String name, final String expression) {
+        put(failed, oiData, name, expression);
+    }
+
+    /**
+     * Put (or remove) the expression of the given column for the given table in the given map
+     * @param map expressions per table
+     * @param oiData table
+     * @param name column name
+     * @param expression expression or null to remove it
+     */
+    private static void put(final Map<OIData, Map<String, String>> map, final OIData oiData,
+                            final String name, final String expression) {
+        Map<String, String> exprs = map.get(oiData);
+        if (expression == null) {
+            if (exprs != null) {
+                exprs.remove(name);
+            }
+        } else {
+            if (exprs == null) {
+                exprs = new HashMap<String, String>(4);
+                map.put(oiData, exprs);
+            }
+            exprs.put(name, expression);
+        }
+    }
+
+    /**
+     * Collect the changes needed to bring the given tables up to date: the registered expressions missing or outdated
+     * (except failed ones) and the unregistered columns to remove (lazy evaluation on first access).
+     * Changes of the same table are contiguous: removed columns first then registered columns
+     * in registration order (a column may use the columns registered before).
+     * Nothing is computed here: the changes are given to the ExprColumn task (background)
+     * @param oiDatas tables
+     * @param changedOIDatas tables to process (output)
+     * @param changedNames column name per table to process (output)
+     * @param changedExprs expression per table to process or null to remove the column (output)
+     * @return number of changes
+     */
+    synchronized int collect(final Collection<OIData> oiDatas, final List<OIData> changedOIDatas,
+                             final List<String> changedNames, final List<String> changedExprs) {
+        int n = 0;
+        for (OIData oiData : oiDatas) {
+            final Map<String, String> exprs = applied.get(oiData);
+            final Map<String, String> failedExprs = failed.get(oiData);
+            if (exprs != null) {
+                for (String name : exprs.keySet()) {
+                    final ExprColumn column = columns.get(name);
+                    if (column == null || !accept(column.working, oiData)) {
+                        changedOIDatas.add(oiData);
+                        changedNames.add(name);
+                        changedExprs.add(null);
+                        n++;
+                    }
+                }
+            }
+            for (Map.Entry<String, ExprColumn> e : columns.entrySet()) {
+                final ExprColumn column = e.getValue();
+                if (accept(column.working, oiData)
+                        && ((exprs == null) || !column.expression.equals(exprs.get(e.getKey())))
+                        && ((failedExprs == null) || !column.expression.equals(failedExprs.get(e.getKey())))) {
+                    changedOIDatas.add(oiData);
+                    changedNames.add(e.getKey());
+                    changedExprs.add(column.expression);
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Registered expression column
+     */
+    private static final class ExprColumn {
+
+        /** expression */
+        final String expression;
+        /** flags indicating the supported table types (OI_VIS, OI_VIS2, OI_T3) */
+        final boolean[] working;
+
+        /**
+         * Protected constructor
+         * @param expression expression
+         * @param working flags indicating the supported table types (OI_VIS, OI_VIS2, OI_T3)
+         */
+        ExprColumn(final String expression, final boolean[] working) {
+            this.expression = expression;
+            this.working = working;
+        }
+    }
+}
@@ -45,6 +45,14 @@ public final class IdentifiableVersion implements ToStringable {
         return version;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 97 * hash + ((this.id != null) ? this.id.hashCode() : 0);
+        hash = 97 * hash + this.version;
+        return hash;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (obj == null) {
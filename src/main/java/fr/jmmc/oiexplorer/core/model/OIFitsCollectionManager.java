@@ -8,6 +8,7 @@ import fr.jmmc.jmcs.data.preference.SessionSettingsPreferences;
 import fr.jmmc.jmcs.gui.component.MessagePane;
 import fr.jmmc.jmcs.gui.component.StatusBar;
 import fr.jmmc.jmcs.gui.task.HttpTaskSwingWorker;
+import fr.jmmc.jmcs.gui.task.TaskSwingWorker;
 import fr.jmmc.jmcs.gui.task.TaskSwingWorkerExecutor;
 import fr.jmmc.jmcs.service.RecentFilesManager;
 import fr.jmmc.jmcs.util.FileUtils;
@@ -47,11 +48,18 @@ import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import org.apache.commons.httpclient.auth.AuthenticationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,21 +85,54 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
     private final static OIFitsCollectionManager INSTANCE = new OIFitsCollectionManager();
     /** Plot Definition factory singleton */
     private final static PlotDefinitionFactory plotDefFactory = PlotDefinitionFactory.getInstance();
+    /** maximum number of memoized selector results */
+    private final static int SELECTOR_RESULT_CACHE_SIZE = 16;
+    /** default number of files loaded in parallel = number of cores */
+    public final static int DEFAULT_LOAD_PARALLELISM = Runtime.getRuntime().availableProcessors();
     /* members */
     /** internal JAXB Factory */
     private final JAXBFactory jf;
     /** flag to enable/disable firing events during startup (before calling start) */
     private boolean enableEvents = false;
+    /** batch update depth (nested begin / commit calls) */
+    private int batchDepth = 0;
+    /** flag indicating that the collection changed during the current batch update */
+    private boolean batchCollectionChanged = false;
     /** OIFits explorer collection structure (session) */
     private OiDataCollection userCollection = null;
     /** associated file to the OIFits explorer collection */
     private File oiFitsCollectionFile = null;
     /** OIFits collection */
     private OIFitsCollection oiFitsCollection = null;
+    /** registry of the loaded OIFits files (skip reloading the same file) */
+    private final OIFitsFileRegistry oiFitsFileRegistry = new OIFitsFileRegistry();
+    /** optional on-disk cache of OIFits snapshots (null if disabled) */
+    private volatile OIFitsSnapshotCache oiFitsSnapshotCache = null;
+    /** registry of the expression columns (registered expressions and computed tables) */
+    private final ExprColumnRegistry exprColumnRegistry = new ExprColumnRegistry();
+    /** flag to compute expression columns lazily (only tables used by subsets) */
+    private volatile boolean lazyExprColumns = false;
+    /** running ExprColumn task (Swing EDT only) or null: tables are being modified so they must not be brought up to date */
+    private ExprColumnSwingWorker exprColumnWorker = null;
+    /** collection version (incremented on every analyzed collection change) */
+    private int collectionVersion = 0;
+    /** memoized selector results keyed by subset filters (LRU) for the current collection version */
+    private final Map<String, SelectorResult> selectorResultCache
+                                              = new LinkedHashMap<String, SelectorResult>(SELECTOR_RESULT_CACHE_SIZE * 2, 0.75f, true) {
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, SelectorResult> eldest) {
+            return size() > SELECTOR_RESULT_CACHE_SIZE;
+        }
+    };
     /** data selection */
     private DataPointer selectedDataPointer = null;
     /** plot Infos */
     private PlotInfosData plotInfosData = null;
+    /** number of files loaded in parallel */
+    private volatile int loadParallelism = DEFAULT_LOAD_PARALLELISM;
     /* event dispatchers */
     /** OIFitsCollectionManagerEventType event notifier map */
     private final EnumMap<OIFitsCollectionManagerEventType, EventNotifier<OIFitsCollectionManagerEvent, OIFitsCollectionManagerEventType, Object>> oiFitsCollectionManagerEventNotifierMap;
@@ -287,16 +328,22 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
              */
             @Override
             public void refreshUI(final List<OIFitsFile> oifitsFiles) {
-                // first reset if this we do not add files only:
-                if (!appendOIFitsFilesOnly) {
-                    reset();
-                }
+                beginBatchUpdate();
+                try {
+                    // first reset if this we do not add files only:
+                    if (!appendOIFitsFilesOnly) {
+                        reset();
+                    }
 
-                // add OIFits files to collection = fire OIFitsCollectionChanged:
-                super.refreshUI(oifitsFiles);
+                    // add OIFits files to collection:
+                    super.refreshUI(oifitsFiles);
 
-                if (!appendOIFitsFilesOnly) {
-                    postLoadOIFitsCollection(file, oiDataCollection, checker);
+                    if (!appendOIFitsFilesOnly) {
+                        postLoadOIFitsCollection(file, oiDataCollection, checker);
+                    }
+                } finally {
+                    // fire a single OIFitsCollectionChanged:
+                    commitBatchUpdate();
                 }
 
                 listener.done(false);
@@ -376,36 +423,44 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
         public List<OIFitsFile> computeInBackground() {
             final int size = fileLocations.size();
 
-            final List<OIFitsFile> oiFitsFiles = new ArrayList<OIFitsFile>(size);
-
             final long startTime = System.nanoTime();
 
-            int n = 0;
-            for (int i = 0; i < size; i++) {
-                // fast interrupt :
-                if (Thread.currentThread().isInterrupted()) {
-                    // Update status bar:
-                    StatusBar.show("Loading file(s) cancelled.");
-                    return null;
+            final int nThreads = Math.min(size, getLoadParallelism());
+
+            final OIFitsFilesLoader loader = new OIFitsFilesLoader(fileLocations, checker) {
+                @Override
+                OIFitsFile loadFile(final String fileLocation, final OIFitsChecker fileChecker) {
+                    return loadOIFitsOrNull(fileLocation, fileChecker);
                 }
 
-                final String fileLocation = fileLocations.get(i);
-                try {
-                    oiFitsFiles.add(loadOIFits(fileLocation, checker));
-                    n++;
-                } catch (IOException ioe) {
-                    logger.info("Error reading file: {}", fileLocation, ioe.getCause());
-                    // Update status bar:
-                    StatusBar.show("Could not load the file : " + fileLocation);
+                @Override
+                void progress(final int nDone, final int nFiles) {
+                    // publish progress:
+                    setProgress(Math.round((100f * nDone) / nFiles));
+                }
+            };
+
+            final OIFitsFile[] loaded = (nThreads > 1) ? loader.loadParallel(nThreads) : loader.loadSequential();
+
+            if (loaded == null) {
+                // Update status bar:
+                StatusBar.show("Loading file(s) cancelled.");
+                return null;
+            }
+
+            // keep the input order:
+            final List<OIFitsFile> oiFitsFiles = new ArrayList<OIFitsFile>(size);
+            for (OIFitsFile oiFitsFile : loaded) {
+                if (oiFitsFile != null) {
+                    oiFitsFiles.add(oiFitsFile);
                 }
-                // publish progress:
-                setProgress(Math.round((100f * i) / size));
             }
 
-            logger.info("loadOIFitsFiles: duration = {} ms.", 1e-6d * (System.nanoTime() - startTime));
+            logger.info("loadOIFitsFiles: {} files using {} threads - duration = {} ms.",
+                    size, nThreads, 1e-6d * (System.nanoTime() - startTime));
 
             // Update status bar:
-            StatusBar.show(n + " loaded file(s).");
+            StatusBar.show(oiFitsFiles.size() + " loaded file(s).");
 
             return oiFitsFiles;
         }
@@ -417,13 +472,76 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
          */
         @Override
         public void refreshUI(final List<OIFitsFile> oifitsFiles) {
-            for (OIFitsFile oifitsFile : oifitsFiles) {
-                // fire OIFitsCollectionChanged:
-                addOIFitsFile(oifitsFile);
-            }
+            // fire OIFitsCollectionChanged once:
+            addOIFitsFiles(oifitsFiles);
+        }
+    }
+
+    /**
+     * Return the number of files loaded in parallel
+     * @return number of files loaded in parallel
+     */
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    /**
+     * Define the number of files loaded in parallel (1 means sequential loading)
+     * @param loadParallelism number of files loaded in parallel
+     */
+    public void setLoadParallelism(final int loadParallelism) {
+        this.loadParallelism = Math.max(1, loadParallelism);
+    }
+
+    /**
+     * Return the directory of the OIFits snapshot cache
+     * @return directory of the OIFits snapshot cache or null if disabled
+     */
+    public File getSnapshotCacheDirectory() {
+        final OIFitsSnapshotCache cache = oiFitsSnapshotCache;
+        return (cache != null) ? cache.getDirectory() : null;
+    }
+
+    /**
+     * Define the directory of the OIFits snapshot cache used to re-open unchanged files faster
+     * @param path directory path (created if needed) or null / empty to disable the cache
+     */
+    public void setSnapshotCacheDirectory(final String path) {
+        final File directory = (StringUtils.isEmpty(path)) ? null : new File(path);
+
+        if (!ObjectUtils.areEquals(directory, getSnapshotCacheDirectory())) {
+            logger.info("OIFits snapshot cache: {}", (directory != null) ? directory : "disabled");
+            oiFitsSnapshotCache = (directory != null) ? new OIFitsSnapshotCache(directory) : null;
+        }
+    }
+
+    /**
+     * Remove all snapshots from the OIFits snapshot cache (if enabled)
+     */
+    public void clearSnapshotCache() {
+        final OIFitsSnapshotCache cache = oiFitsSnapshotCache;
+        if (cache != null) {
+            cache.clear();
         }
     }
 
+    /**
+     * Load the given OI Fits File with the given checker component (any failure is logged)
+     * @param fileLocation absolute File Path or remote URL
+     * @param checker checker component
+     * @return loaded OIFits File or null if failed
+     */
+    private OIFitsFile loadOIFitsOrNull(final String fileLocation, final OIFitsChecker checker) {
+        try {
+            return loadOIFits(fileLocation, checker);
+        } catch (IOException ioe) {
+            logger.info("Error reading file: {}", fileLocation, ioe.getCause());
+            // Update status bar:
+            StatusBar.show("Could not load the file : " + fileLocation);
+        }
+        return null;
+    }
+
     /**
      * Load the given OI Fits File with the given checker component
      * and add it to the OIFits collection
@@ -443,9 +561,7 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
      * @return loaded OIFits File
      * @throws IOException if a fits file can not be loaded
      */
-    private static OIFitsFile loadOIFits(final String fileLocation, final OIFitsChecker checker) throws IOException {
-        //@todo test if file has already been loaded before going further ??
-
+    private OIFitsFile loadOIFits(final String fileLocation, final OIFitsChecker checker) throws IOException {
         final OIFitsFile oifitsFile;
         try {
             // retrieve oifits if remote or use local one
@@ -459,8 +575,7 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
                     // TODO: remove StatusBar !
                     StatusBar.show("loading file: " + fileLocation + " ( local copy: " + localCopy.getAbsolutePath() + " )");
 
-                    oifitsFile = OIFitsLoader.loadOIFits(checker, localCopy.getAbsolutePath());
-                    oifitsFile.setSourceURI(new URI(fileLocation));
+                    oifitsFile = loadOIFitsOnce(checker, localCopy.getAbsolutePath(), new URI(fileLocation));
                 } else {
                     // download failed:
                     oifitsFile = null;
@@ -469,7 +584,7 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
                 // TODO: remove StatusBar !
                 StatusBar.show("loading file: " + fileLocation);
 
-                oifitsFile = OIFitsLoader.loadOIFits(checker, fileLocation);
+                oifitsFile = loadOIFitsOnce(checker, fileLocation, null);
             }
         } catch (AuthenticationException ae) {
             throw new IOException("Could not load the file : " + fileLocation, ae);
@@ -487,6 +602,71 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
         return oifitsFile;
     }
 
+    /**
+     * Return the already loaded OIFits File (same path, size and date)
+     * or restore its snapshot (if the cache is enabled) or return the already loaded OIFits File
+     * with the same path and content (touched) or parse the given local OI Fits File with the given checker component
+     * (and save its snapshot). Copied or moved files are loaded again (own path).
+     * Note: already loaded OIFits files are shared so they are returned as is (source URI unchanged)
+     * @param checker checker component
+     * @param absFilePath absolute File Path
+     * @param sourceURI source URI of the remote file or null
+     * @return loaded OIFits File
+     * @throws IOException IO failure
+     * @throws FitsException if the fits can not be opened
+     */
+    private OIFitsFile loadOIFitsOnce(final OIFitsChecker checker, final String absFilePath,
+                                      final URI sourceURI) throws IOException, FitsException {
+        final OIFitsFileRegistry.FileStamp stamp = new OIFitsFileRegistry.FileStamp(absFilePath);
+
+        OIFitsFile loaded = oiFitsFileRegistry.findByPath(stamp);
+        if (loaded != null) {
+            logger.info("File already loaded: {} (skipped)", absFilePath);
+            return loaded;
+        }
+        final OIFitsSnapshotCache cache = oiFitsSnapshotCache;
+
+        // snapshot first (its content hash is stored) before hashing the file
+        // (if a checker is given, only files without any validation report are restored):
+        OIFitsFile oiFitsFile = (cache != null) ? cache.load(stamp, absFilePath, (checker != null)) : null;
+        if (oiFitsFile != null) {
+            logger.info("File restored from snapshot: {}{}", absFilePath, (checker != null) ? " (valid)" : "");
+        } else {
+            // same content already loaded (file copied, moved or touched) ?
+            loaded = oiFitsFileRegistry.find(stamp);
+            if (loaded != null) {
+                logger.info("File already loaded: {} (skipped)", absFilePath);
+                return loaded;
+            }
+            final int nFailures = (checker != null) ? checker.getFailures().size() : 0;
+
+            oiFitsFile = parseOIFits(checker, absFilePath);
+
+            if (cache != null) {
+                // store the validation state (no new failure) with the snapshot:
+                cache.save(stamp, oiFitsFile, (checker != null) ? Boolean.valueOf(checker.getFailures().size() == nFailures) : null);
+            }
+        }
+        if (sourceURI != null) {
+            // not shared yet:
+            oiFitsFile.setSourceURI(sourceURI);
+        }
+        return oiFitsFileRegistry.register(stamp, oiFitsFile);
+    }
+
+    /**
+     * Parse the given local OI Fits File with the given checker component.
+     * Note: OIFitsChecker is not thread-safe so parallel loads use one checker per file (see OIFitsFilesLoader)
+     * @param absFilePath absolute File Path
+     * @param checker checker component
+     * @return loaded OIFits File
+     * @throws IOException IO failure
+     * @throws FitsException if the fits can not be opened
+     */
+    private static OIFitsFile parseOIFits(final OIFitsChecker checker, final String absFilePath) throws IOException, FitsException {
+        return OIFitsLoader.loadOIFits(checker, absFilePath);
+    }
+
     /**
      * Return the current OIFits explorer collection file
      * @return the current OIFits explorer collection file or null if undefined
@@ -519,9 +699,13 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
      */
     public void reset() {
         cancelTaskLoadOIFits();
+        cancelTaskExprColumn();
 
         userCollection = new OiDataCollection();
         oiFitsCollection = new OIFitsCollection();
+        exprColumnRegistry.clear();
+        // forget loaded files (their expression columns are not tracked anymore):
+        oiFitsFileRegistry.clear();
         oiFitsCollectionFile = null;
         selectedDataPointer = null;
 
@@ -534,6 +718,42 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
      * @return true if an OIDataFile was added
      */
     public boolean addOIFitsFile(final OIFitsFile oiFitsFile) {
+        if (registerOIFitsFile(oiFitsFile)) {
+            fireOIFitsCollectionChanged();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add the OIDataFiles given their corresponding OIFits structures and fire a single OIFitsCollectionChanged event
+     * @param oiFitsFiles OIFits structures
+     * @return number of added or updated OIDataFiles
+     */
+    public int addOIFitsFiles(final List<OIFitsFile> oiFitsFiles) {
+        int n = 0;
+        beginBatchUpdate();
+        try {
+            for (OIFitsFile oiFitsFile : oiFitsFiles) {
+                if (registerOIFitsFile(oiFitsFile)) {
+                    n++;
+                }
+            }
+            if (n != 0) {
+                fireOIFitsCollectionChanged();
+            }
+        } finally {
+            commitBatchUpdate();
+        }
+        return n;
+    }
+
+    /**
+     * Add or update the OIDataFile given its corresponding OIFits structure (no event)
+     * @param oiFitsFile OIFits structure
+     * @return true if an OIDataFile was added or updated
+     */
+    private boolean registerOIFitsFile(final OIFitsFile oiFitsFile) {
         if (oiFitsFile != null) {
             // check if already present in collection:
             if (oiFitsCollection.addOIFitsFile(oiFitsFile) == null) {
@@ -581,9 +801,6 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
                     dataFile.setOIFitsFile(oiFitsFile);
                 }
             }
-
-            fireOIFitsCollectionChanged();
-
             return true;
         }
         return false;
@@ -636,18 +853,57 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
     public List<OIFitsFile> removeOIFitsFileList(final List<OIFitsFile> listOIfitsfiles) {
         final List<OIFitsFile> listPrevious = new ArrayList<>(listOIfitsfiles.size());
 
-        for (OIFitsFile oiFitsFile : listOIfitsfiles) {
-            final OIFitsFile removed = removeOIFitsFile(oiFitsFile, false);
-            if (removed != null) {
-                listPrevious.add(removed);
+        beginBatchUpdate();
+        try {
+            for (OIFitsFile oiFitsFile : listOIfitsfiles) {
+                final OIFitsFile removed = removeOIFitsFile(oiFitsFile, false);
+                if (removed != null) {
+                    listPrevious.add(removed);
+                }
+            }
+
+            if (!listPrevious.isEmpty()) {
+                // collection changed event will remove remaining OIDataFile references:
+                fireOIFitsCollectionChanged();
             }
+        } finally {
+            commitBatchUpdate();
         }
+        return listPrevious;
+    }
+
+    /**
+     * Begin a batch update of the OIFits collection (Swing EDT only):
+     * until the matching commitBatchUpdate() call, COLLECTION_CHANGED events to all listeners are deferred
+     * and coalesced into a single event i.e. a single collection analysis and subset / plot update.
+     * Batch updates can be nested; always call commitBatchUpdate() in a finally block.
+     */
+    public void beginBatchUpdate() {
+        batchDepth++;
+    }
 
-        if (!listPrevious.isEmpty()) {
-            // collection changed event will remove remaining OIDataFile references:
+    /**
+     * Commit the current batch update (Swing EDT only):
+     * fire a single COLLECTION_CHANGED event if the collection changed during the outermost batch update
+     * @throws IllegalStateException if no batch update is in progress
+     */
+    public void commitBatchUpdate() throws IllegalStateException {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch update in progress !");
+        }
+        batchDepth--;
+        if (batchDepth == 0 && batchCollectionChanged) {
+            batchCollectionChanged = false;
             fireOIFitsCollectionChanged();
         }
-        return listPrevious;
+    }
+
+    /**
+     * Return true if a batch update is in progress
+     * @return true if a batch update is in progress
+     */
+    public boolean isBatchUpdate() {
+        return batchDepth != 0;
     }
 
     /**
@@ -678,34 +934,65 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
         return oiFitsCollection;
     }
 
+    /**
+     * Return the collection version (incremented on every analyzed collection change
+     * including expression column changes) used by data caches.
+     * Must be called by Swing EDT
+     * @return collection version
+     */
+    public int getCollectionVersion() {
+        return collectionVersion;
+    }
+
     /* --- Expression interpretation on the OIFitsCollection ----------- */
     /**
      * Make the creation or modification of a column given its name and expression
+     * using an async ExprColumn task (the collection changed event is fired once all tables are computed)
      * @param name name of the column
      * @param expression expression of the column
      */
     public void updateExprColumnInOIFitsCollection(final String name, final String expression) {
         modifyExprColumnInOIFitsCollection(name, expression, false);
-
-        // fire Collection changed to force updating subset's result data model:
-        fireOIFitsCollectionChanged();
     }
 
     /**
-     * Remove the column given its name.
+     * Remove the column given its name using an async ExprColumn task
      * @param name name of the column
      */
     public void removeExprColumnInOIFitsCollection(final String name) {
         modifyExprColumnInOIFitsCollection(name, null, true);
+    }
 
-        // fire Collection changed to force updating subset's result data model:
-        fireOIFitsCollectionChanged();
+    /**
+     * Cancel any running ExprColumn task (the tables already computed are restored)
+     */
+    public static void cancelTaskExprColumn() {
+        // cancel any running task:
+        TaskSwingWorkerExecutor.cancelTask(OIExplorerTaskRegistry.TASK_EXPR_COLUMN);
+    }
+
+    /**
+     * Return true if expression columns are computed lazily: only the tables used by subsets are computed
+     * when the expression changes, other tables are computed on first access (subset query).
+     * If false, all tables are computed when the expression changes
+     * @return true if expression columns are computed lazily
+     */
+    public boolean isLazyExprColumns() {
+        return lazyExprColumns;
+    }
+
+    /**
+     * Define the flag to compute expression columns lazily
+     * @param lazyExprColumns true to compute expression columns lazily
+     */
+    public void setLazyExprColumns(final boolean lazyExprColumns) {
+        this.lazyExprColumns = lazyExprColumns;
     }
 
     /**
      * Update or remove the column given its name.
      * Note: for updates, it will verify the expression
-     * and perform computation on all tables present in all OIFitsCollections
+     * and perform computation on all tables present in all OIFitsCollections in background
      * @param userName name of the column
      * @param expression expression of the column
      * @param remove true to remove the column; false to update the column
@@ -717,177 +1004,394 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
 
         logger.debug("modifyExprColumnInOIFitsCollection: {}", name);
 
+        final boolean[] working;
+
+        if (remove) {
+            working = null;
+        } else {
+            working = checkExprColumn(name, expression);
+            if (working == null) {
+                return;
+            }
+        }
+
+        // lazy mode: only process the tables used by subsets, other tables are computed on first access:
+        final Set<OIData> usedOIDatas = (!remove && isLazyExprColumns()) ? getCandidateOIDatas() : null;
+
+        // get the tables on the EDT:
+        final List<OIData> oiDatas = new ArrayList<OIData>();
+        final List<String> tableExprs = new ArrayList<String>();
+        final List<String> columnNames;
+
+        for (OIFitsFile oiFitsFile : oiFitsCollection.getSortedOIFitsFiles()) {
+            for (OIData oiData : oiFitsFile.getOiDataList()) {
+                if (oiData != null) {
+                    if (remove) {
+                        oiDatas.add(oiData);
+                        tableExprs.add(null);
+                    } else if (ExprColumnRegistry.accept(working, oiData)
+                            && ((usedOIDatas == null) || usedOIDatas.contains(oiData))) {
+                        // only compute expression on working tables:
+                        oiDatas.add(oiData);
+                        tableExprs.add(expression);
+                    } else if (exprColumnRegistry.isApplied(oiData, name)) {
+                        // remove the outdated column (computed again on first access):
+                        oiDatas.add(oiData);
+                        tableExprs.add(null);
+                    }
+                }
+            }
+        }
+
+        columnNames = Collections.nCopies(oiDatas.size(), name);
+
+        // Cancel other tasks and execute this new task:
+        exprColumnWorker = new ExprColumnSwingWorker(name, expression, working, oiDatas, columnNames, tableExprs);
+        exprColumnWorker.executeTask();
+    }
+
+    /**
+     * Bring the given tables up to date (lazy mode or new files) using an async ExprColumn task
+     * (the collection changed event is fired once all tables are computed).
+     * Nothing is done if an ExprColumn task is already running (its completion updates subsets again)
+     * @param candidates tables to bring up to date
+     */
+    private void ensureExprColumns(final Collection<OIData> candidates) {
+        if (exprColumnWorker != null) {
+            return;
+        }
+        final List<OIData> oiDatas = new ArrayList<OIData>();
+        final List<String> columnNames = new ArrayList<String>();
+        final List<String> tableExprs = new ArrayList<String>();
+
+        if (exprColumnRegistry.collect(candidates, oiDatas, columnNames, tableExprs) != 0) {
+            logger.debug("ensureExprColumns: {} columns to update", oiDatas.size());
+
+            exprColumnWorker = new ExprColumnSwingWorker(null, null, null, oiDatas, columnNames, tableExprs);
+            exprColumnWorker.executeTask();
+        }
+    }
+
+    /**
+     * Check the given expression on the first OI_VIS, OI_VIS2 and OI_T3 tables
+     * and show an error message if the expression can not be evaluated on any table
+     * @param name name of the column
+     * @param expression expression of the column
+     * @return working flags (OI_VIS, OI_VIS2, OI_T3) or null if the expression is invalid
+     */
+    private boolean[] checkExprColumn(final String name, final String expression) {
         final boolean[] working = new boolean[3];
 
-        if (!remove) {
-            // Check expression:
-            int n = 0;
-            int nBad = 0;
-            int nOk = 0;
+        // Check expression:
+        int n = 0;
+        int nBad = 0;
+        int nOk = 0;
 
-            OIVis vis = null;
-            OIVis2 vis2 = null;
-            OIT3 t3 = null;
+        OIVis vis = null;
+        OIVis2 vis2 = null;
+        OIT3 t3 = null;
 
-            final String[] messages = new String[3];
+        final String[] messages = new String[3];
 
-            for (OIFitsFile oiFitsFile : oiFitsCollection.getSortedOIFitsFiles()) {
-                logger.debug("oiFitsFile: {}", oiFitsFile);
+        for (OIFitsFile oiFitsFile : oiFitsCollection.getSortedOIFitsFiles()) {
+            logger.debug("oiFitsFile: {}", oiFitsFile);
 
-                if (vis == null) {
-                    // cherche une table OI_VIS
-                    if (oiFitsFile.hasOiVis()) {
-                        vis = oiFitsFile.getOiVis()[0];
-                        n++;
+            if (vis == null) {
+                // cherche une table OI_VIS
+                if (oiFitsFile.hasOiVis()) {
+                    vis = oiFitsFile.getOiVis()[0];
+                    n++;
 
-                        try {
-                            vis.checkExpression(name, expression);
-                            working[0] = true;
-                            nOk++;
-                        } catch (IllegalStateException ise) {
-                            // fatal error:
-                            throw ise;
-                        } catch (RuntimeException re) {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("exception OI_VIS: {}", re.getMessage(), re);
-                            }
-                            messages[0] = re.getMessage();
-                            nBad++;
+                    try {
+                        vis.checkExpression(name, expression);
+                        working[0] = true;
+                        nOk++;
+                    } catch (IllegalStateException ise) {
+                        // fatal error:
+                        throw ise;
+                    } catch (RuntimeException re) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("exception OI_VIS: {}", re.getMessage(), re);
                         }
+                        messages[0] = re.getMessage();
+                        nBad++;
                     }
                 }
-                if (vis2 == null) {
-                    // cherche une table OI_VIS2
-                    if (oiFitsFile.hasOiVis2()) {
-                        vis2 = oiFitsFile.getOiVis2()[0];
-                        n++;
+            }
+            if (vis2 == null) {
+                // cherche une table OI_VIS2
+                if (oiFitsFile.hasOiVis2()) {
+                    vis2 = oiFitsFile.getOiVis2()[0];
+                    n++;
 
-                        try {
-                            vis2.checkExpression(name, expression);
-                            working[1] = true;
-                            nOk++;
-                        } catch (IllegalStateException ise) {
-                            // fatal error:
-                            throw ise;
-                        } catch (RuntimeException re) {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("exception OI_VIS2: {}", re.getMessage(), re);
-                            }
-                            messages[1] = re.getMessage();
-                            nBad++;
+                    try {
+                        vis2.checkExpression(name, expression);
+                        working[1] = true;
+                        nOk++;
+                    } catch (IllegalStateException ise) {
+                        // fatal error:
+                        throw ise;
+                    } catch (RuntimeException re) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("exception OI_VIS2: {}", re.getMessage(), re);
                         }
+                        messages[1] = re.getMessage();
+                        nBad++;
                     }
                 }
-                if (t3 == null) {
-                    // cherche une table OI_T3
-                    if (oiFitsFile.hasOiT3()) {
-                        t3 = oiFitsFile.getOiT3()[0];
-                        n++;
+            }
+            if (t3 == null) {
+                // cherche une table OI_T3
+                if (oiFitsFile.hasOiT3()) {
+                    t3 = oiFitsFile.getOiT3()[0];
+                    n++;
 
-                        try {
-                            t3.checkExpression(name, expression);
-                            working[2] = true;
-                            nOk++;
-                        } catch (IllegalStateException ise) {
-                            // fatal error:
-                            throw ise;
-                        } catch (RuntimeException re) {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("exception OI_T3: {}", re.getMessage(), re);
-                            }
-                            messages[2] = re.getMessage();
-                            nBad++;
+                    try {
+                        t3.checkExpression(name, expression);
+                        working[2] = true;
+                        nOk++;
+                    } catch (IllegalStateException ise) {
+                        // fatal error:
+                        throw ise;
+                    } catch (RuntimeException re) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("exception OI_T3: {}", re.getMessage(), re);
                         }
+                        messages[2] = re.getMessage();
+                        nBad++;
                     }
                 }
+            }
 
-                // TODO: support OI_FLUX ...
-                if (n == 3) {
-                    break;
-                }
+            // TODO: support OI_FLUX ...
+            if (n == 3) {
+                break;
             }
+        }
 
-            // Bilan des courses:
-            if (nBad != 0 && nOk == 0) {
+        // Bilan des courses:
+        if (nBad != 0 && nOk == 0) {
 
-                final Map<String, List<Integer>> mapError = new HashMap< String, List<Integer>>(8);
+            final Map<String, List<Integer>> mapError = new HashMap< String, List<Integer>>(8);
 
-                for (int i = 0; i < 3; i++) {
-                    if (messages[i] != null) {
-                        final List<Integer> indices;
-                        if (mapError.containsKey(messages[i])) {
-                            indices = mapError.get(messages[i]);
-                        } else {
-                            indices = new ArrayList<Integer>(3);
-                            mapError.put(messages[i], indices);
-                        }
-                        indices.add(i);
+            for (int i = 0; i < 3; i++) {
+                if (messages[i] != null) {
+                    final List<Integer> indices;
+                    if (mapError.containsKey(messages[i])) {
+                        indices = mapError.get(messages[i]);
+                    } else {
+                        indices = new ArrayList<Integer>(3);
+                        mapError.put(messages[i], indices);
                     }
+                    indices.add(i);
                 }
+            }
 
-                final StringBuilder sb = new StringBuilder(256);
-                sb.append("Unable to evaluate the expression: '").append(expression);
-                sb.append("'\n\n");
+            final StringBuilder sb = new StringBuilder(256);
+            sb.append("Unable to evaluate the expression: '").append(expression);
+            sb.append("'\n\n");
 
-                if (mapError.size() == 1) {
-                    sb.append(mapError.keySet().iterator().next());
-                } else {
-                    for (Map.Entry<String, List<Integer>> entry : mapError.entrySet()) {
-                        sb.append(entry.getKey());
-                        sb.append(" in table : ");
-                        for (Integer j : entry.getValue()) {
-                            switch (j) {
-                                case 0:
-                                    sb.append(" OIVIS ");
-                                    break;
-                                case 1:
-                                    sb.append(" OIVIS2 ");
-                                    break;
-                                case 2:
-                                    sb.append(" OIT3 ");
-                                    break;
-                                default:
-                                    break;
-                            }
-                            sb.append(" \n");
+            if (mapError.size() == 1) {
+                sb.append(mapError.keySet().iterator().next());
+            } else {
+                for (Map.Entry<String, List<Integer>> entry : mapError.entrySet()) {
+                    sb.append(entry.getKey());
+                    sb.append(" in table : ");
+                    for (Integer j : entry.getValue()) {
+                        switch (j) {
+                            case 0:
+                                sb.append(" OIVIS ");
+                                break;
+                            case 1:
+                                sb.append(" OIVIS2 ");
+                                break;
+                            case 2:
+                                sb.append(" OIT3 ");
+                                break;
+                            default:
+                                break;
                         }
+                        sb.append(" \n");
                     }
                 }
-                sb.append("\n");
-
-                MessagePane.showErrorMessage(sb.toString());
-                return;
             }
+            sb.append("\n");
+
+            MessagePane.showErrorMessage(sb.toString());
+            return null;
         }
+        return working;
+    }
 
-        final long startTime = System.nanoTime();
+    /**
+     * TaskSwingWorker child class to compute (or remove) an expression column on all tables in background
+     * or to bring tables up to date (registered expression columns missing or outdated on first access):
+     * tables are processed in parallel (fork/join) but the columns of one table are processed sequentially
+     * in the given order (a column may use another expression column) and the collection changed event is only fired
+     * once every table is computed. As plot tasks are executed by the same (single threaded) task executor,
+     * plots never use a partially computed collection. If cancelled or failed, the tables already processed
+     * are restored (previous expression or column removed). The expression (if any) is only registered once done.
+     * Failed expressions are recorded in the registry so they are not computed again on first access.
+     * The Swing EDT never computes expression columns: while the task is running, no other task is started
+     * to bring tables up to date (computeOIData) and the collection changed event updates subsets once done.
+     */
+    private final class ExprColumnSwingWorker extends TaskSwingWorker<Boolean> {
 
-        // TODO: what OIData should be processed ? current subset or all data ?
-        for (OIFitsFile oiFitsFile : oiFitsCollection.getSortedOIFitsFiles()) {
-            logger.debug("oiFitsFile: {}", oiFitsFile);
+        /* members */
+        /** column name to register (or unregister) or null to only bring tables up to date */
+        private final String name;
+        /** expression or null to remove the column */
+        private final String expression;
+        /** flags indicating the supported table types (OI_VIS, OI_VIS2, OI_T3) */
+        private final boolean[] working;
+        /** expression columns to compute (per table) */
+        private final ExprColumnBatch batch;
 
-            for (OIData oiData : oiFitsFile.getOiDataList()) {
-                logger.debug("oiData: {}", oiData);
-                if (oiData != null) {
-                    if (remove) {
-                        oiData.removeExpressionColumn(name);
-                    } else {
-                        // only compute expression on working tables:
-                        if ((working[0] && oiData instanceof OIVis)
-                                || (working[1] && oiData instanceof OIVis2)
-                                || (working[2] && oiData instanceof OIT3)) {
-                            oiData.updateExpressionColumn(name, expression);
+        /**
+         * Hidden constructor
+         * @param name column name to register (or unregister) or null to only bring tables up to date
+         * @param expression expression or null to remove the column
+         * @param working flags indicating the supported table types (null to remove the column)
+         * @param oiDatas tables to process (entries of the same table must be contiguous)
+         * @param columnNames column name per table
+         * @param tableExprs expression to compute per table (null to remove the column)
+         */
+        private ExprColumnSwingWorker(final String name, final String expression, final boolean[] working,
+                                      final List<OIData> oiDatas, final List<String> columnNames,
+                                      final List<String> tableExprs) {
+            super(OIExplorerTaskRegistry.TASK_EXPR_COLUMN);
+            this.name = name;
+            this.expression = expression;
+            this.working = working;
+            this.batch = new ExprColumnBatch(exprColumnRegistry, oiDatas, columnNames, tableExprs);
+        }
+
+        /**
+         * Compute the expression column on all tables in background
+         * This code is executed by a Worker thread (Not Swing EDT)
+         * @return Boolean.TRUE or null if interrupted
+         */
+        @Override
+        public Boolean computeInBackground() {
+            final long startTime = System.nanoTime();
+
+            final int nTables = batch.getGroupCount();
+            final boolean useParallel = ((expression != null) || (name == null))
+                    && (nTables > 1) && (ForkJoinPool.getCommonPoolParallelism() > 1);
+
+            boolean done = false;
+            try {
+                if (useParallel) {
+                    // fork:
+                    final List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(nTables);
+                    for (int t = 0; t < nTables; t++) {
+                        final int index = t;
+                        tasks.add(ForkJoinPool.commonPool().submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                batch.processGroup(index);
+                            }
+                        }));
+                    }
+                    // join (progress in table order):
+                    try {
+                        for (int t = 0; t < nTables; t++) {
+                            tasks.get(t).get();
+
+                            setProgress(Math.round((100f * (t + 1)) / nTables));
+                        }
+                    } catch (InterruptedException ie) {
+                        logger.debug("computeInBackground: interrupted");
+                        return null;
+                    } catch (ExecutionException ee) {
+                        if (ee.getCause() instanceof RuntimeException) {
+                            throw (RuntimeException) ee.getCause();
                         }
+                        throw new IllegalStateException("Expression computation failure", ee.getCause());
+                    } finally {
+                        batch.stop();
+                        // wait for running jobs before any rollback:
+                        for (ForkJoinTask<?> task : tasks) {
+                            task.quietlyJoin();
+                        }
+                    }
+                } else {
+                    for (int t = 0; t < nTables; t++) {
+                        // fast interrupt :
+                        if (Thread.currentThread().isInterrupted()) {
+                            return null;
+                        }
+                        batch.processGroup(t);
+
+                        setProgress(Math.round((100f * (t + 1)) / nTables));
                     }
                 }
+                done = true;
+            } finally {
+                if (!done) {
+                    batch.rollback();
+                }
+            }
+
+            if (name == null) {
+                logger.info("ensureExprColumns[{} columns] computation time = {} ms.",
+                        batch.size(), 1e-6d * (System.nanoTime() - startTime));
+            } else if (expression != null) {
+                logger.info("modifyExprColumnInOIFitsCollection[{}] computation time = {} ms.",
+                        expression, 1e-6d * (System.nanoTime() - startTime));
             }
+            logger.debug("modifyExprColumnInOIFitsCollection: done.");
+            return Boolean.TRUE;
         }
 
-        if (!remove) {
-            logger.info("modifyExprColumnInOIFitsCollection[{}] computation time = {} ms.",
-                    expression, 1e-6d * (System.nanoTime() - startTime));
+        /**
+         * Refresh GUI invoked by the Swing Event Dispatcher Thread (Swing EDT)
+         * Called by @see #done()
+         * @param done Boolean.TRUE
+         */
+        @Override
+        public void refreshUI(final Boolean done) {
+            taskDone();
+
+            if (name != null) {
+                if (expression == null) {
+                    exprColumnRegistry.unregister(name);
+                } else {
+                    exprColumnRegistry.register(name, expression, working);
+                }
+            }
+            // fire Collection changed to force updating subset's result data model:
+            fireOIFitsCollectionChanged();
+        }
+
+        @Override
+        public void refreshNoData(final boolean cancelled) {
+            taskDone();
+
+            if (cancelled) {
+                // Update status bar:
+                StatusBar.show("Expression computation cancelled.");
+            }
+        }
+
+        /**
+         * Handle the execution exception that occured in the compute operation @see #computeInBackground()
+         * @param ee execution exception
+         */
+        @Override
+        public void handleException(final ExecutionException ee) {
+            taskDone();
+            super.handleException(ee);
+        }
+
+        /**
+         * Forget this task if it is the running ExprColumn task (Swing EDT)
+         */
+        private void taskDone() {
+            if (exprColumnWorker == this) {
+                exprColumnWorker = null;
+            }
         }
-        logger.debug("modifyExprColumnInOIFitsCollection: done.");
     }
 
     /* --- file handling ------------------------------------- */
@@ -1166,7 +1670,64 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
         return oiFitsFile;
     }
 
+    /**
+     * Return the selector result of the given subset definition (memoized per filters and collection version)
+     * @param subsetDefinition subset definition
+     * @return selector result or null if no data matches
+     */
     private SelectorResult findOIData(final SubsetDefinition subsetDefinition) {
+        final String key = getSelectorKey(subsetDefinition);
+
+        if (selectorResultCache.containsKey(key)) {
+            logger.debug("findOIData: memoized result for {}", key);
+            return selectorResultCache.get(key);
+        }
+        final long start = System.nanoTime();
+
+        final SelectorResult result = computeOIData(subsetDefinition);
+        selectorResultCache.put(key, result);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("findOIData: duration = {} ms.", 1e-6d * (System.nanoTime() - start));
+        }
+        return result;
+    }
+
+    /**
+     * Return the canonical key of the given subset definition (collection version, filters and enabled generic filters)
+     * @param subsetDefinition subset definition
+     * @return canonical key
+     */
+    private String getSelectorKey(final SubsetDefinition subsetDefinition) {
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append('v').append(collectionVersion);
+
+        for (SubsetFilter filter : subsetDefinition.getFilters()) {
+            sb.append("|F:").append(filter.getTargetUID())
+                    .append(',').append(filter.getInsModeUID())
+                    .append(',').append(filter.getNightID());
+
+            for (TableUID tableUID : filter.getTables()) {
+                sb.append(",T:").append(tableUID.getFile().getFile()).append('#').append(tableUID.getExtNb());
+            }
+        }
+        for (GenericFilter genericFilter : subsetDefinition.getGenericFilters()) {
+            if (genericFilter.isEnabled()) {
+                sb.append("|G:").append(genericFilter.getColumnName())
+                        .append(',').append(genericFilter.getDataType());
+
+                for (fr.jmmc.oiexplorer.core.model.plot.Range range : genericFilter.getAcceptedRanges()) {
+                    sb.append(",[").append(range.getMin()).append(';').append(range.getMax()).append(']');
+                }
+                for (String value : genericFilter.getAcceptedValues()) {
+                    sb.append(",'").append(value).append('\'');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private SelectorResult computeOIData(final SubsetDefinition subsetDefinition) {
         final List<GenericFilter> filters = subsetDefinition.getGenericFilters();
 
         final int len = filters.size();
@@ -1213,27 +1774,17 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
             filtersValuesExtra = null;
         }
 
+        if (!exprColumnRegistry.isEmpty() && (exprColumnWorker == null)) {
+            // compute expression columns on first access (lazy mode or new files) of all subsets in background
+            // (skipped while the ExprColumn task modifies tables): subsets are updated again once done
+            ensureExprColumns(getCandidateOIDatas());
+        }
+
         SelectorResult result = null;
         final Selector selector = new Selector();
 
         for (SubsetFilter filter : subsetDefinition.getFilters()) {
-            selector.reset();
-
-            // Target
-            selector.setTargetUID(filter.getTargetUID());
-
-            // InstrumentMode
-            selector.setInsModeUID(filter.getInsModeUID());
-
-            // NightId
-            selector.setNightID(filter.getNightID());
-
-            // Table
-            if (!filter.getTables().isEmpty()) {
-                for (TableUID tableUID : filter.getTables()) {
-                    selector.addTable(tableUID.getFile().getFile(), tableUID.getExtNb());
-                }
-            }
+            setSelectorFilter(selector, filter);
 
             // Extra filters from generic filters:
             if (wavelengthRanges != null) {
@@ -1259,6 +1810,67 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
         return result;
     }
 
+    /**
+     * Reset the given selector and define its criteria (target, instrument mode, night and tables)
+     * from the given subset filter
+     * @param selector selector to define
+     * @param filter subset filter
+     */
+    private static void setSelectorFilter(final Selector selector, final SubsetFilter filter) {
+        selector.reset();
+
+        // Target
+        selector.setTargetUID(filter.getTargetUID());
+
+        // InstrumentMode
+        selector.setInsModeUID(filter.getInsModeUID());
+
+        // NightId
+        selector.setNightID(filter.getNightID());
+
+        // Table
+        if (!filter.getTables().isEmpty()) {
+            for (TableUID tableUID : filter.getTables()) {
+                selector.addTable(tableUID.getFile().getFile(), tableUID.getExtNb());
+            }
+        }
+    }
+
+    /**
+     * Return the OIData tables matching the given subset definition ignoring its generic filters
+     * @param subsetDefinition subset definition
+     * @return OIData tables (candidates)
+     */
+    private Set<OIData> getCandidateOIDatas(final SubsetDefinition subsetDefinition) {
+        final Set<OIData> oiDatas = Collections.newSetFromMap(new IdentityHashMap<OIData, Boolean>());
+
+        final Selector selector = new Selector();
+        SelectorResult result = null;
+
+        for (SubsetFilter filter : subsetDefinition.getFilters()) {
+            setSelectorFilter(selector, filter);
+
+            result = this.oiFitsCollection.findOIData(selector, result);
+        }
+        if (result != null) {
+            oiDatas.addAll(result.getSortedOIDatas());
+        }
+        return oiDatas;
+    }
+
+    /**
+     * Return the OIData tables used by all subset definitions ignoring their generic filters
+     * @return OIData tables (candidates)
+     */
+    private Set<OIData> getCandidateOIDatas() {
+        final Set<OIData> oiDatas = Collections.newSetFromMap(new IdentityHashMap<OIData, Boolean>());
+
+        for (SubsetDefinition subsetDefinition : getSubsetDefinitionList()) {
+            oiDatas.addAll(getCandidateOIDatas(subsetDefinition));
+        }
+        return oiDatas;
+    }
+
     private static List<fr.jmmc.oitools.model.range.Range> getFilterRanges(final List<GenericFilter> filters, final String key) {
         List<fr.jmmc.oitools.model.range.Range> allRanges = null;
 
@@ -1903,6 +2515,11 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
      */
     public void fireOIFitsCollectionChanged(final Object source, final OIFitsCollectionManagerEventListener destination) {
         if (enableEvents) {
+            if (destination == null && batchDepth != 0) {
+                // deferred until commitBatchUpdate():
+                batchCollectionChanged = true;
+                return;
+            }
             if (logger.isDebugEnabled()) {
                 logger.debug("fireOIFitsCollectionChanged TO {}", (destination != null) ? destination : "ALL");
             }
@@ -2156,6 +2773,13 @@ public final class OIFitsCollectionManager implements OIFitsCollectionManagerEve
                 // update collection analysis:
                 oiFitsCollection.analyzeCollection();
 
+                // invalidate memoized selector results:
+                collectionVersion++;
+                selectorResultCache.clear();
+
+                // forget removed files:
+                oiFitsFileRegistry.retainAll(oiFitsCollection.getSortedOIFitsFiles());
+
                 // check and update references in OiDataCollection:
                 // initialize current objects: subsetDefinition, plotDefinition, plot if NOT PRESENT:
                 checkReferences();
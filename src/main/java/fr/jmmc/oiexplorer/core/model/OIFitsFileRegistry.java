@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.model.OIFitsFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the loaded OIFits files (local copies) to skip loading the same file twice:
+ * files are identified by their canonical path, size and last modified date (fast path)
+ * or by their content hash (XXH64 over the whole file) if the file at the same path was touched.
+ * Content hashes are only computed when the file registered at the same path has the same size (lazily for both files).
+ * Files at another path (copied or moved) are never shared: they are loaded again (their own path and source URI).
+ * This class is thread-safe (used by parallel load tasks).
+ *
+ * @author bourgesl
+ */
+final class OIFitsFileRegistry {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(OIFitsFileRegistry.class.getName());
+    /** read buffer size = 1 Mb */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    /* XXH64 primes */
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    /* members */
+    /** entries keyed by canonical path */
+    private final Map<String, Entry> entriesByPath = new HashMap<String, Entry>(64);
+    /** modification counter of entriesByPath */
+    private int version = 0;
+
+    /**
+     * Package-private constructor
+     */
+    OIFitsFileRegistry() {
+        super();
+    }
+
+    /**
+     * Return the already loaded OIFits file matching the given file stamp (same path, size and date)
+     * or the given file content (same path, size and hash computed if needed)
+     * @param stamp file stamp
+     * @return loaded OIFits file or null if not found
+     * @throws IOException if the file can not be read
+     */
+    OIFitsFile find(final FileStamp stamp) throws IOException {
+        final OIFitsFile oiFitsFile = findByPath(stamp);
+        if (oiFitsFile != null) {
+            return oiFitsFile;
+        }
+        return findByContent(stamp, getEntryWithSize(stamp));
+    }
+
+    /**
+     * Register the given loaded OIFits file or return the already registered one with the same path and content
+     * (loaded concurrently)
+     * @param stamp file stamp
+     * @param oiFitsFile loaded OIFits file
+     * @return registered OIFits file
+     * @throws IOException if a file can not be read
+     */
+    OIFitsFile register(final FileStamp stamp, final OIFitsFile oiFitsFile) throws IOException {
+        while (true) {
+            final int checkedVersion;
+            final Entry candidate;
+            synchronized (this) {
+                checkedVersion = version;
+                candidate = getEntryWithSize(stamp);
+            }
+            // hash outside the lock:
+            final OIFitsFile existing = findByContent(stamp, candidate);
+            if (existing != null) {
+                return existing;
+            }
+            synchronized (this) {
+                // check again if entries were modified meanwhile:
+                if (checkedVersion == version) {
+                    addEntry(new Entry(stamp, oiFitsFile));
+                    return oiFitsFile;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the entries whose OIFits file is not in the given collection
+     * @param oiFitsFiles OIFits files to keep
+     */
+    synchronized void retainAll(final Collection<OIFitsFile> oiFitsFiles) {
+        final Map<OIFitsFile, Boolean> kept = new IdentityHashMap<OIFitsFile, Boolean>(oiFitsFiles.size());
+        for (OIFitsFile oiFitsFile : oiFitsFiles) {
+            kept.put(oiFitsFile, Boolean.TRUE);
+        }
+        for (Iterator<Entry> it = entriesByPath.values().iterator(); it.hasNext();) {
+            if (!kept.containsKey(it.next().oiFitsFile)) {
+                it.remove();
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Clear the registry
+     */
+    synchronized void clear() {
+        entriesByPath.clear();
+        version++;
+    }
+
+    /**
+     * Return the OIFits file registered with the same path, size and date (no hash)
+     * @param stamp file stamp
+     * @return loaded OIFits file or null if not found
+     */
+    synchronized OIFitsFile findByPath(final FileStamp stamp) {
+        final Entry entry = entriesByPath.get(stamp.path);
+        if (entry != null && entry.stamp.size == stamp.size && entry.stamp.lastModified == stamp.lastModified) {
+            return entry.oiFitsFile;
+        }
+        return null;
+    }
+
+    /**
+     * Return the OIFits file of the given candidate (same path and size) if it has the same content (hash).
+     * Nothing is hashed if there is no candidate
+     * @param stamp file stamp
+     * @param candidate registered entry with the same path and file size or null
+     * @return loaded OIFits file or null if not found
+     * @throws IOException if a file can not be read
+     */
+    private OIFitsFile findByContent(final FileStamp stamp, final Entry candidate) throws IOException {
+        if (candidate == null) {
+            return null;
+        }
+        if (candidate.stamp.hasContent(stamp.getContentHash())) {
+            synchronized (this) {
+                // remember this date:
+                addEntry(new Entry(stamp, candidate.oiFitsFile));
+            }
+            return candidate.oiFitsFile;
+        }
+        return null;
+    }
+
+    /**
+     * Return the entry registered with the same path and file size
+     * @param stamp file stamp
+     * @return registered entry or null if not found
+     */
+    private synchronized Entry getEntryWithSize(final FileStamp stamp) {
+        final Entry entry = entriesByPath.get(stamp.path);
+        return (entry != null && entry.stamp.size == stamp.size) ? entry : null;
+    }
+
+    /**
+     * Add (or replace) the given entry
+     * @param entry entry to add
+     */
+    private void addEntry(final Entry entry) {
+        entriesByPath.put(entry.stamp.path, entry);
+        version++;
+    }
+
+    /**
+     * Compute the XXH64 hash (seed = 0) of the given file
+     * @param file file to read
+     * @return XXH64 hash
+     * @throws IOException if the file can not be read
+     */
+    static long hash(final File file) throws IOException {
+        final long start = System.nanoTime();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        long v1 = PRIME64_1 + PRIME64_2;
+        long v2 = PRIME64_2;
+        long v3 = 0L;
+        long v4 = -PRIME64_1;
+        long total = 0L;
+
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            for (int n; (n = channel.read(buffer)) >= 0;) {
+                total += n;
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    // 32 bytes stripes:
+                    while (buffer.remaining() >= 32) {
+                        v1 = round(v1, buffer.getLong());
+                        v2 = round(v2, buffer.getLong());
+                        v3 = round(v3, buffer.getLong());
+                        v4 = round(v4, buffer.getLong());
+                    }
+                    buffer.compact();
+                }
+            }
+        } finally {
+            channel.close();
+        }
+        buffer.flip();
+        while (buffer.remaining() >= 32) {
+            v1 = round(v1, buffer.getLong());
+            v2 = round(v2, buffer.getLong());
+            v3 = round(v3, buffer.getLong());
+            v4 = round(v4, buffer.getLong());
+        }
+
+        long h;
+        if (total >= 32L) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = PRIME64_5;
+        }
+        h += total;
+
+        // remaining bytes (< 32):
+        while (buffer.remaining() >= 8) {
+            h ^= round(0L, buffer.getLong());
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (buffer.remaining() >= 4) {
+            h ^= (buffer.getInt() & 0xFFFFFFFFL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+        }
+        while (buffer.hasRemaining()) {
+            h ^= (buffer.get() & 0xFFL) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+        }
+
+        // avalanche:
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("hash({}): {} bytes - duration = {} ms.", file, total, 1e-6d * (System.nanoTime() - start));
+        }
+        return h;
+    }
+
+    /**
+     * XXH64 round
+     * @param acc accumulator
+     * @param input input value
+     * @return updated accumulator
+     */
+    private static long round(long acc, final long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    /**
+     * XXH64 accumulator merge
+     * @param h hash
+     * @param acc accumulator
+     * @return updated hash
+     */
+    private static long merge(final long h, final long acc) {
+        return (h ^ round(0L, acc)) * PRIME64_1 + PRIME64_4;
+    }
+
+    /**
+     * Local file identification (canonical path, size, last modified date and lazy content hash)
+     */
+    static final class FileStamp {
+
+        /** file */
+        final File file;
+        /** canonical path */
+        final String path;
+        /** file size */
+        final long size;
+        /** last modified date */
+        final long lastModified;
+        /** content hash (lazy) */
+        private long contentHash = 0L;
+        /** true if the content hash is defined */
+        private boolean hasContentHash = false;
+
+        /**
+         * Protected constructor
+         * @param absFilePath absolute file path
+         * @throws IOException if the canonical path can not be resolved
+         */
+        FileStamp(final String absFilePath) throws IOException {
+            this.file = new File(absFilePath).getCanonicalFile();
+            this.path = file.getPath();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        /**
+         * Return the content hash (computed if needed)
+         * @return content hash
+         * @throws IOException if the file can not be read
+         */
+        synchronized long getContentHash() throws IOException {
+            if (!hasContentHash) {
+                contentHash = hash(file);
+                hasContentHash = true;
+            }
+            return contentHash;
+        }
+
+        /**
+         * Define the content hash (known from a snapshot)
+         * @param contentHash content hash
+         */
+        synchronized void setContentHash(final long contentHash) {
+            this.contentHash = contentHash;
+            this.hasContentHash = true;
+        }
+
+        /**
+         * Return true if this file has the given content hash.
+         * If its hash is unknown, it is only computed if the file is unchanged (same size and date)
+         * @param hash content hash to compare
+         * @return true if this file has the given content hash
+         * @throws IOException if the file can not be read
+         */
+        synchronized boolean hasContent(final long hash) throws IOException {
+            if (!hasContentHash && (file.length() != size || file.lastModified() != lastModified)) {
+                // modified since loaded: unknown content
+                return false;
+            }
+            return getContentHash() == hash;
+        }
+    }
+
+    /**
+     * Registry entry
+     */
+    private static final class Entry {
+
+        /** file stamp (lazy content hash) */
+        final FileStamp stamp;
+        /** loaded OIFits file */
+        final OIFitsFile oiFitsFile;
+
+        /**
+         * Protected constructor
+         * @param stamp file stamp
+         * @param oiFitsFile loaded OIFits file
+         */
+        Entry(final FileStamp stamp, final OIFitsFile oiFitsFile) {
+            this.stamp = stamp;
+            this.oiFitsFile = oiFitsFile;
+        }
+    }
+}
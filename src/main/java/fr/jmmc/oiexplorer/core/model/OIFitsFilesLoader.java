@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class loads several OIFits files (LoadOIFits task) one after another or using a bounded thread pool:
+ * each result is stored at its input position and progress is reported as soon as a file is completed.
+ * As OIFitsChecker is not thread-safe, parallel loads use one checker per file; then the files reporting any failure
+ * are checked again with the given checker, one after another in the input order, so the given checker gets
+ * the same report as a sequential load (valid files report nothing).
+ *
+ * @author bourgesl
+ */
+abstract class OIFitsFilesLoader {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(OIFitsFilesLoader.class.getName());
+
+    /* members */
+    /** file locations (absolute File Path or remote URL) */
+    private final List<String> fileLocations;
+    /** checker component (optional) */
+    private final OIFitsChecker checker;
+
+    /**
+     * Protected constructor
+     * @param fileLocations file locations (absolute File Path or remote URL)
+     * @param checker checker component (optional)
+     */
+    OIFitsFilesLoader(final List<String> fileLocations, final OIFitsChecker checker) {
+        this.fileLocations = fileLocations;
+        this.checker = checker;
+    }
+
+    /**
+     * Load the given OI Fits File with the given checker component (any failure is logged)
+     * @param fileLocation absolute File Path or remote URL
+     * @param fileChecker checker component (optional)
+     * @return loaded OIFits File or null if failed
+     */
+    abstract OIFitsFile loadFile(String fileLocation, OIFitsChecker fileChecker);
+
+    /**
+     * Report progress
+     * @param nDone number of completed files
+     * @param nFiles number of files
+     */
+    abstract void progress(int nDone, int nFiles);
+
+    /**
+     * Load files one after another in the current thread
+     * @return loaded files (null if failed) in the input order or null if interrupted
+     */
+    OIFitsFile[] loadSequential() {
+        final int size = fileLocations.size();
+        final OIFitsFile[] loaded = new OIFitsFile[size];
+
+        for (int i = 0; i < size; i++) {
+            // fast interrupt :
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            loaded[i] = loadFile(fileLocations.get(i), checker);
+
+            progress(i + 1, size);
+        }
+        return loaded;
+    }
+
+    /**
+     * Load files using a bounded thread pool (one checker per file) then check again the files reporting any failure
+     * with the given checker in the input order.
+     * If the current thread is interrupted (task cancelled), pending loads are cancelled too.
+     * @param nThreads number of threads
+     * @return loaded files (null if failed) in the input order or null if interrupted
+     */
+    OIFitsFile[] loadParallel(final int nThreads) {
+        final int size = fileLocations.size();
+        final OIFitsFile[] loaded = new OIFitsFile[size];
+        final OIFitsChecker[] checkers = (checker != null) ? new OIFitsChecker[size] : null;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(nThreads, LoadThreadFactory.INSTANCE);
+        try {
+            final CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(executor);
+
+            for (int i = 0; i < size; i++) {
+                final int index = i;
+                completion.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        // skip pending loads once cancelled:
+                        if (!Thread.currentThread().isInterrupted()) {
+                            // written before completion (happens-before future.get):
+                            final OIFitsChecker fileChecker = (checkers != null) ? new OIFitsChecker() : null;
+                            loaded[index] = loadFile(fileLocations.get(index), fileChecker);
+                            if (checkers != null) {
+                                checkers[index] = fileChecker;
+                            }
+                        }
+                        return Integer.valueOf(index);
+                    }
+                });
+            }
+
+            for (int n = 0; n < size; n++) {
+                // blocks until the next load completes (interrupted if cancelled):
+                completion.take().get();
+
+                progress(n + 1, size);
+            }
+        } catch (InterruptedException ie) {
+            logger.debug("loadParallel: interrupted");
+            return null;
+        } catch (ExecutionException ee) {
+            // unexpected (loadFile handles IOException):
+            throw new IllegalStateException("Unable to load files", ee.getCause());
+        } finally {
+            // cancel any pending load:
+            executor.shutdownNow();
+        }
+        if (checkers != null) {
+            // the same file (shared) is only reported once:
+            final Set<OIFitsFile> checked = Collections.newSetFromMap(new IdentityHashMap<OIFitsFile, Boolean>());
+
+            for (int i = 0; i < size; i++) {
+                if (checkers[i] != null && !checkers[i].getFailures().isEmpty()
+                        && (loaded[i] == null || checked.add(loaded[i]))) {
+                    checkAgain(fileLocations.get(i), loaded[i]);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Check again the given file with the given checker (sequential report)
+     * @param fileLocation absolute File Path or remote URL
+     * @param oiFitsFile loaded OIFits File or null if failed
+     */
+    private void checkAgain(final String fileLocation, final OIFitsFile oiFitsFile) {
+        logger.debug("checkAgain: {}", fileLocation);
+
+        if (oiFitsFile == null) {
+            // load failure (not registered): load it again
+            loadFile(fileLocation, checker);
+        } else {
+            // already registered: parse its local copy again (report only)
+            try {
+                OIFitsLoader.loadOIFits(checker, oiFitsFile.getAbsoluteFilePath());
+            } catch (IOException ioe) {
+                logger.info("Error reading file: {}", fileLocation, ioe);
+            } catch (FitsException fe) {
+                logger.info("Error reading file: {}", fileLocation, fe);
+            }
+        }
+    }
+
+    /**
+     * Daemon thread factory for the LoadOIFits thread pools
+     */
+    private static final class LoadThreadFactory implements ThreadFactory {
+
+        /** singleton */
+        static final LoadThreadFactory INSTANCE = new LoadThreadFactory();
+
+        /** thread counter */
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "LoadOIFits-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,689 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.fits.FitsHDU;
+import fr.jmmc.oitools.fits.FitsHeaderCard;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OITable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of binary snapshots of loaded OIFits files (keywords and column arrays of each table)
+ * to skip FITS parsing when the same unchanged file is loaded again (next session).
+ * Snapshots are validated by the canonical path, size and last modified date of the source file
+ * and read using memory-mapping.
+ *
+ * The content hash of the source file is stored too so the file registry does not hash restored files again.
+ *
+ * OIFITS 1 and 2 files made of the standard tables (OI_TARGET, OI_ARRAY, OI_WAVELENGTH, OI_CORR, OI_INSPOL,
+ * OI_VIS, OI_VIS2, OI_T3, OI_FLUX) and of a primary header without image are cached (with the header cards of every HDU);
+ * other files (images, IMAGE-OI) are always parsed. Derived columns are not stored (recomputed by analyze).
+ *
+ * The validation state of the parsed file (checker report empty or not) is stored too: files with a validation report
+ * (or never validated) are parsed again when a checker is given so the checker report is the same as without the cache.
+ * This class is thread-safe (used by parallel load tasks).
+ *
+ * @author bourgesl
+ */
+final class OIFitsSnapshotCache {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(OIFitsSnapshotCache.class.getName());
+    /** snapshot file extension */
+    private static final String SNAPSHOT_EXT = ".oisnap";
+    /** magic number */
+    private static final int MAGIC = 0x4F49534E; // OISN
+    /** format version (increment on any format change) */
+    private static final int FORMAT_VERSION = 3;
+    /* validation states */
+    private static final byte STATE_NOT_VALIDATED = 0;
+    private static final byte STATE_VALID = 1;
+    private static final byte STATE_FAILURES = 2;
+    /** supported table classes (OIFITS 1 and 2 tables) */
+    private static final Set<String> TABLE_CLASSES = new HashSet<String>(Arrays.asList(
+            "OITarget", "OIArray", "OIWavelength", "OICorr", "OIInspol", "OIVis", "OIVis2", "OIT3", "OIFlux"));
+    /** model package (table classes) */
+    private static final String MODEL_PACKAGE = OITable.class.getPackage().getName() + '.';
+    /* value tags */
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INTEGER = 2;
+    private static final byte TAG_SHORT = 3;
+    private static final byte TAG_FLOAT = 4;
+    private static final byte TAG_DOUBLE = 5;
+    private static final byte TAG_BOOLEAN = 6;
+    private static final byte TAG_LONG = 7;
+    private static final byte TAG_SHORTS = 10;
+    private static final byte TAG_INTS = 11;
+    private static final byte TAG_FLOATS = 12;
+    private static final byte TAG_DOUBLES = 13;
+    private static final byte TAG_BOOLEANS = 14;
+    private static final byte TAG_BYTES = 15;
+    private static final byte TAG_CHARS = 16;
+    private static final byte TAG_OBJECTS = 20;
+
+    /* members */
+    /** cache directory */
+    private final File directory;
+
+    /**
+     * Package-private constructor
+     * @param directory cache directory (created if needed)
+     */
+    OIFitsSnapshotCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Return the cache directory
+     * @return cache directory
+     */
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Load the snapshot of the given file if it is valid (same path, size and date)
+     * and define the content hash of the given stamp
+     * @param stamp source file stamp
+     * @param absFilePath absolute file path of the restored OIFits file
+     * @param validate true if the file must be validated (checker given): only files without any validation report are restored
+     * @return restored (analyzed) OIFits file or null if missing, invalid, outdated or to be validated
+     */
+    OIFitsFile load(final OIFitsFileRegistry.FileStamp stamp, final String absFilePath, final boolean validate) {
+        final File snapshot = getSnapshotFile(stamp);
+        if (!snapshot.isFile()) {
+            return null;
+        }
+        final long start = System.nanoTime();
+        try {
+            final FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ);
+            try {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+
+                if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                        || !stamp.path.equals(readString(buffer))
+                        || buffer.getLong() != stamp.size || buffer.getLong() != stamp.lastModified) {
+                    logger.debug("outdated snapshot: {}", snapshot);
+                    return null;
+                }
+                final long contentHash = buffer.getLong();
+                final byte state = buffer.get();
+
+                if (validate && state != STATE_VALID) {
+                    // parse the file again to get its validation report:
+                    logger.debug("snapshot not validated or with failures: {}", snapshot);
+                    return null;
+                }
+
+                final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.valueOf(readString(buffer)), absFilePath);
+
+                final String primaryClassName = readString(buffer);
+                if (primaryClassName != null) {
+                    final FitsImageHDU primaryHDU = createPrimaryHDU(primaryClassName);
+                    readValues(buffer, primaryHDU.getKeywordsValue());
+                    readHeaderCards(buffer, primaryHDU);
+
+                    oiFitsFile.getFitsImageHDUs().add(primaryHDU);
+                }
+
+                final int nTables = buffer.getInt();
+                final int[] extNbs = new int[nTables];
+                final List<OITable> tables = new ArrayList<OITable>(nTables);
+
+                for (int i = 0; i < nTables; i++) {
+                    final String className = readString(buffer);
+                    final String insName = readString(buffer);
+                    final int nbRows = buffer.getInt();
+                    extNbs[i] = buffer.getInt();
+
+                    final OITable table = createTable(oiFitsFile, className, insName, nbRows);
+                    readValues(buffer, table.getKeywordsValue());
+                    readValues(buffer, table.getColumnsValue());
+                    readHeaderCards(buffer, table);
+
+                    // add tables in order (OI_WAVELENGTH before OIData):
+                    oiFitsFile.addOiTable(table);
+                    tables.add(table);
+                }
+                for (int i = 0; i < nTables; i++) {
+                    tables.get(i).setExtNb(extNbs[i]);
+                }
+
+                oiFitsFile.analyze();
+
+                stamp.setContentHash(contentHash);
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("load snapshot {}: duration = {} ms.", snapshot, 1e-6d * (System.nanoTime() - start));
+                }
+                return oiFitsFile;
+
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ioe) {
+            logger.info("Unable to read snapshot: {}", snapshot, ioe);
+        } catch (RuntimeException re) {
+            // corrupted snapshot (BufferUnderflowException, IllegalArgumentException, ClassNotFoundException wrapped ...):
+            logger.info("Invalid snapshot: {}", snapshot, re);
+        }
+        return null;
+    }
+
+    /**
+     * Save the snapshot of the given loaded file (if supported) with its content hash (computed if needed)
+     * and its validation state; any failure is logged
+     * @param stamp source file stamp
+     * @param oiFitsFile loaded OIFits file
+     * @param valid true if the checker report of the file is empty, false if not, null if the file was not validated
+     */
+    void save(final OIFitsFileRegistry.FileStamp stamp, final OIFitsFile oiFitsFile, final Boolean valid) {
+        final List<OITable> tables = getSupportedTables(oiFitsFile);
+        if (tables == null) {
+            logger.debug("snapshot not supported: {}", stamp.path);
+            return;
+        }
+        final long start = System.nanoTime();
+
+        final File snapshot = getSnapshotFile(stamp);
+        File tmpFile = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create the cache directory: " + directory);
+            }
+            tmpFile = File.createTempFile("snapshot", ".tmp", directory);
+
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, stamp.path);
+                out.writeLong(stamp.size);
+                out.writeLong(stamp.lastModified);
+                out.writeLong(stamp.getContentHash());
+                out.writeByte((valid == null) ? STATE_NOT_VALIDATED : (valid.booleanValue()) ? STATE_VALID : STATE_FAILURES);
+                writeString(out, oiFitsFile.getVersion().name());
+
+                final FitsImageHDU primaryHDU = oiFitsFile.getPrimaryImageHDU();
+                if (primaryHDU == null) {
+                    writeString(out, null);
+                } else {
+                    writeString(out, primaryHDU.getClass().getName());
+                    writeValues(out, primaryHDU.getKeywordsValue());
+                    writeHeaderCards(out, primaryHDU);
+                }
+
+                out.writeInt(tables.size());
+
+                for (OITable table : tables) {
+                    writeString(out, table.getClass().getSimpleName());
+                    writeString(out, (table instanceof OIData) ? ((OIData) table).getInsName() : null);
+                    out.writeInt(table.getNbRows());
+                    out.writeInt(table.getExtNb());
+
+                    writeValues(out, table.getKeywordsValue());
+                    writeValues(out, table.getColumnsValue());
+                    writeHeaderCards(out, table);
+                }
+            } finally {
+                out.close();
+            }
+            // atomic replace (concurrent readers see the old or new snapshot):
+            Files.move(tmpFile.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmpFile = null;
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("save snapshot {}: duration = {} ms.", snapshot, 1e-6d * (System.nanoTime() - start));
+            }
+        } catch (IOException ioe) {
+            logger.info("Unable to write snapshot: {}", snapshot, ioe);
+        } finally {
+            if (tmpFile != null && !tmpFile.delete()) {
+                logger.debug("Unable to delete: {}", tmpFile);
+            }
+        }
+    }
+
+    /**
+     * Remove all snapshots
+     */
+    void clear() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(SNAPSHOT_EXT) && !file.delete()) {
+                    logger.info("Unable to delete: {}", file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the snapshot file of the given source file (hash of its canonical path)
+     * @param stamp source file stamp
+     * @return snapshot file
+     */
+    private File getSnapshotFile(final OIFitsFileRegistry.FileStamp stamp) {
+        final byte[] path = stamp.path.getBytes(StandardCharsets.UTF_8);
+        // FNV-1a 64 bits:
+        long h = 0xcbf29ce484222325L;
+        for (byte b : path) {
+            h ^= (b & 0xFF);
+            h *= 0x100000001b3L;
+        }
+        return new File(directory, stamp.file.getName() + '-' + Long.toHexString(h) + SNAPSHOT_EXT);
+    }
+
+    /**
+     * Return the tables to store (reference tables first) or null if the file is not supported
+     * @param oiFitsFile loaded OIFits file
+     * @return tables to store or null if not supported
+     */
+    private static List<OITable> getSupportedTables(final OIFitsFile oiFitsFile) {
+        // only the primary header is stored (no image):
+        final FitsImageHDU primaryHDU = oiFitsFile.getPrimaryImageHDU();
+        if ((oiFitsFile.getImageHDUCount() != ((primaryHDU != null) ? 1 : 0))
+                || ((primaryHDU != null) && (primaryHDU.getImageCount() != 0))
+                || (oiFitsFile.getExistingImageOiData() != null)) {
+            return null;
+        }
+        final List<OITable> refTables = new ArrayList<OITable>();
+        final List<OITable> dataTables = new ArrayList<OITable>();
+
+        for (OITable table : oiFitsFile.getOITableList()) {
+            if (getTableConstructor(table.getClass()) == null) {
+                return null;
+            }
+            if (table instanceof OIData) {
+                dataTables.add(table);
+            } else {
+                refTables.add(table);
+            }
+        }
+        refTables.addAll(dataTables);
+        return refTables;
+    }
+
+    /**
+     * Return the constructor (OIFitsFile, insName, nbRows) for OIData tables
+     * or (OIFitsFile, nbRows) for other tables of the given supported table class
+     * @param type table class
+     * @return constructor or null if unsupported
+     */
+    private static Constructor<?> getTableConstructor(final Class<?> type) {
+        if (!type.getName().equals(MODEL_PACKAGE + type.getSimpleName()) || !TABLE_CLASSES.contains(type.getSimpleName())) {
+            return null;
+        }
+        try {
+            if (OIData.class.isAssignableFrom(type)) {
+                return type.getConstructor(OIFitsFile.class, String.class, int.class);
+            }
+            return type.getConstructor(OIFitsFile.class, int.class);
+        } catch (NoSuchMethodException nsme) {
+            logger.debug("unsupported table: {}", type, nsme);
+        }
+        return null;
+    }
+
+    /**
+     * Create an empty table of the given type
+     * @param oiFitsFile OIFits file
+     * @param className table class name (simple name)
+     * @param insName instrument name (OIData tables)
+     * @param nbRows number of rows
+     * @return new table
+     * @throws IllegalArgumentException if the table type is not supported
+     */
+    private static OITable createTable(final OIFitsFile oiFitsFile, final String className, final String insName, final int nbRows) {
+        final Constructor<?> constructor;
+        try {
+            constructor = getTableConstructor(Class.forName(MODEL_PACKAGE + className));
+        } catch (ClassNotFoundException cnfe) {
+            throw new IllegalArgumentException("Unsupported table: " + className, cnfe);
+        }
+        if (constructor == null) {
+            throw new IllegalArgumentException("Unsupported table: " + className);
+        }
+        try {
+            if (insName != null) {
+                return (OITable) constructor.newInstance(oiFitsFile, insName, nbRows);
+            }
+            return (OITable) constructor.newInstance(oiFitsFile, nbRows);
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalArgumentException("Unable to create the table: " + className, roe);
+        }
+    }
+
+    /**
+     * Create an empty primary HDU of the given class (FitsImageHDU or OIFITS 2 primary header)
+     * @param className primary HDU class name
+     * @return new primary HDU
+     * @throws IllegalArgumentException if the class is not supported
+     */
+    private static FitsImageHDU createPrimaryHDU(final String className) {
+        try {
+            final Class<?> type = Class.forName(className);
+            if (!FitsImageHDU.class.isAssignableFrom(type) || !className.startsWith("fr.jmmc.oitools.")) {
+                throw new IllegalArgumentException("Unsupported primary HDU: " + className);
+            }
+            return (FitsImageHDU) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalArgumentException("Unable to create the primary HDU: " + className, roe);
+        }
+    }
+
+    /**
+     * Write the header cards (non standard keywords) of the given HDU
+     * @param out output
+     * @param hdu HDU
+     * @throws IOException if an I/O exception occurred
+     */
+    private static void writeHeaderCards(final DataOutputStream out, final FitsHDU hdu) throws IOException {
+        if (!hdu.hasHeaderCards()) {
+            out.writeInt(0);
+        } else {
+            final List<FitsHeaderCard> cards = hdu.getHeaderCards();
+            out.writeInt(cards.size());
+            for (FitsHeaderCard card : cards) {
+                writeString(out, card.getKey());
+                writeString(out, card.getValue());
+                writeString(out, card.getComment());
+            }
+        }
+    }
+
+    /**
+     * Read header cards (non standard keywords) into the given HDU
+     * @param buffer input
+     * @param hdu HDU
+     */
+    private static void readHeaderCards(final ByteBuffer buffer, final FitsHDU hdu) {
+        final int len = buffer.getInt();
+        if (len != 0) {
+            final List<FitsHeaderCard> cards = hdu.getHeaderCards();
+            cards.clear();
+            for (int i = 0; i < len; i++) {
+                cards.add(new FitsHeaderCard(readString(buffer), readString(buffer), readString(buffer)));
+            }
+        }
+    }
+
+    /**
+     * Write the given values (keywords or columns)
+     * @param out output
+     * @param values values keyed by name
+     * @throws IOException if an I/O exception occurred
+     */
+    private static void writeValues(final DataOutputStream out, final Map<String, Object> values) throws IOException {
+        out.writeInt(values.size());
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            writeString(out, e.getKey());
+            writeValue(out, e.getValue());
+        }
+    }
+
+    /**
+     * Read values (keywords or columns) into the given map
+     * @param buffer input
+     * @param values values keyed by name
+     */
+    private static void readValues(final ByteBuffer buffer, final Map<String, Object> values) {
+        final int len = buffer.getInt();
+        final Map<String, Object> read = new LinkedHashMap<String, Object>(len * 2);
+        for (int i = 0; i < len; i++) {
+            final String name = readString(buffer);
+            read.put(name, readValue(buffer));
+        }
+        values.clear();
+        values.putAll(read);
+    }
+
+    /**
+     * Write the given value (boxed scalar, string or array of any dimension)
+     * @param out output
+     * @param value value to write
+     * @throws IOException if an I/O exception occurred or the value type is not supported
+     */
+    private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Short) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof short[]) {
+            final short[] array = (short[]) value;
+            out.writeByte(TAG_SHORTS);
+            out.writeInt(array.length);
+            for (short v : array) {
+                out.writeShort(v);
+            }
+        } else if (value instanceof int[]) {
+            final int[] array = (int[]) value;
+            out.writeByte(TAG_INTS);
+            out.writeInt(array.length);
+            for (int v : array) {
+                out.writeInt(v);
+            }
+        } else if (value instanceof float[]) {
+            final float[] array = (float[]) value;
+            out.writeByte(TAG_FLOATS);
+            out.writeInt(array.length);
+            for (float v : array) {
+                out.writeFloat(v);
+            }
+        } else if (value instanceof double[]) {
+            final double[] array = (double[]) value;
+            out.writeByte(TAG_DOUBLES);
+            out.writeInt(array.length);
+            for (double v : array) {
+                out.writeDouble(v);
+            }
+        } else if (value instanceof boolean[]) {
+            final boolean[] array = (boolean[]) value;
+            out.writeByte(TAG_BOOLEANS);
+            out.writeInt(array.length);
+            for (boolean v : array) {
+                out.writeBoolean(v);
+            }
+        } else if (value instanceof byte[]) {
+            final byte[] array = (byte[]) value;
+            out.writeByte(TAG_BYTES);
+            out.writeInt(array.length);
+            out.write(array);
+        } else if (value instanceof char[]) {
+            final char[] array = (char[]) value;
+            out.writeByte(TAG_CHARS);
+            out.writeInt(array.length);
+            for (char v : array) {
+                out.writeChar(v);
+            }
+        } else if (value instanceof Object[]) {
+            // String[], double[][], float[][][] ...:
+            final Object[] array = (Object[]) value;
+            out.writeByte(TAG_OBJECTS);
+            writeString(out, array.getClass().getComponentType().getName());
+            out.writeInt(array.length);
+            for (Object v : array) {
+                writeValue(out, v);
+            }
+        } else {
+            throw new IOException("Unsupported value type: " + value.getClass());
+        }
+    }
+
+    /**
+     * Read a value (boxed scalar, string or array of any dimension)
+     * @param buffer input
+     * @return value
+     */
+    private static Object readValue(final ByteBuffer buffer) {
+        final byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(buffer);
+            case TAG_INTEGER:
+                return Integer.valueOf(buffer.getInt());
+            case TAG_SHORT:
+                return Short.valueOf(buffer.getShort());
+            case TAG_FLOAT:
+                return Float.valueOf(buffer.getFloat());
+            case TAG_DOUBLE:
+                return Double.valueOf(buffer.getDouble());
+            case TAG_BOOLEAN:
+                return Boolean.valueOf(buffer.get() != 0);
+            case TAG_LONG:
+                return Long.valueOf(buffer.getLong());
+            case TAG_SHORTS: {
+                final short[] array = new short[buffer.getInt()];
+                buffer.asShortBuffer().get(array);
+                buffer.position(buffer.position() + 2 * array.length);
+                return array;
+            }
+            case TAG_INTS: {
+                final int[] array = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(array);
+                buffer.position(buffer.position() + 4 * array.length);
+                return array;
+            }
+            case TAG_FLOATS: {
+                final float[] array = new float[buffer.getInt()];
+                buffer.asFloatBuffer().get(array);
+                buffer.position(buffer.position() + 4 * array.length);
+                return array;
+            }
+            case TAG_DOUBLES: {
+                final double[] array = new double[buffer.getInt()];
+                buffer.asDoubleBuffer().get(array);
+                buffer.position(buffer.position() + 8 * array.length);
+                return array;
+            }
+            case TAG_BOOLEANS: {
+                final boolean[] array = new boolean[buffer.getInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (buffer.get() != 0);
+                }
+                return array;
+            }
+            case TAG_BYTES: {
+                final byte[] array = new byte[buffer.getInt()];
+                buffer.get(array);
+                return array;
+            }
+            case TAG_CHARS: {
+                final char[] array = new char[buffer.getInt()];
+                buffer.asCharBuffer().get(array);
+                buffer.position(buffer.position() + 2 * array.length);
+                return array;
+            }
+            case TAG_OBJECTS: {
+                final Class<?> componentType = getClass(readString(buffer));
+                final int len = buffer.getInt();
+                final Object[] array = (Object[]) Array.newInstance(componentType, len);
+                for (int i = 0; i < len; i++) {
+                    array[i] = readValue(buffer);
+                }
+                return array;
+            }
+            default:
+                throw new IllegalArgumentException("Invalid value tag: " + tag);
+        }
+    }
+
+    /**
+     * Return the class (array or String) given its name
+     * @param name class name
+     * @return class
+     */
+    private static Class<?> getClass(final String name) {
+        if (String.class.getName().equals(name)) {
+            return String.class;
+        }
+        if (!name.startsWith("[")) {
+            throw new IllegalArgumentException("Unsupported component type: " + name);
+        }
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException cnfe) {
+            throw new IllegalArgumentException("Unsupported component type: " + name, cnfe);
+        }
+    }
+
+    /**
+     * Write the given string (UTF-8) or null
+     * @param out output
+     * @param value string or null
+     * @throws IOException if an I/O exception occurred
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a string (UTF-8) or null
+     * @param buffer input
+     * @return string or null
+     */
+    private static String readString(final ByteBuffer buffer) {
+        final int len = buffer.getInt();
+        if (len < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[len];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -4,10 +4,7 @@
 package fr.jmmc.oiexplorer.core.util;
 
 import fr.jmmc.jmal.ALX;
-import fr.jmmc.jmal.image.ImageArrayUtils;
-import fr.jmmc.jmal.image.job.ImageLowerThresholdJob;
 import fr.jmmc.jmal.image.job.ImageMinMaxJob;
-import fr.jmmc.jmal.image.job.ImageNormalizeJob;
 import fr.jmmc.jmcs.util.NumberUtils;
 import fr.jmmc.oitools.image.FitsImage;
 import fr.jmmc.oitools.image.FitsImageFile;
@@ -21,6 +18,10 @@ import fr.nom.tam.fits.FitsException;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +38,8 @@ public final class FitsImageUtils {
     /** Logger associated to image classes */
     private final static Logger logger = LoggerFactory.getLogger(FitsImageUtils.class.getName());
 
-    public final static int MAX_IMAGE_SIZE = 4096;
+    /** maximum image size (pixels): large images are displayed from a tile pyramid (FitsImagePanel) */
+    public final static int MAX_IMAGE_SIZE = 16384;
 
     /** Smallest positive number used in double comparisons (rounding). */
     public final static double MAS_EPSILON = 1e-6d * ALX.MILLI_ARCSEC_IN_DEGREES;
@@ -208,75 +210,104 @@ public final class FitsImageUtils {
     }
 
     /**
-     * Prepare the given image and Update the given FitsImage by the prepared FitsImage ready for display
+     * Prepare the given image and Update the given FitsImage by the prepared FitsImage ready for display:
+     * ignore negative values, normalize data (total flux) and make the image square (even size)
+     * using at most 2 passes over the data (statistics then threshold / normalize / padding copy)
      * @param fitsImage FitsImage to process
      * @throws IllegalArgumentException if image has invalid keyword(s) / data
      */
     public static void prepareImage(final FitsImage fitsImage) throws IllegalArgumentException {
         if (fitsImage != null) {
-            if (!fitsImage.isDataRangeDefined()) {
-                // update boundaries excluding zero values:
-                updateDataRangeExcludingZero(fitsImage);
-            }
+            final long start = System.nanoTime();
 
             // in place modifications:
-            float[][] data = fitsImage.getData();
-            int nbRows = fitsImage.getNbRows();
-            int nbCols = fitsImage.getNbCols();
+            final float[][] data = fitsImage.getData();
+            final int nbRows = fitsImage.getNbRows();
+            final int nbCols = fitsImage.getNbCols();
 
             logger.info("Image size: {} x {}", nbRows, nbCols);
 
             // 1 - Ignore negative values:
-            // TODO: fix special case: image is [0] !
-            if (fitsImage.getDataMax() <= 0.0) {
-                throw new IllegalArgumentException("Fits image [" + fitsImage.getFitsImageIdentifier() + "] has only negative data !");
-            }
-            if (fitsImage.getDataMin() < 0.0) {
-                final float threshold = 0f;
+            boolean hasNegative = false;
 
-                final ImageLowerThresholdJob thresholdJob = new ImageLowerThresholdJob(data, nbCols, nbRows, threshold, 0f);
-                logger.info("ImageLowerThresholdJob - threshold = {} (ignore negative values)", threshold);
+            if (!fitsImage.isDataRangeDefined() || fitsImage.getDataMin() < 0.0) {
+                // pass 1: update boundaries excluding zero and negative values:
+                final ImagePrepareKernel.Stats stats = ImagePrepareKernel.stats(data, nbCols, nbRows);
 
-                thresholdJob.forkAndJoin();
+                if (logger.isInfoEnabled()) {
+                    logger.info("ImagePrepareKernel min: {} - max: {} - nData: {} - sum: {} - negative values: {}",
+                            stats.min, stats.max, stats.nData, stats.sum, stats.nNegative);
+                }
 
-                logger.info("ImageLowerThresholdJob - updateCount: {}", thresholdJob.getUpdateCount());
+                // TODO: fix special case: image is [0] !
+                if (stats.nData == 0) {
+                    throw new IllegalArgumentException("Fits image [" + fitsImage.getFitsImageIdentifier() + "] has only negative data !");
+                }
+                hasNegative = (stats.nNegative != 0);
 
-                // update boundaries excluding zero values:
-                FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
+                fitsImage.setNData(stats.nData);
+                fitsImage.setSum(stats.sum);
+                fitsImage.setDataMin(stats.min);
+                fitsImage.setDataMax(stats.max);
+
+            } else if (fitsImage.getDataMax() <= 0.0) {
+                throw new IllegalArgumentException("Fits image [" + fitsImage.getFitsImageIdentifier() + "] has only negative data !");
             }
 
             // 2 - Normalize data (total flux):
-            if (fitsImage.getSum() > 0.0 && !NumberUtils.equals(fitsImage.getSum(), 1.0, 1e-3)) {
-                final double normFactor = 1d / fitsImage.getSum();
+            final double normFactor = (fitsImage.getSum() > 0.0 && !NumberUtils.equals(fitsImage.getSum(), 1.0, 1e-3))
+                    ? 1d / fitsImage.getSum() : 1d;
+
+            // 3 - Make sure the image is square i.e. padding (width = height = even number):
+            final int size = Math.max(nbRows, nbCols);
+            final int newSize = (size % 2 != 0) ? size + 1 : size;
 
-                final ImageNormalizeJob normJob = new ImageNormalizeJob(data, nbCols, nbRows, normFactor);
-                logger.info("ImageNormalizeJob - factor: {}", normFactor);
+            final boolean padRows = (newSize != nbRows);
+            final boolean padCols = (newSize != nbCols);
+            final int rowOffset = (newSize - nbRows) / 2;
+            final int colOffset = (padCols) ? (newSize - nbCols) / 2 : 0;
 
-                normJob.forkAndJoin();
+            float[][] output = data;
 
-                // update boundaries excluding zero values:
-                FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
+            if (padRows || padCols) {
+                output = new float[newSize][];
+                if (!padCols) {
+                    // keep existing rows (no copy):
+                    System.arraycopy(data, 0, output, rowOffset, nbRows);
+                }
+                for (int j = 0; j < newSize; j++) {
+                    if (output[j] == null) {
+                        output[j] = new float[newSize];
+                    }
+                }
             }
 
-            // 3 - Make sure the image is square i.e. padding (width = height = even number):
-            final int size = Math.max(nbRows, nbCols);
-            final int newSize = (size % 2 != 0) ? size + 1 : size;
+            // pass 2: threshold, normalize and copy into padded rows at once:
+            if (hasNegative || (normFactor != 1d) || padCols) {
+                logger.info("ImagePrepareKernel - threshold: {} - factor: {} - padding: {}", hasNegative, normFactor, padCols);
 
-            if (newSize != nbRows || newSize != nbCols) {
-                data = ImageArrayUtils.enlarge(nbRows, nbCols, data, newSize, newSize);
+                final double sum = ImagePrepareKernel.apply(data, nbCols, nbRows, normFactor, output, rowOffset, colOffset);
+                fitsImage.setSum(sum);
 
+                if (normFactor != 1d) {
+                    // same rounding as data values:
+                    fitsImage.setDataMin((float) (((float) fitsImage.getDataMin()) * normFactor));
+                    fitsImage.setDataMax((float) (((float) fitsImage.getDataMax()) * normFactor));
+                }
+            }
+
+            if (output != data) {
                 // update data/dataMin/dataMax:
-                FitsImageUtils.updateFitsImage(fitsImage, data, fitsImage.getDataMin(), fitsImage.getDataMax());
+                FitsImageUtils.updateFitsImage(fitsImage, output, fitsImage.getDataMin(), fitsImage.getDataMax());
 
                 // update ref pixel:
                 fitsImage.setPixRefRow(fitsImage.getPixRefRow() + ((newSize - nbRows) / 2.0));
                 fitsImage.setPixRefCol(fitsImage.getPixRefCol() + ((newSize - nbCols) / 2.0));
 
-                nbRows = fitsImage.getNbRows();
-                nbCols = fitsImage.getNbCols();
-
-                logger.info("Square size = {} x {}", nbRows, nbCols);
+                logger.info("Square size = {} x {}", fitsImage.getNbRows(), fitsImage.getNbCols());
             }
+
+            logger.info("prepareImage: duration = {} ms.", 1e-6d * (System.nanoTime() - start));
         }
     }
 
@@ -313,6 +344,20 @@ public final class FitsImageUtils {
         updateDataRange(fitsImage, true);
     }
 
+    /** 
+     * Return the data Min/Max of the given fitsImage excluding values equals to zero (fitsImage is not modified)
+     * @param fitsImage fitsImage to process
+     * @return [min, max]
+     */
+    public static float[] getDataRangeExcludingZero(final FitsImage fitsImage) {
+        final ImageMinMaxJob minMaxJob = new ImageMinMaxJob(fitsImage.getData(),
+                fitsImage.getNbCols(), fitsImage.getNbRows(), true);
+
+        minMaxJob.forkAndJoin();
+
+        return new float[]{(float) minMaxJob.getMin(), (float) minMaxJob.getMax()};
+    }
+
     /** 
      * Update the data Min/Max of the given fitsImage
      * @param fitsImage fits image to process and update
@@ -580,31 +625,81 @@ public final class FitsImageUtils {
             throw new IllegalStateException("Invalid size: " + newSize);
         }
         if (hdu != null && hdu.hasImages()) {
-            for (FitsImage fitsImage : hdu.getFitsImages()) {
-                // First modify image:
-                resampleImage(fitsImage, newSize, filter);
+            final List<FitsImage> fitsImages = hdu.getFitsImages();
+            final int nImages = fitsImages.size();
+
+            final long start = System.nanoTime();
+
+            // resample cube slices concurrently: each slice is updated as soon as it is resized
+            // so only the slices in progress (at most the common pool parallelism) hold both arrays:
+            if ((nImages > 1) && (ForkJoinPool.getCommonPoolParallelism() > 1)) {
+                // fork:
+                final List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(nImages);
+                for (int i = 0; i < nImages; i++) {
+                    final FitsImage fitsImage = fitsImages.get(i);
+                    tasks.add(ForkJoinPool.commonPool().submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            resampleImage(fitsImage, newSize, filter);
+                        }
+                    }));
+                }
+                // join (propagates any runtime exception):
+                try {
+                    for (ForkJoinTask<?> task : tasks) {
+                        task.join();
+                    }
+                } finally {
+                    for (ForkJoinTask<?> task : tasks) {
+                        task.quietlyJoin();
+                    }
+                }
+            } else {
+                for (int i = 0; i < nImages; i++) {
+                    resampleImage(fitsImages.get(i), newSize, filter);
+                }
             }
+
+            logger.info("resampleImages: {} images - duration = {} ms.", nImages, 1e-6d * (System.nanoTime() - start));
         }
     }
 
     private static void resampleImage(final FitsImage fitsImage, final int newSize, final Filter filter) {
         if (fitsImage != null) {
-            final float[][] data = fitsImage.getData();
-            final int nbRows = fitsImage.getNbRows();
-            final int nbCols = fitsImage.getNbCols();
+            updateResampledImage(fitsImage, newSize, resampleData(fitsImage, newSize, filter));
+        }
+    }
 
-            final double[][] imgDbl = ArrayConvert.toDoubles(nbRows, nbCols, data);
-            if (logger.isDebugEnabled()) {
-                logger.debug("resampleImage: input [{} x {}] dest [{} x {}]", nbCols, nbRows, newSize, newSize);
-            }
+    private static float[][] resampleData(final FitsImage fitsImage, final int newSize, final Filter filter) {
+        if (fitsImage == null) {
+            return null;
+        }
+        final float[][] data = fitsImage.getData();
+        final int nbRows = fitsImage.getNbRows();
+        final int nbCols = fitsImage.getNbCols();
 
-            final long start = System.nanoTime();
+        if (logger.isDebugEnabled()) {
+            logger.debug("resampleImage: input [{} x {}] dest [{} x {}]", nbCols, nbRows, newSize, newSize);
+        }
+
+        if (FloatResampler.isSupported(filter)) {
+            // float precision, parallel row / column passes:
+            return FloatResampler.filter(data, nbRows, nbCols, newSize, newSize, filter, true); // only positive flux
+        }
+        // other filters: use the oitools resampler (double precision):
+        final double[][] imgDbl = ArrayConvert.toDoubles(nbRows, nbCols, data);
+
+        final double[][] imgResized = Resampler.filter(imgDbl, new double[newSize][newSize], filter, true); // only positive flux
 
-            final double[][] imgResized = Resampler.filter(imgDbl, new double[newSize][newSize], filter, true); // only positive flux
+        return ArrayConvert.toFloats(newSize, newSize, imgResized);
+    }
 
-            logger.info("resampleImage: duration = {} ms.", 1e-6d * (System.nanoTime() - start));
+    private static void updateResampledImage(final FitsImage fitsImage, final int newSize, final float[][] imgResized) {
+        if (fitsImage != null) {
+            final int nbRows = fitsImage.getNbRows();
+            final int nbCols = fitsImage.getNbCols();
 
-            updateFitsImage(fitsImage, ArrayConvert.toFloats(newSize, newSize, imgResized));
+            updateFitsImage(fitsImage, imgResized);
 
             // Preserve origin:
             // origin = - inc * ( ref - 1 )
@@ -0,0 +1,422 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.util;
+
+import fr.jmmc.oitools.processing.Resampler.Filter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class is a separable image resampler working on float arrays (no double conversion):
+ * kernel weights are precomputed once per output column / row like the oitools Resampler (same kernel support,
+ * kernel widened when downsampling, source pixels reflected at edges, weights normalized by their sum),
+ * then the horizontal pass (rows) and the vertical pass (output rows) run in parallel (fork/join).
+ * Supported filters: box, triangle, Mitchell, Lanczos 2 and 3;
+ * other filters are not supported (see isSupported) and must use the oitools Resampler.
+ *
+ * @author bourgesl
+ */
+final class FloatResampler {
+
+    /** minimum number of output pixels per parallel task */
+    private static final int PARALLEL_PIXELS = 32 * 1024;
+
+    /**
+     * Forbidden constructor
+     */
+    private FloatResampler() {
+        super();
+    }
+
+    /**
+     * Return true if the given filter is supported
+     * @param filter filter
+     * @return true if the given filter is supported
+     */
+    static boolean isSupported(final Filter filter) {
+        return getKernel(filter) != null;
+    }
+
+    /**
+     * Resample the given image
+     * @param data image data as float[nbRows][nbCols]
+     * @param nbRows number of rows
+     * @param nbCols number of columns
+     * @param newRows number of output rows
+     * @param newCols number of output columns
+     * @param filter filter (must be supported)
+     * @param positive true to set negative values to 0 (only positive flux)
+     * @return resampled image as float[newRows][newCols]
+     * @throws IllegalArgumentException if the filter is not supported
+     */
+    static float[][] filter(final float[][] data, final int nbRows, final int nbCols, final int newRows, final int newCols,
+                            final Filter filter, final boolean positive) throws IllegalArgumentException {
+        final Kernel kernel = getKernel(filter);
+        if (kernel == null) {
+            throw new IllegalArgumentException("Unsupported filter: " + filter);
+        }
+        final Weights colWeights = new Weights(kernel, nbCols, newCols);
+        final Weights rowWeights = new Weights(kernel, nbRows, newRows);
+
+        // horizontal pass: [nbRows][newCols]
+        final float[][] tmp = new float[nbRows][newCols];
+        // vertical pass: [newRows][newCols]
+        final float[][] output = new float[newRows][newCols];
+
+        final boolean parallel = (ForkJoinPool.getCommonPoolParallelism() > 1)
+                && (((long) Math.max(nbRows, newRows)) * newCols > 2L * PARALLEL_PIXELS);
+
+        final PassTask rowPass = new PassTask(true, data, tmp, colWeights, newCols, positive, 0, nbRows);
+        final PassTask colPass = new PassTask(false, tmp, output, rowWeights, newCols, positive, 0, newRows);
+
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(rowPass);
+            ForkJoinPool.commonPool().invoke(colPass);
+        } else {
+            rowPass.process();
+            colPass.process();
+        }
+        return output;
+    }
+
+    /**
+     * Return the kernel corresponding to the given filter (same kernels and supports as the oitools Resampler)
+     * @param filter filter
+     * @return kernel or null if not supported
+     */
+    private static Kernel getKernel(final Filter filter) {
+        if (filter == null) {
+            return null;
+        }
+        switch (filter) {
+            case FILTER_BOX:
+                return new BoxKernel();
+            case FILTER_TRIANGLE:
+                return new TentKernel();
+            case FILTER_MITCHELL:
+                return new CubicKernel(1.0 / 3.0, 1.0 / 3.0);
+            case FILTER_LANCZOS2:
+                return new LanczosKernel(2);
+            case FILTER_LANCZOS3:
+                return new LanczosKernel(3);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Filter kernel
+     */
+    private abstract static class Kernel {
+
+        /** kernel support (radius) */
+        final double support;
+
+        /**
+         * Protected constructor
+         * @param support kernel support (radius)
+         */
+        Kernel(final double support) {
+            this.support = support;
+        }
+
+        /**
+         * Evaluate the kernel
+         * @param x distance
+         * @return kernel value
+         */
+        abstract double eval(double x);
+    }
+
+    /**
+     * Box kernel
+     */
+    private static final class BoxKernel extends Kernel {
+
+        BoxKernel() {
+            super(0.5);
+        }
+
+        @Override
+        double eval(final double x) {
+            return (x > -0.5 && x <= 0.5) ? 1.0 : 0.0;
+        }
+    }
+
+    /**
+     * Tent (triangle) kernel
+     */
+    private static final class TentKernel extends Kernel {
+
+        TentKernel() {
+            super(1.0);
+        }
+
+        @Override
+        double eval(final double x) {
+            final double ax = Math.abs(x);
+            return (ax < 1.0) ? 1.0 - ax : 0.0;
+        }
+    }
+
+    /**
+     * Cubic kernel (Mitchell-Netravali family)
+     */
+    private static final class CubicKernel extends Kernel {
+
+        /** B parameter */
+        private final double b;
+        /** C parameter */
+        private final double c;
+
+        /**
+         * Protected constructor
+         * @param b B parameter
+         * @param c C parameter
+         */
+        CubicKernel(final double b, final double c) {
+            super(2.0);
+            this.b = b;
+            this.c = c;
+        }
+
+        @Override
+        double eval(final double x) {
+            final double ax = Math.abs(x);
+            final double ax2 = ax * ax;
+            final double ax3 = ax2 * ax;
+            if (ax < 1.0) {
+                return ((12.0 - 9.0 * b - 6.0 * c) * ax3 + (-18.0 + 12.0 * b + 6.0 * c) * ax2 + (6.0 - 2.0 * b)) / 6.0;
+            }
+            if (ax < 2.0) {
+                return ((-b - 6.0 * c) * ax3 + (6.0 * b + 30.0 * c) * ax2 + (-12.0 * b - 48.0 * c) * ax + (8.0 * b + 24.0 * c)) / 6.0;
+            }
+            return 0.0;
+        }
+    }
+
+    /**
+     * Lanczos kernel
+     */
+    private static final class LanczosKernel extends Kernel {
+
+        /**
+         * Protected constructor
+         * @param order kernel order (support)
+         */
+        LanczosKernel(final int order) {
+            super(order);
+        }
+
+        @Override
+        double eval(final double x) {
+            final double ax = Math.abs(x);
+            if (ax < 1e-9) {
+                return 1.0;
+            }
+            if (ax >= support) {
+                return 0.0;
+            }
+            final double px = Math.PI * ax;
+            return (support * Math.sin(px) * Math.sin(px / support)) / (px * px);
+        }
+    }
+
+    /**
+     * Precomputed (normalized) kernel weights for one axis
+     */
+    private static final class Weights {
+
+        /** first source index per output index */
+        final int[] start;
+        /** number of weights per output index */
+        final int[] count;
+        /** weights [output index][count] */
+        final float[][] values;
+
+        /**
+         * Protected constructor
+         * @param kernel filter kernel
+         * @param srcSize source size
+         * @param dstSize destination size
+         */
+        Weights(final Kernel kernel, final int srcSize, final int dstSize) {
+            this.start = new int[dstSize];
+            this.count = new int[dstSize];
+            this.values = new float[dstSize][];
+
+            final double scale = ((double) srcSize) / dstSize;
+            // widen the kernel when downsampling (low-pass):
+            final double filterScale = Math.max(1.0, scale);
+            final double support = kernel.support * filterScale;
+
+            for (int d = 0; d < dstSize; d++) {
+                // pixel centers:
+                final double center = (d + 0.5) * scale - 0.5;
+                final int left = (int) Math.ceil(center - support);
+                final int right = (int) Math.floor(center + support);
+
+                final int n = Math.max(1, right - left + 1);
+                final double[] w = new double[n];
+                double sum = 0.0;
+                for (int k = 0; k < n; k++) {
+                    w[k] = kernel.eval((left + k - center) / filterScale);
+                    sum += w[k];
+                }
+
+                // reflect edge pixels (like the oitools Resampler): fold weights outside the source into mirrored pixels
+                final int[] src = new int[n];
+                int first = srcSize - 1;
+                int last = 0;
+                for (int k = 0; k < n; k++) {
+                    src[k] = reflect(left + k, srcSize);
+                    first = Math.min(first, src[k]);
+                    last = Math.max(last, src[k]);
+                }
+                final double[] folded = new double[last - first + 1];
+                for (int k = 0; k < n; k++) {
+                    folded[src[k] - first] += (sum != 0.0) ? w[k] / sum : 0.0;
+                }
+                final float[] values = new float[folded.length];
+                for (int k = 0; k < folded.length; k++) {
+                    values[k] = (float) folded[k];
+                }
+                this.start[d] = first;
+                this.count[d] = values.length;
+                this.values[d] = values;
+            }
+        }
+
+        /**
+         * Return the source index reflected at edges (clamped if still outside)
+         * @param index source index
+         * @param srcSize source size
+         * @return source index in [0; srcSize - 1]
+         */
+        private static int reflect(final int index, final int srcSize) {
+            final int s = (index < 0) ? -index : ((index >= srcSize) ? 2 * srcSize - index - 1 : index);
+            return Math.max(0, Math.min(srcSize - 1, s));
+        }
+    }
+
+    /**
+     * Horizontal (row) or vertical (column) pass over a row range
+     */
+    private static final class PassTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /** true for the horizontal pass */
+        private final boolean horizontal;
+        /** input rows */
+        private final float[][] input;
+        /** output rows */
+        private final float[][] output;
+        /** kernel weights */
+        private final Weights weights;
+        /** number of output columns */
+        private final int newCols;
+        /** true to set negative values to 0 (vertical pass) */
+        private final boolean positive;
+        /** first output row (inclusive) */
+        private final int rowStart;
+        /** last output row (exclusive) */
+        private final int rowEnd;
+
+        /**
+         * Protected constructor
+         * @param horizontal true for the horizontal pass
+         * @param input input rows
+         * @param output output rows
+         * @param weights kernel weights
+         * @param newCols number of output columns
+         * @param positive true to set negative values to 0
+         * @param rowStart first output row (inclusive)
+         * @param rowEnd last output row (exclusive)
+         */
+        PassTask(final boolean horizontal, final float[][] input, final float[][] output, final Weights weights,
+                 final int newCols, final boolean positive, final int rowStart, final int rowEnd) {
+            this.horizontal = horizontal;
+            this.input = input;
+            this.output = output;
+            this.weights = weights;
+            this.newCols = newCols;
+            this.positive = positive;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if ((rowEnd - rowStart) > Math.max(1, PARALLEL_PIXELS / Math.max(1, newCols))) {
+                final int mid = (rowStart + rowEnd) >>> 1;
+                invokeAll(new PassTask(horizontal, input, output, weights, newCols, positive, rowStart, mid),
+                        new PassTask(horizontal, input, output, weights, newCols, positive, mid, rowEnd));
+            } else {
+                process();
+            }
+        }
+
+        /**
+         * Process the row range in the current thread
+         */
+        void process() {
+            if (horizontal) {
+                processRows();
+            } else {
+                processColumns();
+            }
+        }
+
+        /**
+         * Horizontal pass: output[j][x] = sum(w * input[j][start + k])
+         */
+        private void processRows() {
+            final int[] start = weights.start;
+            final int[] count = weights.count;
+            final float[][] values = weights.values;
+
+            for (int j = rowStart; j < rowEnd; j++) {
+                final float[] in = input[j];
+                final float[] out = output[j];
+
+                for (int x = 0; x < newCols; x++) {
+                    final float[] w = values[x];
+                    final int s = start[x];
+                    double sum = 0.0;
+                    for (int k = 0, n = count[x]; k < n; k++) {
+                        sum += w[k] * in[s + k];
+                    }
+                    out[x] = (float) sum;
+                }
+            }
+        }
+
+        /**
+         * Vertical pass: output[y] = sum(w * input[start + k]) (row by row, contiguous loops)
+         */
+        private void processColumns() {
+            for (int y = rowStart; y < rowEnd; y++) {
+                final float[] w = weights.values[y];
+                final int s = weights.start[y];
+                final float[] out = output[y];
+
+                for (int k = 0, n = weights.count[y]; k < n; k++) {
+                    final float wk = w[k];
+                    final float[] in = input[s + k];
+                    for (int x = 0; x < newCols; x++) {
+                        out[x] += wk * in[x];
+                    }
+                }
+                if (positive) {
+                    for (int x = 0; x < newCols; x++) {
+                        if (out[x] < 0f) {
+                            out[x] = 0f;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class is the fused image preparation kernel used by FitsImageUtils.prepareImage():
+ * - pass 1 (stats): statistics of the thresholded data (negative values ignored like zero values): min, max, nData, sum
+ * - pass 2 (apply): threshold (negative values set to 0) and normalization (scaling factor) in place
+ *   or while copying rows into a padded (square) array, returning the new sum.
+ * Both passes process row ranges in parallel (fork/join) and read every row once.
+ *
+ * @author bourgesl
+ */
+final class ImagePrepareKernel {
+
+    /** minimum number of pixels per parallel task */
+    private static final int PARALLEL_PIXELS = 64 * 1024;
+
+    /**
+     * Forbidden constructor
+     */
+    private ImagePrepareKernel() {
+        super();
+    }
+
+    /**
+     * Compute the statistics of the thresholded data (values <= 0 or NaN are ignored)
+     * @param data image data as float[nbRows][nbCols]
+     * @param nbCols number of columns
+     * @param nbRows number of rows
+     * @return statistics
+     */
+    static Stats stats(final float[][] data, final int nbCols, final int nbRows) {
+        if (isParallel(nbCols, nbRows)) {
+            return ForkJoinPool.commonPool().invoke(new StatsTask(data, nbCols, 0, nbRows));
+        }
+        return stats(data, nbCols, 0, nbRows);
+    }
+
+    /**
+     * Threshold (negative values set to 0) and scale the given data into the output rows at the given offsets
+     * @param data image data as float[nbRows][nbCols]
+     * @param nbCols number of columns
+     * @param nbRows number of rows
+     * @param factor scaling factor (1 to threshold only)
+     * @param output output rows (same as data to process in place)
+     * @param rowOffset row offset in the output rows
+     * @param colOffset column offset in the output rows
+     * @return sum of the output values (ignoring NaN)
+     */
+    static double apply(final float[][] data, final int nbCols, final int nbRows, final double factor,
+                        final float[][] output, final int rowOffset, final int colOffset) {
+        if (isParallel(nbCols, nbRows)) {
+            return ForkJoinPool.commonPool().invoke(new ApplyTask(data, nbCols, 0, nbRows, factor, output, rowOffset, colOffset)).doubleValue();
+        }
+        return apply(data, nbCols, 0, nbRows, factor, output, rowOffset, colOffset);
+    }
+
+    /**
+     * Compute the statistics of the given row range
+     * @param data image data
+     * @param nbCols number of columns
+     * @param rowStart first row (inclusive)
+     * @param rowEnd last row (exclusive)
+     * @return statistics
+     */
+    private static Stats stats(final float[][] data, final int nbCols, final int rowStart, final int rowEnd) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        int nData = 0;
+        int nNegative = 0;
+        double sum = 0.0;
+
+        for (int j = rowStart; j < rowEnd; j++) {
+            final float[] row = data[j];
+            for (int i = 0; i < nbCols; i++) {
+                final float value = row[i];
+                // ignore zero, negative and NaN values:
+                if (value > 0f) {
+                    if (value < min) {
+                        min = value;
+                    }
+                    if (value > max) {
+                        max = value;
+                    }
+                    nData++;
+                    sum += value;
+                } else if (value < 0f) {
+                    nNegative++;
+                }
+            }
+        }
+        final Stats stats = new Stats();
+        stats.min = min;
+        stats.max = max;
+        stats.nData = nData;
+        stats.nNegative = nNegative;
+        stats.sum = sum;
+        return stats;
+    }
+
+    /**
+     * Threshold and scale the given row range
+     * @param data image data
+     * @param nbCols number of columns
+     * @param rowStart first row (inclusive)
+     * @param rowEnd last row (exclusive)
+     * @param factor scaling factor
+     * @param output output rows
+     * @param rowOffset row offset in the output rows
+     * @param colOffset column offset in the output rows
+     * @return sum of the output values
+     */
+    private static double apply(final float[][] data, final int nbCols, final int rowStart, final int rowEnd, final double factor,
+                                final float[][] output, final int rowOffset, final int colOffset) {
+        final boolean scale = (factor != 1.0);
+        double sum = 0.0;
+
+        for (int j = rowStart; j < rowEnd; j++) {
+            final float[] row = data[j];
+            final float[] out = output[j + rowOffset];
+
+            for (int i = 0; i < nbCols; i++) {
+                float value = row[i];
+                if (value < 0f) {
+                    value = 0f;
+                } else if (scale) {
+                    value = (float) (value * factor);
+                }
+                out[i + colOffset] = value;
+                if (value > 0f) {
+                    sum += value;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Return true if the parallel processing is useful
+     * @param nbCols number of columns
+     * @param nbRows number of rows
+     * @return true if the parallel processing is useful
+     */
+    private static boolean isParallel(final int nbCols, final int nbRows) {
+        return (((long) nbCols) * nbRows > 2L * PARALLEL_PIXELS) && (ForkJoinPool.getCommonPoolParallelism() > 1);
+    }
+
+    /**
+     * Return the number of rows per parallel task
+     * @param nbCols number of columns
+     * @return number of rows per parallel task
+     */
+    private static int getRowThreshold(final int nbCols) {
+        return Math.max(1, PARALLEL_PIXELS / Math.max(1, nbCols));
+    }
+
+    /**
+     * Statistics of the thresholded data
+     */
+    static final class Stats {
+
+        /** minimum positive value */
+        float min = Float.POSITIVE_INFINITY;
+        /** maximum positive value */
+        float max = Float.NEGATIVE_INFINITY;
+        /** number of positive values */
+        int nData = 0;
+        /** number of negative values (set to 0 by the threshold) */
+        int nNegative = 0;
+        /** sum of positive values */
+        double sum = 0.0;
+
+        /**
+         * Merge the given statistics into this one
+         * @param other statistics to merge
+         * @return this
+         */
+        Stats merge(final Stats other) {
+            if (other.min < min) {
+                min = other.min;
+            }
+            if (other.max > max) {
+                max = other.max;
+            }
+            nData += other.nData;
+            nNegative += other.nNegative;
+            sum += other.sum;
+            return this;
+        }
+    }
+
+    /**
+     * Pass 1: statistics of a row range
+     */
+    private static final class StatsTask extends RecursiveTask<Stats> {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /** image data */
+        private final float[][] data;
+        /** number of columns */
+        private final int nbCols;
+        /** first row (inclusive) */
+        private final int rowStart;
+        /** last row (exclusive) */
+        private final int rowEnd;
+
+        /**
+         * Protected constructor
+         * @param data image data
+         * @param nbCols number of columns
+         * @param rowStart first row (inclusive)
+         * @param rowEnd last row (exclusive)
+         */
+        StatsTask(final float[][] data, final int nbCols, final int rowStart, final int rowEnd) {
+            this.data = data;
+            this.nbCols = nbCols;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+
+        @Override
+        protected Stats compute() {
+            if ((rowEnd - rowStart) > getRowThreshold(nbCols)) {
+                final int mid = (rowStart + rowEnd) >>> 1;
+                final StatsTask left = new StatsTask(data, nbCols, rowStart, mid);
+                left.fork();
+                final Stats stats = new StatsTask(data, nbCols, mid, rowEnd).compute();
+                return stats.merge(left.join());
+            }
+            return ImagePrepareKernel.stats(data, nbCols, rowStart, rowEnd);
+        }
+    }
+
+    /**
+     * Pass 2: threshold and scale a row range
+     */
+    private static final class ApplyTask extends RecursiveTask<Double> {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /** image data */
+        private final float[][] data;
+        /** number of columns */
+        private final int nbCols;
+        /** first row (inclusive) */
+        private final int rowStart;
+        /** last row (exclusive) */
+        private final int rowEnd;
+        /** scaling factor */
+        private final double factor;
+        /** output rows */
+        private final float[][] output;
+        /** row offset in the output rows */
+        private final int rowOffset;
+        /** column offset in the output rows */
+        private final int colOffset;
+
+        /**
+         * Protected constructor
+         * @param data image data
+         * @param nbCols number of columns
+         * @param rowStart first row (inclusive)
+         * @param rowEnd last row (exclusive)
+         * @param factor scaling factor
+         * @param output output rows
+         * @param rowOffset row offset in the output rows
+         * @param colOffset column offset in the output rows
+         */
+        ApplyTask(final float[][] data, final int nbCols, final int rowStart, final int rowEnd, final double factor,
+                  final float[][] output, final int rowOffset, final int colOffset) {
+            this.data = data;
+            this.nbCols = nbCols;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.factor = factor;
+            this.output = output;
+            this.rowOffset = rowOffset;
+            this.colOffset = colOffset;
+        }
+
+        @Override
+        protected Double compute() {
+            if ((rowEnd - rowStart) > getRowThreshold(nbCols)) {
+                final int mid = (rowStart + rowEnd) >>> 1;
+                final ApplyTask left = new ApplyTask(data, nbCols, rowStart, mid, factor, output, rowOffset, colOffset);
+                left.fork();
+                final double sum = new ApplyTask(data, nbCols, mid, rowEnd, factor, output, rowOffset, colOffset).compute().doubleValue();
+                return Double.valueOf(sum + left.join().doubleValue());
+            }
+            return Double.valueOf(ImagePrepareKernel.apply(data, nbCols, rowStart, rowEnd, factor, output, rowOffset, colOffset));
+        }
+    }
+}
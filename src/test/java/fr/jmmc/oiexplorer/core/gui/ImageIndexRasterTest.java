@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.jmal.image.ColorScale;
+import fr.jmmc.jmal.image.ImageUtils;
+import fr.jmmc.oitools.image.FitsImage;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ImageIndexRaster tests: color indexes (flips, color scales, 8 / 16 bits, parallel) compared to the jmal color conversion,
+ * images and pyramid shared by color models
+ * @author bourgesl
+ */
+public class ImageIndexRasterTest {
+
+    /** minimum value */
+    private final static float MIN = 0.01f;
+    /** maximum value */
+    private final static float MAX = 100f;
+
+    @Test
+    public void testIndexes() {
+        final FitsImage fitsImage = createFitsImage(70, 50);
+        final IndexColorModel colorModel = createColorModel(256, false);
+
+        for (ColorScale colorScale : new ColorScale[]{ColorScale.LINEAR, ColorScale.LOGARITHMIC}) {
+            for (int flip = 0; flip < 4; flip++) {
+                final boolean flipX = (flip & 1) != 0;
+                final boolean flipY = (flip & 2) != 0;
+
+                final ImageIndexRaster indexRaster = ImageIndexRaster.create(fitsImage, MIN, MAX, colorScale, colorModel,
+                        flipX, flipY, false);
+                Assert.assertNotNull(indexRaster);
+
+                final BufferedImage image = indexRaster.createImage(colorModel);
+                Assert.assertEquals(DataBuffer.TYPE_BYTE, image.getRaster().getDataBuffer().getDataType());
+                Assert.assertEquals(70L * 50L, indexRaster.getByteSize());
+                assertIndexes(fitsImage, colorScale, 256, flipX, flipY, image.getRaster());
+            }
+        }
+    }
+
+    @Test
+    public void testUShortIndexes() {
+        final FitsImage fitsImage = createFitsImage(40, 30);
+        final IndexColorModel colorModel = createColorModel(1024, false);
+
+        final ImageIndexRaster indexRaster = ImageIndexRaster.create(fitsImage, MIN, MAX, ColorScale.LINEAR, colorModel,
+                false, false, false);
+        Assert.assertNotNull(indexRaster);
+
+        final BufferedImage image = indexRaster.createImage(colorModel);
+        Assert.assertEquals(DataBuffer.TYPE_USHORT, image.getRaster().getDataBuffer().getDataType());
+        Assert.assertEquals(2L * 40L * 30L, indexRaster.getByteSize());
+        assertIndexes(fitsImage, ColorScale.LINEAR, 1024, false, false, image.getRaster());
+    }
+
+    @Test
+    public void testParallel() {
+        // more than 2 x 64 rows:
+        final FitsImage fitsImage = createFitsImage(90, 333);
+        final IndexColorModel colorModel = createColorModel(256, false);
+
+        final ImageIndexRaster indexRaster = ImageIndexRaster.create(fitsImage, MIN, MAX, ColorScale.LOGARITHMIC, colorModel,
+                true, false, true);
+        assertIndexes(fitsImage, ColorScale.LOGARITHMIC, 256, true, false, indexRaster.createImage(colorModel).getRaster());
+    }
+
+    @Test
+    public void testColorModels() {
+        final FitsImage fitsImage = createFitsImage(70, 50);
+        final IndexColorModel colorModel = createColorModel(256, false);
+        final IndexColorModel other = createColorModel(256, true);
+
+        final ImageIndexRaster indexRaster = ImageIndexRaster.create(fitsImage, MIN, MAX, ColorScale.LINEAR, colorModel,
+                false, true, false);
+
+        // same raster with another color model (no copy):
+        final BufferedImage image = indexRaster.createImage(colorModel);
+        final BufferedImage otherImage = indexRaster.createImage(other);
+        Assert.assertSame(image.getRaster(), otherImage.getRaster());
+        Assert.assertSame(other, otherImage.getColorModel());
+
+        Assert.assertTrue(ImageIndexRaster.isIndexImage(otherImage));
+        Assert.assertFalse(ImageIndexRaster.isIndexImage(new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_INDEXED, colorModel)));
+
+        // compatible parameters:
+        Assert.assertTrue(indexRaster.isCompatible(fitsImage, MIN, MAX, ColorScale.LINEAR, other, false, true));
+        Assert.assertFalse(indexRaster.isCompatible(fitsImage, MIN, 2f * MAX, ColorScale.LINEAR, other, false, true));
+        Assert.assertFalse(indexRaster.isCompatible(fitsImage, MIN, MAX, ColorScale.LOGARITHMIC, other, false, true));
+        Assert.assertFalse(indexRaster.isCompatible(fitsImage, MIN, MAX, ColorScale.LINEAR, other, true, true));
+        Assert.assertFalse(indexRaster.isCompatible(fitsImage, MIN, MAX, ColorScale.LINEAR, createColorModel(1024, false), false, true));
+        // same values in another data array:
+        Assert.assertFalse(indexRaster.isCompatible(createFitsImage(70, 50), MIN, MAX, ColorScale.LINEAR, other, false, true));
+    }
+
+    @Test
+    public void testPyramid() {
+        final IndexColorModel colorModel = createColorModel(256, false);
+        final IndexColorModel other = createColorModel(256, true);
+
+        final ImageIndexRaster small = ImageIndexRaster.create(createFitsImage(70, 50), MIN, MAX, ColorScale.LINEAR, colorModel,
+                false, false, false);
+        Assert.assertNull(small.getPyramid(colorModel));
+
+        final ImageIndexRaster indexRaster = ImageIndexRaster.create(createFitsImage(1100, 700), MIN, MAX, ColorScale.LINEAR,
+                colorModel, false, false, true);
+
+        final ImageTilePyramid pyramid = indexRaster.getPyramid(colorModel);
+        Assert.assertNotNull(pyramid);
+        Assert.assertSame(pyramid, indexRaster.getPyramid(colorModel));
+
+        // levels shared by color models:
+        final ImageTilePyramid otherPyramid = indexRaster.getPyramid(other);
+        Assert.assertNotSame(pyramid, otherPyramid);
+        Assert.assertEquals(pyramid.getByteSize(), otherPyramid.getByteSize());
+
+        pyramid.computeLevels();
+        final BufferedImage level = otherPyramid.render(1, 0, 0, 1100, 700);
+        Assert.assertEquals(550, level.getWidth());
+        Assert.assertSame(other, level.getColorModel());
+    }
+
+    private static void assertIndexes(final FitsImage fitsImage, final ColorScale colorScale, final int mapSize,
+                                      final boolean flipX, final boolean flipY, final Raster raster) {
+        final int nbCols = fitsImage.getNbCols();
+        final int nbRows = fitsImage.getNbRows();
+        Assert.assertEquals(nbCols, raster.getWidth());
+        Assert.assertEquals(nbRows, raster.getHeight());
+
+        final boolean useLog = (colorScale == ColorScale.LOGARITHMIC);
+        final float[] scaledMinMax = ImageUtils.scaleMinMax(MIN, MAX, colorScale);
+        final float scalingFactor = ImageUtils.computeScalingFactor(scaledMinMax[0], scaledMinMax[1], mapSize);
+
+        final float[][] data = fitsImage.getData();
+        for (int j = 0; j < nbRows; j++) {
+            for (int i = 0; i < nbCols; i++) {
+                final int expected = ImageUtils.getColor(mapSize - 1,
+                        ImageUtils.getScaledValue(useLog, scaledMinMax[0], scalingFactor, data[j][i]));
+
+                // fits origin is at the bottom left corner:
+                final int x = (flipX) ? (nbCols - 1 - i) : i;
+                final int y = (flipY) ? j : (nbRows - 1 - j);
+                Assert.assertEquals(colorScale + " flip(" + flipX + ", " + flipY + ") @ (" + i + ", " + j + ")",
+                        expected, raster.getSample(x, y, 0));
+            }
+        }
+    }
+
+    private static FitsImage createFitsImage(final int nbCols, final int nbRows) {
+        final float[][] data = new float[nbRows][nbCols];
+        for (int j = 0; j < nbRows; j++) {
+            for (int i = 0; i < nbCols; i++) {
+                // values in [MIN; MAX] (asymmetric to detect flips):
+                data[j][i] = MIN + (MAX - MIN) * (((i * 7 + j * 3) % 101) / 100f) * (((i + 2 * j) % 13) / 12f);
+            }
+        }
+        final FitsImage fitsImage = new FitsImage();
+        fitsImage.setData(data);
+        return fitsImage;
+    }
+
+    private static IndexColorModel createColorModel(final int mapSize, final boolean invert) {
+        final byte[] r = new byte[mapSize];
+        for (int i = 0; i < mapSize; i++) {
+            final int v = (256 * i) / mapSize;
+            r[i] = (byte) ((invert) ? 255 - v : v);
+        }
+        return new IndexColorModel((mapSize <= 256) ? 8 : 16, mapSize, r, r, r);
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ImageTilePyramid tests: levels (size, 2x2 mean) and rendering before / after computing levels
+ * @author bourgesl
+ */
+public class ImageTilePyramidTest {
+
+    /** image width (not a power of 2) */
+    private final static int WIDTH = 1100;
+    /** image height */
+    private final static int HEIGHT = 700;
+
+    @Test
+    public void testSmallImage() {
+        Assert.assertNull(ImageTilePyramid.create(createImage(2 * ImageTilePyramid.TILE_SIZE, 100)));
+    }
+
+    @Test
+    public void testLevels() {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final ImageTilePyramid pyramid = ImageTilePyramid.create(image);
+        Assert.assertNotNull(pyramid);
+
+        // 1100 > 550 > 275 > 138: 4 levels
+        Assert.assertEquals(0, pyramid.getLevel(WIDTH, HEIGHT, 0, 0));
+        Assert.assertEquals(0, pyramid.getLevel(WIDTH, HEIGHT, WIDTH, HEIGHT));
+        Assert.assertEquals(1, pyramid.getLevel(WIDTH, HEIGHT, 500, 300));
+        Assert.assertEquals(3, pyramid.getLevel(WIDTH, HEIGHT, 10, 10));
+
+        // levels not computed: nearest finer level (reference image)
+        final BufferedImage ref = pyramid.render(3, 0, 0, WIDTH, HEIGHT);
+        Assert.assertEquals(WIDTH, ref.getWidth());
+        Assert.assertEquals(HEIGHT, ref.getHeight());
+        assertSamePixels(image.getRaster(), ref.getRaster(), 0, 0);
+
+        pyramid.computeLevels();
+
+        final BufferedImage level1 = pyramid.render(1, 0, 0, WIDTH, HEIGHT);
+        Assert.assertEquals(WIDTH / 2, level1.getWidth());
+        Assert.assertEquals(HEIGHT / 2, level1.getHeight());
+        Assert.assertSame(image.getColorModel(), level1.getColorModel());
+
+        // rounded mean of 2x2 samples:
+        final Raster src = image.getRaster();
+        final Raster dst = level1.getRaster();
+        for (int y = 0; y < dst.getHeight(); y++) {
+            for (int x = 0; x < dst.getWidth(); x++) {
+                final int sum = src.getSample(2 * x, 2 * y, 0) + src.getSample(2 * x + 1, 2 * y, 0)
+                        + src.getSample(2 * x, 2 * y + 1, 0) + src.getSample(2 * x + 1, 2 * y + 1, 0);
+                Assert.assertEquals("(" + x + ", " + y + ")", (sum + 2) >> 2, dst.getSample(x, y, 0));
+            }
+        }
+
+        // odd size: edge samples are repeated
+        final BufferedImage level3 = pyramid.render(3, 0, 0, WIDTH, HEIGHT);
+        Assert.assertEquals(138, level3.getWidth());
+        Assert.assertEquals(88, level3.getHeight());
+
+        // visible area only (rounded to the level pixels):
+        final BufferedImage area = pyramid.render(1, 101, 51, 200, 100);
+        Assert.assertEquals(101, area.getWidth());
+        Assert.assertEquals(51, area.getHeight());
+        assertSamePixels(dst, area.getRaster(), 50, 25);
+    }
+
+    @Test
+    public void testSharedLevels() {
+        final BufferedImage image = createImage(WIDTH, HEIGHT);
+        final ImageTilePyramid pyramid = ImageTilePyramid.create(image);
+        pyramid.computeLevels();
+
+        final IndexColorModel other = createColorModel(true);
+        final ImageTilePyramid shared = pyramid.withColorModel(other);
+        Assert.assertSame(pyramid, pyramid.withColorModel(image.getColorModel()));
+        Assert.assertEquals(pyramid.getByteSize(), shared.getByteSize());
+
+        // levels computed once, rendered with the other color model:
+        final BufferedImage level2 = shared.render(2, 0, 0, WIDTH, HEIGHT);
+        Assert.assertEquals(WIDTH / 4, level2.getWidth());
+        Assert.assertSame(other, level2.getColorModel());
+        assertSamePixels(pyramid.render(2, 0, 0, WIDTH, HEIGHT).getRaster(), level2.getRaster(), 0, 0);
+    }
+
+    private static void assertSamePixels(final Raster expected, final Raster actual, final int x0, final int y0) {
+        for (int y = 0; y < actual.getHeight(); y++) {
+            for (int x = 0; x < actual.getWidth(); x++) {
+                Assert.assertEquals("(" + x + ", " + y + ")", expected.getSample(x0 + x, y0 + y, 0), actual.getSample(x, y, 0));
+            }
+        }
+    }
+
+    private static BufferedImage createImage(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, createColorModel(false));
+        final WritableRaster raster = image.getRaster();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.setSample(x, y, 0, (x * 7 + y * 13) & 0xFF);
+            }
+        }
+        return image;
+    }
+
+    private static IndexColorModel createColorModel(final boolean invert) {
+        final byte[] r = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            r[i] = (byte) ((invert) ? 255 - i : i);
+        }
+        return new IndexColorModel(8, 256, r, r, r);
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.oiexplorer.core.model.plot.Axis;
+import fr.jmmc.oiexplorer.core.model.plot.AxisRangeMode;
+import fr.jmmc.oiexplorer.core.model.plot.ColorMapping;
+import fr.jmmc.oiexplorer.core.model.plot.PlotDefinition;
+import fr.jmmc.oiexplorer.core.model.plot.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * PlotChangeImpact tests: impact of axis, style and data changes between plot definitions
+ * @author bourgesl
+ */
+public class PlotChangeImpactTest {
+
+    /** all y values strictly positive */
+    private final static boolean[] POSITIVE = new boolean[]{true, true};
+    /** negative y values */
+    private final static boolean[] NEGATIVE = new boolean[]{false, false};
+
+    @Test
+    public void testNoChange() {
+        final PlotDefinition prev = createPlotDefinition();
+        Assert.assertEquals(PlotChangeImpact.NONE, getImpact(prev, copy(prev), true, POSITIVE, true));
+    }
+
+    @Test
+    public void testAxisChanges() {
+        final PlotDefinition prev = createPlotDefinition();
+
+        PlotDefinition plotDef = copy(prev);
+        plotDef.getXAxis().setIncludeZero(true);
+        Assert.assertEquals(PlotChangeImpact.AXIS, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        plotDef = copy(prev);
+        plotDef.getYAxes().get(1).setRangeMode(AxisRangeMode.AUTO);
+        Assert.assertEquals(PlotChangeImpact.AXIS, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        plotDef = copy(prev);
+        plotDef.getYAxes().get(0).setIncludeDataRange(Boolean.FALSE);
+        Assert.assertEquals(PlotChangeImpact.AXIS, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        final Range range = new Range();
+        range.setMin(0.1);
+        range.setMax(1.0);
+        plotDef = copy(prev);
+        plotDef.getYAxes().get(0).setRangeMode(AxisRangeMode.RANGE);
+        plotDef.getYAxes().get(0).setRange(range);
+        Assert.assertEquals(PlotChangeImpact.AXIS, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        // default range mode (null) is unchanged:
+        plotDef = copy(prev);
+        plotDef.getXAxis().setRangeMode(AxisRangeMode.DEFAULT);
+        Assert.assertEquals(PlotChangeImpact.NONE, getImpact(prev, plotDef, true, POSITIVE, true));
+    }
+
+    @Test
+    public void testLogScale() {
+        final PlotDefinition prev = createPlotDefinition();
+        final PlotDefinition plotDef = copy(prev);
+        plotDef.getYAxes().get(0).setLogScale(true);
+
+        // strictly positive values: no data discarded
+        Assert.assertEquals(PlotChangeImpact.AXIS, getImpact(prev, plotDef, true, POSITIVE, true));
+        // negative values are discarded by the log scale:
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, plotDef, true, NEGATIVE, true));
+        // other y axis with negative values is unchanged:
+        Assert.assertEquals(PlotChangeImpact.AXIS, getImpact(prev, plotDef, true, new boolean[]{true, false}, true));
+
+        final PlotDefinition xLog = copy(prev);
+        xLog.getXAxis().setLogScale(true);
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, xLog, false, POSITIVE, true));
+    }
+
+    @Test
+    public void testStyleChanges() {
+        final PlotDefinition prev = createPlotDefinition();
+
+        PlotDefinition plotDef = copy(prev);
+        plotDef.setColorMapping(ColorMapping.STATION_INDEX);
+        Assert.assertEquals(PlotChangeImpact.STYLE, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        // axis and style changes:
+        plotDef.getXAxis().setIncludeZero(true);
+        Assert.assertEquals(PlotChangeImpact.STYLE, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        // line cut-offs are only extracted along wavelengths:
+        plotDef = copy(prev);
+        plotDef.setDrawLine(!prev.isDrawLine());
+        Assert.assertEquals(PlotChangeImpact.STYLE, getImpact(prev, plotDef, true, POSITIVE, false));
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, plotDef, true, POSITIVE, true));
+    }
+
+    @Test
+    public void testDataChanges() {
+        final PlotDefinition prev = createPlotDefinition();
+
+        PlotDefinition plotDef = copy(prev);
+        plotDef.setSkipFlaggedData(!prev.isSkipFlaggedData());
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        plotDef = copy(prev);
+        plotDef.getYAxes().get(1).setName("T3PHI");
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        plotDef = copy(prev);
+        plotDef.getXAxis().setConverter("scaling");
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        plotDef = copy(prev);
+        plotDef.getYAxes().remove(1);
+        Assert.assertEquals(PlotChangeImpact.DATA, getImpact(prev, plotDef, true, POSITIVE, true));
+
+        // axis removed:
+        Assert.assertEquals(PlotChangeImpact.DATA, PlotChangeImpact.getImpact(prev.getXAxis(), null, true));
+        Assert.assertEquals(PlotChangeImpact.NONE, PlotChangeImpact.getImpact((Axis) null, null, true));
+    }
+
+    @Test
+    public void testMax() {
+        Assert.assertEquals(PlotChangeImpact.STYLE, PlotChangeImpact.AXIS.max(PlotChangeImpact.STYLE));
+        Assert.assertEquals(PlotChangeImpact.DATA, PlotChangeImpact.DATA.max(PlotChangeImpact.NONE));
+        Assert.assertEquals(PlotChangeImpact.NONE, PlotChangeImpact.NONE.max(PlotChangeImpact.NONE));
+    }
+
+    private static PlotChangeImpact getImpact(final PlotDefinition prev, final PlotDefinition plotDef,
+                                              final boolean xPositive, final boolean[] yPositives, final boolean useWaveLengths) {
+        return PlotChangeImpact.getImpact(prev, plotDef, xPositive, yPositives, useWaveLengths);
+    }
+
+    private static PlotDefinition copy(final PlotDefinition plotDef) {
+        return (PlotDefinition) plotDef.clone();
+    }
+
+    private static PlotDefinition createPlotDefinition() {
+        final PlotDefinition plotDef = new PlotDefinition();
+        plotDef.setColorMapping(ColorMapping.WAVELENGTH_RANGE);
+        plotDef.setXAxis(createAxis("SPATIAL_FREQ"));
+        plotDef.getYAxes().add(createAxis("VIS2DATA"));
+        plotDef.getYAxes().add(createAxis("T3AMP"));
+        return plotDef;
+    }
+
+    private static Axis createAxis(final String name) {
+        final Axis axis = new Axis();
+        axis.setName(name);
+        return axis;
+    }
+}
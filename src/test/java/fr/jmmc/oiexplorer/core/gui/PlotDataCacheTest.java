@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import fr.jmmc.oiexplorer.core.model.IdentifiableVersion;
+import fr.jmmc.oiexplorer.core.model.plot.Axis;
+import fr.jmmc.oiexplorer.core.model.plot.ColorMapping;
+import fr.jmmc.oiexplorer.core.model.plot.PlotDefinition;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIVis2;
+import java.awt.Color;
+import java.awt.Paint;
+import org.jfree.data.Range;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * PlotDataCache tests: key (table, subset and data versions, plot settings) and LRU eviction within the memory budget
+ * @author bourgesl
+ */
+public class PlotDataCacheTest {
+
+    /** number of items per serie */
+    private final static int N_ITEMS = 100;
+    /** subset version */
+    private final static IdentifiableVersion SUBSET = new IdentifiableVersion("SUBSET", 1);
+    /** wavelength range */
+    private final static Range WAVE_RANGE = new Range(1e-6, 2e-6);
+
+    /** OI_VIS2 table */
+    private OIVis2 vis2;
+    /** cache (singleton) */
+    private PlotDataCache cache;
+
+    @Before
+    public void setUp() {
+        vis2 = new OIVis2(new OIFitsFile(OIFitsStandard.VERSION_1), "INS", 1);
+        cache = PlotDataCache.getInstance();
+        cache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        cache.setMaxBytes(PlotDataCache.DEFAULT_MAX_BYTES);
+        cache.clear();
+    }
+
+    @Test
+    public void testKey() {
+        final PlotDefinition plotDef = createPlotDefinition();
+        final PlotDataCache.Key key = createKey(vis2, SUBSET, 1, plotDef);
+
+        // same table and settings (other plot definition instance):
+        final PlotDataCache.Key same = createKey(vis2, new IdentifiableVersion("SUBSET", 1), 1, createPlotDefinition());
+        Assert.assertEquals(key, same);
+        Assert.assertEquals(key.hashCode(), same.hashCode());
+
+        // other table with the same content:
+        Assert.assertFalse(key.equals(createKey(new OIVis2(new OIFitsFile(OIFitsStandard.VERSION_1), "INS", 1), SUBSET, 1, plotDef)));
+        // subset changed (filters):
+        Assert.assertFalse(key.equals(createKey(vis2, new IdentifiableVersion("SUBSET", 2), 1, plotDef)));
+        // collection changed (data or expression columns):
+        Assert.assertFalse(key.equals(createKey(vis2, SUBSET, 2, plotDef)));
+
+        // plot settings used to extract series:
+        PlotDefinition other = createPlotDefinition();
+        other.getYAxes().get(0).setLogScale(true);
+        Assert.assertFalse(key.equals(createKey(vis2, SUBSET, 1, other)));
+
+        other = createPlotDefinition();
+        other.getXAxis().setConverter("scaling");
+        Assert.assertFalse(key.equals(createKey(vis2, SUBSET, 1, other)));
+
+        other = createPlotDefinition();
+        other.setSkipFlaggedData(!plotDef.isSkipFlaggedData());
+        Assert.assertFalse(key.equals(createKey(vis2, SUBSET, 1, other)));
+
+        Assert.assertFalse(key.equals(new PlotDataCache.Key(vis2, SUBSET, 1, plotDef, 0, true, false, WAVE_RANGE)));
+        Assert.assertFalse(key.equals(new PlotDataCache.Key(vis2, SUBSET, 1, plotDef, 0, false, true, WAVE_RANGE)));
+        Assert.assertFalse(key.equals(new PlotDataCache.Key(vis2, SUBSET, 1, plotDef, 0, false, false, new Range(1e-6, 3e-6))));
+
+        // settings not used to extract series (axis range, color mapping):
+        other = createPlotDefinition();
+        other.getXAxis().setIncludeZero(true);
+        other.setColorMapping(ColorMapping.STATION_INDEX);
+        Assert.assertEquals(key, createKey(vis2, SUBSET, 1, other));
+    }
+
+    @Test
+    public void testGetPut() {
+        final PlotDataCache.Key key = createKey(vis2, SUBSET, 1, createPlotDefinition());
+        Assert.assertNull(cache.get(key));
+
+        final PlotTableData tableData = createTableData(vis2, N_ITEMS);
+        cache.put(key, tableData);
+        Assert.assertSame(tableData, cache.get(createKey(vis2, SUBSET, 1, createPlotDefinition())));
+        Assert.assertEquals(tableData.getByteSize(), cache.getUsedBytes());
+
+        // replaced entry:
+        final PlotTableData replaced = createTableData(vis2, N_ITEMS);
+        cache.put(key, replaced);
+        Assert.assertSame(replaced, cache.get(key));
+        Assert.assertEquals(replaced.getByteSize(), cache.getUsedBytes());
+
+        cache.clear();
+        Assert.assertNull(cache.get(key));
+        Assert.assertEquals(0L, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testEviction() {
+        final long size = createTableData(vis2, N_ITEMS).getByteSize();
+        cache.setMaxBytes(3L * size);
+
+        final PlotDataCache.Key[] keys = new PlotDataCache.Key[4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = createKey(vis2, SUBSET, i, createPlotDefinition());
+        }
+        cache.put(keys[0], createTableData(vis2, N_ITEMS));
+        cache.put(keys[1], createTableData(vis2, N_ITEMS));
+        cache.put(keys[2], createTableData(vis2, N_ITEMS));
+
+        // recently used:
+        Assert.assertNotNull(cache.get(keys[0]));
+
+        // least recently used entry evicted:
+        cache.put(keys[3], createTableData(vis2, N_ITEMS));
+        Assert.assertEquals(3L * size, cache.getUsedBytes());
+        Assert.assertNull(cache.get(keys[1]));
+        Assert.assertNotNull(cache.get(keys[0]));
+        Assert.assertNotNull(cache.get(keys[2]));
+        Assert.assertNotNull(cache.get(keys[3]));
+
+        // too large entry is not cached:
+        final PlotDataCache.Key large = createKey(vis2, SUBSET, 10, createPlotDefinition());
+        cache.put(large, createTableData(vis2, 4 * N_ITEMS));
+        Assert.assertNull(cache.get(large));
+        Assert.assertEquals(3L * size, cache.getUsedBytes());
+
+        // smaller budget:
+        cache.setMaxBytes(size);
+        Assert.assertEquals(size, cache.getUsedBytes());
+        Assert.assertNotNull(cache.get(keys[3]));
+    }
+
+    private static PlotDataCache.Key createKey(final OIData oiData, final IdentifiableVersion subsetVersion,
+                                               final int dataVersion, final PlotDefinition plotDef) {
+        return new PlotDataCache.Key(oiData, subsetVersion, dataVersion, plotDef, 0, false, false, WAVE_RANGE);
+    }
+
+    private static PlotTableData createTableData(final OIData oiData, final int nItems) {
+        final PlotTableData tableData = new PlotTableData(oiData, 1);
+        tableData.series.add(new PlotTableData.Serie(0, "S1-S2", "S1-S2-S3",
+                new int[2][nItems], new double[6][nItems], new byte[nItems], new byte[nItems], new Paint[]{Color.BLUE}));
+        return tableData;
+    }
+
+    private static PlotDefinition createPlotDefinition() {
+        final PlotDefinition plotDef = new PlotDefinition();
+        plotDef.setXAxis(createAxis("SPATIAL_FREQ"));
+        plotDef.getYAxes().add(createAxis("VIS2DATA"));
+        return plotDef;
+    }
+
+    private static Axis createAxis(final String name) {
+        final Axis axis = new Axis();
+        axis.setName(name);
+        return axis;
+    }
+}
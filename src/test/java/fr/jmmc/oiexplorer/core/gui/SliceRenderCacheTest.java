@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui;
+
+import java.awt.image.BufferedImage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * SliceRenderCache tests: LRU eviction within the memory budget, prefetch reservations and cached images
+ * @author bourgesl
+ */
+public class SliceRenderCacheTest {
+
+    /** entry size (bytes) */
+    private final static long SIZE = 1000L;
+
+    @Test
+    public void testEviction() {
+        final SliceRenderCache<String, Slice> cache = new SliceRenderCache<String, Slice>(3L * SIZE);
+
+        final Slice s1 = new Slice(SIZE);
+        cache.put("1", s1);
+        cache.put("2", new Slice(SIZE));
+        cache.put("3", new Slice(SIZE));
+        Assert.assertEquals(3L * SIZE, cache.getUsedBytes());
+
+        // recently used:
+        Assert.assertSame(s1, cache.get("1"));
+
+        // least recently used entry evicted:
+        cache.put("4", new Slice(SIZE));
+        Assert.assertEquals(3L * SIZE, cache.getUsedBytes());
+        Assert.assertNull(cache.get("2"));
+        Assert.assertSame(s1, cache.get("1"));
+
+        // larger entry evicts several entries:
+        cache.put("5", new Slice(2L * SIZE));
+        Assert.assertEquals(3L * SIZE, cache.getUsedBytes());
+        Assert.assertNull(cache.get("3"));
+        Assert.assertNull(cache.get("4"));
+        Assert.assertSame(s1, cache.get("1"));
+
+        // replaced entry:
+        final Slice replaced = new Slice(SIZE / 2);
+        cache.put("1", replaced);
+        Assert.assertSame(replaced, cache.get("1"));
+        Assert.assertEquals(2L * SIZE + SIZE / 2, cache.getUsedBytes());
+
+        // too large entry is not cached:
+        cache.put("6", new Slice(4L * SIZE));
+        Assert.assertNull(cache.get("6"));
+        Assert.assertSame(replaced, cache.get("1"));
+
+        cache.clear();
+        Assert.assertNull(cache.get("1"));
+        Assert.assertEquals(0L, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testReserve() {
+        final SliceRenderCache<String, Slice> cache = new SliceRenderCache<String, Slice>(3L * SIZE);
+
+        // being prefetched:
+        Assert.assertTrue(cache.reserve("1"));
+        Assert.assertFalse(cache.reserve("1"));
+
+        cache.put("1", new Slice(SIZE));
+        cache.release("1");
+
+        // already cached:
+        Assert.assertFalse(cache.reserve("1"));
+
+        // prefetch failure (not cached):
+        Assert.assertTrue(cache.reserve("2"));
+        cache.release("2");
+        Assert.assertTrue(cache.reserve("2"));
+    }
+
+    @Test
+    public void testContainsImage() {
+        final SliceRenderCache<String, Slice> cache = new SliceRenderCache<String, Slice>(2L * SIZE);
+
+        final Slice s1 = new Slice(SIZE);
+        cache.put("1", s1);
+        Assert.assertTrue(cache.containsImage(s1.getImage()));
+        Assert.assertFalse(cache.containsImage(new Slice(SIZE).getImage()));
+
+        // evicted image may be recycled:
+        cache.put("2", new Slice(SIZE));
+        cache.put("3", new Slice(SIZE));
+        Assert.assertFalse(cache.containsImage(s1.getImage()));
+    }
+
+    /**
+     * Rendered slice (fixed size)
+     */
+    private static final class Slice implements SliceRenderCache.Entry {
+
+        /** image */
+        private final BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        /** memory size (bytes) */
+        private final long size;
+
+        /**
+         * Protected constructor
+         * @param size memory size (bytes)
+         */
+        Slice(final long size) {
+            this.size = size;
+        }
+
+        @Override
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        @Override
+        public long getByteSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart.dataset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * FastIntervalXYDataset tests: replaced series (values, unused items reclaimed) and equals / hashCode
+ * @author bourgesl
+ */
+public class FastIntervalXYDatasetTest {
+
+    @Test
+    public void testReplaceSeries() {
+        for (boolean useFloat : new boolean[]{false, true}) {
+            final FastIntervalXYDataset<String, String> dataset = new FastIntervalXYDataset<String, String>(useFloat);
+            dataset.addSeries("a", createInt(10, 0), createDbl(10, 0.0));
+            dataset.addSeries("b", createInt(20, 100), createDbl(20, 100.0));
+
+            // growing series are appended, shrinking series replaced in place:
+            for (int n = 1; n <= 100; n++) {
+                final int length = 10 + ((n % 2 == 0) ? n : 5);
+                dataset.addSeries("a", createInt(length, n), createDbl(length, n));
+
+                // unused items are reclaimed (at most the live items):
+                Assert.assertTrue(dataset.getItemTotal() <= 2 * (length + 20));
+
+                assertSeries(dataset, 0, length, n);
+                assertSeries(dataset, 1, 20, 100);
+            }
+            Assert.assertEquals(2, dataset.getSeriesCount());
+            Assert.assertEquals("a", dataset.getSeriesKey(0));
+            Assert.assertEquals("b", dataset.getSeriesKey(1));
+        }
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        final FastIntervalXYDataset<String, String> ref = new FastIntervalXYDataset<String, String>();
+        ref.addSeries("a", createInt(10, 1), createDbl(10, 1.0));
+        ref.addSeries("b", createInt(5, 2), createDbl(5, 2.0));
+
+        // same content after replacements (unused items):
+        final FastIntervalXYDataset<String, String> other = new FastIntervalXYDataset<String, String>();
+        other.addSeries("a", createInt(3, 7), createDbl(3, 7.0));
+        other.addSeries("b", createInt(50, 8), createDbl(50, 8.0));
+        other.addSeries("a", createInt(10, 1), createDbl(10, 1.0));
+        other.addSeries("b", createInt(5, 2), createDbl(5, 2.0));
+
+        Assert.assertEquals(ref, other);
+        Assert.assertEquals(ref.hashCode(), other.hashCode());
+
+        other.addSeries("b", createInt(4, 2), createDbl(4, 2.0));
+        Assert.assertFalse(ref.equals(other));
+    }
+
+    private static void assertSeries(final FastIntervalXYDataset<String, String> dataset, final int series,
+                                     final int length, final double seed) {
+        Assert.assertEquals(length, dataset.getItemCount(series));
+        for (int i = 0; i < length; i++) {
+            Assert.assertEquals((int) seed + i, dataset.getDataRow(series, i));
+            Assert.assertEquals(i, dataset.getDataCol(series, i));
+            Assert.assertEquals(seed + i, dataset.getXValue(series, i), 0.0);
+            Assert.assertEquals(seed - i, dataset.getYValue(series, i), 0.0);
+            Assert.assertEquals(seed + i - 0.5, dataset.getStartXValue(series, i), 0.0);
+            Assert.assertEquals(seed - i + 0.5, dataset.getEndYValue(series, i), 0.0);
+        }
+    }
+
+    private static int[][] createInt(final int length, final int seed) {
+        final int[][] data = new int[2][length];
+        for (int i = 0; i < length; i++) {
+            data[0][i] = seed + i;
+            data[1][i] = i;
+        }
+        return data;
+    }
+
+    private static double[][] createDbl(final int length, final double seed) {
+        final double[][] data = new double[6][length];
+        for (int i = 0; i < length; i++) {
+            data[0][i] = seed + i;
+            data[1][i] = seed + i - 0.5;
+            data[2][i] = seed + i + 0.5;
+            data[3][i] = seed - i;
+            data[4][i] = seed - i - 0.5;
+            data[5][i] = seed - i + 0.5;
+        }
+        return data;
+    }
+}
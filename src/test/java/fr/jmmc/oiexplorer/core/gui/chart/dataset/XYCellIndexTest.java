@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart.dataset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * XYCellIndex tests (cut-off items)
+ * @author bourgesl
+ */
+public class XYCellIndexTest {
+
+    /** number of data rows (one cut-off item per row) */
+    private final static int N_ROWS = 100000;
+    /** number of wavelengths per row */
+    private final static int N_WAVES = 4;
+
+    @Test(timeout = 10000L)
+    public void testManyCutOffs() {
+        final FastIntervalXYDataset<String, String> dataset = new FastIntervalXYDataset<String, String>();
+        dataset.addSeries("serie 0", createIntData(), new double[6][N_ROWS * (N_WAVES + 1)]);
+        dataset.addSeries("serie 1", createIntData(), new double[6][N_ROWS * (N_WAVES + 1)]);
+
+        final XYCellIndex index = new XYCellIndex(dataset, new int[]{0, 1}, 2);
+
+        // cut-off items are not indexed:
+        Assert.assertEquals(2 * N_ROWS * N_WAVES, index.size());
+
+        final int[] matches = new int[8];
+
+        // same cell in both series, in (series, item) order:
+        final int row = N_ROWS / 2;
+        final int col = 3;
+        Assert.assertEquals(2, index.find(row, col, matches));
+        Assert.assertEquals(0, matches[0]);
+        Assert.assertEquals(row * (N_WAVES + 1) + col, matches[1]);
+        Assert.assertEquals(1, matches[2]);
+        Assert.assertEquals(row * (N_WAVES + 1) + col, matches[3]);
+
+        // cut-off cell and missing cell:
+        Assert.assertEquals(0, index.find(-1, -1, matches));
+        Assert.assertEquals(0, index.find(N_ROWS, 0, matches));
+    }
+
+    /**
+     * Create (row, col) data having N_WAVES items followed by one cut-off per row
+     * @return (row, col) data
+     */
+    private static int[][] createIntData() {
+        final int n = N_ROWS * (N_WAVES + 1);
+        final int[] rows = new int[n];
+        final int[] cols = new int[n];
+
+        for (int i = 0, r = 0; r < N_ROWS; r++) {
+            for (int c = 0; c < N_WAVES; c++, i++) {
+                rows[i] = r;
+                cols[i] = c;
+            }
+            // cut-off:
+            rows[i] = -1;
+            cols[i++] = -1;
+        }
+        return new int[][]{rows, cols};
+    }
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.gui.chart.dataset;
+
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Random;
+import org.jfree.data.xy.DefaultXYDataset;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * XYPointIndex tests (nearest and range queries compared to a full scan)
+ * @author bourgesl
+ */
+public class XYPointIndexTest {
+
+    /** number of items per series */
+    private final static int N_ITEMS = 20000;
+    /** number of queries */
+    private final static int N_QUERIES = 100;
+
+    @Test
+    public void testNaN() {
+        final DefaultXYDataset dataset = createDataset(new Random(1L));
+
+        final XYPointIndex index = XYPointIndex.build(dataset);
+
+        // NaN points are not indexed:
+        int n = 0;
+        for (int s = 0; s < dataset.getSeriesCount(); s++) {
+            for (int i = 0; i < dataset.getItemCount(s); i++) {
+                if (!Double.isNaN(dataset.getXValue(s, i)) && !Double.isNaN(dataset.getYValue(s, i))) {
+                    n++;
+                }
+            }
+        }
+        Assert.assertEquals(n, index.size());
+
+        // NaN points are never returned:
+        for (int ordinal : index.findInRectangle(new Rectangle2D.Double(-1e9, -1e9, 2e9, 2e9))) {
+            final int s = index.getSeries(ordinal);
+            final int i = index.getItem(ordinal);
+            Assert.assertFalse(Double.isNaN(dataset.getXValue(s, i)));
+            Assert.assertFalse(Double.isNaN(dataset.getYValue(s, i)));
+        }
+
+        // only NaN values:
+        final DefaultXYDataset nanDataset = new DefaultXYDataset();
+        nanDataset.addSeries("nan", new double[][]{{Double.NaN, 1.0}, {2.0, Double.NaN}});
+
+        final XYPointIndex nanIndex = XYPointIndex.build(nanDataset);
+        Assert.assertEquals(0, nanIndex.size());
+        Assert.assertEquals(-1, nanIndex.findNearest(1.0, 2.0, 1.0, 1.0));
+        Assert.assertEquals(0, nanIndex.findInRectangle(new Rectangle2D.Double(0.0, 0.0, 5.0, 5.0)).length);
+    }
+
+    @Test
+    public void testSeriesItems() {
+        final DefaultXYDataset dataset = new DefaultXYDataset();
+        dataset.addSeries("s0", new double[][]{{0.0, 1.0}, {0.0, 1.0}});
+        dataset.addSeries("empty", new double[2][0]);
+        dataset.addSeries("s2", new double[][]{{2.0, 3.0, 4.0}, {2.0, 3.0, 4.0}});
+
+        final XYPointIndex index = XYPointIndex.build(dataset);
+        Assert.assertEquals(5, index.size());
+
+        // empty series are skipped:
+        Assert.assertEquals(0, index.getSeries(1));
+        Assert.assertEquals(1, index.getItem(1));
+        Assert.assertEquals(2, index.getSeries(2));
+        Assert.assertEquals(0, index.getItem(2));
+        Assert.assertEquals(2, index.getSeries(4));
+        Assert.assertEquals(2, index.getItem(4));
+
+        Assert.assertEquals(3, index.findNearest(3.2, 2.9, 1.0, 1.0));
+    }
+
+    @Test
+    public void testNearest() {
+        final Random random = new Random(2L);
+        final DefaultXYDataset dataset = createDataset(random);
+
+        final XYPointIndex index = XYPointIndex.build(dataset);
+
+        for (int q = 0; q < N_QUERIES; q++) {
+            final double anchorX = 120.0 * random.nextDouble() - 10.0;
+            final double anchorY = 12.0 * random.nextDouble() - 1.0;
+            // anisotropic pixel ratios (domain axis range 100, range axis range 10):
+            final double xRatio = 5.0;
+            final double yRatio = 50.0 * (1.0 + random.nextDouble());
+
+            final int k = 1 + random.nextInt(10);
+
+            final int[] expected = findNearest(dataset, anchorX, anchorY, xRatio, yRatio, k);
+
+            Assert.assertArrayEquals("query " + q, expected, index.findNearest(anchorX, anchorY, xRatio, yRatio, k));
+            Assert.assertEquals("query " + q, expected[0], index.findNearest(anchorX, anchorY, xRatio, yRatio));
+        }
+    }
+
+    @Test
+    public void testRange() {
+        final Random random = new Random(3L);
+        final DefaultXYDataset dataset = createDataset(random);
+
+        final XYPointIndex index = XYPointIndex.build(dataset);
+
+        for (int q = 0; q < N_QUERIES; q++) {
+            final double x = 100.0 * random.nextDouble();
+            final double y = 10.0 * random.nextDouble();
+            final double w = 20.0 * random.nextDouble();
+            final double h = 2.0 * random.nextDouble();
+
+            final Rectangle2D rect = new Rectangle2D.Double(x, y, w, h);
+            assertSameOrdinals("rectangle " + q, findInShape(dataset, rect, false), index.findInRectangle(rect));
+
+            final Shape shape = new Ellipse2D.Double(x, y, w, h);
+            assertSameOrdinals("shape " + q, findInShape(dataset, shape, true), index.findInShape(shape));
+        }
+    }
+
+    /**
+     * Create a dataset with 3 series of random points (with NaN values and duplicated points)
+     * @param random random generator
+     * @return dataset
+     */
+    private static DefaultXYDataset createDataset(final Random random) {
+        final DefaultXYDataset dataset = new DefaultXYDataset();
+
+        for (int s = 0; s < 3; s++) {
+            final double[] xs = new double[N_ITEMS];
+            final double[] ys = new double[N_ITEMS];
+
+            for (int i = 0; i < N_ITEMS; i++) {
+                if (i % 97 == 0) {
+                    xs[i] = Double.NaN;
+                    ys[i] = random.nextDouble();
+                } else if (i % 89 == 0) {
+                    xs[i] = random.nextDouble();
+                    ys[i] = Double.NaN;
+                } else if (i % 50 == 1) {
+                    // duplicated point:
+                    xs[i] = xs[i - 1];
+                    ys[i] = ys[i - 1];
+                } else {
+                    xs[i] = 100.0 * random.nextDouble();
+                    ys[i] = 10.0 * random.nextDouble();
+                }
+            }
+            dataset.addSeries("serie " + s, new double[][]{xs, ys});
+        }
+        return dataset;
+    }
+
+    /**
+     * Full scan: k nearest ordinals (distance then ordinal order)
+     */
+    private static int[] findNearest(final DefaultXYDataset dataset, final double anchorX, final double anchorY,
+                                     final double xRatio, final double yRatio, final int k) {
+        final int total = getTotal(dataset);
+        final double[] distances = new double[total];
+        final Integer[] ordinals = new Integer[total];
+        int n = 0;
+
+        for (int s = 0, ordinal = 0; s < dataset.getSeriesCount(); s++) {
+            for (int i = 0; i < dataset.getItemCount(s); i++, ordinal++) {
+                final double x = dataset.getXValue(s, i);
+                final double y = dataset.getYValue(s, i);
+                if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                    final double dx = (x - anchorX) * xRatio;
+                    final double dy = (y - anchorY) * yRatio;
+                    distances[ordinal] = dx * dx + dy * dy;
+                    ordinals[n++] = ordinal;
+                }
+            }
+        }
+        final Integer[] sorted = Arrays.copyOf(ordinals, n);
+        Arrays.sort(sorted, (a, b) -> {
+            final int cmp = Double.compare(distances[a], distances[b]);
+            return (cmp != 0) ? cmp : Integer.compare(a, b);
+        });
+
+        final int[] result = new int[Math.min(k, n)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sorted[i];
+        }
+        return result;
+    }
+
+    /**
+     * Full scan: ordinals inside the given rectangle (bounds included) or shape
+     */
+    private static int[] findInShape(final DefaultXYDataset dataset, final Shape shape, final boolean useShape) {
+        final Rectangle2D bounds = shape.getBounds2D();
+        final int[] result = new int[getTotal(dataset)];
+        int n = 0;
+
+        for (int s = 0, ordinal = 0; s < dataset.getSeriesCount(); s++) {
+            for (int i = 0; i < dataset.getItemCount(s); i++, ordinal++) {
+                final double x = dataset.getXValue(s, i);
+                final double y = dataset.getYValue(s, i);
+                if ((x >= bounds.getMinX()) && (x <= bounds.getMaxX()) && (y >= bounds.getMinY()) && (y <= bounds.getMaxY())
+                        && (!useShape || shape.contains(x, y))) {
+                    result[n++] = ordinal;
+                }
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int getTotal(final DefaultXYDataset dataset) {
+        int total = 0;
+        for (int s = 0; s < dataset.getSeriesCount(); s++) {
+            total += dataset.getItemCount(s);
+        }
+        return total;
+    }
+
+    private static void assertSameOrdinals(final String message, final int[] expected, final int[] actual) {
+        final int[] sorted = actual.clone();
+        // index results are unordered:
+        Arrays.sort(sorted);
+        Assert.assertArrayEquals(message, expected, sorted);
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIVis2;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ExprColumnBatch tests: columns computed per table (order) and tables restored when cancelled or failed
+ * @author bourgesl
+ */
+public class ExprColumnBatchTest {
+
+    /** flags: OI_VIS2 only */
+    private final static boolean[] VIS2 = new boolean[]{false, true, false};
+
+    /** first table */
+    private OIVis2 vis2;
+    /** second table */
+    private OIVis2 other;
+    /** registry */
+    private ExprColumnRegistry registry;
+    /** columns (expression) per table */
+    private Map<OIData, Map<String, String>> columns;
+    /** computed columns (table index: name = expression) */
+    private List<String> computed;
+
+    @Before
+    public void setUp() {
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+        vis2 = new OIVis2(oiFitsFile, "INS", 1);
+        other = new OIVis2(oiFitsFile, "INS", 1);
+        registry = new ExprColumnRegistry();
+        columns = new IdentityHashMap<OIData, Map<String, String>>();
+        computed = new ArrayList<String>();
+    }
+
+    @Test
+    public void testProcess() {
+        final Batch batch = batch(null,
+                vis2, "[A]", "VIS2DATA",
+                vis2, "[B]", "[A] * 2",
+                other, "[A]", "VIS2DATA");
+
+        Assert.assertEquals(3, batch.size());
+        Assert.assertEquals(2, batch.getGroupCount());
+
+        batch.processGroup(1);
+        batch.processGroup(0);
+
+        // columns of one table in the given order:
+        Assert.assertEquals(Arrays.asList("1: [A] = VIS2DATA", "0: [A] = VIS2DATA", "0: [B] = [A] * 2"), computed);
+        assertColumn(vis2, "[A]", "VIS2DATA");
+        assertColumn(vis2, "[B]", "[A] * 2");
+        assertColumn(other, "[A]", "VIS2DATA");
+    }
+
+    @Test
+    public void testRollbackOnFailure() {
+        apply(vis2, "[A]", "VIS2DATA");
+        apply(other, "[A]", "VIS2DATA");
+        // tables brought up to date:
+        registry.register("[A]", "VIS2DATA * 2", VIS2);
+
+        final Batch batch = batch(other,
+                vis2, "[A]", "VIS2DATA * 2",
+                vis2, "[B]", "[A] + 1",
+                other, "[A]", "VIS2DATA * 2");
+
+        batch.processGroup(0);
+        try {
+            batch.processGroup(1);
+            Assert.fail("failure expected");
+        } catch (IllegalStateException ise) {
+            batch.stop();
+            batch.rollback();
+        }
+
+        // previous expression computed again (before columns using it), new column removed:
+        Assert.assertEquals(Arrays.asList("0: [A] = VIS2DATA * 2", "0: [B] = [A] + 1",
+                "0: [A] = VIS2DATA", "0: [B] = null"), computed);
+        assertColumn(vis2, "[A]", "VIS2DATA");
+        assertColumn(vis2, "[B]", null);
+        // failed table unchanged:
+        assertColumn(other, "[A]", "VIS2DATA");
+
+        // failed expression not collected again on the failed table:
+        Assert.assertEquals(1, collect(vis2, other));
+        Assert.assertEquals(0, collect(other));
+
+        // rollback done once:
+        batch.rollback();
+        Assert.assertEquals(4, computed.size());
+    }
+
+    @Test
+    public void testRollbackOnStop() {
+        apply(vis2, "[A]", "VIS2DATA");
+        apply(vis2, "[B]", "[A] * 2");
+
+        // remove [B] and update [A] on both tables:
+        final Batch batch = batch(null,
+                vis2, "[B]", null,
+                vis2, "[A]", "VIS2ERR",
+                other, "[A]", "VIS2ERR");
+
+        batch.processGroup(0);
+        assertColumn(vis2, "[B]", null);
+        assertColumn(vis2, "[A]", "VIS2ERR");
+
+        // cancelled: pending tables are skipped
+        batch.stop();
+        batch.processGroup(1);
+        assertColumn(other, "[A]", null);
+
+        batch.rollback();
+        assertColumn(vis2, "[B]", "[A] * 2");
+        assertColumn(vis2, "[A]", "VIS2DATA");
+        assertColumn(other, "[A]", null);
+        Assert.assertEquals(4, computed.size());
+    }
+
+    private Batch batch(final OIData failing, final Object... entries) {
+        final List<OIData> oiDatas = new ArrayList<OIData>();
+        final List<String> names = new ArrayList<String>();
+        final List<String> exprs = new ArrayList<String>();
+        for (int i = 0; i < entries.length; i += 3) {
+            oiDatas.add((OIData) entries[i]);
+            names.add((String) entries[i + 1]);
+            exprs.add((String) entries[i + 2]);
+        }
+        return new Batch(failing, oiDatas, names, exprs);
+    }
+
+    private void apply(final OIData oiData, final String name, final String expr) {
+        getColumns(oiData).put(name, expr);
+        registry.setAppliedExpression(oiData, name, expr);
+    }
+
+    private void assertColumn(final OIData oiData, final String name, final String expr) {
+        Assert.assertEquals(name, expr, getColumns(oiData).get(name));
+        Assert.assertEquals(name, expr, registry.getAppliedExpression(oiData, name));
+    }
+
+    private Map<String, String> getColumns(final OIData oiData) {
+        Map<String, String> exprs = columns.get(oiData);
+        if (exprs == null) {
+            exprs = new HashMap<String, String>();
+            columns.put(oiData, exprs);
+        }
+        return exprs;
+    }
+
+    private int collect(final OIData... oiDatas) {
+        return registry.collect(Arrays.asList(oiDatas), new ArrayList<OIData>(), new ArrayList<String>(), new ArrayList<String>());
+    }
+
+    /**
+     * Batch recording computed columns (no oitools evaluation)
+     */
+    private final class Batch extends ExprColumnBatch {
+
+        /** table failing any computation (or null) */
+        private final OIData failing;
+
+        /**
+         * Protected constructor
+         * @param failing table failing any computation (or null)
+         * @param oiDatas tables to process
+         * @param columnNames column name per table
+         * @param tableExprs expression to compute per table (null to remove the column)
+         */
+        Batch(final OIData failing, final List<OIData> oiDatas, final List<String> columnNames, final List<String> tableExprs) {
+            super(registry, oiDatas, columnNames, tableExprs);
+            this.failing = failing;
+        }
+
+        @Override
+        void compute(final OIData oiData, final String columnName, final String expression) {
+            if (oiData == failing) {
+                throw new IllegalStateException("failure: " + expression);
+            }
+            computed.add(((oiData == vis2) ? "0" : "1") + ": " + columnName + " = " + expression);
+            getColumns(oiData).put(columnName, expression);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oiexplorer.core.function.ExpressionCompiler;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIArray;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OITarget;
+import fr.jmmc.oitools.model.OIVis2;
+import fr.jmmc.oitools.model.OIWavelength;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Expression columns computed by the compiled kernel (ExprColumnRegistry.updateExpressionColumn)
+ * compared to the oitools evaluation (OIData.updateExpressionColumn)
+ * @author bourgesl
+ */
+public class ExprColumnKernelTest {
+
+    /** number of wavelengths */
+    private final static int N_WAVES = 7;
+    /** number of data rows */
+    private final static int N_ROWS = 15;
+    /** relative precision */
+    private final static double EPSILON = 1e-12;
+    /** tested expressions (1D and 2D columns, functions, constants) */
+    private final static String[] EXPRESSIONS = new String[]{
+        "VIS2DATA / VIS2ERR",
+        "sqrt(abs(VIS2DATA - 0.5)) * 2 + UCOORD",
+        "(VIS2DATA + VIS2ERR) * (1 - VIS2ERR) / 3",
+        "-VIS2DATA * pi"
+    };
+
+    @Test
+    public void testKernelVsOITools() {
+        final OIVis2 oiVis2 = createOIVis2();
+
+        for (String expression : EXPRESSIONS) {
+            // supported by the compiler:
+            Assert.assertNotNull(ExpressionCompiler.compile(expression));
+
+            oiVis2.updateExpressionColumn("[REF]", expression);
+            final double[][] expected = oiVis2.getColumnAsDoubles("[REF]");
+
+            ExprColumnRegistry.updateExpressionColumn(oiVis2, "[KERNEL]", expression);
+            final double[][] actual = oiVis2.getColumnAsDoubles("[KERNEL]");
+
+            Assert.assertEquals(expression, N_ROWS, actual.length);
+            for (int i = 0; i < N_ROWS; i++) {
+                Assert.assertEquals(expression, N_WAVES, actual[i].length);
+                for (int l = 0; l < N_WAVES; l++) {
+                    final double e = expected[i][l];
+                    Assert.assertEquals(expression + " @ (" + i + ", " + l + ")", e, actual[i][l], EPSILON * Math.max(1.0, Math.abs(e)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        final OIVis2 oiVis2 = createOIVis2();
+
+        ExprColumnRegistry.updateExpressionColumn(oiVis2, "[SNR]", "VIS2DATA / VIS2ERR");
+        ExprColumnRegistry.updateExpressionColumn(oiVis2, "[SNR]", "2 * VIS2DATA");
+
+        final double[][] values = oiVis2.getColumnAsDoubles("[SNR]");
+        final double[][] vis2Data = oiVis2.getVis2Data();
+        for (int i = 0; i < N_ROWS; i++) {
+            for (int l = 0; l < N_WAVES; l++) {
+                Assert.assertEquals(2.0 * vis2Data[i][l], values[i][l], 0.0);
+            }
+        }
+
+        oiVis2.removeExpressionColumn("[SNR]");
+        Assert.assertNull(oiVis2.getColumnMeta("[SNR]"));
+    }
+
+    /**
+     * Create a sample OI_VIS2 table (with its OI_TARGET, OI_ARRAY and OI_WAVELENGTH tables)
+     * @return OI_VIS2 table
+     */
+    private static OIVis2 createOIVis2() {
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+
+        final OITarget oiTarget = new OITarget(oiFitsFile, 1);
+        oiTarget.getTargetId()[0] = (short) 1;
+        oiTarget.getTarget()[0] = "TARGET";
+        oiFitsFile.addOiTable(oiTarget);
+
+        final OIArray oiArray = new OIArray(oiFitsFile, 3);
+        oiArray.getKeywordsValue().put("ARRNAME", "ARRAY");
+        for (int i = 0; i < 3; i++) {
+            oiArray.getStaIndex()[i] = (short) (i + 1);
+            oiArray.getStaName()[i] = "S" + i;
+            oiArray.getTelName()[i] = "T" + i;
+        }
+        oiFitsFile.addOiTable(oiArray);
+
+        final OIWavelength oiWavelength = new OIWavelength(oiFitsFile, N_WAVES);
+        oiWavelength.getKeywordsValue().put("INSNAME", "INS");
+        for (int l = 0; l < N_WAVES; l++) {
+            oiWavelength.getEffWave()[l] = 1e-6f * (1.5f + 0.1f * l);
+            oiWavelength.getEffBand()[l] = 1e-7f;
+        }
+        oiFitsFile.addOiTable(oiWavelength);
+
+        final OIVis2 oiVis2 = new OIVis2(oiFitsFile, "INS", N_ROWS);
+        oiVis2.getKeywordsValue().put("ARRNAME", "ARRAY");
+        oiVis2.getKeywordsValue().put("DATE-OBS", "2020-01-01");
+        for (int i = 0; i < N_ROWS; i++) {
+            oiVis2.getTargetId()[i] = (short) 1;
+            oiVis2.getStaIndex()[i][0] = (short) (1 + i % 3);
+            oiVis2.getStaIndex()[i][1] = (short) (1 + (i + 1) % 3);
+            oiVis2.getUCoord()[i] = 10.0 * i - 70.0;
+            oiVis2.getVCoord()[i] = 5.0 * i;
+            for (int l = 0; l < N_WAVES; l++) {
+                oiVis2.getVis2Data()[i][l] = 0.9 - 0.05 * i + 0.01 * l;
+                oiVis2.getVis2Err()[i][l] = 0.01 + 0.001 * (i + l);
+            }
+        }
+        oiFitsFile.addOiTable(oiVis2);
+
+        oiFitsFile.analyze();
+        return oiVis2;
+    }
+}
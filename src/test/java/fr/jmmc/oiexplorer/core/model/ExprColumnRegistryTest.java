@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIT3;
+import fr.jmmc.oitools.model.OIVis2;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ExprColumnRegistry tests: changes collected per table (order, removed and failed columns)
+ * @author bourgesl
+ */
+public class ExprColumnRegistryTest {
+
+    /** flags: OI_VIS2 only */
+    private final static boolean[] VIS2 = new boolean[]{false, true, false};
+    /** flags: all tables */
+    private final static boolean[] ALL = new boolean[]{true, true, true};
+
+    @Test
+    public void testCollectOrder() {
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+        final OIVis2 vis2 = new OIVis2(oiFitsFile, "INS", 1);
+        final OIT3 t3 = new OIT3(oiFitsFile, "INS", 1);
+
+        final ExprColumnRegistry registry = new ExprColumnRegistry();
+        registry.register("[B]", "VIS2DATA * 2", VIS2);
+        registry.register("[A]", "[B] + 1", ALL);
+        // update keeps the registration order:
+        registry.register("[B]", "VIS2DATA * 3", VIS2);
+
+        final Changes changes = collect(registry, vis2, t3);
+        Assert.assertEquals(3, changes.size());
+        // changes of the same table are contiguous, in registration order:
+        changes.assertChange(0, vis2, "[B]", "VIS2DATA * 3");
+        changes.assertChange(1, vis2, "[A]", "[B] + 1");
+        changes.assertChange(2, t3, "[A]", "[B] + 1");
+
+        // up to date:
+        registry.setAppliedExpression(vis2, "[B]", "VIS2DATA * 3");
+        registry.setAppliedExpression(vis2, "[A]", "[B] + 1");
+        registry.setAppliedExpression(t3, "[A]", "[B] + 1");
+        Assert.assertEquals(0, collect(registry, vis2, t3).size());
+
+        // unregistered column removed first:
+        registry.unregister("[B]");
+        registry.register("[A]", "VIS2DATA", VIS2);
+
+        final Changes updates = collect(registry, vis2, t3);
+        Assert.assertEquals(3, updates.size());
+        updates.assertChange(0, vis2, "[B]", null);
+        updates.assertChange(1, vis2, "[A]", "VIS2DATA");
+        // no more supported:
+        updates.assertChange(2, t3, "[A]", null);
+    }
+
+    @Test
+    public void testFailures() {
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+        final OIVis2 vis2 = new OIVis2(oiFitsFile, "INS", 1);
+        final OIVis2 other = new OIVis2(oiFitsFile, "INS", 1);
+
+        final ExprColumnRegistry registry = new ExprColumnRegistry();
+        registry.register("[A]", "VIS2DATA / 0", VIS2);
+
+        registry.setFailedExpression(vis2, "[A]", "VIS2DATA / 0");
+
+        // failed expression is not collected again on that table:
+        final Changes changes = collect(registry, vis2, other);
+        Assert.assertEquals(1, changes.size());
+        changes.assertChange(0, other, "[A]", "VIS2DATA / 0");
+
+        // failed with a previous expression:
+        registry.setFailedExpression(other, "[A]", "VIS2DATA * 2");
+        Assert.assertEquals(1, collect(registry, other).size());
+
+        // new expression:
+        registry.register("[A]", "VIS2DATA", VIS2);
+        Assert.assertEquals(2, collect(registry, vis2, other).size());
+
+        registry.setFailedExpression(vis2, "[A]", "VIS2DATA");
+        Assert.assertEquals(0, collect(registry, vis2).size());
+
+        // registered again (user request): failures are forgotten
+        registry.register("[A]", "VIS2DATA", VIS2);
+        Assert.assertEquals(1, collect(registry, vis2).size());
+
+        // computed: failure is forgotten
+        registry.setFailedExpression(vis2, "[A]", "VIS2DATA");
+        registry.setAppliedExpression(vis2, "[A]", "VIS2DATA");
+        registry.setAppliedExpression(vis2, "[A]", null);
+        Assert.assertEquals(1, collect(registry, vis2).size());
+
+        registry.setFailedExpression(vis2, "[A]", "VIS2DATA");
+        registry.clear();
+        registry.register("[A]", "VIS2DATA", VIS2);
+        Assert.assertEquals(1, collect(registry, vis2).size());
+    }
+
+    private static Changes collect(final ExprColumnRegistry registry, final OIData... oiDatas) {
+        final Changes changes = new Changes();
+        final int n = registry.collect(Arrays.asList(oiDatas), changes.oiDatas, changes.names, changes.exprs);
+        Assert.assertEquals(n, changes.size());
+        return changes;
+    }
+
+    /**
+     * Collected changes
+     */
+    private static final class Changes {
+
+        /** tables */
+        final List<OIData> oiDatas = new ArrayList<OIData>();
+        /** column names */
+        final List<String> names = new ArrayList<String>();
+        /** expressions (null to remove the column) */
+        final List<String> exprs = new ArrayList<String>();
+
+        int size() {
+            return oiDatas.size();
+        }
+
+        void assertChange(final int index, final OIData oiData, final String name, final String expr) {
+            Assert.assertSame("table " + index, oiData, oiDatas.get(index));
+            Assert.assertEquals("name " + index, name, names.get(index));
+            Assert.assertEquals("expression " + index, expr, exprs.get(index));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIFitsFile;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * OIFitsFileRegistry tests: XXH64 known vectors (seed = 0) and file lookups
+ * @author bourgesl
+ */
+public class OIFitsFileRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /** written file counter */
+    private int nFiles = 0;
+
+    @Test
+    public void testHashVectors() throws IOException {
+        Assert.assertEquals(0xEF46DB3751D8E999L, hash(new byte[0]));
+        Assert.assertEquals(0xD24EC4F1A98C6E5BL, hash("a".getBytes(StandardCharsets.US_ASCII)));
+        Assert.assertEquals(0x44BC2CF5AD770999L, hash("abc".getBytes(StandardCharsets.US_ASCII)));
+        // more than 32 bytes (stripes + remaining 8, 4 and 1 byte steps):
+        Assert.assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testHashLargeFile() throws IOException {
+        // larger than the read buffer (1 Mb) and not a multiple of 32 bytes:
+        final byte[] data = new byte[2 * 1024 * 1024 + 45];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        Assert.assertEquals(0x5F9D842EE3C0E34BL, hash(data));
+    }
+
+    @Test
+    public void testFileStamp() throws IOException {
+        final File file = write("abc".getBytes(StandardCharsets.US_ASCII));
+
+        final OIFitsFileRegistry.FileStamp stamp = new OIFitsFileRegistry.FileStamp(file.getAbsolutePath());
+        Assert.assertEquals(3L, stamp.size);
+        Assert.assertTrue(stamp.hasContent(0x44BC2CF5AD770999L));
+        Assert.assertFalse(stamp.hasContent(0xEF46DB3751D8E999L));
+    }
+
+    @Test
+    public void testFindSamePathOnly() throws IOException {
+        final byte[] data = "same content".getBytes(StandardCharsets.US_ASCII);
+        final File file = write(data);
+        final File copy = write(data);
+
+        final OIFitsFileRegistry registry = new OIFitsFileRegistry();
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+
+        Assert.assertSame(oiFitsFile, registry.register(new OIFitsFileRegistry.FileStamp(file.getAbsolutePath()), oiFitsFile));
+
+        // same path, size and date:
+        Assert.assertSame(oiFitsFile, registry.find(new OIFitsFileRegistry.FileStamp(file.getAbsolutePath())));
+
+        // copied file (same content at another path) is not shared:
+        final OIFitsFileRegistry.FileStamp copyStamp = new OIFitsFileRegistry.FileStamp(copy.getAbsolutePath());
+        Assert.assertNull(registry.find(copyStamp));
+
+        final OIFitsFile copyFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+        Assert.assertSame(copyFile, registry.register(copyStamp, copyFile));
+
+        // cleared (reset):
+        registry.clear();
+        Assert.assertNull(registry.find(new OIFitsFileRegistry.FileStamp(file.getAbsolutePath())));
+    }
+
+    private long hash(final byte[] data) throws IOException {
+        return OIFitsFileRegistry.hash(write(data));
+    }
+
+    private File write(final byte[] data) throws IOException {
+        final File file = folder.newFile("data-" + (nFiles++) + ".bin");
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIArray;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OIFitsWriter;
+import fr.jmmc.oitools.model.OITarget;
+import fr.jmmc.oitools.model.OIVis2;
+import fr.jmmc.oitools.model.OIWavelength;
+import fr.nom.tam.fits.FitsException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * OIFitsFilesLoader tests: the checker report of parallel loads (invalid files) compared to the sequential report
+ * @author bourgesl
+ */
+public class OIFitsFilesLoaderTest {
+
+    /** number of wavelengths */
+    private final static int N_WAVES = 5;
+    /** number of data rows */
+    private final static int N_ROWS = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelReport() throws IOException, FitsException {
+        final List<String> fileLocations = new ArrayList<String>();
+        // invalid files (unknown TARGET_ID, unknown STA_INDEX, negative VIS2ERR) around a sample file:
+        fileLocations.add(createOIFitsFile("target.fits", 9, 1, 0.01));
+        fileLocations.add(createOIFitsFile("sample.fits", 1, 1, 0.01));
+        fileLocations.add(createOIFitsFile("station.fits", 1, 7, 0.01));
+        fileLocations.add(createOIFitsFile("error.fits", 1, 1, -0.01));
+        // not a fits file (load failure):
+        fileLocations.add(createBadFile("bad.fits"));
+
+        final OIFitsChecker checker = new OIFitsChecker();
+        final OIFitsFile[] expected = new Loader(fileLocations, checker).loadSequential();
+        Assert.assertNotNull(expected);
+        Assert.assertFalse(checker.getFailures().isEmpty());
+
+        final String report = checker.getCheckReport();
+
+        for (int nThreads = 2; nThreads <= 3; nThreads++) {
+            final OIFitsChecker parallelChecker = new OIFitsChecker();
+            final OIFitsFile[] loaded = new Loader(fileLocations, parallelChecker).loadParallel(nThreads);
+            Assert.assertNotNull(loaded);
+
+            // same files in the input order:
+            Assert.assertEquals(expected.length, loaded.length);
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(fileLocations.get(i), expected[i] == null, loaded[i] == null);
+            }
+
+            // same report (all failures in the input order):
+            Assert.assertEquals(nThreads + " threads", checker.getFailures().size(), parallelChecker.getFailures().size());
+            Assert.assertEquals(nThreads + " threads", report, parallelChecker.getCheckReport());
+        }
+    }
+
+    /**
+     * Write a sample OIFits file (OI_TARGET, OI_ARRAY, OI_WAVELENGTH and OI_VIS2 tables)
+     * @param name file name
+     * @param targetId TARGET_ID of the first data row
+     * @param staIndex first STA_INDEX of the first data row
+     * @param vis2Err VIS2ERR of the first data row
+     * @return absolute file path
+     * @throws IOException if an I/O exception occurred
+     * @throws FitsException if a fits exception occurred
+     */
+    private String createOIFitsFile(final String name, final int targetId, final int staIndex, final double vis2Err)
+            throws IOException, FitsException {
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+
+        final OITarget oiTarget = new OITarget(oiFitsFile, 1);
+        oiTarget.getTargetId()[0] = (short) 1;
+        oiTarget.getTarget()[0] = "TARGET";
+        oiFitsFile.addOiTable(oiTarget);
+
+        final OIArray oiArray = new OIArray(oiFitsFile, 3);
+        oiArray.getKeywordsValue().put("ARRNAME", "ARRAY");
+        for (int i = 0; i < 3; i++) {
+            oiArray.getStaIndex()[i] = (short) (i + 1);
+            oiArray.getStaName()[i] = "S" + i;
+            oiArray.getTelName()[i] = "T" + i;
+        }
+        oiFitsFile.addOiTable(oiArray);
+
+        final OIWavelength oiWavelength = new OIWavelength(oiFitsFile, N_WAVES);
+        oiWavelength.getKeywordsValue().put("INSNAME", "INS");
+        for (int l = 0; l < N_WAVES; l++) {
+            oiWavelength.getEffWave()[l] = 1e-6f * (1.5f + 0.1f * l);
+            oiWavelength.getEffBand()[l] = 1e-7f;
+        }
+        oiFitsFile.addOiTable(oiWavelength);
+
+        final OIVis2 oiVis2 = new OIVis2(oiFitsFile, "INS", N_ROWS);
+        oiVis2.getKeywordsValue().put("ARRNAME", "ARRAY");
+        oiVis2.getKeywordsValue().put("DATE-OBS", "2020-01-01");
+        for (int i = 0; i < N_ROWS; i++) {
+            oiVis2.getTargetId()[i] = (short) ((i == 0) ? targetId : 1);
+            oiVis2.getStaIndex()[i][0] = (short) ((i == 0) ? staIndex : 1 + i % 3);
+            oiVis2.getStaIndex()[i][1] = (short) (1 + (i + 1) % 3);
+            oiVis2.getUCoord()[i] = 10.0 * i - 70.0;
+            oiVis2.getVCoord()[i] = 5.0 * i;
+            for (int l = 0; l < N_WAVES; l++) {
+                oiVis2.getVis2Data()[i][l] = 0.9 - 0.05 * i + 0.01 * l;
+                oiVis2.getVis2Err()[i][l] = (i == 0) ? vis2Err : 0.01 + 0.001 * (i + l);
+            }
+        }
+        oiFitsFile.addOiTable(oiVis2);
+
+        final String absFilePath = new File(folder.getRoot(), name).getAbsolutePath();
+        OIFitsWriter.writeOIFits(absFilePath, oiFitsFile);
+        return absFilePath;
+    }
+
+    /**
+     * Create a file which is not a fits file
+     * @param name file name
+     * @return absolute file path
+     * @throws IOException if an I/O exception occurred
+     */
+    private String createBadFile(final String name) throws IOException {
+        final File file = folder.newFile(name);
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                out.write(i);
+            }
+        } finally {
+            out.close();
+        }
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Loader using OIFitsLoader (no collection)
+     */
+    private static final class Loader extends OIFitsFilesLoader {
+
+        /**
+         * Protected constructor
+         * @param fileLocations file locations (absolute File Path)
+         * @param checker checker component
+         */
+        Loader(final List<String> fileLocations, final OIFitsChecker checker) {
+            super(fileLocations, checker);
+        }
+
+        @Override
+        OIFitsFile loadFile(final String fileLocation, final OIFitsChecker fileChecker) {
+            try {
+                return OIFitsLoader.loadOIFits(fileChecker, fileLocation);
+            } catch (IOException ioe) {
+                return null;
+            } catch (FitsException fe) {
+                return null;
+            }
+        }
+
+        @Override
+        void progress(final int nDone, final int nFiles) {
+            // no-op
+        }
+    }
+}
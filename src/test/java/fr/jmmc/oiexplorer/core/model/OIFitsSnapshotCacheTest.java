@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.model;
+
+import fr.jmmc.oitools.fits.FitsHeaderCard;
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIArray;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OITable;
+import fr.jmmc.oitools.model.OITarget;
+import fr.jmmc.oitools.model.OIVis2;
+import fr.jmmc.oitools.model.OIWavelength;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * OIFitsSnapshotCache tests: round-trip of sample OIFits files (OIFITS 1 and 2) and validation states
+ * @author bourgesl
+ */
+public class OIFitsSnapshotCacheTest {
+
+    /** number of wavelengths */
+    private final static int N_WAVES = 5;
+    /** number of data rows */
+    private final static int N_ROWS = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        checkRoundTrip(OIFitsStandard.VERSION_1);
+    }
+
+    @Test
+    public void testRoundTripOIFits2() throws IOException {
+        checkRoundTrip(OIFitsStandard.VERSION_2);
+    }
+
+    private void checkRoundTrip(final OIFitsStandard version) throws IOException {
+        final File source = createSourceFile();
+        final OIFitsSnapshotCache cache = new OIFitsSnapshotCache(folder.newFolder("snapshots"));
+
+        final OIFitsFile oiFitsFile = createOIFitsFile(version, source.getAbsolutePath());
+
+        final OIFitsFileRegistry.FileStamp stamp = new OIFitsFileRegistry.FileStamp(source.getAbsolutePath());
+        cache.save(stamp, oiFitsFile, Boolean.TRUE);
+
+        // new stamp (hash unknown) restored from the snapshot:
+        final OIFitsFileRegistry.FileStamp loadStamp = new OIFitsFileRegistry.FileStamp(source.getAbsolutePath());
+        final OIFitsFile restored = cache.load(loadStamp, source.getAbsolutePath(), true);
+
+        Assert.assertNotNull(restored);
+        Assert.assertEquals(version, restored.getVersion());
+        Assert.assertEquals(source.getAbsolutePath(), restored.getAbsoluteFilePath());
+        Assert.assertEquals(1, restored.getOiVis2().length);
+
+        // content hash restored:
+        Assert.assertEquals(OIFitsFileRegistry.hash(source), loadStamp.getContentHash());
+
+        // primary header with its header cards:
+        final FitsImageHDU primaryHDU = restored.getPrimaryImageHDU();
+        Assert.assertNotNull(primaryHDU);
+        Assert.assertEquals(oiFitsFile.getPrimaryImageHDU().getClass(), primaryHDU.getClass());
+        assertSameValues("primary keywords", oiFitsFile.getPrimaryImageHDU().getKeywordsValue(), primaryHDU.getKeywordsValue());
+        assertSameCards("primary", oiFitsFile.getPrimaryImageHDU().getHeaderCards(), primaryHDU.getHeaderCards());
+
+        // tables in order with the same keywords and columns:
+        final List<OITable> expected = oiFitsFile.getOITableList();
+        final List<OITable> actual = restored.getOITableList();
+        Assert.assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            final OITable e = expected.get(i);
+            final OITable a = actual.get(i);
+            Assert.assertEquals(e.getClass(), a.getClass());
+            Assert.assertEquals(e.getExtName(), a.getExtName());
+            Assert.assertEquals(e.getExtNb(), a.getExtNb());
+            Assert.assertEquals(e.getNbRows(), a.getNbRows());
+            assertSameValues(e.getExtName() + " keywords", e.getKeywordsValue(), a.getKeywordsValue());
+            assertSameValues(e.getExtName() + " columns", e.getColumnsValue(), a.getColumnsValue());
+            Assert.assertEquals(e.hasHeaderCards(), a.hasHeaderCards());
+            if (e.hasHeaderCards()) {
+                assertSameCards(e.getExtName(), e.getHeaderCards(), a.getHeaderCards());
+            }
+        }
+    }
+
+    @Test
+    public void testValidation() throws IOException {
+        final File source = createSourceFile();
+        final OIFitsSnapshotCache cache = new OIFitsSnapshotCache(folder.newFolder("snapshots"));
+        final String path = source.getAbsolutePath();
+
+        // not validated: restored only without checker
+        cache.save(new OIFitsFileRegistry.FileStamp(path), createOIFitsFile(OIFitsStandard.VERSION_1, path), null);
+        Assert.assertNotNull(cache.load(new OIFitsFileRegistry.FileStamp(path), path, false));
+        Assert.assertNull(cache.load(new OIFitsFileRegistry.FileStamp(path), path, true));
+
+        // validation report: parsed again with the checker
+        cache.save(new OIFitsFileRegistry.FileStamp(path), createOIFitsFile(OIFitsStandard.VERSION_1, path), Boolean.FALSE);
+        Assert.assertNotNull(cache.load(new OIFitsFileRegistry.FileStamp(path), path, false));
+        Assert.assertNull(cache.load(new OIFitsFileRegistry.FileStamp(path), path, true));
+
+        // valid:
+        cache.save(new OIFitsFileRegistry.FileStamp(path), createOIFitsFile(OIFitsStandard.VERSION_1, path), Boolean.TRUE);
+        Assert.assertNotNull(cache.load(new OIFitsFileRegistry.FileStamp(path), path, true));
+    }
+
+    @Test
+    public void testOutdated() throws IOException {
+        final File source = createSourceFile();
+        final OIFitsSnapshotCache cache = new OIFitsSnapshotCache(folder.newFolder("snapshots"));
+
+        cache.save(new OIFitsFileRegistry.FileStamp(source.getAbsolutePath()),
+                createOIFitsFile(OIFitsStandard.VERSION_1, source.getAbsolutePath()), Boolean.TRUE);
+
+        // modified source file:
+        Assert.assertTrue(source.setLastModified(source.lastModified() - 10000L));
+
+        Assert.assertNull(cache.load(new OIFitsFileRegistry.FileStamp(source.getAbsolutePath()), source.getAbsolutePath(), false));
+
+        // cleared:
+        cache.clear();
+        Assert.assertEquals(0, cache.getDirectory().listFiles().length);
+    }
+
+    @Test
+    public void testUnsupported() throws IOException {
+        final File source = createSourceFile();
+        final OIFitsSnapshotCache cache = new OIFitsSnapshotCache(folder.newFolder("snapshots"));
+
+        // files with images are not stored:
+        final OIFitsFile oiFitsFile = createOIFitsFile(OIFitsStandard.VERSION_2, source.getAbsolutePath());
+        final FitsImage fitsImage = new FitsImage();
+        fitsImage.setData(new float[][]{{1f, 2f}, {3f, 4f}});
+        oiFitsFile.getPrimaryImageHDU().getFitsImages().add(fitsImage);
+
+        cache.save(new OIFitsFileRegistry.FileStamp(source.getAbsolutePath()), oiFitsFile, Boolean.TRUE);
+
+        Assert.assertNull(cache.load(new OIFitsFileRegistry.FileStamp(source.getAbsolutePath()), source.getAbsolutePath(), false));
+    }
+
+    /**
+     * Create the source file (any content: only its stamp and hash are used)
+     * @return source file
+     * @throws IOException if an I/O exception occurred
+     */
+    private File createSourceFile() throws IOException {
+        final File file = folder.newFile("sample.fits");
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                out.write(i);
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Create a sample OIFits file (primary header, OI_TARGET, OI_ARRAY, OI_WAVELENGTH and OI_VIS2 tables)
+     * @param version OIFits standard
+     * @param absFilePath absolute file path
+     * @return OIFits file
+     */
+    private static OIFitsFile createOIFitsFile(final OIFitsStandard version, final String absFilePath) {
+        final OIFitsFile oiFitsFile = new OIFitsFile(version, absFilePath);
+
+        final FitsImageHDU primaryHDU = new FitsImageHDU();
+        primaryHDU.getKeywordsValue().put("OBJECT", "TARGET");
+        primaryHDU.getHeaderCards().add(new FitsHeaderCard("HIERARCH ESO DET DIT", "0.5", "integration time"));
+        oiFitsFile.getFitsImageHDUs().add(primaryHDU);
+
+        final OITarget oiTarget = new OITarget(oiFitsFile, 1);
+        fill(oiTarget);
+        oiFitsFile.addOiTable(oiTarget);
+
+        final OIArray oiArray = new OIArray(oiFitsFile, 3);
+        oiArray.getKeywordsValue().put("ARRNAME", "ARRAY");
+        fill(oiArray);
+        for (int i = 0; i < 3; i++) {
+            oiArray.getStaIndex()[i] = (short) (i + 1);
+        }
+        oiFitsFile.addOiTable(oiArray);
+
+        final OIWavelength oiWavelength = new OIWavelength(oiFitsFile, N_WAVES);
+        oiWavelength.getKeywordsValue().put("INSNAME", "INS");
+        fill(oiWavelength);
+        oiFitsFile.addOiTable(oiWavelength);
+
+        final OIVis2 oiVis2 = new OIVis2(oiFitsFile, "INS", N_ROWS);
+        oiVis2.getKeywordsValue().put("ARRNAME", "ARRAY");
+        oiVis2.getKeywordsValue().put("DATE-OBS", "2020-01-01");
+        fill(oiVis2);
+        for (int i = 0; i < N_ROWS; i++) {
+            oiVis2.getStaIndex()[i][0] = (short) (1 + i % 3);
+            oiVis2.getStaIndex()[i][1] = (short) (1 + (i + 1) % 3);
+        }
+        oiVis2.getHeaderCards().add(new FitsHeaderCard("HIERARCH ESO QC VIS2", null, null));
+        oiFitsFile.addOiTable(oiVis2);
+
+        oiFitsFile.analyze();
+        return oiFitsFile;
+    }
+
+    /**
+     * Fill the column arrays of the given table with sample values (ids = 1)
+     * @param table table to fill
+     */
+    private static void fill(final OITable table) {
+        for (Object value : table.getColumnsValue().values()) {
+            fill(value, 1);
+        }
+    }
+
+    private static void fill(final Object value, final int seed) {
+        if (value instanceof short[]) {
+            Arrays.fill((short[]) value, (short) 1);
+        } else if (value instanceof int[]) {
+            Arrays.fill((int[]) value, 1);
+        } else if (value instanceof float[]) {
+            final float[] array = (float[]) value;
+            for (int i = 0; i < array.length; i++) {
+                array[i] = 1e-6f * (seed + i);
+            }
+        } else if (value instanceof double[]) {
+            final double[] array = (double[]) value;
+            for (int i = 0; i < array.length; i++) {
+                array[i] = 0.25 * (seed + i);
+            }
+        } else if (value instanceof boolean[]) {
+            final boolean[] array = (boolean[]) value;
+            for (int i = 0; i < array.length; i++) {
+                array[i] = ((seed + i) % 3 == 0);
+            }
+        } else if (value instanceof String[]) {
+            final String[] array = (String[]) value;
+            for (int i = 0; i < array.length; i++) {
+                array[i] = "S" + (seed + i);
+            }
+        } else if (value instanceof Object[]) {
+            final Object[] array = (Object[]) value;
+            for (int i = 0; i < array.length; i++) {
+                fill(array[i], seed + 7 * i);
+            }
+        }
+    }
+
+    private static void assertSameCards(final String message, final List<FitsHeaderCard> expected, final List<FitsHeaderCard> actual) {
+        Assert.assertEquals(message, expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(message, expected.get(i).getKey(), actual.get(i).getKey());
+            Assert.assertEquals(message, expected.get(i).getValue(), actual.get(i).getValue());
+            Assert.assertEquals(message, expected.get(i).getComment(), actual.get(i).getComment());
+        }
+    }
+
+    private static void assertSameValues(final String message, final Map<String, Object> expected, final Map<String, Object> actual) {
+        Assert.assertEquals(message, expected.keySet(), actual.keySet());
+
+        for (Map.Entry<String, Object> e : expected.entrySet()) {
+            Assert.assertTrue(message + ": " + e.getKey(),
+                    Arrays.deepEquals(new Object[]{e.getValue()}, new Object[]{actual.get(e.getKey())}));
+        }
+    }
+}
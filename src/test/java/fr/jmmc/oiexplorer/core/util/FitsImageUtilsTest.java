@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.util;
+
+import fr.jmmc.jmal.image.ImageArrayUtils;
+import fr.jmmc.jmal.image.job.ImageLowerThresholdJob;
+import fr.jmmc.jmal.image.job.ImageNormalizeJob;
+import fr.jmmc.jmcs.util.NumberUtils;
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.processing.Resampler;
+import fr.jmmc.oitools.util.ArrayConvert;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * FitsImageUtils tests: prepareImage() and resampleImages() compared to the previous implementations
+ * (jmal image jobs and oitools Resampler)
+ * @author bourgesl
+ */
+public class FitsImageUtilsTest {
+
+    /** float precision (relative) */
+    private static final double EPSILON = 1e-5;
+    /** resampling tolerance relative to the image maximum (all pixels) */
+    private static final double RESAMPLE_TOLERANCE = 1e-5;
+
+    @Test
+    public void testPrepareImageNegative() {
+        // odd and non square image with negative values:
+        checkPrepareImage(createImage(new Random(1L), 37, 52, true), true);
+        checkPrepareImage(createImage(new Random(2L), 64, 41, true), false);
+    }
+
+    @Test
+    public void testPrepareImagePositive() {
+        checkPrepareImage(createImage(new Random(3L), 48, 48, false), true);
+        checkPrepareImage(createImage(new Random(4L), 33, 33, false), false);
+    }
+
+    @Test
+    public void testResampleImages() {
+        final Random random = new Random(5L);
+        final int size = 64;
+
+        for (int newSize : new int[]{100, 40}) {
+            final FitsImageHDU hdu = new FitsImageHDU();
+            final float[][][] inputs = new float[3][][];
+
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = createGaussian(random, size);
+
+                final FitsImage fitsImage = FitsImageUtils.createFitsImage(copy(inputs[i]),
+                        0.5 * size, 0.5 * size + 1.0, 1e-9, -2e-9);
+                hdu.getFitsImages().add(fitsImage);
+                fitsImage.setFitsImageHDU(hdu);
+            }
+
+            // cube slices in parallel:
+            FitsImageUtils.resampleImages(hdu, newSize, FitsImageUtils.DEFAULT_FILTER);
+
+            for (int i = 0; i < inputs.length; i++) {
+                final FitsImage fitsImage = hdu.getFitsImages().get(i);
+
+                Assert.assertEquals(newSize, fitsImage.getNbRows());
+                Assert.assertEquals(newSize, fitsImage.getNbCols());
+
+                // previous implementation (double precision):
+                final double[][] ref = Resampler.filter(ArrayConvert.toDoubles(size, size, inputs[i]),
+                        new double[newSize][newSize], FitsImageUtils.DEFAULT_FILTER, true);
+
+                double max = 0.0;
+                for (double[] row : ref) {
+                    for (double value : row) {
+                        max = Math.max(max, value);
+                    }
+                }
+                // compare all pixels (including edges):
+                final float[][] data = fitsImage.getData();
+                for (int y = 0; y < newSize; y++) {
+                    for (int x = 0; x < newSize; x++) {
+                        Assert.assertEquals("slice " + i + " @ (" + x + ", " + y + ")", ref[y][x], data[y][x], RESAMPLE_TOLERANCE * max);
+                    }
+                }
+
+                // increments and origin (ref pixel) updated:
+                Assert.assertEquals(1e-9 * size / newSize, fitsImage.getSignedIncRow(), 1e-9 * EPSILON);
+                Assert.assertEquals(-2e-9 * size / newSize, fitsImage.getSignedIncCol(), 1e-9 * EPSILON);
+                Assert.assertEquals((0.5 * size - 1.0) * newSize / size + 1.0, fitsImage.getPixRefRow(), EPSILON);
+                Assert.assertEquals((0.5 * size) * newSize / size + 1.0, fitsImage.getPixRefCol(), EPSILON);
+
+                // data range updated:
+                Assert.assertTrue(fitsImage.isDataRangeDefined());
+                Assert.assertEquals(max, fitsImage.getDataMax(), RESAMPLE_TOLERANCE * max);
+            }
+        }
+    }
+
+    /**
+     * Compare prepareImage() to the previous implementation (threshold, normalize and enlarge jobs)
+     * @param data image data
+     * @param defineRange true to define the data range before preparation
+     */
+    private static void checkPrepareImage(final float[][] data, final boolean defineRange) {
+        final FitsImage fitsImage = createFitsImage(copy(data), defineRange);
+        final FitsImage refImage = createFitsImage(copy(data), defineRange);
+
+        FitsImageUtils.prepareImage(fitsImage);
+        prepareImageReference(refImage);
+
+        Assert.assertEquals(refImage.getNbRows(), fitsImage.getNbRows());
+        Assert.assertEquals(refImage.getNbCols(), fitsImage.getNbCols());
+        Assert.assertEquals(refImage.getPixRefRow(), fitsImage.getPixRefRow(), 0.0);
+        Assert.assertEquals(refImage.getPixRefCol(), fitsImage.getPixRefCol(), 0.0);
+
+        final float[][] expected = refImage.getData();
+        final float[][] actual = fitsImage.getData();
+
+        final double max = refImage.getDataMax();
+        for (int y = 0; y < expected.length; y++) {
+            for (int x = 0; x < expected[y].length; x++) {
+                Assert.assertEquals("(" + x + ", " + y + ")", expected[y][x], actual[y][x], EPSILON * max);
+            }
+        }
+        Assert.assertEquals(refImage.getDataMin(), fitsImage.getDataMin(), EPSILON * max);
+        Assert.assertEquals(refImage.getDataMax(), fitsImage.getDataMax(), EPSILON * max);
+        Assert.assertEquals(refImage.getSum(), fitsImage.getSum(), EPSILON);
+        Assert.assertEquals(1.0, fitsImage.getSum(), 1e-3);
+    }
+
+    /**
+     * Previous prepareImage() implementation (jmal image jobs)
+     * @param fitsImage FitsImage to process
+     */
+    private static void prepareImageReference(final FitsImage fitsImage) {
+        if (!fitsImage.isDataRangeDefined()) {
+            FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
+        }
+        float[][] data = fitsImage.getData();
+        final int nbRows = fitsImage.getNbRows();
+        final int nbCols = fitsImage.getNbCols();
+
+        if (fitsImage.getDataMin() < 0.0) {
+            new ImageLowerThresholdJob(data, nbCols, nbRows, 0f, 0f).forkAndJoin();
+            FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
+        }
+        if (fitsImage.getSum() > 0.0 && !NumberUtils.equals(fitsImage.getSum(), 1.0, 1e-3)) {
+            new ImageNormalizeJob(data, nbCols, nbRows, 1d / fitsImage.getSum()).forkAndJoin();
+            FitsImageUtils.updateDataRangeExcludingZero(fitsImage);
+        }
+        final int size = Math.max(nbRows, nbCols);
+        final int newSize = (size % 2 != 0) ? size + 1 : size;
+
+        if (newSize != nbRows || newSize != nbCols) {
+            data = ImageArrayUtils.enlarge(nbRows, nbCols, data, newSize, newSize);
+
+            FitsImageUtils.updateFitsImage(fitsImage, data, fitsImage.getDataMin(), fitsImage.getDataMax());
+
+            fitsImage.setPixRefRow(fitsImage.getPixRefRow() + ((newSize - nbRows) / 2.0));
+            fitsImage.setPixRefCol(fitsImage.getPixRefCol() + ((newSize - nbCols) / 2.0));
+        }
+    }
+
+    private static FitsImage createFitsImage(final float[][] data, final boolean defineRange) {
+        final FitsImage fitsImage;
+        if (defineRange) {
+            fitsImage = FitsImageUtils.createFitsImage(data);
+        } else {
+            fitsImage = new FitsImage();
+            fitsImage.setData(data);
+        }
+        fitsImage.setPixRefRow(0.5 * data.length);
+        fitsImage.setPixRefCol(0.5 * data[0].length);
+        return fitsImage;
+    }
+
+    private static float[][] createImage(final Random random, final int nbRows, final int nbCols, final boolean negative) {
+        final float[][] data = new float[nbRows][nbCols];
+        for (int y = 0; y < nbRows; y++) {
+            for (int x = 0; x < nbCols; x++) {
+                final double value = 10.0 * random.nextDouble();
+                data[y][x] = (float) ((negative) ? value - 2.0 : ((x + y) % 7 == 0) ? 0.0 : value);
+            }
+        }
+        return data;
+    }
+
+    private static float[][] createGaussian(final Random random, final int size) {
+        final float[][] data = new float[size][size];
+        final double cx = 0.5 * size + 4.0 * (random.nextDouble() - 0.5);
+        final double cy = 0.5 * size + 4.0 * (random.nextDouble() - 0.5);
+        final double f = -0.5 / (10.0 * 10.0);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final double dx = x - cx;
+                final double dy = y - cy;
+                data[y][x] = (float) Math.exp(f * (dx * dx + dy * dy));
+            }
+        }
+        return data;
+    }
+
+    private static float[][] copy(final float[][] data) {
+        final float[][] copy = new float[data.length][];
+        for (int y = 0; y < data.length; y++) {
+            copy[y] = data[y].clone();
+        }
+        return copy;
+    }
+}
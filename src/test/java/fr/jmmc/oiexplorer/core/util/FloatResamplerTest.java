@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oiexplorer.core.util;
+
+import fr.jmmc.oitools.processing.Resampler;
+import fr.jmmc.oitools.processing.Resampler.Filter;
+import fr.jmmc.oitools.util.ArrayConvert;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the FloatResampler to the oitools Resampler (reference)
+ * @author bourgesl
+ */
+public class FloatResamplerTest {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(FloatResamplerTest.class.getName());
+    /** tested filters */
+    private static final Filter[] FILTERS = new Filter[]{Filter.FILTER_BOX, Filter.FILTER_TRIANGLE, Filter.FILTER_MITCHELL,
+                                                         Filter.FILTER_LANCZOS2, Filter.FILTER_LANCZOS3};
+    /** max error relative to the image maximum (all pixels, float precision) */
+    private static final double TOLERANCE = 1e-5;
+    /** float precision (normalized weights) */
+    private static final double EPSILON = 1e-5;
+
+    @Test
+    public void testUpsampling() {
+        for (Filter filter : FILTERS) {
+            compare(createGaussian(64, 16.0), 64, 128, filter);
+        }
+    }
+
+    @Test
+    public void testEdgeReflection() {
+        for (Filter filter : FILTERS) {
+            // off-center gaussian: large values at the image edges
+            compare(createGaussian(64, 8.0, 4.0), 64, 160, filter);
+            compare(createGaussian(128, 8.0, 120.0), 128, 48, filter);
+        }
+    }
+
+    @Test
+    public void testDownsampling() {
+        for (Filter filter : FILTERS) {
+            // kernel widened (scale = 2 and 4):
+            compare(createGaussian(128, 16.0), 128, 64, filter);
+            compare(createGaussian(256, 32.0), 256, 64, filter);
+        }
+    }
+
+    @Test
+    public void testEdges() {
+        for (Filter filter : FILTERS) {
+            // constant image: edge pixels reflected (weights folded into the mirrored pixels) must stay constant:
+            for (int newSize : new int[]{7, 32, 48, 100}) {
+                final float[][] output = FloatResampler.filter(createConstant(32, 3f), 32, 32, newSize, newSize, filter, true);
+
+                for (int j = 0; j < newSize; j++) {
+                    for (int i = 0; i < newSize; i++) {
+                        Assert.assertEquals(filter + " [" + newSize + "] @ (" + i + ", " + j + ")", 3.0, output[j][i], 3.0 * EPSILON);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKernelWidening() {
+        for (Filter filter : FILTERS) {
+            // 1 pixel checkerboard (Nyquist frequency): the widened kernel removes it when downsampling
+            final int size = 128;
+            final float[][] data = new float[size][size];
+            for (int j = 0; j < size; j++) {
+                for (int i = 0; i < size; i++) {
+                    data[j][i] = ((i + j) % 2 == 0) ? 2f : 0f;
+                }
+            }
+            final float[][] output = FloatResampler.filter(data, size, size, 32, 32, filter, true);
+
+            // ignore edges (reflected checkerboard):
+            for (int j = 2; j < 30; j++) {
+                for (int i = 2; i < 30; i++) {
+                    Assert.assertEquals(filter + " @ (" + i + ", " + j + ")", 1.0, output[j][i], 0.1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPositiveFlux() {
+        for (Filter filter : FILTERS) {
+            // sharp edge: negative lobes are removed when only positive flux is requested
+            final int size = 32;
+            final float[][] data = new float[size][size];
+            for (int j = 0; j < size; j++) {
+                for (int i = size / 2; i < size; i++) {
+                    data[j][i] = 1f;
+                }
+            }
+            final float[][] output = FloatResampler.filter(data, size, size, 3 * size, 3 * size, filter, true);
+
+            for (float[] row : output) {
+                for (float value : row) {
+                    Assert.assertTrue(filter + ": negative value " + value, value >= 0f);
+                }
+            }
+        }
+    }
+
+    private static void compare(final float[][] data, final int size, final int newSize, final Filter filter) {
+        final float[][] output = FloatResampler.filter(data, size, size, newSize, newSize, filter, true);
+
+        final double[][] ref = Resampler.filter(ArrayConvert.toDoubles(size, size, data), new double[newSize][newSize], filter, true);
+
+        Assert.assertEquals(newSize, output.length);
+        Assert.assertEquals(newSize, output[0].length);
+
+        double max = 0.0;
+        for (double[] row : ref) {
+            for (double value : row) {
+                max = Math.max(max, value);
+            }
+        }
+
+        // compare all pixels (including edges):
+        double maxErr = 0.0;
+        for (int j = 0; j < newSize; j++) {
+            for (int i = 0; i < newSize; i++) {
+                maxErr = Math.max(maxErr, Math.abs(output[j][i] - ref[j][i]));
+            }
+        }
+        logger.info("compare: {} [{} -> {}]: max error = {} (max = {})", filter, size, newSize, maxErr, max);
+
+        Assert.assertTrue(filter + " [" + size + " -> " + newSize + "]: max error = " + maxErr,
+                maxErr <= TOLERANCE * max);
+
+        // flux is preserved (normalized weights):
+        Assert.assertEquals(filter + " [" + size + " -> " + newSize + "]: mean",
+                mean(ref), mean(ArrayConvert.toDoubles(newSize, newSize, output)), TOLERANCE * max);
+    }
+
+    private static float[][] createGaussian(final int size, final double sigma) {
+        return createGaussian(size, sigma, 0.5 * (size - 1));
+    }
+
+    private static float[][] createGaussian(final int size, final double sigma, final double c) {
+        final float[][] data = new float[size][size];
+        final double f = -0.5 / (sigma * sigma);
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                final double dx = i - c;
+                final double dy = j - c;
+                data[j][i] = (float) Math.exp(f * (dx * dx + dy * dy));
+            }
+        }
+        return data;
+    }
+
+    private static float[][] createConstant(final int size, final float value) {
+        final float[][] data = new float[size][size];
+        for (float[] row : data) {
+            Arrays.fill(row, value);
+        }
+        return data;
+    }
+
+    private static double mean(final double[][] data) {
+        double sum = 0.0;
+        int n = 0;
+        for (double[] row : data) {
+            for (double value : row) {
+                sum += value;
+                n++;
+            }
+        }
+        return sum / n;
+    }
+}